@@ -7,6 +7,7 @@ import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.session.SessionManager;
 import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
+import com.yirankuma.yrdatabase.core.cache.KeyLayout;
 import lombok.Getter;
 import org.allaymc.api.plugin.Plugin;
 import org.allaymc.api.registry.Registries;
@@ -17,6 +18,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.util.ArrayList;
 
 /**
  * YRDatabase plugin for Allay server.
@@ -140,6 +142,11 @@ public class YRDatabaseAllay extends Plugin {
         cacheConfig.getPool().setMaxTotal(config.getInt("cache.pool.maxTotal", 20));
         cacheConfig.getPool().setMaxIdle(config.getInt("cache.pool.maxIdle", 10));
         cacheConfig.getPool().setMinIdle(config.getInt("cache.pool.minIdle", 2));
+        cacheConfig.getCluster().setEnabled(config.getBoolean("cache.cluster.enabled", false));
+        cacheConfig.getCluster().setNodes(new ArrayList<>(config.getStringList("cache.cluster.nodes")));
+        cacheConfig.getCluster().setPendingShards(config.getInt("cache.cluster.pendingShards", 16));
+        cacheConfig.getCluster().setReplicaReads(config.getBoolean("cache.cluster.replicaReads", false));
+        cacheConfig.setReplicas(new ArrayList<>(config.getStringList("cache.replicas")));
 
         // Persist config
         DatabaseConfig.PersistConfig persistConfig = dbConfig.getPersist();
@@ -154,6 +161,13 @@ public class YRDatabaseAllay extends Plugin {
         mysqlConfig.setUsername(config.getString("persist.mysql.username", "root"));
         mysqlConfig.setPassword(config.getString("persist.mysql.password", ""));
         mysqlConfig.setTimezone(config.getString("persist.mysql.timezone", "Asia/Shanghai"));
+        mysqlConfig.setReplicas(new ArrayList<>(config.getStringList("persist.mysql.replicas")));
+        mysqlConfig.setReplicaPoolSize(config.getInt("persist.mysql.replicaPoolSize", 4));
+        mysqlConfig.setReplicaCooldownMillis(config.getLong("persist.mysql.replicaCooldownMillis", 30000));
+        mysqlConfig.getSharding().setEnabled(config.getBoolean("persist.mysql.sharding.enabled", false));
+        mysqlConfig.getSharding().setShards(new ArrayList<>(config.getStringList("persist.mysql.sharding.shards")));
+        mysqlConfig.getSharding().setPreviousShardCount(config.getInt("persist.mysql.sharding.previousShardCount", 0));
+        mysqlConfig.getSharding().setMigrationBatchSize(config.getInt("persist.mysql.sharding.migrationBatchSize", 500));
         mysqlConfig.getPool().setMaxSize(config.getInt("persist.mysql.pool.maxSize", 10));
         mysqlConfig.getPool().setMinIdle(config.getInt("persist.mysql.pool.minIdle", 2));
         mysqlConfig.getPool().setConnectionTimeout(config.getLong("persist.mysql.pool.connectionTimeout", 30000));
@@ -168,27 +182,102 @@ public class YRDatabaseAllay extends Plugin {
         }
         persistConfig.getSqlite().setFile(sqlitePath);
 
+        // Write spool
+        DatabaseConfig.PersistConfig.SpoolConfig spoolConfig = persistConfig.getSpool();
+        spoolConfig.setEnabled(config.getBoolean("persist.spool.enabled", true));
+        String spoolPath = config.getString("persist.spool.directory", "spool");
+        if (!spoolPath.startsWith("/") && !spoolPath.contains(":")) {
+            spoolPath = new File(dataFolder, spoolPath).getAbsolutePath();
+        }
+        spoolConfig.setDirectory(spoolPath);
+        spoolConfig.setMaxSegmentBytes(config.getLong("persist.spool.maxSegmentBytes", 16777216));
+        spoolConfig.setFsync(config.getBoolean("persist.spool.fsync", true));
+        spoolConfig.setReplayBatchSize(config.getInt("persist.spool.replayBatchSize", 200));
+        spoolConfig.setReplayIntervalSeconds(config.getInt("persist.spool.replayIntervalSeconds", 5));
+
+        // Cold-data tiering
+        DatabaseConfig.PersistConfig.TieringConfig tieringConfig = persistConfig.getTiering();
+        tieringConfig.setEnabled(config.getBoolean("persist.tiering.enabled", false));
+        tieringConfig.setTables(new ArrayList<>(config.getStringList("persist.tiering.tables")));
+        tieringConfig.setInactiveDays(config.getInt("persist.tiering.inactiveDays", 90));
+        tieringConfig.setBatchSize(config.getInt("persist.tiering.batchSize", 500));
+        tieringConfig.setIntervalMinutes(config.getInt("persist.tiering.intervalMinutes", 60));
+        tieringConfig.setAccessFlushSeconds(config.getInt("persist.tiering.accessFlushSeconds", 60));
+
         // Caching
         DatabaseConfig.CachingConfig cachingConfig = dbConfig.getCaching();
         cachingConfig.setDefaultTTL(config.getLong("caching.defaultTTL", 3600));
         cachingConfig.setPlayerDataTTL(config.getLong("caching.playerDataTTL", 7200));
+        cachingConfig.setTtlJitter(config.getDouble("caching.ttlJitter", 0.1));
+        cachingConfig.setTableTTLs(new ArrayList<>(config.getStringList("caching.tableTTLs")));
+        cachingConfig.setAdaptiveTTL(config.getBoolean("caching.adaptiveTTL", false));
+        cachingConfig.setAdaptiveHotAccesses(config.getInt("caching.adaptiveHotAccesses", 16));
+        cachingConfig.setAdaptiveMinFactor(config.getDouble("caching.adaptiveMinFactor", 0.5));
+        cachingConfig.setAdaptiveMaxFactor(config.getDouble("caching.adaptiveMaxFactor", 2.0));
+        cachingConfig.setAdaptiveSketchWidth(config.getInt("caching.adaptiveSketchWidth", 16384));
         cachingConfig.setAutoRefresh(config.getBoolean("caching.autoRefresh", true));
         cachingConfig.setRefreshThreshold(config.getLong("caching.refreshThreshold", 300));
         cachingConfig.setAutoSyncEnabled(config.getBoolean("caching.autoSyncEnabled", true));
         cachingConfig.setAutoSyncIntervalSeconds(config.getInt("caching.autoSyncIntervalSeconds", 300));
         cachingConfig.setSweepIntervalSeconds(config.getInt("caching.sweepIntervalSeconds", 30));
+        cachingConfig.setLocalSweep(config.getBoolean("caching.localSweep", true));
+        cachingConfig.setOrphanScanIntervalSeconds(config.getInt("caching.orphanScanIntervalSeconds", 120));
+        cachingConfig.setWheelTickMillis(config.getLong("caching.wheelTickMillis", 1000));
+        cachingConfig.setOwnershipLeases(config.getBoolean("caching.ownershipLeases", true));
+        cachingConfig.setLeaseTTLSeconds(config.getInt("caching.leaseTTLSeconds", 30));
+        cachingConfig.setCounterFlushIntervalSeconds(config.getInt("caching.counterFlushIntervalSeconds", 5));
+        cachingConfig.setCounterFlushBatchSize(config.getInt("caching.counterFlushBatchSize", 500));
+        cachingConfig.setLeaderboardFlushIntervalSeconds(config.getInt("caching.leaderboardFlushIntervalSeconds", 5));
+        cachingConfig.setChangeFeedEnabled(config.getBoolean("caching.changeFeedEnabled", false));
+        cachingConfig.setChangeFeedWindowMillis(config.getLong("caching.changeFeedWindowMillis", 100));
+        cachingConfig.setNegativeCacheEnabled(config.getBoolean("caching.negativeCacheEnabled", false));
+        cachingConfig.setNegativeCacheTTL(config.getLong("caching.negativeCacheTTL", 30));
+        cachingConfig.setBloomFilterEnabled(config.getBoolean("caching.bloomFilterEnabled", false));
+        cachingConfig.setBloomExpectedKeys(config.getLong("caching.bloomExpectedKeys", 1000000));
+        cachingConfig.setBloomFalsePositiveRate(config.getDouble("caching.bloomFalsePositiveRate", 0.01));
+        cachingConfig.setBloomRebuildIntervalSeconds(config.getLong("caching.bloomRebuildIntervalSeconds", 86400));
 
         // Session
         DatabaseConfig.SessionConfig sessionConfig = dbConfig.getSession();
         sessionConfig.setTimeout(config.getLong("session.timeout", 300000));
         sessionConfig.setHeartbeatInterval(config.getLong("session.heartbeatInterval", 10000));
         sessionConfig.setMessageExpiry(config.getLong("session.messageExpiry", 30000));
+        sessionConfig.setTransport(config.getString("session.transport", "pubsub"));
+        sessionConfig.setServerId(config.getString("session.serverId", ""));
+        sessionConfig.setStreamBatchSize(config.getInt("session.streamBatchSize", 64));
+        sessionConfig.setStreamPollIntervalMillis(config.getLong("session.streamPollIntervalMillis", 200));
+        sessionConfig.setStreamCatchUpLimit(config.getInt("session.streamCatchUpLimit", 1000));
+        sessionConfig.setStreamCatchUpWindowMillis(config.getLong("session.streamCatchUpWindowMillis", 600000));
+        sessionConfig.setDispatchThreads(config.getInt("session.dispatchThreads", 4));
+        sessionConfig.setDispatchQueueSize(config.getInt("session.dispatchQueueSize", 1024));
 
         // Advanced
         DatabaseConfig.AdvancedConfig advancedConfig = dbConfig.getAdvanced();
         advancedConfig.setAsyncExecutorSize(config.getInt("advanced.asyncExecutorSize", 4));
         advancedConfig.setEnableMetrics(config.getBoolean("advanced.enableMetrics", false));
         advancedConfig.setDebugMode(config.getBoolean("advanced.debugMode", false));
+        advancedConfig.setExecutor(config.getString("advanced.executor", "fixed"));
+        advancedConfig.setHealthCheckIntervalSeconds(config.getLong("advanced.healthCheckIntervalSeconds", 15));
+        DatabaseConfig.AdvancedConfig.CircuitBreakerConfig breakerConfig = advancedConfig.getCircuitBreaker();
+        breakerConfig.setEnabled(config.getBoolean("advanced.circuitBreaker.enabled", true));
+        breakerConfig.setWindowSize(config.getInt("advanced.circuitBreaker.windowSize", 50));
+        breakerConfig.setMinimumCalls(config.getInt("advanced.circuitBreaker.minimumCalls", 20));
+        breakerConfig.setFailureRateThreshold(config.getDouble("advanced.circuitBreaker.failureRateThreshold", 0.5));
+        breakerConfig.setSlowCallThresholdMillis(config.getLong("advanced.circuitBreaker.slowCallThresholdMillis", 1000));
+        breakerConfig.setSlowCallRateThreshold(config.getDouble("advanced.circuitBreaker.slowCallRateThreshold", 0.8));
+        breakerConfig.setCallTimeoutMillis(config.getLong("advanced.circuitBreaker.callTimeoutMillis", 3000));
+        breakerConfig.setOpenMillis(config.getLong("advanced.circuitBreaker.openMillis", 2000));
+        breakerConfig.setMaxOpenMillis(config.getLong("advanced.circuitBreaker.maxOpenMillis", 60000));
+        breakerConfig.setHalfOpenCalls(config.getInt("advanced.circuitBreaker.halfOpenCalls", 1));
+        DatabaseConfig.AdvancedConfig.TransferConfig transferConfig = advancedConfig.getTransfer();
+        String transferPath = config.getString("advanced.transfer.directory", "backups");
+        if (!transferPath.startsWith("/") && !transferPath.contains(":")) {
+            transferPath = new File(dataFolder, transferPath).getAbsolutePath();
+        }
+        transferConfig.setDirectory(transferPath);
+        transferConfig.setParallelism(config.getInt("advanced.transfer.parallelism", 4));
+        transferConfig.setChunkRows(config.getInt("advanced.transfer.chunkRows", 50000));
+        transferConfig.setBatchSize(config.getInt("advanced.transfer.batchSize", 1000));
 
         return dbConfig;
     }
@@ -229,14 +318,13 @@ public class YRDatabaseAllay extends Plugin {
         Server.getInstance().getEventBus().registerListener(playerEventListener);
 
         // Tell the database core how to check if a player is online.
-        // cacheKey format: "yrdatabase:{table}:{playerId}"
-        // Extract the last segment and test it against the online player set.
+        // cacheKey format: "yrdatabase:<table>:<playerId>" ("<table>:{<playerId>}" in cluster mode)
+        // Extract the player id and test it against the online player set.
         if (databaseManagerImpl != null) {
+            KeyLayout keyLayout = databaseManagerImpl.getKeyLayout();
             databaseManagerImpl.setOnlineChecker(cacheKey -> {
-                int last = cacheKey.lastIndexOf(':');
-                if (last < 0) return false;
-                String playerId = cacheKey.substring(last + 1);
-                return playerEventListener.isOnline(playerId);
+                String[] parts = keyLayout.parse(cacheKey);
+                return parts != null && playerEventListener.isOnline(parts[1]);
             });
         }
 
@@ -4,12 +4,21 @@ import com.yirankuma.yrdatabase.allay.YRDatabaseAllay;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.DatabaseStatus;
 import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.concurrent.StripedDispatcher;
+import com.yirankuma.yrdatabase.core.session.SessionEventManagerImpl;
+import com.yirankuma.yrdatabase.core.provider.sharded.ReshardStats;
+import com.yirankuma.yrdatabase.core.cache.LocalSweepStats;
+import com.yirankuma.yrdatabase.core.spool.SpoolStats;
+import com.yirankuma.yrdatabase.core.tier.TieringStats;
+import com.yirankuma.yrdatabase.core.transfer.TransferStats;
 import org.allaymc.api.command.Command;
 import org.allaymc.api.command.CommandSender;
 import org.allaymc.api.command.tree.CommandTree;
 import org.allaymc.api.server.Server;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -23,6 +32,10 @@ import java.util.concurrent.CompletableFuture;
  *   <li>/yrdb info - Show plugin information</li>
  *   <li>/yrdb test - Test database operations</li>
  *   <li>/yrdb stats - Show performance statistics</li>
+ *   <li>/yrdb reshard - Move rows to their shard after shards were added</li>
+ *   <li>/yrdb export [dir] [tables...] - Export the persist layer to chunk files, or resume an export</li>
+ *   <li>/yrdb import &lt;dir&gt; - Import an export into the persist layer</li>
+ *   <li>/yrdb migrate &lt;mysql|sqlite&gt; [tables...] - Copy the persist layer into the other persist type</li>
  * </ul>
  *
  * @author YiranKuma
@@ -87,6 +100,50 @@ public class YRDBCommand extends Command {
                     return context.success();
                 })
                 .root()
+                // /yrdb reshard
+                .key("reshard")
+                .permission("yrdatabase.admin.reshard")
+                .exec(context -> {
+                    reshard(context.getSender());
+                    return context.success();
+                })
+                .root()
+                // /yrdb export [dir] [tables...]
+                .key("export")
+                .permission("yrdatabase.admin.transfer")
+                .str("dir")
+                .optional()
+                .remain("tables")
+                .optional()
+                .exec(context -> {
+                    String dir = context.getResult(1);
+                    List<String> tables = context.getResult(2);
+                    exportData(context.getSender(), dir, tables);
+                    return context.success();
+                })
+                .root()
+                // /yrdb import <dir>
+                .key("import")
+                .permission("yrdatabase.admin.transfer")
+                .str("dir")
+                .exec(context -> {
+                    importData(context.getSender(), context.getResult(1));
+                    return context.success();
+                })
+                .root()
+                // /yrdb migrate <mysql|sqlite> [tables...]
+                .key("migrate")
+                .permission("yrdatabase.admin.transfer")
+                .str("type")
+                .remain("tables")
+                .optional()
+                .exec(context -> {
+                    String type = context.getResult(1);
+                    List<String> tables = context.getResult(2);
+                    migrateData(context.getSender(), type, tables);
+                    return context.success();
+                })
+                .root()
                 // /yrdb (no args - show help)
                 .exec(context -> {
                     showHelp(context.getSender());
@@ -106,6 +163,10 @@ public class YRDBCommand extends Command {
         sender.sendMessage("  §b/yrdb info   §7- §f显示插件信息");
         sender.sendMessage("  §b/yrdb test   §7- §f测试数据库读写操作");
         sender.sendMessage("  §b/yrdb stats  §7- §f查看性能统计数据");
+        sender.sendMessage("  §b/yrdb reshard §7- §f分片扩容后迁移数据 / 查看迁移进度");
+        sender.sendMessage("  §b/yrdb export [目录] [表...] §7- §f导出持久层数据 / 继续未完成的导出");
+        sender.sendMessage("  §b/yrdb import <目录> §7- §f导入导出的数据");
+        sender.sendMessage("  §b/yrdb migrate <mysql|sqlite> [表...] §7- §f将数据迁移到另一种持久层");
         sender.sendMessage("");
         sender.sendMessage("§7别名: §f/yrdatabase");
         sender.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -135,6 +196,9 @@ public class YRDBCommand extends Command {
             sender.sendMessage("§7    Status: " + cacheState);
             sender.sendMessage("§7    Host: §f" + cacheStatus.getHost() + ":" + cacheStatus.getPort());
             sender.sendMessage("§7    Latency: §f" + cacheStatus.getLatencyMs() + "ms");
+            if (!"CLOSED".equals(cacheStatus.getCircuitState())) {
+                sender.sendMessage("§c    Circuit: " + cacheStatus.getCircuitState() + " (bypassing cache)");
+            }
             if (cacheStatus.getErrorMessage() != null) {
                 sender.sendMessage("§c    Error: " + cacheStatus.getErrorMessage());
             }
@@ -156,6 +220,19 @@ public class YRDBCommand extends Command {
                 sender.sendMessage("§7    File: §f" + persistStatus.getHost());
             }
             sender.sendMessage("§7    Latency: §f" + persistStatus.getLatencyMs() + "ms");
+            if (!"CLOSED".equals(persistStatus.getCircuitState())) {
+                sender.sendMessage("§c    Circuit: " + persistStatus.getCircuitState() + " (writes buffered in Redis)");
+            }
+            if (persistStatus.getPoolTotal() >= 0) {
+                sender.sendMessage("§7    Pool: §f" + persistStatus.getPoolActive() + " active / "
+                        + persistStatus.getPoolIdle() + " idle / " + persistStatus.getPoolTotal() + " total, "
+                        + persistStatus.getPoolWaiting() + " waiting");
+            }
+            if (persistStatus.getReplicas() > 0) {
+                sender.sendMessage("§7    Replicas: §f" + persistStatus.getReplicasHealthy() + "/" + persistStatus.getReplicas()
+                        + " §7healthy, §f" + persistStatus.getReplicaReads() + " §7reads, §f"
+                        + persistStatus.getReplicaFallbacks() + " §7fallbacks");
+            }
             if (persistStatus.getErrorMessage() != null) {
                 sender.sendMessage("§c    Error: " + persistStatus.getErrorMessage());
             }
@@ -168,6 +245,15 @@ public class YRDBCommand extends Command {
         sender.sendMessage("");
         sender.sendMessage("§7  Cached Entries: §f" + status.getCachedEntries());
         sender.sendMessage("§7  Pending Persist: §f" + status.getPendingPersist());
+        if (status.getOldestPendingScore() > 0) {
+            long remaining = status.getOldestPendingScore() - System.currentTimeMillis() / 1000L;
+            sender.sendMessage("§7  Oldest Pending Expires In: §f" + remaining + "s");
+        }
+        if (status.getSampledAt() > 0) {
+            sender.sendMessage("§8  Sampled " + (System.currentTimeMillis() - status.getSampledAt()) / 1000 + "s ago");
+        } else {
+            sender.sendMessage("§8  Health sample not taken yet");
+        }
     }
 
     private void reloadConfig(CommandSender sender) {
@@ -298,6 +384,109 @@ public class YRDBCommand extends Command {
             });
     }
 
+    private void reshard(CommandSender sender) {
+        DatabaseManager db = YRDatabaseAllay.getDatabaseManager();
+        if (!(db instanceof DatabaseManagerImpl)) {
+            sender.sendMessage("§c  Database not initialized!");
+            return;
+        }
+        DatabaseManagerImpl impl = (DatabaseManagerImpl) db;
+        ReshardStats current = impl.getReshardStats();
+        if (current == null) {
+            sender.sendMessage("§c  Persist layer is not sharded (persist.mysql.sharding)");
+            return;
+        }
+        if (current.isRunning()) {
+            sender.sendMessage("§e[YRDatabase] §fResharding in progress: §a" + current.getScanned() + " §fscanned, §a"
+                    + current.getMoved() + " §fmoved, §a" + current.getSuperseded() + " §fsuperseded, §c"
+                    + current.getFailed() + " §ffailed");
+            return;
+        }
+
+        sender.sendMessage("§e[YRDatabase] §fResharding started, you will be notified when it finishes...");
+        impl.reshard().whenComplete((stats, error) -> {
+            if (error != null) {
+                sender.sendMessage("§c  Resharding failed: " + error.getMessage());
+                return;
+            }
+            sender.sendMessage("§a  ✓ Resharding finished §7(" + (stats.getFinishedAt() - stats.getStartedAt()) + "ms)");
+            sender.sendMessage("§7    Tables: §f" + stats.getTables() + "§7, Scanned: §f" + stats.getScanned()
+                    + "§7, Moved: §f" + stats.getMoved() + "§7, Superseded: §f" + stats.getSuperseded()
+                    + "§7, Failed: §f" + stats.getFailed());
+            if (stats.getFailed() > 0) {
+                sender.sendMessage("§e    Some rows could not be moved, run /yrdb reshard again later");
+            } else {
+                sender.sendMessage("§e    Set previousShardCount back to 0 and restart all servers");
+            }
+        });
+    }
+
+    private void exportData(CommandSender sender, String dir, List<String> tables) {
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        sender.sendMessage("§e[YRDatabase] §fExport started, you will be notified when it finishes...");
+        reportTransfer(sender, "Export", impl.exportData(dir == null || dir.isEmpty() ? null : dir,
+                tables != null ? tables : List.of()));
+    }
+
+    private void importData(CommandSender sender, String dir) {
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        sender.sendMessage("§e[YRDatabase] §fImport started, you will be notified when it finishes...");
+        reportTransfer(sender, "Import", impl.importData(dir));
+    }
+
+    private void migrateData(CommandSender sender, String type, List<String> tables) {
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        sender.sendMessage("§e[YRDatabase] §fMigration to " + type + " started, you will be notified when it finishes...");
+        reportTransfer(sender, "Migration", impl.migrateData(type, tables != null ? tables : List.of()));
+    }
+
+    /**
+     * Shows the progress and returns null while an export, import or migration is running.
+     */
+    private DatabaseManagerImpl transferManager(CommandSender sender) {
+        DatabaseManager db = YRDatabaseAllay.getDatabaseManager();
+        if (!(db instanceof DatabaseManagerImpl)) {
+            sender.sendMessage("§c  Database not initialized!");
+            return null;
+        }
+        DatabaseManagerImpl impl = (DatabaseManagerImpl) db;
+        TransferStats current = impl.getTransferStats();
+        if (current != null && current.isRunning()) {
+            sender.sendMessage("§e[YRDatabase] §f" + current.getOperation() + " in progress: §a" + current.getChunksDone()
+                    + "/" + current.getChunks() + " §fchunks, §a" + current.getRows() + " §frows, §c"
+                    + current.getChunksFailed() + " §ffailed");
+            sender.sendMessage("§7    Location: §f" + current.getLocation());
+            return null;
+        }
+        return impl;
+    }
+
+    private void reportTransfer(CommandSender sender, String label, CompletableFuture<TransferStats> future) {
+        future.whenComplete((stats, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage("§c  " + label + " failed: " + cause.getMessage());
+                return;
+            }
+            sender.sendMessage("§a  ✓ " + label + " finished §7(" + (stats.getFinishedAt() - stats.getStartedAt()) + "ms)");
+            sender.sendMessage("§7    Tables: §f" + stats.getTables() + "§7, Chunks: §f" + stats.getChunksDone() + "/"
+                    + stats.getChunks() + "§7, Rows: §f" + stats.getRows() + "§7, Failed: §f" + stats.getChunksFailed());
+            sender.sendMessage("§7    Location: §f" + stats.getLocation());
+            if (stats.getChunksFailed() > 0) {
+                sender.sendMessage("§e    Some chunks failed, run the same command again to resume");
+            }
+        });
+    }
+
     private void showStats(CommandSender sender) {
         sender.sendMessage("§e[YRDatabase] §fPerformance Statistics:");
 
@@ -334,6 +523,70 @@ public class YRDBCommand extends Command {
             sender.sendMessage("§e  Cache Statistics:");
             sender.sendMessage("§7    Cached Entries: §f" + status.getCachedEntries());
             sender.sendMessage("§7    Pending Writes: §f" + status.getPendingPersist());
+            sender.sendMessage("§7    Read Loads: §f" + impl.getReadFlight().getLoads()
+                    + " §7(coalesced " + impl.getReadFlight().getShared() + ")");
+            sender.sendMessage("§7    Negative Cache Hits: §f" + impl.getNegativeCacheHits());
+            impl.getBloomFilter().ifPresent(bloom -> sender.sendMessage("§7    Bloom Filter: §f"
+                    + bloom.getNegatives() + " §7absent of §f" + bloom.getChecks() + " §7checks"));
+
+            // JDBC executor: queue wait vs execution time
+            ExecutorStats executorStats = impl.getPersistExecutorStats();
+            if (executorStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  JDBC Executor (" + executorStats.getMode() + ", " + executorStats.getConcurrency() + "):");
+                sender.sendMessage("§7    Active / Waiting: §f" + executorStats.getActive() + " / " + executorStats.getWaiting());
+                sender.sendMessage("§7    Completed: §f" + executorStats.getCompleted());
+                sender.sendMessage("§7    Queue Wait: §f" + String.format("%.2f", executorStats.getAvgQueueWaitMs())
+                        + "ms §7(max " + String.format("%.2f", executorStats.getMaxQueueWaitMs()) + "ms)");
+                sender.sendMessage("§7    Execution: §f" + String.format("%.2f", executorStats.getAvgExecutionMs())
+                        + "ms §7(max " + String.format("%.2f", executorStats.getMaxExecutionMs()) + "ms)");
+            }
+
+            // Local write spool
+            SpoolStats spoolStats = impl.getSpoolStats();
+            if (spoolStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  Write Spool:");
+                sender.sendMessage("§7    Pending: §f" + spoolStats.getPendingKeys() + " §7keys, §f"
+                        + spoolStats.getPendingBytes() + " §7bytes in §f" + spoolStats.getSegments() + " §7segments");
+                sender.sendMessage("§7    Appended / Replayed: §f" + spoolStats.getAppended() + " / " + spoolStats.getReplayed()
+                        + " §7(superseded " + spoolStats.getSuperseded() + ", dead-lettered " + spoolStats.getDeadLettered() + ")");
+                sender.sendMessage("§7    Replay Rate: §f" + String.format("%.1f", spoolStats.getReplayRate()) + "/s");
+            }
+
+            // Local timing-wheel sweep
+            LocalSweepStats sweepStats = impl.getLocalSweepStats();
+            if (sweepStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  Local Sweep:");
+                sender.sendMessage("§7    Owned Keys: §f" + sweepStats.getOwnedKeys());
+                sender.sendMessage("§7    Fired / Orphans Found: §f" + sweepStats.getFired() + " / " + sweepStats.getOrphansFound());
+            }
+
+            // Cold-data tiering
+            TieringStats tieringStats = impl.getTieringStats();
+            if (tieringStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  Cold Tier:");
+                sender.sendMessage("§7    Archived / Restored: §f" + tieringStats.getArchived() + " / " + tieringStats.getRestored());
+                sender.sendMessage("§7    Pending Access Times: §f" + tieringStats.getPendingAccesses());
+                if (tieringStats.getLastPassAt() > 0) {
+                    sender.sendMessage("§7    Last Pass: §f" + tieringStats.getLastPassArchived() + " §7rows, §f"
+                            + (System.currentTimeMillis() - tieringStats.getLastPassAt()) / 1000 + "s §7ago");
+                }
+            }
+
+            // Session event dispatch
+            if (YRDatabaseAllay.getSessionManager() instanceof SessionEventManagerImpl) {
+                StripedDispatcher dispatcher = ((SessionEventManagerImpl) YRDatabaseAllay.getSessionManager()).getDispatcher();
+                if (dispatcher != null) {
+                    sender.sendMessage("");
+                    sender.sendMessage("§e  Session Events:");
+                    sender.sendMessage("§7    Dispatched: §f" + dispatcher.getDispatched());
+                    sender.sendMessage("§7    Queued: §f" + dispatcher.getQueued() + " §7(max " + dispatcher.getMaxQueueDepth() + ")");
+                    sender.sendMessage("§7    Dropped (queue full): §f" + dispatcher.getRejected());
+                }
+            }
             
             // JVM Metrics
             sender.sendMessage("");
@@ -3,7 +3,9 @@ package com.yirankuma.yrdatabase.allay.listener;
 import com.yirankuma.yrdatabase.allay.YRDatabaseAllay;
 import com.yirankuma.yrdatabase.allay.event.AllayPlayerDataInitEvent;
 import com.yirankuma.yrdatabase.allay.event.AllayPlayerDataSaveEvent;
+import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.event.SessionReason;
+import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
 import org.allaymc.api.eventbus.EventHandler;
 import org.allaymc.api.eventbus.event.server.PlayerJoinEvent;
 import org.allaymc.api.eventbus.event.server.PlayerQuitEvent;
@@ -39,6 +41,12 @@ public class PlayerEventListener {
         onlinePlayers.add(playerId);
         joinTimes.put(playerId, System.currentTimeMillis());
 
+        // Claim the ownership lease so this server persists the player's data without locking
+        DatabaseManager db = YRDatabaseAllay.getDatabaseManager();
+        if (db instanceof DatabaseManagerImpl) {
+            ((DatabaseManagerImpl) db).playerJoined(playerId);
+        }
+
         // Determine session reason
         // In standalone mode, we treat all joins as LOCAL_JOIN
         // In cluster mode with WaterdogPE, this would check against real online players
@@ -87,6 +95,12 @@ public class PlayerEventListener {
         // Cleanup
         onlinePlayers.remove(playerId);
         joinTimes.remove(playerId);
+
+        // Persist what this server still owns and hand the lease over
+        DatabaseManager db = YRDatabaseAllay.getDatabaseManager();
+        if (db instanceof DatabaseManagerImpl) {
+            ((DatabaseManagerImpl) db).playerLeft(playerId);
+        }
     }
 
     /**
@@ -5,9 +5,11 @@ import com.yirankuma.yrdatabase.allay.event.AllayPlayerRealJoinEvent;
 import com.yirankuma.yrdatabase.allay.event.AllayPlayerRealQuitEvent;
 import com.yirankuma.yrdatabase.allay.event.AllayPlayerTransferEvent;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.session.SessionEventData;
 import com.yirankuma.yrdatabase.api.session.SessionEventListener;
 import com.yirankuma.yrdatabase.api.session.SessionManager;
+import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
 import com.yirankuma.yrdatabase.core.session.SessionEventManagerImpl;
 import org.allaymc.api.player.Player;
 import org.allaymc.api.server.Server;
@@ -45,7 +47,10 @@ public class AllaySessionBridge implements SessionEventListener {
         // Create core session manager with lazy cache provider access
         this.sessionManager = new SessionEventManagerImpl(
             () -> dbManager.getCacheProvider().orElse(null),
-            proxyMode
+            proxyMode,
+            dbManager instanceof DatabaseManagerImpl
+                ? ((DatabaseManagerImpl) dbManager).getConfig().getSession()
+                : new DatabaseConfig.SessionConfig()
         );
 
         // Register ourselves as a listener
@@ -1,5 +1,7 @@
 package com.yirankuma.yrdatabase.api;
 
+import com.yirankuma.yrdatabase.api.feed.ChangeListener;
+import com.yirankuma.yrdatabase.api.feed.Subscription;
 import com.yirankuma.yrdatabase.api.provider.CacheProvider;
 import com.yirankuma.yrdatabase.api.provider.PersistProvider;
 
@@ -12,6 +14,9 @@ import java.util.function.Predicate;
  * Main database manager interface.
  * Provides unified access to cache and persistence layers.
  *
+ * <p>Methods added after the first release are default methods, so other implementations keep
+ * compiling; unless documented otherwise they fail with {@link UnsupportedOperationException}.</p>
+ *
  * @author YiranKuma
  */
 public interface DatabaseManager extends AutoCloseable {
@@ -95,6 +100,98 @@ public interface DatabaseManager extends AutoCloseable {
      */
     CompletableFuture<Boolean> ensureTable(String table, Map<String, String> schema);
 
+    // ==================== Counters ====================
+
+    /**
+     * Atomically add to a numeric column without rewriting the row. The delta is accumulated in
+     * Redis and added to the persisted row by a periodic batched flush (a missing row is created);
+     * without Redis it is added to the database directly. Concurrent increments are never lost;
+     * deltas taken by a flush stay in Redis until the database write succeeds, so a server that
+     * stops between that write and the cleanup has them added once more by the next flush.
+     *
+     * <p>A counter column should only be changed through this method: a {@link #set} of the same
+     * row replaces the column with the value it was given.</p>
+     *
+     * @param table Table name
+     * @param key   Primary key
+     * @param field Numeric column
+     * @param delta Amount to add (may be negative)
+     * @return Success status
+     */
+    default CompletableFuture<Boolean> increment(String table, String key, String field, long delta) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("increment"));
+    }
+
+    /**
+     * Atomically add a fractional amount to a numeric column ({@code HINCRBYFLOAT}).
+     *
+     * @param table Table name
+     * @param key   Primary key
+     * @param field Numeric column
+     * @param delta Amount to add (may be negative)
+     * @return Success status
+     * @see #increment(String, String, String, long)
+     */
+    default CompletableFuture<Boolean> increment(String table, String key, String field, double delta) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("increment"));
+    }
+
+    /**
+     * Current value of a counter: the stored value plus the increments not yet flushed.
+     * Exact for integers up to 2^53.
+     *
+     * @param table Table name
+     * @param key   Primary key
+     * @param field Numeric column
+     * @return Counter value (0 if the row does not exist)
+     */
+    default CompletableFuture<Double> getCounter(String table, String key, String field) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("getCounter"));
+    }
+
+    // ==================== Leaderboards ====================
+
+    /**
+     * Get a leaderboard, creating its table on first use.
+     *
+     * @param name Board name (letters, digits and underscores)
+     * @return Leaderboard instance
+     * @throws IllegalArgumentException if the name is not valid
+     */
+    default Leaderboard getLeaderboard(String name) {
+        throw new UnsupportedOperationException("getLeaderboard");
+    }
+
+    // ==================== Change Feed ====================
+
+    /**
+     * Watch all rows of a table for changes made by any sub-server.
+     *
+     * <p>Writes, deletes and {@code persistAndClear} calls are published over Redis Pub/Sub,
+     * coalesced per key over a short window. Use this instead of polling the table.
+     * Without Redis only changes made on this server are delivered.</p>
+     *
+     * @param table    Table name
+     * @param listener Listener to notify
+     * @return Subscription handle, cancel it to stop watching
+     */
+    default Subscription watch(String table, ChangeListener listener) {
+        throw new UnsupportedOperationException("watch");
+    }
+
+    /**
+     * Watch a single row for changes made by any sub-server.
+     *
+     * @param table    Table name
+     * @param key      Primary key
+     * @param listener Listener to notify
+     * @return Subscription handle, cancel it to stop watching
+     * @see #watch(String, ChangeListener)
+     */
+    default Subscription watch(String table, String key, ChangeListener listener) {
+        throw new UnsupportedOperationException("watch");
+    }
+
     // ==================== Type-safe Repository API ====================
 
     /**
@@ -164,11 +261,23 @@ public interface DatabaseManager extends AutoCloseable {
 
     /**
      * Get detailed database status.
+     * Returns the latest background sample immediately and never blocks on I/O,
+     * so it is safe to call from the server main thread.
      *
      * @return Status information
      */
     DatabaseStatus getStatus();
 
+    /**
+     * Probe all backends now and return the fresh status.
+     * Concurrent calls share the same probe.
+     *
+     * @return Future with the new status
+     */
+    default CompletableFuture<DatabaseStatus> refreshStatus() {
+        return CompletableFuture.completedFuture(getStatus());
+    }
+
     /**
      * Shutdown and cleanup resources.
      */
@@ -6,6 +6,10 @@ import lombok.Data;
 /**
  * Database connection status information.
  *
+ * <p>Snapshots are sampled in the background; {@link #getSampledAt()} tells how old the
+ * values are. A snapshot with {@code sampledAt == 0} has not been probed yet and only
+ * carries connection flags.</p>
+ *
  * @author YiranKuma
  */
 @Data
@@ -28,15 +32,26 @@ public class DatabaseStatus {
     private final ProviderStatus persistStatus;
 
     /**
-     * Number of cached entries.
+     * Number of cached entries (Redis DBSIZE, -1 if unknown).
      */
     private final long cachedEntries;
 
     /**
-     * Number of pending persistence operations.
+     * Number of pending persistence operations (size of the pending set, -1 if unknown).
      */
     private final long pendingPersist;
 
+    /**
+     * Lowest score in the pending set: epoch seconds at which the most urgent pending
+     * entry expires. 0 if the set is empty, -1 if unknown.
+     */
+    private final long oldestPendingScore;
+
+    /**
+     * Time the snapshot was taken (epoch millis), 0 if never sampled.
+     */
+    private final long sampledAt;
+
     @Data
     @Builder
     public static class ProviderStatus {
@@ -47,5 +62,40 @@ public class DatabaseStatus {
         private final int port;
         private final long latencyMs;
         private final String errorMessage;
+
+        /**
+         * Circuit breaker state: CLOSED, OPEN or HALF_OPEN. While not CLOSED, traffic bypasses this layer.
+         */
+        @Builder.Default
+        private final String circuitState = "CLOSED";
+
+        /**
+         * Connections (or JDBC executor slots for SQLite) in use / idle / total,
+         * and threads waiting for one. -1 if not applicable.
+         */
+        @Builder.Default
+        private final int poolActive = -1;
+        @Builder.Default
+        private final int poolIdle = -1;
+        @Builder.Default
+        private final int poolTotal = -1;
+        @Builder.Default
+        private final int poolWaiting = -1;
+
+        /**
+         * Configured read replicas and how many are currently in rotation (0 if none).
+         */
+        @Builder.Default
+        private final int replicas = 0;
+        @Builder.Default
+        private final int replicasHealthy = 0;
+
+        /**
+         * Reads served by replicas, and replica-eligible reads that fell back to the primary.
+         */
+        @Builder.Default
+        private final long replicaReads = 0;
+        @Builder.Default
+        private final long replicaFallbacks = 0;
     }
 }
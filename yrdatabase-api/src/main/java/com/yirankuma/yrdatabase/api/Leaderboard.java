@@ -0,0 +1,83 @@
+package com.yirankuma.yrdatabase.api;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A ranking of players by score, highest first. Ranks start at 1; equal scores are ordered by
+ * player id, descending.
+ *
+ * <p>Backed by a Redis sorted set, so submissions and rank queries cost O(log N) instead of
+ * loading and sorting the whole table. Changed scores are written to the table
+ * {@code leaderboard_<name>} by a periodic batched flush, and the sorted set is rebuilt from that
+ * table when it is missing from Redis. Without Redis every call goes to the table directly.</p>
+ *
+ * @author YiranKuma
+ */
+public interface Leaderboard {
+
+    /**
+     * Set a player's score, replacing any previous one.
+     *
+     * @param playerId Player id
+     * @param score    New score (must be finite)
+     * @return Success status
+     */
+    CompletableFuture<Boolean> submit(String playerId, double score);
+
+    /**
+     * Remove a player from the board.
+     *
+     * @param playerId Player id
+     * @return Success status
+     */
+    CompletableFuture<Boolean> remove(String playerId);
+
+    /**
+     * Score of a player.
+     *
+     * @param playerId Player id
+     * @return Score, or empty if the player is not on the board
+     */
+    CompletableFuture<Optional<Double>> scoreOf(String playerId);
+
+    /**
+     * The highest {@code n} entries.
+     *
+     * @param n Number of entries
+     * @return Entries, best first
+     */
+    CompletableFuture<List<LeaderboardEntry>> top(int n);
+
+    /**
+     * Rank of a player.
+     *
+     * @param playerId Player id
+     * @return Rank starting at 1, or empty if the player is not on the board
+     */
+    CompletableFuture<Optional<Long>> rankOf(String playerId);
+
+    /**
+     * A player's entry with up to {@code k} entries above and {@code k} below it.
+     *
+     * @param playerId Player id
+     * @param k        Number of neighbours on each side
+     * @return Entries, best first; empty if the player is not on the board
+     */
+    CompletableFuture<List<LeaderboardEntry>> around(String playerId, int k);
+
+    /**
+     * Number of players on the board.
+     *
+     * @return Size
+     */
+    CompletableFuture<Long> size();
+
+    /**
+     * Get the name of this board.
+     *
+     * @return Board name
+     */
+    String getName();
+}
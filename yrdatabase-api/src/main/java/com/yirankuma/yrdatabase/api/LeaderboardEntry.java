@@ -0,0 +1,21 @@
+package com.yirankuma.yrdatabase.api;
+
+import lombok.Data;
+
+/**
+ * A single entry of a {@link Leaderboard}.
+ *
+ * @author YiranKuma
+ */
+@Data
+public class LeaderboardEntry {
+
+    /**
+     * Rank, starting at 1.
+     */
+    private final long rank;
+
+    private final String playerId;
+
+    private final double score;
+}
@@ -0,0 +1,33 @@
+package com.yirankuma.yrdatabase.api;
+
+/**
+ * Thrown (as the cause of a failed future) when a versioned write finds that the stored version
+ * has changed since the entity was read.
+ *
+ * @author YiranKuma
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    private final String table;
+    private final String key;
+    private final long expectedVersion;
+
+    public OptimisticLockException(String table, String key, long expectedVersion) {
+        super("Version conflict on " + table + "/" + key + ": expected version " + expectedVersion);
+        this.table = table;
+        this.key = key;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -1,13 +1,20 @@
 package com.yirankuma.yrdatabase.api;
 
+import com.yirankuma.yrdatabase.api.query.Query;
+
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 /**
  * Type-safe repository for entity CRUD operations.
  *
+ * <p>Methods added after the first release are default methods, so other implementations keep
+ * compiling: {@link #load} and {@link #loadAll} return the entity unchanged (every field is read
+ * eagerly), the others fail with {@link UnsupportedOperationException}.</p>
+ *
  * @param <T> Entity type
  * @author YiranKuma
  */
@@ -45,6 +52,15 @@ public interface Repository<T> {
      */
     CompletableFuture<List<T>> findByConditions(java.util.Map<String, Object> conditions);
 
+    /**
+     * Start a fluent query with comparisons, ordering, limit, keyset pagination and projection.
+     *
+     * @return New query
+     */
+    default Query<T> query() {
+        throw new UnsupportedOperationException("query");
+    }
+
     /**
      * Save entity using default cache strategy (CACHE_FIRST).
      *
@@ -54,7 +70,9 @@ public interface Repository<T> {
     CompletableFuture<Boolean> save(T entity);
 
     /**
-     * Save entity with specific cache strategy.
+     * Save entity with specific cache strategy. An entity with a {@code @Version} field is only
+     * saved if the stored version still equals its own; its version is then incremented, otherwise
+     * the future fails with {@link OptimisticLockException}.
      *
      * @param entity   Entity to save
      * @param strategy Cache strategy
@@ -79,6 +97,58 @@ public interface Repository<T> {
      */
     CompletableFuture<Boolean> saveAll(Collection<T> entities, CacheStrategy strategy);
 
+    /**
+     * Read, modify and save an entity, retrying up to 5 times on a version conflict.
+     *
+     * @param id      Primary key value
+     * @param updater Applies the change; may modify and return its argument
+     * @return Saved entity, or empty if none exists
+     * @see #update(String, UnaryOperator, int)
+     */
+    default CompletableFuture<Optional<T>> update(String id, UnaryOperator<T> updater) {
+        return update(id, updater, 5);
+    }
+
+    /**
+     * Read, modify and save an entity. For an entity with a {@code @Version} field the save only
+     * succeeds if no one else saved it since it was read; otherwise the entity is read again and
+     * {@code updater} re-applied, so the updater must not have side effects beyond the entity.
+     * Entities without a version field are saved once, last writer wins.
+     *
+     * @param id          Primary key value
+     * @param updater     Applies the change; may modify and return its argument, or return null
+     *                    to leave the entity unchanged
+     * @param maxAttempts Attempts before failing with {@link OptimisticLockException}
+     * @return Saved entity, or empty if none exists
+     */
+    default CompletableFuture<Optional<T>> update(String id, UnaryOperator<T> updater, int maxAttempts) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("update"));
+    }
+
+    /**
+     * Load a {@code @Lazy} field into an entity read from this repository.
+     *
+     * @param entity Entity with its primary key set
+     * @param field  Field or column name of a lazy field
+     * @return The same entity, with the field set (null if nothing is stored)
+     * @throws IllegalArgumentException if the field is not lazy
+     */
+    default CompletableFuture<T> load(T entity, String field) {
+        // 不支持延迟加载的实现随实体一起读取所有字段
+        return CompletableFuture.completedFuture(entity);
+    }
+
+    /**
+     * Load every {@code @Lazy} field of an entity.
+     *
+     * @param entity Entity with its primary key set
+     * @return The same entity
+     * @see #load(Object, String)
+     */
+    default CompletableFuture<T> loadAll(T entity) {
+        return CompletableFuture.completedFuture(entity);
+    }
+
     /**
      * Delete entity by primary key.
      *
@@ -15,14 +15,15 @@ import java.lang.annotation.Target;
 public @interface Index {
 
     /**
-     * Index name. If not specified, auto-generates.
+     * Index name. If not specified, auto-generates {@code idx_<table>_<column>}.
+     * Fields sharing the same name form one composite index, in field declaration order.
      *
      * @return Index name
      */
     String value() default "";
 
     /**
-     * Whether the index is unique.
+     * Whether the index is unique. For composite indexes it is enough to set this on one field.
      *
      * @return Unique status
      */
@@ -0,0 +1,27 @@
+package com.yirankuma.yrdatabase.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a large field (inventory, {@code byte[]}, JSON text) as lazily loaded.
+ *
+ * <p>A lazy field is not part of the entity's row or cache entry; it is stored in the side table
+ * {@code <table>_lazy}, split into chunks of at most {@link #chunkSize()} characters. Entities
+ * returned by the repository have lazy fields set to null until
+ * {@link com.yirankuma.yrdatabase.api.Repository#load load} is called. Saving an entity whose
+ * lazy field is null leaves the stored value unchanged.</p>
+ *
+ * @author YiranKuma
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Lazy {
+
+    /**
+     * Maximum characters per stored chunk; larger values are split.
+     */
+    int chunkSize() default 16384;
+}
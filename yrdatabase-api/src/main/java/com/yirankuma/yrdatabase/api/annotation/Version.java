@@ -0,0 +1,20 @@
+package com.yirankuma.yrdatabase.api.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an int/long field as the optimistic-locking version of the entity.
+ *
+ * <p>Saving a versioned entity only succeeds if the stored version still equals the entity's
+ * version, and increments it; otherwise the save fails with
+ * {@link com.yirankuma.yrdatabase.api.OptimisticLockException}.</p>
+ *
+ * @author YiranKuma
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Version {
+}
@@ -2,6 +2,9 @@ package com.yirankuma.yrdatabase.api.config;
 
 import lombok.Data;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Database configuration.
  *
@@ -50,6 +53,11 @@ public class DatabaseConfig {
         private int database = 0;
         private int timeout = 5000;
         private PoolConfig pool = new PoolConfig();
+        /**
+         * 只读副本（host:port，单机模式），密码与 database 同主节点。KEYS/DBSIZE/ZCARD 等统计类读取
+         * 优先走副本（副本不可用时回退主节点），玩家数据的读写始终走主节点，写后立即可读。
+         */
+        private List<String> replicas = new ArrayList<>();
 
         @Data
         public static class PoolConfig {
@@ -57,6 +65,24 @@ public class DatabaseConfig {
             private int maxIdle = 10;
             private int minIdle = 2;
         }
+
+        private ClusterConfig cluster = new ClusterConfig();
+
+        /**
+         * Redis Cluster 模式：开启后忽略 host/port/database，改用 nodes 作为初始节点。
+         * 玩家 key 使用 hash tag（yrdatabase:表名:{玩家}），同一玩家的数据、锁与不存在标记落在同一 slot；
+         * pending 集合按 slot 范围拆分为 pendingShards 个分片，各节点的分片并行扫描。
+         * 所有子服的配置必须一致；切换前先让 pending 数据全部落库（正常关服会 flush）。
+         */
+        @Data
+        public static class ClusterConfig {
+            private boolean enabled = false;
+            /** 初始节点列表，格式 host:port */
+            private List<String> nodes = new ArrayList<>();
+            private int pendingShards = 16;
+            /** 统计类读取优先发往各分片的从节点（从节点由拓扑自动发现） */
+            private boolean replicaReads = false;
+        }
     }
 
     @Data
@@ -75,6 +101,16 @@ public class DatabaseConfig {
             private String password = "";
             private String timezone = "Asia/Shanghai";
             private PoolConfig pool = new PoolConfig();
+            /**
+             * 只读从库（host:port），库名与账号同主库。queryAll、无条件 count、查询构建器及不含主键的条件查询
+             * 轮询分发到从库；按主键（id）的读取始终走主库，写后立即可读。从库出错时自动回退主库。
+             */
+            private List<String> replicas = new ArrayList<>();
+            /** 每个从库的连接池大小（同时也是从库读取的并发上限） */
+            private int replicaPoolSize = 4;
+            /** 从库出错后暂停使用的时长（毫秒） */
+            private long replicaCooldownMillis = 30000;
+            private ShardingConfig sharding = new ShardingConfig();
 
             @Data
             public static class PoolConfig {
@@ -84,18 +120,95 @@ public class DatabaseConfig {
                 private long idleTimeout = 600000;
                 private long maxLifetime = 1800000;
             }
+
+            /**
+             * 水平分片：开启后忽略 host/port/replicas，按主键（id）的一致性哈希把行分布到 shards 中的各实例，
+             * 库名、账号和连接池配置同上。按主键的读写只访问一个分片，全表查询并行访问所有分片后合并。
+             */
+            @Data
+            public static class ShardingConfig {
+                private boolean enabled = false;
+                /** 分片实例（host:port），按顺序编号；扩容只能在末尾追加，不能删除或调整顺序 */
+                private List<String> shards = new ArrayList<>();
+                /**
+                 * 扩容前的分片数。迁移期间（/yrdb reshard 完成前）按主键读取会回退查询旧位置；
+                 * 迁移完成后改回 0。从未分片的单库迁移时，第一个分片填原库地址，此项填 1。
+                 */
+                private int previousShardCount = 0;
+                /** 迁移时每页扫描的行数 */
+                private int migrationBatchSize = 500;
+            }
         }
 
         @Data
         public static class SQLiteConfig {
             private String file = "data/yrdatabase.db";
         }
+
+        private SpoolConfig spool = new SpoolConfig();
+
+        /**
+         * 本地写入暂存：持久层不可用时，写入追加到插件目录下的段文件（带校验和），
+         * 恢复后按写入顺序分批回放。暂存中的 key 读取时以暂存数据为准。
+         */
+        @Data
+        public static class SpoolConfig {
+            private boolean enabled = true;
+            /** 暂存目录，相对路径基于插件数据目录 */
+            private String directory = "spool";
+            /** 单个段文件大小上限（字节），写满后切换到新段 */
+            private long maxSegmentBytes = 16 * 1024 * 1024;
+            /** 每次追加后 fsync，关闭后崩溃可能丢失最近的暂存写入 */
+            private boolean fsync = true;
+            private int replayBatchSize = 200;
+            private int replayIntervalSeconds = 5;
+        }
+
+        private TieringConfig tiering = new TieringConfig();
+
+        /**
+         * 冷数据分层：列出的表中长期未访问的行分批移入压缩的 {@code <表>_archive} 表，
+         * 热表只保留活跃玩家；读取热表未命中时再查一次归档表并自动恢复。
+         */
+        @Data
+        public static class TieringConfig {
+            private boolean enabled = false;
+            /** 参与分层的表，必须以 id 为主键 */
+            private List<String> tables = new ArrayList<>();
+            /** 超过此天数未读写的行被归档 */
+            private int inactiveDays = 90;
+            /** 每批归档的行数 */
+            private int batchSize = 500;
+            /** 归档扫描间隔（分钟） */
+            private int intervalMinutes = 60;
+            /** 访问时间写入 {@code <表>_access} 的间隔（秒），同一窗口内的多次访问只写一次 */
+            private int accessFlushSeconds = 60;
+        }
     }
 
     @Data
     public static class CachingConfig {
         private long defaultTTL = 3600;
+        /** 在线玩家数据的 TTL（秒），由 onlineChecker 判断 key 是否属于在线玩家 */
         private long playerDataTTL = 7200;
+        /**
+         * TTL 随机抖动比例（0 ~ 0.9）：实际 TTL 在 ±ttlJitter 范围内随机，
+         * 避免重启或活动开始时写入的大批 key 在同一轮扫描中同时到期、集中写库。
+         */
+        private double ttlJitter = 0.1;
+        /** 按表覆盖 TTL，格式 "表名:秒" 或 "表名:秒:抖动比例"，优先于 defaultTTL / playerDataTTL */
+        private List<String> tableTTLs = new ArrayList<>();
+        /**
+         * 自适应 TTL：按近期访问次数（固定内存的计数草图，定期衰减）缩放 TTL，
+         * 频繁访问的 key 延长到 adaptiveMaxFactor 倍，冷 key 缩短到 adaptiveMinFactor 倍。
+         */
+        private boolean adaptiveTTL = false;
+        /** 近期访问达到此次数即视为热点，按 adaptiveMaxFactor 计算 */
+        private int adaptiveHotAccesses = 16;
+        private double adaptiveMinFactor = 0.5;
+        private double adaptiveMaxFactor = 2.0;
+        /** 计数草图每行的计数器数量（向上取 2 的幂），内存约为 16 × width 字节 */
+        private int adaptiveSketchWidth = 16384;
         private boolean autoRefresh = true;
         private long refreshThreshold = 300;
         /** 离线玩家数据持久化阈值（秒）：TTL 剩余 ≤ 此值时触发 MySQL 写入 */
@@ -109,6 +222,63 @@ public class DatabaseConfig {
          *   defaultTTL > sweepIntervalSeconds
          */
         private int sweepIntervalSeconds = 30;
+        /**
+         * 本地时间轮：每个子服只跟踪自己写入或续期的 key，到点后直接续期或落库，不再每轮扫描整个 pending 集合。
+         * 全局 pending 集合只按 orphanScanIntervalSeconds 低频扫描，兜底处理崩溃子服遗留的 key。
+         * 关闭后恢复为每 sweepIntervalSeconds 全量扫描。
+         */
+        private boolean localSweep = true;
+        /**
+         * 兜底扫描间隔（秒），仅 localSweep 开启时生效。
+         * 实际间隔不超过 min(refreshThreshold, autoSyncIntervalSeconds) - sweepIntervalSeconds，否则遗留 key 可能在被处理前过期。
+         */
+        private int orphanScanIntervalSeconds = 120;
+        /** 时间轮精度（毫秒） */
+        private long wheelTickMillis = 1000;
+        /**
+         * 玩家所有权租约：玩家进入子服时该子服在 Redis 中登记租约（yrdatabase:lease:玩家），
+         * 持有租约期间落库该玩家的数据不再逐 key 加锁；所有租约每 leaseTTLSeconds / 3 秒批量续期一次。
+         * 子服崩溃后租约自动过期，由玩家所在的新子服接手。
+         */
+        private boolean ownershipLeases = true;
+        private int leaseTTLSeconds = 30;
+        /**
+         * 计数器（increment）：增量先用 HINCRBY 累积在 Redis 中，每 counterFlushIntervalSeconds 秒
+         * 取出一批（最多 counterFlushBatchSize 个 key）按表批量累加到持久层。
+         */
+        private int counterFlushIntervalSeconds = 5;
+        private int counterFlushBatchSize = 500;
+        /**
+         * 排行榜（getLeaderboard）：分数保存在 Redis 有序集合中，每 leaderboardFlushIntervalSeconds 秒
+         * 把变化过的分数批量写入 leaderboard_<name> 表。
+         */
+        private int leaderboardFlushIntervalSeconds = 5;
+        /**
+         * 表变化订阅（watch）：set/delete/persistAndClear 成功后登记变化，同一 key 在
+         * changeFeedWindowMillis 毫秒内只保留最后一次，每个窗口每张表通过 Redis Pub/Sub 发布一条消息。
+         * 默认关闭：开启后每次写入都会登记变化，没有插件调用 watch 时只是额外开销。
+         */
+        private boolean changeFeedEnabled = false;
+        private long changeFeedWindowMillis = 100;
+        /**
+         * 不存在结果缓存：持久层查不到的 key 在 Redis 中记一个短期标记（yrdatabase:absent:...），
+         * 有效期内的 get/exists 直接返回"不存在"，不再查询数据库。写入时清除标记。
+         * 默认关闭：绕过 YRDatabase 直接写入数据库的行在标记过期前仍被当作不存在。
+         */
+        private boolean negativeCacheEnabled = false;
+        /** 不存在标记的有效期（秒），应保持较短 */
+        private long negativeCacheTTL = 30;
+        /**
+         * 每表布隆过滤器（Redis bitmap）：判定"一定不存在"的 key 直接返回，不查询数据库。
+         * 仅当所有写入都经过 YRDatabase 时才可开启，外部直接写库的数据在下次重建前会被误判为不存在。
+         */
+        private boolean bloomFilterEnabled = false;
+        /** 布隆过滤器预期 key 数量，决定 bitmap 大小 */
+        private long bloomExpectedKeys = 1000000;
+        /** 布隆过滤器目标误判率 */
+        private double bloomFalsePositiveRate = 0.01;
+        /** 后台重建（按主键分页扫描并补入过滤器）的间隔（秒） */
+        private long bloomRebuildIntervalSeconds = 86400;
     }
 
     @Data
@@ -116,12 +286,85 @@ public class DatabaseConfig {
         private long timeout = 300000;
         private long heartbeatInterval = 10000;
         private long messageExpiry = 30000;
+        /**
+         * 会话事件传输方式：pubsub（默认，离线期间的事件会丢失）或 stream（Redis Streams 消费组，
+         * 重启/断线后可补读未处理事件）。需与 Waterdog 端 redis.transport 保持一致。
+         */
+        private String transport = "pubsub";
+        /**
+         * 本子服的唯一标识，stream 模式下作为消费组名。留空则根据主机名和工作目录生成（重启后保持不变）。
+         */
+        private String serverId = "";
+        /** stream 模式下每次 XREADGROUP 读取的最大条数 */
+        private int streamBatchSize = 64;
+        /** stream 模式下的轮询间隔（毫秒） */
+        private long streamPollIntervalMillis = 200;
+        /** 补读时单轮最多处理的条数，超过则留到下一轮，避免启动时长时间占用 */
+        private int streamCatchUpLimit = 1000;
+        /** 补读时忽略早于此时间窗口（毫秒）的事件，过旧的离线事件交给 pending 扫描兜底 */
+        private long streamCatchUpWindowMillis = 600000;
+        /** 监听器分发线程数：同一玩家的事件在同一线程上按顺序处理，不同玩家并行 */
+        private int dispatchThreads = 4;
+        /** 每个分发线程的队列上限，队列满时事件被丢弃并计数（stream 模式下会重新投递） */
+        private int dispatchQueueSize = 1024;
     }
 
     @Data
     public static class AdvancedConfig {
         private int asyncExecutorSize = 4;
+        /**
+         * JDBC 执行模式：fixed（默认，固定大小的平台线程池）或 virtual（每个任务一个虚拟线程，
+         * 并发数由信号量限制为连接池大小）。同时决定内部调度线程的类型。
+         */
+        private String executor = "fixed";
+        /**
+         * 后台健康采样间隔（秒），getStatus() 返回最近一次采样结果；<= 0 时只在 refreshStatus() 时采样。
+         */
+        private long healthCheckIntervalSeconds = 15;
         private boolean enableMetrics = false;
         private boolean debugMode = false;
+        /**
+         * Redis / MySQL 熔断器：错误率或慢调用比例过高时直接快速失败，并自动绕开该层（见 CircuitBreakerConfig）。
+         */
+        private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+        /**
+         * 数据导出 / 导入 / 迁移（/yrdb export|import|migrate，见 TransferConfig）。
+         */
+        private TransferConfig transfer = new TransferConfig();
+
+        @Data
+        public static class CircuitBreakerConfig {
+            private boolean enabled = true;
+            /** 滑动窗口大小（最近 N 次调用） */
+            private int windowSize = 50;
+            /** 窗口内至少有这么多次调用才计算错误率 */
+            private int minimumCalls = 20;
+            /** 错误率达到此比例时打开熔断 */
+            private double failureRateThreshold = 0.5;
+            /** 耗时超过此值（毫秒）的调用记为慢调用 */
+            private long slowCallThresholdMillis = 1000;
+            /** 慢调用比例达到此值时打开熔断 */
+            private double slowCallRateThreshold = 0.8;
+            /** 单次调用的最长等待时间（毫秒），超时按失败计，调用方不会等满驱动自身的超时 */
+            private long callTimeoutMillis = 3000;
+            /** 首次打开的时长（毫秒），之后每次重新打开翻倍 */
+            private long openMillis = 2000;
+            /** 打开时长上限（毫秒） */
+            private long maxOpenMillis = 60000;
+            /** 半开状态下放行的试探调用数，全部成功才关闭 */
+            private int halfOpenCalls = 1;
+        }
+
+        @Data
+        public static class TransferConfig {
+            /** 导出文件与迁移断点的目录，相对路径基于插件数据目录 */
+            private String directory = "backups";
+            /** 同时处理的主键区间数（即占用的连接数） */
+            private int parallelism = 4;
+            /** 每个主键区间的行数，也是断点续传的粒度 */
+            private int chunkRows = 50000;
+            /** 每次分页读取与批量写入的行数 */
+            private int batchSize = 1000;
+        }
     }
 }
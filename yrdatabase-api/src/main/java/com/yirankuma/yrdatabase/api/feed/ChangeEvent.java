@@ -0,0 +1,31 @@
+package com.yirankuma.yrdatabase.api.feed;
+
+import lombok.Data;
+
+/**
+ * A change to a single row, delivered to {@link ChangeListener}s.
+ *
+ * <p>Changes are coalesced per key over a short window: a key written several times
+ * within the window is reported once, with the last change type.</p>
+ *
+ * @author YiranKuma
+ */
+@Data
+public class ChangeEvent {
+
+    private final String table;
+
+    private final String key;
+
+    private final ChangeType type;
+
+    /**
+     * Server id of the sub-server that made the change.
+     */
+    private final String origin;
+
+    /**
+     * Time the change was published (Unix milliseconds).
+     */
+    private final long timestamp;
+}
@@ -0,0 +1,20 @@
+package com.yirankuma.yrdatabase.api.feed;
+
+/**
+ * Receives row changes from {@code DatabaseManager.watch}.
+ *
+ * <p>Called on a dispatcher thread, never on a Redis I/O thread. Changes to the same key
+ * are delivered in order.</p>
+ *
+ * @author YiranKuma
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    /**
+     * Called when a watched row changed.
+     *
+     * @param event Change event
+     */
+    void onChange(ChangeEvent event);
+}
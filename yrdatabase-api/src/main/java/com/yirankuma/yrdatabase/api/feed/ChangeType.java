@@ -0,0 +1,25 @@
+package com.yirankuma.yrdatabase.api.feed;
+
+/**
+ * Kind of change reported by the change feed.
+ *
+ * @author YiranKuma
+ */
+public enum ChangeType {
+
+    /**
+     * The row was written ({@code set}, {@code compareAndSet}).
+     */
+    SET,
+
+    /**
+     * The row was deleted.
+     */
+    DELETE,
+
+    /**
+     * The cached row was written to the database and evicted from Redis ({@code persistAndClear}).
+     * The data itself did not change.
+     */
+    PERSIST
+}
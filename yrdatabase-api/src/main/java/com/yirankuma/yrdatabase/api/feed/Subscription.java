@@ -0,0 +1,21 @@
+package com.yirankuma.yrdatabase.api.feed;
+
+/**
+ * Handle returned by {@code DatabaseManager.watch}.
+ *
+ * @author YiranKuma
+ */
+public interface Subscription {
+
+    /**
+     * Stop receiving changes. Calling this more than once has no effect.
+     */
+    void cancel();
+
+    /**
+     * Check if this subscription is still active.
+     *
+     * @return True until {@link #cancel()} is called
+     */
+    boolean isActive();
+}
@@ -8,6 +8,9 @@ import java.util.function.Consumer;
  * Cache provider interface with additional cache-specific operations.
  * Typically implemented by Redis.
  *
+ * <p>Operations added after the first release are default methods failing with
+ * {@link UnsupportedOperationException}, so existing providers keep compiling.</p>
+ *
  * @author YiranKuma
  */
 public interface CacheProvider extends StorageProvider {
@@ -37,6 +40,15 @@ public interface CacheProvider extends StorageProvider {
      */
     CompletableFuture<java.util.List<String>> keys(String pattern);
 
+    /**
+     * Get the number of keys in the current database (DBSIZE).
+     *
+     * @return Key count
+     */
+    default CompletableFuture<Long> dbSize() {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("dbSize"));
+    }
+
     // ==================== Pub/Sub Support ====================
 
     /**
@@ -139,4 +151,103 @@ public interface CacheProvider extends StorageProvider {
      * @return List of matching members
      */
     CompletableFuture<java.util.List<String>> zrangeByScore(String key, double min, double max);
+
+    /**
+     * Get the number of members in a sorted set.
+     *
+     * @param key Sorted set key
+     * @return Member count, 0 if the key doesn't exist
+     */
+    default CompletableFuture<Long> zcard(String key) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("zcard"));
+    }
+
+    /**
+     * Get members with their scores by rank (ascending score).
+     *
+     * @param key   Sorted set key
+     * @param start Start rank (0-based, inclusive)
+     * @param stop  Stop rank (inclusive, -1 for the last member)
+     * @return Members mapped to scores, in rank order
+     */
+    default CompletableFuture<java.util.Map<String, Double>> zrangeWithScores(String key, long start, long stop) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("zrangeWithScores"));
+    }
+
+    // ==================== Bitmap Operations ====================
+
+    /**
+     * Read several bits of a bitmap in one round trip.
+     *
+     * @param key     Bitmap key
+     * @param offsets Bit offsets
+     * @return Bit values in the order of the offsets (false for missing keys)
+     */
+    default CompletableFuture<java.util.List<Boolean>> getBits(String key, long... offsets) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("getBits"));
+    }
+
+    /**
+     * Set several bits of a bitmap to 1 in one round trip.
+     *
+     * @param key     Bitmap key
+     * @param offsets Bit offsets
+     * @return True on success
+     */
+    default CompletableFuture<Boolean> setBits(String key, long... offsets) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("setBits"));
+    }
+
+    // ==================== Stream Operations ====================
+
+    /**
+     * Append an entry to a stream, trimming the stream to approximately maxLen entries.
+     *
+     * @param stream Stream key
+     * @param fields Entry fields
+     * @param maxLen Approximate maximum stream length (0 = no trimming)
+     * @return ID of the added entry
+     */
+    default CompletableFuture<String> xadd(String stream, java.util.Map<String, String> fields, long maxLen) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("xadd"));
+    }
+
+    /**
+     * Create a consumer group starting at the end of the stream.
+     * The stream is created if it doesn't exist.
+     *
+     * @param stream Stream key
+     * @param group  Group name
+     * @return True if the group was created, false if it already existed
+     */
+    default CompletableFuture<Boolean> xgroupCreate(String stream, String group) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("xgroupCreate"));
+    }
+
+    /**
+     * Read entries for a consumer of a consumer group.
+     *
+     * @param stream   Stream key
+     * @param group    Group name
+     * @param consumer Consumer name
+     * @param offset   "&gt;" for new entries, or an entry ID to re-read this consumer's pending entries after it
+     * @param count    Maximum number of entries to return
+     * @return Entries in stream order (empty if none)
+     */
+    default CompletableFuture<java.util.List<StreamEntry>> xreadGroup(String stream, String group, String consumer,
+                                                                      String offset, int count) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("xreadGroup"));
+    }
+
+    /**
+     * Acknowledge entries as processed by a consumer group.
+     *
+     * @param stream Stream key
+     * @param group  Group name
+     * @param ids    Entry IDs
+     * @return Number of entries acknowledged
+     */
+    default CompletableFuture<Long> xack(String stream, String group, String... ids) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("xack"));
+    }
 }
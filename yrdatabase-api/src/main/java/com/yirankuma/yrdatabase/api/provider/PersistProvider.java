@@ -1,8 +1,12 @@
 package com.yirankuma.yrdatabase.api.provider;
 
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
@@ -10,10 +14,20 @@ import java.util.function.Function;
  * Persistence provider interface with SQL-specific operations.
  * Typically implemented by MySQL or SQLite.
  *
+ * <p>Operations added after the first release are default methods, so existing providers keep
+ * compiling; unless documented otherwise the defaults fail with
+ * {@link UnsupportedOperationException}.</p>
+ *
  * @author YiranKuma
  */
 public interface PersistProvider extends StorageProvider {
 
+    /**
+     * Table holding the hash operations ({@link #hset}, {@link #hget}, ...), one row per
+     * {@code (hkey, field)}.
+     */
+    String HASH_TABLE = "kv_hash";
+
     // ==================== Table Operations ====================
 
     /**
@@ -33,6 +47,28 @@ public interface PersistProvider extends StorageProvider {
      */
     CompletableFuture<Boolean> tableExists(String tableName);
 
+    /**
+     * List all tables of the database in one round trip.
+     * The returned tables are remembered, so later {@link #tableExists} calls for them need no query.
+     *
+     * @return Table names
+     */
+    default CompletableFuture<Set<String>> listTables() {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("listTables"));
+    }
+
+    /**
+     * Read the column definitions of an existing table, in a form {@link #createTable} of any
+     * provider accepts (MySQL type names, the key column marked {@code PRIMARY KEY}).
+     * Defaults, nullability and indexes are not included.
+     *
+     * @param tableName Table name
+     * @return Column name -> SQL type in column order; empty if the table does not exist
+     */
+    default CompletableFuture<Map<String, String>> describeTable(String tableName) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("describeTable"));
+    }
+
     /**
      * Drop table if exists.
      *
@@ -41,6 +77,20 @@ public interface PersistProvider extends StorageProvider {
      */
     CompletableFuture<Boolean> dropTable(String tableName);
 
+    /**
+     * Create an index if it doesn't exist yet (idempotent, safe to call concurrently from several servers).
+     *
+     * @param tableName Table name
+     * @param indexName Index name
+     * @param columns   Indexed columns, in index order
+     * @param unique    Whether the index is unique
+     * @return True if the index exists afterwards
+     */
+    default CompletableFuture<Boolean> createIndex(String tableName, String indexName, List<String> columns,
+                                                   boolean unique) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("createIndex"));
+    }
+
     // ==================== Query Operations ====================
 
     /**
@@ -87,6 +137,16 @@ public interface PersistProvider extends StorageProvider {
      */
     CompletableFuture<Long> countAll(String table);
 
+    /**
+     * Run a structured query (projection, predicates, ordering, keyset cursor, limit).
+     *
+     * @param spec Query specification
+     * @return Matching rows, keyed by column name
+     */
+    default CompletableFuture<List<Map<String, Object>>> select(QuerySpec spec) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("select"));
+    }
+
     // ==================== Insert/Update Operations ====================
 
     /**
@@ -127,6 +187,40 @@ public interface PersistProvider extends StorageProvider {
      */
     CompletableFuture<Integer> deleteWhere(String table, Map<String, Object> conditions);
 
+    // ==================== Versioned Writes ====================
+
+    /**
+     * Write a row only if its stored version still equals {@code expectedVersion}
+     * ({@code UPDATE ... WHERE key = ? AND version = ?}). With an expected version of 0 a missing
+     * row is inserted instead. {@code data} must already carry the new version.
+     *
+     * @param table           Table name
+     * @param data            Column-value pairs, including key and new version
+     * @param keyColumn       Key column name
+     * @param versionColumn   Version column name
+     * @param expectedVersion Version the row must currently have
+     * @return True if written, false on a version conflict
+     */
+    default CompletableFuture<Boolean> compareAndSet(String table, Map<String, Object> data, String keyColumn,
+                                                     String versionColumn, long expectedVersion) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("compareAndSet"));
+    }
+
+    /**
+     * Insert or update a row unless the stored row has a higher version, so a stale copy
+     * (e.g. flushed late from the cache) never overwrites a newer write.
+     *
+     * @param table         Table name
+     * @param data          Column-value pairs, including key and version
+     * @param keyColumn     Key column name
+     * @param versionColumn Version column name
+     * @return Success status (also true if the write was skipped as stale)
+     */
+    default CompletableFuture<Boolean> upsertVersioned(String table, Map<String, Object> data, String keyColumn,
+                                                       String versionColumn) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("upsertVersioned"));
+    }
+
     // ==================== Raw SQL ====================
 
     /**
@@ -138,6 +232,19 @@ public interface PersistProvider extends StorageProvider {
      */
     CompletableFuture<List<Map<String, Object>>> executeQuery(String sql, Object... params);
 
+    /**
+     * Execute raw query SQL that may scan a large part of a table (exports, archive passes).
+     * Providers behind a circuit breaker run it without the per-call timeout and do not count
+     * its duration against the backend's health. Defaults to {@link #executeQuery}.
+     *
+     * @param sql    SQL statement
+     * @param params Prepared statement parameters
+     * @return Query results
+     */
+    default CompletableFuture<List<Map<String, Object>>> executeBulkQuery(String sql, Object... params) {
+        return executeQuery(sql, params);
+    }
+
     /**
      * Execute raw update SQL.
      *
@@ -168,4 +275,52 @@ public interface PersistProvider extends StorageProvider {
      * @return Success status
      */
     CompletableFuture<Boolean> batchInsert(String table, List<Map<String, Object>> rows);
+
+    /**
+     * Insert or update multiple rows in one batch. Every row must have the same columns as the
+     * first one.
+     *
+     * @param table      Table name
+     * @param rows       List of row data
+     * @param primaryKey Primary key column name
+     * @return Success status
+     */
+    default CompletableFuture<Boolean> batchUpsert(String table, List<Map<String, Object>> rows, String primaryKey) {
+        // 逐行 upsert，供未实现批量写入的提供者使用
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            futures.add(upsert(table, row, primaryKey));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    /**
+     * Add deltas to numeric columns of many rows in one batch
+     * ({@code INSERT ... ON DUPLICATE KEY UPDATE col = COALESCE(col, 0) + ?}). A missing row is
+     * created with the deltas as its values; NULL columns count as 0.
+     *
+     * @param table     Table name
+     * @param keyColumn Key column name
+     * @param deltas    Row key -> column -> delta
+     * @return Success status
+     */
+    default CompletableFuture<Boolean> batchIncrement(String table, String keyColumn,
+                                                      Map<String, Map<String, Number>> deltas) {
+        return CompletableFuture.failedFuture(new UnsupportedOperationException("batchIncrement"));
+    }
+
+    // ==================== Warm-up ====================
+
+    /**
+     * Open the pooled connections and prepare the statements used to load, check, save and
+     * delete a row by {@code id} on each of them, so the first requests after a restart
+     * run as fast as later ones. Providers without a connection pool may do nothing.
+     *
+     * @param tables Table name -> column names
+     * @return Completion future
+     */
+    default CompletableFuture<Void> warmUp(Map<String, List<String>> tables) {
+        return CompletableFuture.completedFuture(null);
+    }
 }
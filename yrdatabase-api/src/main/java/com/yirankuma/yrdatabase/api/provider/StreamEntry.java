@@ -0,0 +1,25 @@
+package com.yirankuma.yrdatabase.api.provider;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * A single entry read from a stream.
+ *
+ * @author YiranKuma
+ */
+@Data
+public class StreamEntry {
+
+    /**
+     * Entry ID assigned by the server (e.g., "1700000000000-0").
+     */
+    private final String id;
+
+    /**
+     * Entry field/value pairs; null for a pending entry that was trimmed from the stream
+     * before it was acknowledged.
+     */
+    private final Map<String, String> fields;
+}
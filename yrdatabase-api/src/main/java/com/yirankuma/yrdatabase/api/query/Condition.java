@@ -0,0 +1,19 @@
+package com.yirankuma.yrdatabase.api.query;
+
+import lombok.Data;
+
+/**
+ * A single predicate: {@code column operator value}.
+ *
+ * @author YiranKuma
+ */
+@Data
+public class Condition {
+    private final String column;
+    private final Operator operator;
+    /**
+     * Compared value; a {@link java.util.Collection} for {@link Operator#IN}. Null is only allowed
+     * with {@link Operator#EQ} ({@code IS NULL}) and {@link Operator#NE} ({@code IS NOT NULL}).
+     */
+    private final Object value;
+}
@@ -0,0 +1,31 @@
+package com.yirankuma.yrdatabase.api.query;
+
+/**
+ * Comparison operators supported by {@link Query}.
+ *
+ * @author YiranKuma
+ */
+public enum Operator {
+    EQ("="),
+    NE("<>"),
+    GT(">"),
+    GTE(">="),
+    LT("<"),
+    LTE("<="),
+    LIKE("LIKE"),
+    /** Value must be a non-empty collection */
+    IN("IN");
+
+    private final String sql;
+
+    Operator(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * SQL token for this operator.
+     */
+    public String getSql() {
+        return sql;
+    }
+}
@@ -0,0 +1,98 @@
+package com.yirankuma.yrdatabase.api.query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fluent query over a repository's table.
+ *
+ * <p>Fields can be given as Java field names or column names. Queries read from the
+ * persistence layer, like {@code findBy}; entries that only exist in the cache are not seen.</p>
+ *
+ * <pre>{@code
+ * repo.query()
+ *     .where("level", Operator.GTE, 10)
+ *     .orderByDesc("score")
+ *     .limit(20)
+ *     .after(lastOfPreviousPage)
+ *     .list();
+ * }</pre>
+ *
+ * <p>Keyset pagination: {@link #after} continues after the given row using the ORDER BY
+ * columns, so deep pages cost the same as the first one. The primary key is appended to
+ * the ordering automatically to make it unique.</p>
+ *
+ * @param <T> Entity type
+ * @author YiranKuma
+ */
+public interface Query<T> {
+
+    /**
+     * Add a predicate (combined with AND).
+     */
+    Query<T> where(String field, Operator operator, Object value);
+
+    /**
+     * Shortcut for {@code where(field, Operator.EQ, value)}.
+     */
+    Query<T> eq(String field, Object value);
+
+    /**
+     * Shortcut for {@code where(field, Operator.IN, values)}.
+     */
+    Query<T> in(String field, Collection<?> values);
+
+    /**
+     * Order ascending by field.
+     */
+    Query<T> orderBy(String field);
+
+    /**
+     * Order descending by field.
+     */
+    Query<T> orderByDesc(String field);
+
+    /**
+     * Maximum number of rows to return.
+     */
+    Query<T> limit(int limit);
+
+    /**
+     * Continue after this entity (keyset pagination).
+     */
+    Query<T> after(T last);
+
+    /**
+     * Continue after this row, e.g. the last row of a projected page.
+     * The row must contain the ORDER BY columns and the primary key.
+     */
+    Query<T> after(Map<String, Object> lastRow);
+
+    /**
+     * Only fetch these fields. The ORDER BY columns and the primary key are always included.
+     */
+    Query<T> select(String... fields);
+
+    /**
+     * Run the query and map rows to entities (fields not selected keep their default values).
+     */
+    CompletableFuture<List<T>> list();
+
+    /**
+     * Run the query and return raw rows keyed by column name.
+     */
+    CompletableFuture<List<Map<String, Object>>> listRows();
+
+    /**
+     * Run the query with limit 1.
+     */
+    CompletableFuture<Optional<T>> first();
+
+    /**
+     * The resolved query, as passed to the persistence provider.
+     */
+    QuerySpec toSpec();
+}
@@ -0,0 +1,56 @@
+package com.yirankuma.yrdatabase.api.query;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Singular;
+
+import java.util.List;
+
+/**
+ * Provider-independent description of a SELECT, produced by {@link Query}.
+ * Column names are already resolved and validated against the entity.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class QuerySpec {
+
+    private final String table;
+
+    /**
+     * Selected columns; empty selects all columns.
+     */
+    @Singular
+    private final List<String> columns;
+
+    /**
+     * Predicates, combined with AND.
+     */
+    @Singular
+    private final List<Condition> conditions;
+
+    /**
+     * ORDER BY columns, in priority order.
+     */
+    @Singular
+    private final List<Order> orders;
+
+    /**
+     * Keyset cursor: values of the {@link #orders} columns of the last row of the previous page,
+     * in the same order. Empty for the first page.
+     */
+    @Singular("cursorValue")
+    private final List<Object> cursor;
+
+    /**
+     * Maximum number of rows; 0 = no limit.
+     */
+    private final int limit;
+
+    @Data
+    public static class Order {
+        private final String column;
+        private final boolean descending;
+    }
+}
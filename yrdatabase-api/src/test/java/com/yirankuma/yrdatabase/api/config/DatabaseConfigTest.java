@@ -140,6 +140,18 @@ class DatabaseConfigTest {
             assertEquals(2, pool.getMinIdle());
             assertEquals(30000, pool.getConnectionTimeout());
         }
+
+        @Test
+        @DisplayName("Should have tiering disabled by default")
+        void shouldHaveTieringDisabled() {
+            DatabaseConfig config = new DatabaseConfig();
+            DatabaseConfig.PersistConfig.TieringConfig tiering = config.getPersist().getTiering();
+
+            assertFalse(tiering.isEnabled());
+            assertTrue(tiering.getTables().isEmpty());
+            assertEquals(90, tiering.getInactiveDays());
+            assertEquals(500, tiering.getBatchSize());
+        }
     }
 
     @Nested
@@ -153,6 +165,20 @@ class DatabaseConfigTest {
             
             assertEquals(3600, config.getCaching().getDefaultTTL());
             assertEquals(7200, config.getCaching().getPlayerDataTTL());
+            assertEquals(0.1, config.getCaching().getTtlJitter());
+            assertTrue(config.getCaching().getTableTTLs().isEmpty());
+            assertFalse(config.getCaching().isAdaptiveTTL());
+            assertTrue(config.getCaching().isLocalSweep());
+            assertEquals(120, config.getCaching().getOrphanScanIntervalSeconds());
+            assertTrue(config.getCaching().isOwnershipLeases());
+            assertEquals(30, config.getCaching().getLeaseTTLSeconds());
+            assertEquals(5, config.getCaching().getCounterFlushIntervalSeconds());
+            assertEquals(500, config.getCaching().getCounterFlushBatchSize());
+            assertEquals(5, config.getCaching().getLeaderboardFlushIntervalSeconds());
+            assertFalse(config.getCaching().isChangeFeedEnabled());
+            assertEquals(100, config.getCaching().getChangeFeedWindowMillis());
+            assertFalse(config.getCaching().isNegativeCacheEnabled());
+            assertEquals(30, config.getCaching().getNegativeCacheTTL());
         }
 
         @Test
@@ -206,5 +232,16 @@ class DatabaseConfigTest {
             DatabaseConfig config = new DatabaseConfig();
             assertFalse(config.getAdvanced().isDebugMode());
         }
+
+        @Test
+        @DisplayName("Should have default transfer settings")
+        void shouldHaveDefaultTransferSettings() {
+            DatabaseConfig config = new DatabaseConfig();
+            DatabaseConfig.AdvancedConfig.TransferConfig transfer = config.getAdvanced().getTransfer();
+            assertEquals("backups", transfer.getDirectory());
+            assertEquals(4, transfer.getParallelism());
+            assertEquals(50000, transfer.getChunkRows());
+            assertEquals(1000, transfer.getBatchSize());
+        }
     }
 }
@@ -5,20 +5,62 @@ import com.google.gson.GsonBuilder;
 import com.yirankuma.yrdatabase.api.CacheStrategy;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.DatabaseStatus;
+import com.yirankuma.yrdatabase.api.Leaderboard;
+import com.yirankuma.yrdatabase.api.OptimisticLockException;
 import com.yirankuma.yrdatabase.api.Repository;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.api.feed.ChangeListener;
+import com.yirankuma.yrdatabase.api.feed.ChangeType;
+import com.yirankuma.yrdatabase.api.feed.Subscription;
 import com.yirankuma.yrdatabase.api.provider.CacheProvider;
 import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.api.provider.StorageProvider;
+import com.yirankuma.yrdatabase.core.cache.BloomFilterIndex;
+import com.yirankuma.yrdatabase.core.cache.CounterStore;
+import com.yirankuma.yrdatabase.core.cache.KeyLayout;
+import com.yirankuma.yrdatabase.core.cache.LeaseManager;
+import com.yirankuma.yrdatabase.core.cache.LocalSweepStats;
+import com.yirankuma.yrdatabase.core.cache.TtlPolicy;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.concurrent.SingleFlight;
+import com.yirankuma.yrdatabase.core.concurrent.TimingWheel;
+import com.yirankuma.yrdatabase.core.feed.ChangeFeed;
+import com.yirankuma.yrdatabase.core.health.HealthMonitor;
 import com.yirankuma.yrdatabase.core.provider.mysql.MySQLProvider;
 import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import com.yirankuma.yrdatabase.core.provider.sharded.ReshardStats;
+import com.yirankuma.yrdatabase.core.provider.sharded.Resharder;
+import com.yirankuma.yrdatabase.core.provider.sharded.ShardedPersistProvider;
 import com.yirankuma.yrdatabase.core.provider.sqlite.SQLiteProvider;
+import com.yirankuma.yrdatabase.core.resilience.CircuitBreaker;
+import com.yirankuma.yrdatabase.core.resilience.ReplicaRouter;
+import com.yirankuma.yrdatabase.core.session.SessionEventManagerImpl;
+import com.yirankuma.yrdatabase.core.spool.SpoolRecord;
+import com.yirankuma.yrdatabase.core.spool.SpoolStats;
+import com.yirankuma.yrdatabase.core.spool.WriteSpool;
+import com.yirankuma.yrdatabase.core.tier.ColdTier;
+import com.yirankuma.yrdatabase.core.tier.TieringStats;
+import com.yirankuma.yrdatabase.core.transfer.DataTransfer;
+import com.yirankuma.yrdatabase.core.transfer.TransferStats;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Core implementation of DatabaseManager.
@@ -36,9 +78,54 @@ public class DatabaseManagerImpl implements DatabaseManager {
     private PersistProvider persistProvider;
 
     private final Map<Class<?>, Repository<?>> repositories = new ConcurrentHashMap<>();
+    private final Map<String, LeaderboardImpl> leaderboards = new ConcurrentHashMap<>();
     private final Set<String> ensuredTables = ConcurrentHashMap.newKeySet();
-
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    // 表名 → @Version 列，由仓库登记；这些表的回写不会用旧版本覆盖新版本
+    private final Map<String, String> versionColumns = new ConcurrentHashMap<>();
+    // 同一 cacheKey 的并发 get 共用一次 Redis GET / 持久层查询
+    private final SingleFlight<String, Optional<Map<String, Object>>> getFlight = new SingleFlight<>();
+    // 每表布隆过滤器，未开启时为 null
+    private final BloomFilterIndex bloomFilter;
+    private final TtlPolicy ttlPolicy;
+    private final LongAdder negativeCacheHits = new LongAdder();
+    // 本服写入或续期过的 key 及其下一次处理时间，localSweep 关闭时为 null
+    private final TimingWheel<String> ownedKeys;
+    private final LongAdder ownedKeysFired = new LongAdder();
+    private final LongAdder orphanKeysFound = new LongAdder();
+    // 玩家所有权租约，ownershipLeases 关闭时为 null
+    private final LeaseManager leases;
+    // 计数器在 Redis 中累积的增量，定期批量累加到持久层
+    private final CounterStore counters;
+    // 表变化订阅，changeFeedEnabled 关闭时为 null
+    private final ChangeFeed changeFeed;
+    // 后台健康采样，getStatus() 只读最近一次快照
+    private final HealthMonitor healthMonitor;
+    // 每层一个熔断器；打开期间读写自动绕开该层
+    private final CircuitBreaker cacheBreaker;
+    private final CircuitBreaker persistBreaker;
+    // Redis 被绕开期间写入/删除过的 cacheKey 及标记时间，恢复后需先清除其旧缓存
+    private final Map<String, Long> staleCacheKeys = new ConcurrentHashMap<>();
+    private final AtomicBoolean invalidatingStaleCache = new AtomicBoolean();
+    private volatile boolean cacheRecovering = false;
+    // 共享标记表的查询条件：本服熔断最近打开过、上次查询仍有标记，或其他子服发布了通知
+    private volatile long staleCachePollUntil = 0;
+    private volatile boolean sharedStaleSeen = false;
+    // 本服写入了共享标记但还未能在 Redis 发布通知
+    private volatile boolean sharedStaleUnannounced = false;
+    // 持久层写入失败时的本地暂存，未开启或打开失败时为 null
+    private volatile WriteSpool spool;
+    // 持久层分片时的迁移工具，未分片时为 null
+    private volatile Resharder resharder;
+
+    private final DataTransfer transfer;
+
+    // 冷数据分层，persist.tiering 关闭时为 null
+    private final ColdTier coldTier;
+
+    private final ScheduledExecutorService scheduler;
+
+    // Redis key 命名：缓存 key、不存在标记、sweep 锁与 pending 集合（集群模式下按 slot 分片）
+    private final KeyLayout keyLayout;
 
     /**
      * Optional predicate supplied by the platform layer.
@@ -47,22 +134,73 @@ public class DatabaseManagerImpl implements DatabaseManager {
      */
     private volatile Predicate<String> onlineChecker = null;
 
-    // pending 持久化集合 key，所有子服共享同一个 Redis sorted set
-    private static final String PENDING_KEY = "yrdatabase:pending";
-    // 分布式锁前缀（per-key 锁，用于 sweep）
-    private static final String LOCK_PREFIX = "yrdatabase:lock:";
     // 扫描间隔（秒）
     private static final long SWEEP_INTERVAL_SECONDS = 30;
     // 提前量：TTL 剩余不足此值时触发持久化（必须 > SWEEP_INTERVAL_SECONDS）
     private static final long SWEEP_BUFFER_SECONDS = 60;
+    // 时间轮每层槽位数与层数：1 秒精度时覆盖约 194 天
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
     // 分布式锁自动过期时间，防止持有锁的服务器崩溃后锁永不释放
     private static final long LOCK_TTL_SECONDS = 30;
+    // 单个健康探测的超时，超时按失败处理（latency = -1）
+    private static final long HEALTH_PROBE_TIMEOUT_MILLIS = 3000;
+    // 不存在标记写代数的保留时间，须长于任何一次读取
+    private static final Duration ABSENT_GENERATION_TTL = Duration.ofMinutes(10);
+    // 熔断期间绕开 Redis 写入的 key 同时记在持久层，各子服扫描前先清除这些 key 的旧缓存
+    static final String STALE_CACHE_TABLE = "yrdatabase_stale_cache";
+    // 每次从共享表读取的标记数
+    private static final int STALE_CACHE_BATCH = 500;
+    // 熔断打开或收到通知后，扫描继续查询共享标记表的时长
+    private static final Duration STALE_CACHE_POLL_WINDOW = Duration.ofMinutes(10);
+    // 熔断试探被拒（其他试探占用）时的重试间隔
+    private static final long BREAKER_PROBE_RETRY_MILLIS = 500;
+    // 未指定导出目录名时的默认格式：export-20260101-120000
+    private static final DateTimeFormatter EXPORT_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
 
     public DatabaseManagerImpl(DatabaseConfig config) {
         this.config = config;
         this.gson = new GsonBuilder()
                 .serializeNulls()
                 .create();
+        this.keyLayout = config.getCache().getCluster().isEnabled()
+                ? new KeyLayout(true, config.getCache().getCluster().getPendingShards())
+                : KeyLayout.standalone();
+        this.scheduler = Executors.newScheduledThreadPool(2,
+                BlockingExecutor.threadFactory("YRDatabase-Scheduler", config.getAdvanced().getExecutor()));
+        this.ttlPolicy = new TtlPolicy(config.getCaching());
+        this.ownedKeys = config.getCaching().isLocalSweep()
+                ? new TimingWheel<>(Math.max(1, config.getCaching().getWheelTickMillis()), WHEEL_SIZE, WHEEL_LEVELS,
+                        System.currentTimeMillis())
+                : null;
+        this.leases = config.getCaching().isOwnershipLeases()
+                ? new LeaseManager(() -> redisProvider, keyLayout,
+                        SessionEventManagerImpl.resolveServerId(config.getSession()),
+                        Duration.ofSeconds(config.getCaching().getLeaseTTLSeconds()))
+                : null;
+        this.counters = new CounterStore(() -> redisProvider, keyLayout);
+        DatabaseConfig.AdvancedConfig.TransferConfig transferConfig = config.getAdvanced().getTransfer();
+        this.transfer = new DataTransfer(transferConfig.getParallelism(), transferConfig.getChunkRows(),
+                transferConfig.getBatchSize());
+        this.changeFeed = config.getCaching().isChangeFeedEnabled()
+                ? new ChangeFeed(() -> redisProvider, SessionEventManagerImpl.resolveServerId(config.getSession()))
+                : null;
+        this.bloomFilter = config.getCaching().isBloomFilterEnabled()
+                ? new BloomFilterIndex(() -> redisProvider, () -> persistProvider, config.getCaching())
+                : null;
+        this.coldTier = config.getPersist().getTiering().isEnabled()
+                ? new ColdTier(() -> persistProvider, () -> redisProvider, keyLayout, config.getPersist().getTiering())
+                : null;
+        if (bloomFilter != null && coldTier != null) {
+            // 归档的 key 仍然存在，重建布隆过滤器时一并扫描归档表
+            bloomFilter.setArchiveTables(coldTier::archiveTableOf);
+        }
+        this.cacheBreaker = new CircuitBreaker("redis", config.getAdvanced().getCircuitBreaker());
+        this.persistBreaker = new CircuitBreaker("mysql", config.getAdvanced().getCircuitBreaker());
+        cacheBreaker.setListener(state -> onBreakerStateChange(cacheBreaker, () -> redisProvider, state));
+        persistBreaker.setListener(state -> onBreakerStateChange(persistBreaker, () -> persistProvider, state));
+        this.healthMonitor = new HealthMonitor(this::sampleStatus, () -> buildStatus(-1, -1, false),
+                HEALTH_PROBE_TIMEOUT_MILLIS * 2);
     }
 
     /**
@@ -76,7 +214,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
         // Initialize cache provider (Redis)
         if (config.getCache().isEnabled()) {
-            redisProvider = new RedisProvider(config.getCache());
+            redisProvider = new RedisProvider(config.getCache(), config.getAdvanced().getExecutor(), cacheBreaker);
             futures.add(redisProvider.initialize().exceptionally(e -> {
                 log.warn("Failed to initialize Redis: {}", e.getMessage());
                 redisProvider = null;
@@ -89,7 +227,12 @@ public class DatabaseManagerImpl implements DatabaseManager {
             String type = config.getPersist().getType().toLowerCase();
             switch (type) {
                 case "mysql":
-                    MySQLProvider mysqlProvider = new MySQLProvider(config.getPersist().getMysql());
+                    if (config.getPersist().getMysql().getSharding().isEnabled()) {
+                        futures.add(initializeShards());
+                        break;
+                    }
+                    MySQLProvider mysqlProvider = new MySQLProvider(config.getPersist().getMysql(),
+                            config.getAdvanced().getExecutor(), persistBreaker);
                     futures.add(mysqlProvider.initialize().thenRun(() -> {
                         persistProvider = mysqlProvider;
                     }).exceptionally(e -> {
@@ -99,7 +242,8 @@ public class DatabaseManagerImpl implements DatabaseManager {
                     break;
                 case "sqlite":
                 default:
-                    SQLiteProvider sqliteProvider = new SQLiteProvider(config.getPersist().getSqlite());
+                    SQLiteProvider sqliteProvider = new SQLiteProvider(config.getPersist().getSqlite(),
+                            config.getAdvanced().getExecutor());
                     futures.add(sqliteProvider.initialize().thenRun(() -> {
                         persistProvider = sqliteProvider;
                     }).exceptionally(e -> {
@@ -110,14 +254,25 @@ public class DatabaseManagerImpl implements DatabaseManager {
             }
         }
 
+        openSpool();
+
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> {
+                .thenCompose(v -> {
                     log.info("YRDatabase initialized. Cache: {}, Persist: {}",
                             redisProvider != null && redisProvider.isConnected() ? "connected" : "disabled",
                             persistProvider != null && persistProvider.isConnected() ? "connected" : "disabled");
                     startPendingSweep();
-                    return isConnected();
-                });
+                    startSpoolReplay();
+                    startLeaseRenewal();
+                    startCounterFlush();
+                    startLeaderboardFlush();
+                    startChangeFeed();
+                    startTiering();
+                    healthMonitor.start(scheduler, config.getAdvanced().getHealthCheckIntervalSeconds());
+                    // 预热与首次采样完成后再返回，保证首个玩家进入时连接与表已就绪、getStatus() 有数据
+                    return warmUp().thenCompose(w -> healthMonitor.refresh());
+                })
+                .thenApply(status -> isConnected());
     }
 
     /**
@@ -125,14 +280,14 @@ public class DatabaseManagerImpl implements DatabaseManager {
      * 每 sweepIntervalSeconds 秒扫一次 pending 集合：
      *   - autoRefresh 扫描：TTL ≤ refreshThreshold 且玩家在线 → 续期
      *   - autoSync 扫描：TTL ≤ autoSyncIntervalSeconds 且玩家离线 → 持久化
+     * 开启 localSweep 时本服的 key 由时间轮按时处理，pending 集合只按 orphanScanIntervalSeconds 兜底扫描。
      */
     private void startPendingSweep() {
         if (redisProvider == null || persistProvider == null) {
             return;
         }
 
-        long sweepInterval = config.getCaching().getSweepIntervalSeconds();
-        if (sweepInterval <= 0) sweepInterval = SWEEP_INTERVAL_SECONDS;
+        long sweepInterval = sweepIntervalSeconds();
 
         // Constraint validation — warn but don't abort
         long refreshThreshold = config.getCaching().isAutoRefresh()
@@ -157,6 +312,30 @@ public class DatabaseManagerImpl implements DatabaseManager {
                     defaultTTL, sweepInterval);
         }
 
+        if (ownedKeys != null) {
+            long tickMillis = Math.max(1, config.getCaching().getWheelTickMillis());
+            scheduler.scheduleAtFixedRate(() -> {
+                try {
+                    advanceOwnedKeys();
+                } catch (Exception e) {
+                    log.error("Local sweep error: {}", e.getMessage());
+                }
+            }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+
+            // 遗留 key 在 TTL 剩余 (阈值 - sweepInterval) 时才进入兜底扫描范围，扫描间隔不能超过这段时间
+            long orphanInterval = config.getCaching().getOrphanScanIntervalSeconds();
+            long maxOrphanInterval = Math.max(sweepInterval,
+                    Math.min(refreshThreshold, syncThreshold == Long.MAX_VALUE ? SWEEP_BUFFER_SECONDS : syncThreshold)
+                            - sweepInterval);
+            if (orphanInterval <= 0 || orphanInterval > maxOrphanInterval) {
+                log.warn("Config warning: orphanScanIntervalSeconds({}) must be in 1..{}, using {}." +
+                                " Orphaned keys may expire before the scan reaches them.",
+                        orphanInterval, maxOrphanInterval, maxOrphanInterval);
+                orphanInterval = maxOrphanInterval;
+            }
+            sweepInterval = orphanInterval;
+        }
+
         final long finalSweepInterval = sweepInterval;
         scheduler.scheduleAtFixedRate(() -> {
             try {
@@ -166,12 +345,95 @@ public class DatabaseManagerImpl implements DatabaseManager {
             }
         }, finalSweepInterval, finalSweepInterval, TimeUnit.SECONDS);
 
-        log.info("Pending sweep started (interval={}s, refreshThreshold={}s, syncThreshold={}s)",
+        log.info("Pending sweep started (interval={}s, localSweep={}, refreshThreshold={}s, syncThreshold={}s)",
                 finalSweepInterval,
+                ownedKeys != null,
                 config.getCaching().isAutoRefresh() ? config.getCaching().getRefreshThreshold() : -1,
                 config.getCaching().isAutoSyncEnabled() ? config.getCaching().getAutoSyncIntervalSeconds() : -1);
     }
 
+    // ==================== Write Spool ====================
+
+    private void openSpool() {
+        DatabaseConfig.PersistConfig.SpoolConfig spoolConfig = config.getPersist().getSpool();
+        if (!config.getPersist().isEnabled() || !spoolConfig.isEnabled()) {
+            return;
+        }
+        WriteSpool opened = new WriteSpool(Paths.get(spoolConfig.getDirectory()), spoolConfig);
+        try {
+            opened.open();
+            spool = opened;
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to open write spool at {}, failed persist writes will not be spooled: {}",
+                    spoolConfig.getDirectory(), e.getMessage());
+            opened.close();
+        }
+    }
+
+    /**
+     * 定期回放暂存写入：持久层可用时按写入顺序分批写回，直到暂存为空。
+     */
+    private void startSpoolReplay() {
+        if (spool == null) {
+            return;
+        }
+        long interval = Math.max(1, config.getPersist().getSpool().getReplayIntervalSeconds());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                drainSpool();
+            } catch (Exception e) {
+                log.error("Spool replay error: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    CompletableFuture<Void> drainSpool() {
+        WriteSpool current = spool;
+        if (current == null || current.isEmpty() || !persistAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return current.replay(this::replaySpooled, config.getPersist().getSpool().getReplayBatchSize(),
+                        this::persistAvailable)
+                .thenCompose(consumed -> consumed > 0
+                        ? drainSpool()
+                        : CompletableFuture.completedFuture((Void) null));
+    }
+
+    /**
+     * 回放单条暂存写入。直接调用持久层，不能经过 saveToPersist（否则会被再次暂存）。
+     */
+    private CompletableFuture<Boolean> replaySpooled(SpoolRecord record) {
+        PersistProvider persist = persistProvider;
+        if (persist == null || !persistAvailable()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        if (record.isDelete()) {
+            return persist.deleteWhere(record.getTable(), Map.of("id", record.getKey()))
+                    .thenCombine(forgetTier(record.getTable(), record.getKey()), (count, v) -> true);
+        }
+        return upsertRow(persist, record.getTable(), record.getData());
+    }
+
+    /**
+     * 写入本地暂存，成功即视为持久化成功（之后由回放写入持久层）。
+     *
+     * @param data 行数据，null 表示删除
+     */
+    private CompletableFuture<Boolean> spoolWrite(WriteSpool target, String table, String key,
+                                                  Map<String, Object> data) {
+        return target.append(table, key, data).handle((v, e) -> e == null);
+    }
+
+    /**
+     * Statistics of the local write spool.
+     *
+     * @return Statistics, or null if the spool is disabled
+     */
+    public SpoolStats getSpoolStats() {
+        WriteSpool current = spool;
+        return current != null ? current.getStats() : null;
+    }
+
     /**
      * 扫描 pending 集合，根据配置阈值触发续期或持久化。
      *
@@ -181,13 +443,27 @@ public class DatabaseManagerImpl implements DatabaseManager {
      *   <li>autoSync 扫描：找到 TTL ≤ autoSyncIntervalSeconds 的 key，若对应玩家离线则持久化。</li>
      * </ul>
      * 关服扫描 (all=true)：不区分在线状态，全部持久化。
+     * 开启 localSweep 时普通扫描只处理遗留 key：跳过本服时间轮上的 key，并把范围收窄 sweepIntervalSeconds，
+     * 其他存活子服的 key 在它们自己的时间轮到点前不会进入范围。
      */
     private void sweepPending(boolean all) {
-        if (redisProvider == null || !redisProvider.isConnected()) return;
-        if (persistProvider == null || !persistProvider.isConnected()) return;
+        if (!cacheAvailable()) return;
+        if (!persistAvailable()) return;
+
+        // 其他子服在 Redis 不可用期间直接写入持久层的 key：先清除其旧缓存，避免被本次扫描回写
+        shouldPollSharedStale()
+                .thenCompose(poll -> poll ? invalidateSharedStaleCache() : CompletableFuture.<Void>completedFuture(null))
+                .whenComplete((v, e) -> {
+                    // 每个 pending 分片独立扫描；集群模式下各分片位于不同节点，并行执行
+                    for (String pendingKey : keyLayout.pendingKeys()) {
+                        sweepShard(pendingKey, all);
+                    }
+                });
+    }
 
+    private void sweepShard(String pendingKey, boolean all) {
         if (all) {
-            redisProvider.zrangeByScore(PENDING_KEY, 0, Double.MAX_VALUE).thenAccept(members -> {
+            redisProvider.zrangeByScore(pendingKey, 0, Double.MAX_VALUE).thenAccept(members -> {
                 for (String cacheKey : members) {
                     processPendingKey(cacheKey);
                 }
@@ -199,15 +475,21 @@ public class DatabaseManagerImpl implements DatabaseManager {
         }
 
         long nowSeconds = System.currentTimeMillis() / 1000L;
+        boolean orphansOnly = ownedKeys != null;
+        long slack = orphansOnly ? sweepIntervalSeconds() : 0;
 
         // === Refresh scan: 玩家在线 + TTL ≤ refreshThreshold → 续期 ===
         if (config.getCaching().isAutoRefresh()) {
             long refreshThreshold = config.getCaching().getRefreshThreshold();
             if (refreshThreshold > 0) {
-                double maxScore = nowSeconds + refreshThreshold;
-                redisProvider.zrangeByScore(PENDING_KEY, 0, maxScore).thenAccept(members -> {
+                double maxScore = nowSeconds + refreshThreshold - slack;
+                redisProvider.zrangeByScore(pendingKey, 0, maxScore).thenAccept(members -> {
                     for (String cacheKey : members) {
+                        if (orphansOnly && ownedKeys.contains(cacheKey)) {
+                            continue;
+                        }
                         if (onlineChecker == null || onlineChecker.test(cacheKey)) {
+                            if (orphansOnly) orphanKeysFound.increment();
                             sweepRefreshKey(cacheKey);
                         }
                         // 玩家离线的情况由下面 persist scan 处理
@@ -224,13 +506,17 @@ public class DatabaseManagerImpl implements DatabaseManager {
                 ? config.getCaching().getAutoSyncIntervalSeconds()
                 : SWEEP_BUFFER_SECONDS; // 未启用 autoSync 时用固定缓冲作为保底
         if (syncThreshold > 0) {
-            double maxScore = nowSeconds + syncThreshold;
-            redisProvider.zrangeByScore(PENDING_KEY, 0, maxScore).thenAccept(members -> {
+            double maxScore = nowSeconds + syncThreshold - slack;
+            redisProvider.zrangeByScore(pendingKey, 0, maxScore).thenAccept(members -> {
                 for (String cacheKey : members) {
                     // 在线玩家已由 refresh scan 处理，此处跳过
                     if (onlineChecker != null && onlineChecker.test(cacheKey)) {
                         continue;
                     }
+                    if (orphansOnly && ownedKeys.contains(cacheKey)) {
+                        continue;
+                    }
+                    if (orphansOnly) orphanKeysFound.increment();
                     processPendingKey(cacheKey);
                 }
             }).exceptionally(e -> {
@@ -245,16 +531,18 @@ public class DatabaseManagerImpl implements DatabaseManager {
      * 若 Redis key 已经过期，则回退到正常持久化流程。
      */
     private void sweepRefreshKey(String cacheKey) {
-        long ttl = config.getCaching().getDefaultTTL();
-        redisProvider.expire(cacheKey, Duration.ofSeconds(ttl))
+        String[] parts = keyLayout.parse(cacheKey);
+        long ttl = cacheTtl(parts != null ? parts[0] : "", cacheKey);
+        expireCached(cacheKey, Duration.ofSeconds(ttl))
                 .thenAccept(refreshed -> {
                     if (refreshed) {
                         double newScore = System.currentTimeMillis() / 1000.0 + ttl;
-                        redisProvider.zadd(PENDING_KEY, newScore, cacheKey)
+                        redisProvider.zadd(keyLayout.pendingKey(cacheKey), newScore, cacheKey)
                                 .exceptionally(e -> {
                                     log.warn("sweep refresh: failed to update score for {}: {}", cacheKey, e.getMessage());
                                     return false;
                                 });
+                        trackOwned(cacheKey, newScore);
                         log.debug("sweep refresh: extended TTL for {}", cacheKey);
                     } else {
                         log.debug("sweep refresh: key {} already expired, persisting", cacheKey);
@@ -269,48 +557,141 @@ public class DatabaseManagerImpl implements DatabaseManager {
     }
 
     /**
-     * 对单个 pending 条目加分布式锁后持久化。
+     * 续期缓存，写入时间记录随之续期（否则会先于缓存过期，之后的旧缓存清理会把它当作旧副本）。
+     */
+    private CompletableFuture<Boolean> expireCached(String cacheKey, Duration ttl) {
+        return redisProvider.expire(cacheKey, ttl).thenApply(refreshed -> {
+            if (refreshed) {
+                redisProvider.expire(keyLayout.writtenKey(cacheKey), ttl);
+            }
+            return refreshed;
+        });
+    }
+
+    // ==================== Local Sweep ====================
+
+    /**
+     * 处理本服时间轮上到点的 key：在线玩家续期，离线玩家落库。
+     * 续期会重新登记到时间轮；落库失败或暂时无法处理的 key 在 sweepIntervalSeconds 后重试。
+     */
+    private void advanceOwnedKeys() {
+        List<String> due = ownedKeys.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        long retryAt = System.currentTimeMillis() + sweepIntervalSeconds() * 1000L;
+        if (!cacheAvailable() || !persistAvailable()) {
+            for (String cacheKey : due) {
+                ownedKeys.schedule(cacheKey, retryAt);
+            }
+            return;
+        }
+
+        Predicate<String> checker = onlineChecker;
+        for (String cacheKey : due) {
+            ownedKeysFired.increment();
+            boolean online = checker != null && checker.test(cacheKey);
+            if (config.getCaching().isAutoRefresh() && (checker == null || online)) {
+                sweepRefreshKey(cacheKey);
+            } else if (online) {
+                // 未开启自动续期：数据留在 Redis，玩家离线后再落库
+                ownedKeys.schedule(cacheKey, retryAt);
+            } else {
+                processPendingKey(cacheKey).thenAccept(ok -> {
+                    if (!ok) {
+                        ownedKeys.schedule(cacheKey, retryAt);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * 本服写入或续期了 cacheKey：在时间轮上登记它需要处理的时间点（与全量扫描的阈值一致）。
+     *
+     * @param expireAtSeconds 与 pending 集合中的分值相同
+     */
+    private void trackOwned(String cacheKey, double expireAtSeconds) {
+        if (ownedKeys == null) {
+            return;
+        }
+        long refreshLead = config.getCaching().isAutoRefresh() ? config.getCaching().getRefreshThreshold() : 0;
+        long syncLead = config.getCaching().isAutoSyncEnabled()
+                ? config.getCaching().getAutoSyncIntervalSeconds()
+                : SWEEP_BUFFER_SECONDS;
+        long dueAtMillis = (long) (expireAtSeconds * 1000) - Math.max(refreshLead, syncLead) * 1000L;
+        ownedKeys.schedule(cacheKey, dueAtMillis);
+    }
+
+    /**
+     * cacheKey 已从 pending 集合移除，本服不再需要处理它。
+     */
+    private void untrackOwned(String cacheKey) {
+        if (ownedKeys != null) {
+            ownedKeys.cancel(cacheKey);
+        }
+    }
+
+    private long sweepIntervalSeconds() {
+        long sweepInterval = config.getCaching().getSweepIntervalSeconds();
+        return sweepInterval > 0 ? sweepInterval : SWEEP_INTERVAL_SECONDS;
+    }
+
+    /**
+     * Statistics of the local sweep.
+     *
+     * @return Statistics, or null if localSweep is disabled
+     */
+    public LocalSweepStats getLocalSweepStats() {
+        if (ownedKeys == null) {
+            return null;
+        }
+        return LocalSweepStats.builder()
+                .ownedKeys(ownedKeys.size())
+                .fired(ownedKeysFired.sum())
+                .orphansFound(orphanKeysFound.sum())
+                .build();
+    }
+
+    /**
+     * 对单个 pending 条目加分布式锁后持久化；本服持有该玩家的租约时不加锁。
+     * 租约被其他子服持有时跳过（由租约持有者落库），只有没有租约时才退回到分布式锁。
+     *
+     * @return False if another server holds the lock or lease, or the write failed; the entry stays pending
      */
-    private void processPendingKey(String cacheKey) {
-        String lockKey = LOCK_PREFIX + cacheKey;
+    private CompletableFuture<Boolean> processPendingKey(String cacheKey) {
+        String[] owned = keyLayout.parse(cacheKey);
+        if (owned != null && leases != null && leases.holds(owned[1])) {
+            return persistPendingKey(cacheKey, owned[0], owned[1]).exceptionally(e -> {
+                log.error("Error processing pending key {}: {}", cacheKey, e.getMessage());
+                return false;
+            });
+        }
+
+        String lockKey = keyLayout.lockKey(cacheKey);
+        Duration lockTtl = Duration.ofSeconds(LOCK_TTL_SECONDS);
 
-        // 抢分布式锁，TTL 到期自动释放，防止崩溃后死锁
-        redisProvider.setNxEx(lockKey, "1", Duration.ofSeconds(LOCK_TTL_SECONDS))
+        // 抢分布式锁，TTL 到期自动释放，防止崩溃后死锁；检查租约与加锁在同一脚本中原子完成
+        CompletableFuture<Boolean> lock = owned != null
+                ? redisProvider.lockUnlessLeased(lockKey, keyLayout.leaseKey(owned[1]),
+                        leases != null ? leases.getOwner() : "", lockTtl)
+                : redisProvider.setNxEx(lockKey, "1", lockTtl);
+        return lock
                 .thenCompose(acquired -> {
                     if (!acquired) {
-                        // 其他子服已在处理
+                        // 其他子服已在处理，或该玩家的租约属于其他子服
                         return CompletableFuture.completedFuture(false);
                     }
                     // 解析 cacheKey → table + key
-                    String[] parts = parseCacheKey(cacheKey);
+                    String[] parts = keyLayout.parse(cacheKey);
                     if (parts == null) {
-                        redisProvider.zrem(PENDING_KEY, cacheKey);
+                        redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey);
                         redisProvider.delete(lockKey);
                         return CompletableFuture.completedFuture(false);
                     }
-                    String table = parts[0];
-                    String key = parts[1];
-
-                    return redisProvider.get(cacheKey).thenCompose(cached -> {
-                        CompletableFuture<Boolean> persistFuture;
-                        if (cached.isPresent()) {
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> latest = gson.fromJson(cached.get(), Map.class);
-                            latest.put("id", key);
-                            persistFuture = saveToPersist(table, key, latest);
-                        } else {
-                            // Redis 数据已过期，条目本身也可清除
-                            log.debug("Pending key {} expired from Redis, removing from pending", cacheKey);
-                            persistFuture = CompletableFuture.completedFuture(true);
-                        }
-                        return persistFuture.thenCompose(ok -> {
-                            if (ok) {
-                                redisProvider.zrem(PENDING_KEY, cacheKey);
-                            }
-                            // 无论成功与否都释放锁
-                            return redisProvider.delete(lockKey).thenApply(d -> ok);
-                        });
-                    });
+                    // 无论成功与否都释放锁
+                    return persistPendingKey(cacheKey, parts[0], parts[1])
+                            .thenCompose(ok -> redisProvider.delete(lockKey).thenApply(d -> ok));
                 })
                 .exceptionally(e -> {
                     log.error("Error processing pending key {}: {}", cacheKey, e.getMessage());
@@ -320,15 +701,26 @@ public class DatabaseManagerImpl implements DatabaseManager {
     }
 
     /**
-     * 解析 cacheKey（"yrdatabase:{table}:{key}"）为 [table, key]。
+     * 把 Redis 中的最新数据写入持久层，成功后移出 pending 集合。调用方负责加锁或持有租约。
      */
-    private String[] parseCacheKey(String cacheKey) {
-        String prefix = "yrdatabase:";
-        if (!cacheKey.startsWith(prefix)) return null;
-        String rest = cacheKey.substring(prefix.length());
-        int idx = rest.indexOf(':');
-        if (idx < 1) return null;
-        return new String[]{rest.substring(0, idx), rest.substring(idx + 1)};
+    private CompletableFuture<Boolean> persistPendingKey(String cacheKey, String table, String key) {
+        return redisProvider.get(cacheKey).thenCompose(cached -> {
+            CompletableFuture<Boolean> persistFuture;
+            if (cached.isPresent()) {
+                persistFuture = writeBack(table, key, cached.get());
+            } else {
+                // Redis 数据已过期，条目本身也可清除
+                log.debug("Pending key {} expired from Redis, removing from pending", cacheKey);
+                persistFuture = CompletableFuture.completedFuture(true);
+            }
+            return persistFuture.thenApply(ok -> {
+                if (ok) {
+                    redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey);
+                    untrackOwned(cacheKey);
+                }
+                return ok;
+            });
+        });
     }
 
     /**
@@ -337,11 +729,13 @@ public class DatabaseManagerImpl implements DatabaseManager {
      */
     @Override
     public CompletableFuture<Void> flush() {
-        if (redisProvider == null || !redisProvider.isConnected()
-                || persistProvider == null || !persistProvider.isConnected()) {
+        if (!cacheAvailable() || !persistAvailable()) {
             return CompletableFuture.completedFuture(null);
         }
-        return redisProvider.zrangeByScore(PENDING_KEY, 0, Double.MAX_VALUE).thenCompose(members -> {
+        return flushCounters()
+                .thenCompose(v -> flushLeaderboards())
+                .thenCompose(v -> allPendingMembers())
+                .thenCompose(members -> {
             if (members.isEmpty()) return CompletableFuture.completedFuture(null);
             log.info("Flushing {} pending persist entries...", members.size());
             List<CompletableFuture<?>> futures = new ArrayList<>();
@@ -355,43 +749,76 @@ public class DatabaseManagerImpl implements DatabaseManager {
         });
     }
 
+    /**
+     * 所有 pending 分片中的条目。
+     */
+    private CompletableFuture<List<String>> allPendingMembers() {
+        List<CompletableFuture<List<String>>> shards = new ArrayList<>();
+        for (String pendingKey : keyLayout.pendingKeys()) {
+            shards.add(redisProvider.zrangeByScore(pendingKey, 0, Double.MAX_VALUE));
+        }
+        return CompletableFuture.allOf(shards.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<String> members = new ArrayList<>();
+            for (CompletableFuture<List<String>> shard : shards) {
+                members.addAll(shard.join());
+            }
+            return members;
+        });
+    }
+
     /**
      * flush 专用：同步等待每个 key 处理完成（不用分布式锁，关服时本服优先）。
      */
     private CompletableFuture<Void> processPendingKeySync(String cacheKey) {
-        String[] parts = parseCacheKey(cacheKey);
+        String[] parts = keyLayout.parse(cacheKey);
         if (parts == null) {
-            return redisProvider.zrem(PENDING_KEY, cacheKey).thenApply(r -> null);
+            return redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey).thenApply(r -> null);
         }
         String table = parts[0];
         String key = parts[1];
+        untrackOwned(cacheKey);
 
         return redisProvider.get(cacheKey).thenCompose(cached -> {
             if (cached.isPresent()) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> latest = gson.fromJson(cached.get(), Map.class);
-                latest.put("id", key);
-                return saveToPersist(table, key, latest).thenCompose(ok -> {
-                    if (ok) return redisProvider.zrem(PENDING_KEY, cacheKey).thenApply(r -> (Void) null);
+                return writeBack(table, key, cached.get()).thenCompose(ok -> {
+                    if (ok) return redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey).thenApply(r -> (Void) null);
                     return CompletableFuture.completedFuture((Void) null);
                 });
             }
-            return redisProvider.zrem(PENDING_KEY, cacheKey).thenApply(r -> (Void) null);
+            return redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey).thenApply(r -> (Void) null);
         }).exceptionally(e -> {
             log.error("Flush key {} failed: {}", cacheKey, e.getMessage());
             return (Void) null;
         });
     }
 
+    /**
+     * TTL of a cache write or refresh (see {@link TtlPolicy}); the pending score must use the same value.
+     */
+    private long cacheTtl(String table, String cacheKey) {
+        Predicate<String> checker = onlineChecker;
+        return ttlPolicy.ttlSeconds(table, cacheKey, checker != null && checker.test(cacheKey));
+    }
+
     // ==================== Simple Map API ====================
 
     @Override
     public CompletableFuture<Optional<Map<String, Object>>> get(String table, String key) {
         String cacheKey = buildCacheKey(table, key);
+        ttlPolicy.recordAccess(cacheKey);
+        touchTier(table, key);
+        // Concurrent callers share one load; each gets its own copy since the maps are mutable
+        return getFlight.execute(cacheKey, () -> load(table, key, cacheKey))
+                .thenApply(result -> result.map(DatabaseManagerImpl::copyMap));
+    }
 
+    private CompletableFuture<Optional<Map<String, Object>>> load(String table, String key, String cacheKey) {
         // Try cache first
-        if (redisProvider != null && redisProvider.isConnected()) {
-            return redisProvider.get(cacheKey).thenCompose(cached -> {
+        if (cacheAvailable()) {
+            String absentKey = buildAbsentKey(table, key);
+            String generationKey = keyLayout.absentGenerationKey(table, key);
+            return lookupCache(cacheKey, absentKey, generationKey).thenCompose(found -> {
+                Optional<String> cached = Optional.ofNullable(found.get(cacheKey));
                 if (cached.isPresent()) {
                     // Cache hit
                     @SuppressWarnings("unchecked")
@@ -399,17 +826,18 @@ public class DatabaseManagerImpl implements DatabaseManager {
                     // Auto-refresh TTL if enabled and remaining TTL is below threshold
                     if (config.getCaching().isAutoRefresh()) {
                         long threshold = config.getCaching().getRefreshThreshold();
-                        long defaultTtl = config.getCaching().getDefaultTTL();
                         redisProvider.ttl(cacheKey).thenAccept(remaining -> {
                             if (remaining >= 0 && remaining < threshold) {
-                                redisProvider.expire(cacheKey, Duration.ofSeconds(defaultTtl));
+                                long refreshTtl = cacheTtl(table, cacheKey);
+                                expireCached(cacheKey, Duration.ofSeconds(refreshTtl));
                                 // Update pending score so sweep uses the new expiry time
-                                double newExpireAt = System.currentTimeMillis() / 1000.0 + defaultTtl;
-                                redisProvider.zadd(PENDING_KEY, newExpireAt, cacheKey)
+                                double newExpireAt = System.currentTimeMillis() / 1000.0 + refreshTtl;
+                                redisProvider.zadd(keyLayout.pendingKey(cacheKey), newExpireAt, cacheKey)
                                         .exceptionally(e -> {
                                             log.warn("autoRefresh: failed to update pending score for {}: {}", cacheKey, e.getMessage());
                                             return false;
                                         });
+                                trackOwned(cacheKey, newExpireAt);
                             }
                         }).exceptionally(e -> {
                             log.warn("autoRefresh: failed to get TTL for {}: {}", cacheKey, e.getMessage());
@@ -419,20 +847,40 @@ public class DatabaseManagerImpl implements DatabaseManager {
                     return CompletableFuture.completedFuture(Optional.ofNullable(data));
                 }
 
-                // Cache miss, try persistence
-                return getFromPersist(table, key).thenCompose(persisted -> {
+                if (found.containsKey(absentKey)) {
+                    // Recently confirmed absent, skip the persist query
+                    negativeCacheHits.increment();
+                    return CompletableFuture.completedFuture(Optional.empty());
+                }
+
+                // Cache miss, try persistence (unless the bloom filter rules the key out)
+                String generation = config.getCaching().isNegativeCacheEnabled()
+                        ? found.getOrDefault(generationKey, "")
+                        : null;
+                return mightExist(table, key).thenCompose(possible -> possible
+                        ? getFromPersist(table, key, generation)
+                        : CompletableFuture.completedFuture(Optional.<Map<String, Object>>empty())
+                ).thenCompose(persisted -> {
                     if (persisted.isPresent() && redisProvider != null) {
-                        // Write back to cache
+                        // Write back to cache; NX so a set() that raced with this load is not overwritten
                         String json = gson.toJson(persisted.get());
-                        long ttl = config.getCaching().getDefaultTTL();
-                        redisProvider.setEx(cacheKey, json, Duration.ofSeconds(ttl));
-                        // Register in pending so sweep can manage TTL refresh for this key
-                        double expireAt = System.currentTimeMillis() / 1000.0 + ttl;
-                        redisProvider.zadd(PENDING_KEY, expireAt, cacheKey)
-                                .exceptionally(e -> {
-                                    log.warn("write-back: failed to register pending for {}: {}", cacheKey, e.getMessage());
-                                    return false;
-                                });
+                        long ttl = cacheTtl(table, cacheKey);
+                        redisProvider.setNxEx(cacheKey, json, Duration.ofSeconds(ttl)).thenAccept(written -> {
+                            if (!written) {
+                                return;
+                            }
+                            // Register in pending so sweep can manage TTL refresh for this key
+                            double expireAt = System.currentTimeMillis() / 1000.0 + ttl;
+                            redisProvider.zadd(keyLayout.pendingKey(cacheKey), expireAt, cacheKey)
+                                    .exceptionally(e -> {
+                                        log.warn("write-back: failed to register pending for {}: {}", cacheKey, e.getMessage());
+                                        return false;
+                                    });
+                            trackOwned(cacheKey, expireAt);
+                        }).exceptionally(e -> {
+                            log.warn("write-back: failed to cache {}: {}", cacheKey, e.getMessage());
+                            return null;
+                        });
                     }
                     return CompletableFuture.completedFuture(persisted);
                 });
@@ -440,17 +888,160 @@ public class DatabaseManagerImpl implements DatabaseManager {
         }
 
         // No cache, go directly to persistence
-        return getFromPersist(table, key);
+        return getFromPersist(table, key, null);
+    }
+
+    /**
+     * Deep copy of a Gson-decoded map (nested maps and lists are copied too).
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyMap(Map<String, Object> source) {
+        Map<String, Object> copy = new LinkedHashMap<>(source.size());
+        for (Map.Entry<String, Object> entry : source.entrySet()) {
+            copy.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object copyValue(Object value) {
+        if (value instanceof Map) {
+            return copyMap((Map<String, Object>) value);
+        }
+        if (value instanceof List) {
+            List<Object> list = (List<Object>) value;
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copy.add(copyValue(item));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Read the cache entry and, if negative caching is enabled, its absent marker and write
+     * generation in one round trip.
+     *
+     * @return Found keys and their values
+     */
+    private CompletableFuture<Map<String, String>> lookupCache(String cacheKey, String absentKey,
+                                                               String generationKey) {
+        if (config.getCaching().isNegativeCacheEnabled()) {
+            return redisProvider.mget(List.of(cacheKey, absentKey, generationKey));
+        }
+        return redisProvider.get(cacheKey).thenApply(cached ->
+                cached.map(json -> Map.of(cacheKey, json)).orElse(Collections.emptyMap()));
+    }
+
+    /**
+     * Bloom filter check; true when the filter is disabled or not built yet.
+     */
+    private CompletableFuture<Boolean> mightExist(String table, String key) {
+        if (bloomFilter == null) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return bloomFilter.mightContain(table, key);
+    }
+
+    /**
+     * Existence check for a key that is not cached: absent marker, then bloom filter, then the
+     * persist layer.
+     */
+    private CompletableFuture<Boolean> existsUncached(String table, String key) {
+        if (!config.getCaching().isNegativeCacheEnabled()) {
+            return mightExist(table, key).thenCompose(possible -> possible
+                    ? existsInPersist(table, key, null)
+                    : CompletableFuture.completedFuture(false));
+        }
+        String absentKey = buildAbsentKey(table, key);
+        String generationKey = keyLayout.absentGenerationKey(table, key);
+        return redisProvider.mget(List.of(absentKey, generationKey))
+                .thenApply(Optional::of)
+                .exceptionally(e -> Optional.empty())
+                .thenCompose(found -> {
+                    if (found.isPresent() && found.get().containsKey(absentKey)) {
+                        negativeCacheHits.increment();
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    // 读取失败时不知道写代数，本次不写标记
+                    String generation = found.map(values -> values.getOrDefault(generationKey, "")).orElse(null);
+                    return mightExist(table, key).thenCompose(possible -> possible
+                            ? existsInPersist(table, key, generation)
+                            : CompletableFuture.completedFuture(false));
+                });
+    }
+
+    /**
+     * Remember that the persist layer has no row for this key (short TTL).
+     * Only called after a successful query, never on errors. The marker is only set if no write
+     * bumped the key's generation since {@code generation} was read, before the query.
+     *
+     * @param generation Write generation read before the query; null to skip marking
+     */
+    private void markAbsent(String table, String key, String generation) {
+        if (generation == null || !config.getCaching().isNegativeCacheEnabled() || !cacheAvailable()) {
+            return;
+        }
+        long ttl = Math.max(1, config.getCaching().getNegativeCacheTTL());
+        redisProvider.markAbsent(buildAbsentKey(table, key), keyLayout.absentGenerationKey(table, key), generation,
+                        Duration.ofSeconds(ttl))
+                .exceptionally(e -> {
+                    log.debug("Failed to mark {}/{} absent: {}", table, key, e.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * Delete the absent marker and bump the write generation. Writes call this both before
+     * (so reads already past their generation read cannot mark the key) and after the write
+     * (to remove markers set in between).
+     */
+    private CompletableFuture<Void> clearAbsent(String table, String key) {
+        if (!config.getCaching().isNegativeCacheEnabled() || !cacheAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return redisProvider.clearAbsent(buildAbsentKey(table, key), keyLayout.absentGenerationKey(table, key),
+                ABSENT_GENERATION_TTL).handle((v, e) -> {
+            if (e != null) {
+                log.warn("Failed to clear absent marker for {}/{}: {}", table, key, e.getMessage());
+            }
+            return null;
+        });
     }
 
-    private CompletableFuture<Optional<Map<String, Object>>> getFromPersist(String table, String key) {
-        if (persistProvider == null || !persistProvider.isConnected()) {
+    private CompletableFuture<Optional<Map<String, Object>>> getFromPersist(String table, String key,
+                                                                            String absentGeneration) {
+        // 未回放的暂存写入比数据库中的数据新
+        WriteSpool currentSpool = spool;
+        Optional<SpoolRecord> spooled = currentSpool != null ? currentSpool.lookup(table, key) : Optional.empty();
+        if (spooled.isPresent()) {
+            return CompletableFuture.completedFuture(spooled.get().isDelete()
+                    ? Optional.empty()
+                    : Optional.of(new HashMap<>(spooled.get().getData())));
+        }
+
+        if (!persistAvailable()) {
             return CompletableFuture.completedFuture(Optional.empty());
         }
 
         return persistProvider.query(table, Map.of("id", key))
-                .<Optional<Map<String, Object>>>thenApply(results -> 
-                    results.isEmpty() ? Optional.empty() : Optional.of(results.get(0)))
+                .<Optional<Map<String, Object>>>thenCompose(results -> {
+                    if (!results.isEmpty()) {
+                        return CompletableFuture.completedFuture(Optional.of(results.get(0)));
+                    }
+                    // 热表未命中时再查一次归档表
+                    CompletableFuture<Optional<Map<String, Object>>> archived =
+                            coldTier != null && coldTier.isTiered(table)
+                                    ? coldTier.restore(table, key)
+                                    : CompletableFuture.completedFuture(Optional.empty());
+                    return archived.thenApply(restored -> {
+                        if (restored.isEmpty()) {
+                            markAbsent(table, key, absentGeneration);
+                        }
+                        return restored;
+                    });
+                })
                 .exceptionally(e -> {
                     log.debug("Query failed for {}/{}: {}", table, key, e.getMessage());
                     return Optional.empty();
@@ -464,18 +1055,46 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
     @Override
     public CompletableFuture<Boolean> set(String table, String key, Map<String, Object> data, CacheStrategy strategy) {
+        Objects.requireNonNull(data, "data");
         String cacheKey = buildCacheKey(table, key);
+        // Readers arriving after this write must not join a load that started before it
+        getFlight.forget(cacheKey);
+
+        // The bloom filter must know the key before any reader can miss it in Redis; the absent
+        // marker is cleared (and its generation bumped) before and after the write, so a reader
+        // whose query raced with the write cannot re-create it
+        CompletableFuture<Void> registered = bloomFilter != null
+                ? bloomFilter.add(table, key)
+                : CompletableFuture.completedFuture(null);
+        return registered
+                .thenCompose(v -> clearAbsent(table, key))
+                .thenCompose(v -> write(table, key, cacheKey, data, strategy))
+                .thenCompose(ok -> clearAbsent(table, key).thenApply(v -> ok))
+                .thenApply(ok -> recordChange(table, key, ChangeType.SET, ok));
+    }
+
+    private CompletableFuture<Boolean> write(String table, String key, String cacheKey,
+                                             Map<String, Object> data, CacheStrategy strategy) {
         String json = gson.toJson(data);
-        long ttl = config.getCaching().getDefaultTTL();
+        ttlPolicy.recordAccess(cacheKey);
+        touchTier(table, key);
+        long ttl = cacheTtl(table, cacheKey);
 
         // Ensure data has the key
         Map<String, Object> dataWithKey = new HashMap<>(data);
         dataWithKey.put("id", key);
 
+        // 持久层熔断期间，需要落库的写入改走 Redis + pending，恢复后由 sweep 补写
+        if ((strategy == CacheStrategy.PERSIST_ONLY || strategy == CacheStrategy.WRITE_THROUGH)
+                && persistProvider != null && !persistAvailable() && cacheAvailable()) {
+            strategy = CacheStrategy.CACHE_FIRST;
+        }
+
         switch (strategy) {
             case CACHE_ONLY:
-                if (redisProvider != null && redisProvider.isConnected()) {
-                    return redisProvider.setEx(cacheKey, json, Duration.ofSeconds(ttl));
+                if (cacheAvailable()) {
+                    return redisProvider.setExStamped(cacheKey, keyLayout.writtenKey(cacheKey), json,
+                            Duration.ofSeconds(ttl), System.currentTimeMillis());
                 }
                 return CompletableFuture.completedFuture(false);
 
@@ -484,52 +1103,109 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
             case WRITE_THROUGH:
                 CompletableFuture<Boolean> persistFuture = saveToPersist(table, key, dataWithKey);
-                if (redisProvider != null && redisProvider.isConnected()) {
+                if (cacheAvailable()) {
                     return persistFuture.thenCompose(persistOk -> 
                         redisProvider.setEx(cacheKey, json, Duration.ofSeconds(ttl))
                             .thenApply(cacheOk -> persistOk && cacheOk)
                     );
                 }
+                markCacheStale(cacheKey);
                 return persistFuture;
 
             case CACHE_FIRST:
             default:
-                if (redisProvider != null && redisProvider.isConnected()) {
+                if (cacheAvailable()) {
                     // 写入 Redis，同时登记到 pending 集合（score = 过期时间戳，单位秒）
-                    double expireAt = System.currentTimeMillis() / 1000.0 + ttl;
-                    return redisProvider.setEx(cacheKey, json, Duration.ofSeconds(ttl))
+                    // 同时记下写入时间：熔断标记之后写入的副本不会被旧缓存清理删除
+                    long now = System.currentTimeMillis();
+                    double expireAt = now / 1000.0 + ttl;
+                    return redisProvider.setExStamped(cacheKey, keyLayout.writtenKey(cacheKey), json,
+                                    Duration.ofSeconds(ttl), now)
                             .thenCompose(cacheOk -> {
                                 if (cacheOk) {
-                                    // 登记到 pending，供本服或其他子服的 sweep 处理
-                                    redisProvider.zadd(PENDING_KEY, expireAt, cacheKey)
-                                            .exceptionally(e -> {
-                                                log.error("Failed to register pending for {}/{}: {}", table, key, e.getMessage());
-                                                return false;
-                                            });
+                                    registerPending(table, key, cacheKey, expireAt);
                                 }
                                 return CompletableFuture.completedFuture(cacheOk);
                             });
                 }
+                // Redis 被绕开：旧的缓存副本需在恢复后清除
+                markCacheStale(cacheKey);
                 return saveToPersist(table, key, dataWithKey);
         }
     }
 
+    /**
+     * 登记到 pending，供本服或其他子服的 sweep 处理。
+     *
+     * @param expireAt 缓存过期时间戳（秒）
+     */
+    private void registerPending(String table, String key, String cacheKey, double expireAt) {
+        redisProvider.zadd(keyLayout.pendingKey(cacheKey), expireAt, cacheKey)
+                .exceptionally(e -> {
+                    log.error("Failed to register pending for {}/{}: {}", table, key, e.getMessage());
+                    return false;
+                });
+        trackOwned(cacheKey, expireAt);
+    }
+
+    /**
+     * 把缓存行写回持久层。计数列不写：缓存副本可能早于已累加到库中的 flush，写回会覆盖那批增量。
+     */
+    private CompletableFuture<Boolean> writeBack(String table, String key, String cachedJson) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> data = gson.fromJson(cachedJson, Map.class);
+        return counters.fields(table).thenCompose(counterFields -> {
+            data.keySet().removeAll(counterFields);
+            data.put("id", key);
+            return saveToPersist(table, key, data);
+        });
+    }
+
     private CompletableFuture<Boolean> saveToPersist(String table, String key, Map<String, Object> data) {
-        if (persistProvider == null || !persistProvider.isConnected()) {
-            return CompletableFuture.completedFuture(false);
+        WriteSpool currentSpool = spool;
+        // 该 key 还有未回放的暂存写入：新写入也进暂存，保证回放后的结果是最后一次写入
+        if (currentSpool != null && currentSpool.contains(table, key)) {
+            return spoolWrite(currentSpool, table, key, data);
+        }
+        if (!persistAvailable()) {
+            return currentSpool != null
+                    ? spoolWrite(currentSpool, table, key, data)
+                    : CompletableFuture.completedFuture(false);
         }
         // NOTE: do NOT zrem from pending here. Callers that own the key lifecycle
         // (processPendingKey, processPendingKeySync, persistAndClear) do their own
         // explicit zrem. persistOnly (autoSync path) intentionally keeps the key
         // in pending so the sweep can continue to manage TTL refresh.
-        return persistProvider.upsert(table, data, "id");
+        CompletableFuture<Boolean> upsert = upsertRow(persistProvider, table, data);
+        if (currentSpool == null) {
+            return upsert;
+        }
+        return upsert
+                .exceptionally(e -> {
+                    log.warn("Persist write failed for {}/{}, spooling locally: {}", table, key, e.getMessage());
+                    return false;
+                })
+                .thenCompose(ok -> ok
+                        ? CompletableFuture.completedFuture(true)
+                        : spoolWrite(currentSpool, table, key, data));
+    }
+
+    /**
+     * 版本化的表按版本写入：sweep 或暂存回放写回的旧副本不会覆盖库中更新的版本。
+     */
+    private CompletableFuture<Boolean> upsertRow(PersistProvider persist, String table, Map<String, Object> data) {
+        String versionColumn = versionColumns.get(table);
+        if (versionColumn != null && data.get(versionColumn) != null) {
+            return persist.upsertVersioned(table, data, "id", versionColumn);
+        }
+        return persist.upsert(table, data, "id");
     }
 
     @Override
     public CompletableFuture<Boolean> persistAndClear(String table, String key) {
         String cacheKey = buildCacheKey(table, key);
 
-        if (redisProvider == null || !redisProvider.isConnected()) {
+        if (!cacheAvailable()) {
             return CompletableFuture.completedFuture(true);
         }
 
@@ -538,19 +1214,17 @@ public class DatabaseManagerImpl implements DatabaseManager {
                 return CompletableFuture.completedFuture(true);
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = gson.fromJson(cached.get(), Map.class);
-            data.put("id", key);
-
-            return saveToPersist(table, key, data).thenCompose(saved -> {
+            return writeBack(table, key, cached.get()).thenCompose(saved -> {
                 if (saved) {
                     // Remove from pending and delete Redis key
-                    redisProvider.zrem(PENDING_KEY, cacheKey)
+                    untrackOwned(cacheKey);
+                    redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey)
                             .exceptionally(e -> {
                                 log.warn("persistAndClear: failed to remove {} from pending: {}", cacheKey, e.getMessage());
                                 return 0L;
                             });
-                    return redisProvider.delete(cacheKey);
+                    return redisProvider.delete(cacheKey)
+                            .thenApply(ok -> recordChange(table, key, ChangeType.PERSIST, ok));
                 }
                 return CompletableFuture.completedFuture(false);
             });
@@ -561,7 +1235,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
     public CompletableFuture<Boolean> persistOnly(String table, String key) {
         String cacheKey = buildCacheKey(table, key);
 
-        if (redisProvider == null || !redisProvider.isConnected()) {
+        if (!cacheAvailable()) {
             return CompletableFuture.completedFuture(true);
         }
 
@@ -569,36 +1243,40 @@ public class DatabaseManagerImpl implements DatabaseManager {
             if (cached.isEmpty()) {
                 // Redis key already expired or not found; remove from pending to avoid stale entries
                 log.info("persistOnly: Redis key not found for {}/{}, removing from pending", table, key);
-                redisProvider.zrem(PENDING_KEY, cacheKey).exceptionally(e -> {
+                redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey).exceptionally(e -> {
                     log.warn("Failed to remove stale pending entry {}: {}", cacheKey, e.getMessage());
                     return 0L;
                 });
                 return CompletableFuture.completedFuture(false);
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = gson.fromJson(cached.get(), Map.class);
-            data.put("id", key);
-
             // 只持久化，不删除 Redis 缓存，保持缓存对在线玩家可用
-            return saveToPersist(table, key, data);
+            return writeBack(table, key, cached.get());
         });
     }
 
     @Override
     public CompletableFuture<Boolean> delete(String table, String key) {
         String cacheKey = buildCacheKey(table, key);
+        getFlight.forget(cacheKey);
         List<CompletableFuture<Boolean>> futures = new ArrayList<>();
 
-        if (redisProvider != null && redisProvider.isConnected()) {
+        if (cacheAvailable()) {
             futures.add(redisProvider.delete(cacheKey));
             // 删除时同步清除 pending 登记，避免 sweep 再去持久化已删除的数据
-            redisProvider.zrem(PENDING_KEY, cacheKey);
+            redisProvider.zrem(keyLayout.pendingKey(cacheKey), cacheKey);
+            untrackOwned(cacheKey);
+        } else {
+            markCacheStale(cacheKey);
         }
 
-        if (persistProvider != null && persistProvider.isConnected()) {
+        WriteSpool currentSpool = spool;
+        if (currentSpool != null && (currentSpool.contains(table, key) || !persistAvailable())) {
+            // 暂存删除标记，回放时按顺序删除
+            futures.add(spoolWrite(currentSpool, table, key, null));
+        } else if (persistAvailable()) {
             futures.add(persistProvider.deleteWhere(table, Map.of("id", key))
-                    .thenApply(count -> count > 0));
+                    .thenCombine(forgetTier(table, key), (count, v) -> count > 0));
         }
 
         if (futures.isEmpty()) {
@@ -606,7 +1284,8 @@ public class DatabaseManagerImpl implements DatabaseManager {
         }
 
         return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-                .thenApply(v -> futures.stream().anyMatch(f -> f.join()));
+                .thenApply(v -> futures.stream().anyMatch(f -> f.join()))
+                .thenApply(ok -> recordChange(table, key, ChangeType.DELETE, ok));
     }
 
     @Override
@@ -614,25 +1293,39 @@ public class DatabaseManagerImpl implements DatabaseManager {
         String cacheKey = buildCacheKey(table, key);
 
         // Check cache first
-        if (redisProvider != null && redisProvider.isConnected()) {
+        if (cacheAvailable()) {
             return redisProvider.exists(cacheKey).thenCompose(inCache -> {
                 if (inCache) {
                     return CompletableFuture.completedFuture(true);
                 }
-                return existsInPersist(table, key);
+                return existsUncached(table, key);
             });
         }
 
-        return existsInPersist(table, key);
+        return existsInPersist(table, key, null);
     }
 
-    private CompletableFuture<Boolean> existsInPersist(String table, String key) {
-        if (persistProvider == null || !persistProvider.isConnected()) {
+    private CompletableFuture<Boolean> existsInPersist(String table, String key, String absentGeneration) {
+        WriteSpool currentSpool = spool;
+        Optional<SpoolRecord> spooled = currentSpool != null ? currentSpool.lookup(table, key) : Optional.empty();
+        if (spooled.isPresent()) {
+            return CompletableFuture.completedFuture(!spooled.get().isDelete());
+        }
+
+        if (!persistAvailable()) {
             return CompletableFuture.completedFuture(false);
         }
 
         return persistProvider.count(table, Map.of("id", key))
-                .thenApply(count -> count > 0)
+                .thenCompose(count -> count > 0 || coldTier == null || !coldTier.isTiered(table)
+                        ? CompletableFuture.completedFuture(count > 0)
+                        : coldTier.isArchived(table, key))
+                .thenApply(exists -> {
+                    if (!exists) {
+                        markAbsent(table, key, absentGeneration);
+                    }
+                    return exists;
+                })
                 .exceptionally(e -> false);
     }
 
@@ -642,7 +1335,7 @@ public class DatabaseManagerImpl implements DatabaseManager {
             return CompletableFuture.completedFuture(true);
         }
 
-        if (persistProvider == null || !persistProvider.isConnected()) {
+        if (!persistAvailable()) {
             return CompletableFuture.completedFuture(false);
         }
 
@@ -662,30 +1355,1122 @@ public class DatabaseManagerImpl implements DatabaseManager {
     }
 // 在 dbManager.ensureTable 里
 
-    // ==================== Repository API ====================
+    // ==================== Versioned Writes ====================
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public <T> Repository<T> getRepository(Class<T> entityClass) {
-        return (Repository<T>) repositories.computeIfAbsent(entityClass,
-                cls -> new RepositoryImpl<>(this, entityClass, gson));
+    /**
+     * Declare the {@code @Version} column of a table so write-backs never replace a newer version.
+     */
+    void registerVersionColumn(String table, String versionColumn) {
+        versionColumns.put(table, versionColumn);
     }
 
-    // ==================== Provider Access ====================
-
-    @Override
-    public Optional<CacheProvider> getCacheProvider() {
-        return Optional.ofNullable(redisProvider);
+    /**
+     * Write {@code data} only if the stored version of the row still equals {@code expectedVersion};
+     * the written row carries {@code expectedVersion + 1}. The version is compared where the current
+     * copy lives: by a Lua script against the cached JSON, or by {@code UPDATE ... WHERE version = ?}
+     * when the strategy bypasses the cache or Redis is unavailable.
+     *
+     * @param table           Table name
+     * @param key             Row key
+     * @param data            Row data
+     * @param versionColumn   Version column name
+     * @param expectedVersion Version the caller read
+     * @param strategy        Cache strategy
+     * @return Success status; fails with {@link OptimisticLockException} on a version conflict
+     */
+    public CompletableFuture<Boolean> compareAndSet(String table, String key, Map<String, Object> data,
+                                                    String versionColumn, long expectedVersion,
+                                                    CacheStrategy strategy) {
+        Objects.requireNonNull(data, "data");
+        String cacheKey = buildCacheKey(table, key);
+        getFlight.forget(cacheKey);
+
+        Map<String, Object> versioned = new HashMap<>(data);
+        versioned.put("id", key);
+        versioned.put(versionColumn, expectedVersion + 1);
+
+        CompletableFuture<Void> registered = bloomFilter != null
+                ? bloomFilter.add(table, key)
+                : CompletableFuture.completedFuture(null);
+        return registered
+                .thenCompose(v -> clearAbsent(table, key))
+                .thenCompose(v -> writeVersioned(table, key, cacheKey, versioned, versionColumn, expectedVersion, strategy))
+                .thenCompose(ok -> clearAbsent(table, key).thenApply(v -> ok))
+                .thenApply(ok -> recordChange(table, key, ChangeType.SET, ok));
     }
 
-    @Override
-    public Optional<PersistProvider> getPersistProvider() {
-        return Optional.ofNullable(persistProvider);
+    private CompletableFuture<Boolean> writeVersioned(String table, String key, String cacheKey,
+                                                      Map<String, Object> data, String versionColumn,
+                                                      long expectedVersion, CacheStrategy strategy) {
+        // 与 write() 相同：持久层熔断期间改走 Redis + pending
+        if ((strategy == CacheStrategy.PERSIST_ONLY || strategy == CacheStrategy.WRITE_THROUGH)
+                && persistProvider != null && !persistAvailable() && cacheAvailable()) {
+            strategy = CacheStrategy.CACHE_FIRST;
+        }
+        if (cacheAvailable() && strategy != CacheStrategy.PERSIST_ONLY) {
+            return compareAndSetCached(table, key, cacheKey, data, versionColumn, expectedVersion, strategy, true);
+        }
+        if (strategy == CacheStrategy.CACHE_ONLY) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return compareAndSetPersisted(table, key, cacheKey, data, versionColumn, expectedVersion);
     }
 
-    // ==================== Status ====================
-
-    @Override
+    /**
+     * 在 Redis 中比较版本。未缓存时以持久层的版本为准，校验通过后用 NX 写入缓存；
+     * NX 失败说明有并发写入或加载抢先缓存了该行，再对缓存比较一次。
+     */
+    private CompletableFuture<Boolean> compareAndSetCached(String table, String key, String cacheKey,
+                                                           Map<String, Object> data, String versionColumn,
+                                                           long expectedVersion, CacheStrategy strategy,
+                                                           boolean loadOnMiss) {
+        String json = gson.toJson(data);
+        ttlPolicy.recordAccess(cacheKey);
+        touchTier(table, key);
+        long ttl = cacheTtl(table, cacheKey);
+
+        String writtenKey = keyLayout.writtenKey(cacheKey);
+        return redisProvider.compareAndSetJson(cacheKey, writtenKey, versionColumn, expectedVersion, json,
+                        Duration.ofSeconds(ttl), System.currentTimeMillis())
+                .thenCompose(result -> {
+                    if (result == 1L) {
+                        return afterCachedWrite(table, key, cacheKey, data, ttl, strategy);
+                    }
+                    if (result == 0L || !loadOnMiss) {
+                        return CompletableFuture.<Boolean>failedFuture(
+                                new OptimisticLockException(table, key, expectedVersion));
+                    }
+                    return loadVersion(table, key, versionColumn).thenCompose(current -> {
+                        if (current != expectedVersion) {
+                            return CompletableFuture.<Boolean>failedFuture(
+                                    new OptimisticLockException(table, key, expectedVersion));
+                        }
+                        return redisProvider.setNxExStamped(cacheKey, writtenKey, json, Duration.ofSeconds(ttl),
+                                System.currentTimeMillis()).thenCompose(created -> created
+                                ? afterCachedWrite(table, key, cacheKey, data, ttl, strategy)
+                                : compareAndSetCached(table, key, cacheKey, data, versionColumn, expectedVersion,
+                                        strategy, false));
+                    });
+                });
+    }
+
+    private CompletableFuture<Boolean> afterCachedWrite(String table, String key, String cacheKey,
+                                                        Map<String, Object> data, long ttl, CacheStrategy strategy) {
+        switch (strategy) {
+            case CACHE_ONLY:
+                return CompletableFuture.completedFuture(true);
+
+            case WRITE_THROUGH:
+                return saveToPersist(table, key, data);
+
+            case CACHE_FIRST:
+            default:
+                registerPending(table, key, cacheKey, System.currentTimeMillis() / 1000.0 + ttl);
+                return CompletableFuture.completedFuture(true);
+        }
+    }
+
+    /**
+     * 在持久层比较版本。该 key 还有未回放的暂存写入时以暂存中的最新版本为准，写入也进暂存。
+     * 写入成功后删除旧的缓存副本，否则之后对缓存的比较会一直冲突。
+     */
+    private CompletableFuture<Boolean> compareAndSetPersisted(String table, String key, String cacheKey,
+                                                              Map<String, Object> data, String versionColumn,
+                                                              long expectedVersion) {
+        WriteSpool currentSpool = spool;
+        Optional<SpoolRecord> spooled = currentSpool != null ? currentSpool.lookup(table, key) : Optional.empty();
+        CompletableFuture<Boolean> written;
+        if (spooled.isPresent()) {
+            long current = spooled.get().isDelete() ? 0L : versionOf(spooled.get().getData(), versionColumn);
+            if (current != expectedVersion) {
+                return CompletableFuture.failedFuture(new OptimisticLockException(table, key, expectedVersion));
+            }
+            written = spoolWrite(currentSpool, table, key, data);
+        } else if (!persistAvailable()) {
+            // 无法确认库中的版本
+            return CompletableFuture.completedFuture(false);
+        } else {
+            written = persistProvider.compareAndSet(table, data, "id", versionColumn, expectedVersion)
+                    .thenCompose(ok -> ok
+                            ? CompletableFuture.completedFuture(true)
+                            : CompletableFuture.<Boolean>failedFuture(
+                                    new OptimisticLockException(table, key, expectedVersion)));
+        }
+
+        return written.thenCompose(ok -> {
+            if (!ok || redisProvider == null) {
+                return CompletableFuture.completedFuture(ok);
+            }
+            if (!cacheAvailable()) {
+                markCacheStale(cacheKey);
+                return CompletableFuture.completedFuture(true);
+            }
+            untrackOwned(cacheKey);
+            return redisProvider.delete(cacheKey).handle((v, e) -> {
+                if (e != null) {
+                    markCacheStale(cacheKey);
+                }
+                return true;
+            });
+        });
+    }
+
+    /**
+     * 当前存储的版本（行不存在为 0），暂存中未回放的写入优先。
+     */
+    private CompletableFuture<Long> loadVersion(String table, String key, String versionColumn) {
+        WriteSpool currentSpool = spool;
+        Optional<SpoolRecord> spooled = currentSpool != null ? currentSpool.lookup(table, key) : Optional.empty();
+        if (spooled.isPresent()) {
+            return CompletableFuture.completedFuture(
+                    spooled.get().isDelete() ? 0L : versionOf(spooled.get().getData(), versionColumn));
+        }
+        if (persistProvider == null) {
+            // 仅缓存部署：未缓存即不存在
+            return CompletableFuture.completedFuture(0L);
+        }
+        if (!persistAvailable()) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "Cannot check the version of " + table + "/" + key + " while persistence is unavailable"));
+        }
+        return persistProvider.query(table, Map.of("id", key))
+                .thenApply(rows -> rows.isEmpty() ? 0L : versionOf(rows.get(0), versionColumn));
+    }
+
+    private static long versionOf(Map<String, Object> row, String versionColumn) {
+        Object value = row.get(versionColumn);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return value != null ? (long) Double.parseDouble(value.toString()) : 0L;
+    }
+
+    // ==================== Counters ====================
+
+    @Override
+    public CompletableFuture<Boolean> increment(String table, String key, String field, long delta) {
+        return incrementCounter(table, key, field, delta);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> increment(String table, String key, String field, double delta) {
+        return incrementCounter(table, key, field, delta);
+    }
+
+    private CompletableFuture<Boolean> incrementCounter(String table, String key, String field, Number delta) {
+        String cacheKey = buildCacheKey(table, key);
+        if (cacheAvailable()) {
+            return counters.increment(cacheKey, field, delta);
+        }
+        // Redis 被绕开：直接累加到持久层，旧的缓存副本需在恢复后清除
+        if (!persistAvailable()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        markCacheStale(cacheKey);
+        return restoreArchived(table, List.of(key))
+                .thenCompose(v -> persistProvider.batchIncrement(table, "id", Map.of(key, Map.of(field, delta))));
+    }
+
+    @Override
+    public CompletableFuture<Double> getCounter(String table, String key, String field) {
+        CompletableFuture<Double> stored = get(table, key).thenApply(row -> row
+                .map(values -> values.get(field))
+                .map(value -> value instanceof Number
+                        ? ((Number) value).doubleValue()
+                        : Double.parseDouble(value.toString()))
+                .orElse(0.0));
+        if (!cacheAvailable()) {
+            return stored;
+        }
+        return stored.thenCombine(counters.pending(buildCacheKey(table, key), field), Double::sum);
+    }
+
+    /**
+     * 每 counterFlushIntervalSeconds 秒把 Redis 中累积的计数器增量批量累加到持久层。
+     */
+    private void startCounterFlush() {
+        if (redisProvider == null || persistProvider == null) {
+            return;
+        }
+        long interval = Math.max(1, config.getCaching().getCounterFlushIntervalSeconds());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flushCounters().get();
+            } catch (Exception e) {
+                log.error("Counter flush error: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 取出一批计数器增量，按表各执行一次批量累加；取满一批时继续，直到没有脏计数器。
+     */
+    CompletableFuture<Void> flushCounters() {
+        if (!cacheAvailable() || !persistAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        int batchSize = Math.max(1, config.getCaching().getCounterFlushBatchSize());
+        return counters.take(batchSize).thenCompose(taken -> {
+            if (taken.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return foldCounters(taken).thenCompose(v -> taken.size() >= batchSize
+                    ? flushCounters()
+                    : CompletableFuture.completedFuture((Void) null));
+        });
+    }
+
+    private CompletableFuture<Void> foldCounters(Map<String, Map<String, Number>> taken) {
+        // 表 → (cacheKey → 增量)
+        Map<String, Map<String, Map<String, Number>>> byTable = new LinkedHashMap<>();
+        List<String> unrecognized = new ArrayList<>();
+        taken.forEach((cacheKey, fields) -> {
+            String[] parts = keyLayout.parse(cacheKey);
+            if (parts == null) {
+                log.warn("Dropping counters of unrecognized key {}: {}", cacheKey, fields);
+                unrecognized.add(cacheKey);
+                return;
+            }
+            byTable.computeIfAbsent(parts[0], t -> new LinkedHashMap<>()).put(cacheKey, fields);
+        });
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // 无法解析的 key 不会被累加，直接提交，否则其认领过期后会被反复取出
+        futures.add(counters.commit(unrecognized));
+        byTable.forEach((table, byCacheKey) -> {
+            Map<String, Map<String, Number>> rows = new LinkedHashMap<>();
+            byCacheKey.forEach((cacheKey, fields) -> rows.put(keyLayout.parse(cacheKey)[1], fields));
+
+            // 计数器可能新建行：与 set() 相同，写入前登记到布隆过滤器，写入后清除不存在标记
+            List<CompletableFuture<Void>> registered = new ArrayList<>();
+            if (bloomFilter != null) {
+                rows.keySet().forEach(key -> registered.add(bloomFilter.add(table, key)));
+            }
+            // 计数器累加是部分写入：归档中的行需先恢复，否则会在热表中新建一行只有计数列的数据
+            futures.add(CompletableFuture.allOf(registered.toArray(new CompletableFuture[0]))
+                    .thenCompose(v -> restoreArchived(table, rows.keySet()))
+                    .thenCompose(v -> CompletableFuture.allOf(rows.keySet().stream()
+                            .map(key -> clearAbsent(table, key))
+                            .toArray(CompletableFuture[]::new)))
+                    .thenCompose(v -> persistProvider.batchIncrement(table, "id", rows))
+                    .exceptionally(e -> {
+                        log.warn("Counter flush of {} rows in {} failed: {}", rows.size(), table, e.getMessage());
+                        return false;
+                    })
+                    .thenCompose(ok -> {
+                        if (!ok) {
+                            // 放回 Redis，下次 flush 重试
+                            return counters.restore(byCacheKey.keySet());
+                        }
+                        // 提交与给缓存行加上增量在同一脚本中完成，读取缓存行加 pending 时不会重复或遗漏；
+                        // 回写缓存行时不写计数列（见 writeBack），不会覆盖本批增量
+                        List<CompletableFuture<Void>> updated = new ArrayList<>();
+                        rows.keySet().forEach(key -> updated.add(clearAbsent(table, key)));
+                        updated.add(counters.commitAndApply(byCacheKey));
+                        return CompletableFuture.allOf(updated.toArray(new CompletableFuture[0]));
+                    }));
+        });
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // ==================== Leaderboards ====================
+
+    @Override
+    public Leaderboard getLeaderboard(String name) {
+        LeaderboardImpl existing = leaderboards.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        LeaderboardImpl created = new LeaderboardImpl(this, name);
+        LeaderboardImpl raced = leaderboards.putIfAbsent(name, created);
+        return raced != null ? raced : created;
+    }
+
+    /**
+     * 每 leaderboardFlushIntervalSeconds 秒把本服打开过的排行榜中变化的分数批量写入表。
+     */
+    private void startLeaderboardFlush() {
+        if (redisProvider == null || persistProvider == null) {
+            return;
+        }
+        long interval = Math.max(1, config.getCaching().getLeaderboardFlushIntervalSeconds());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                flushLeaderboards().get();
+            } catch (Exception e) {
+                log.error("Leaderboard flush error: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    CompletableFuture<Void> flushLeaderboards() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (LeaderboardImpl board : leaderboards.values()) {
+            futures.add(board.flush().exceptionally(e -> {
+                log.warn("Failed to flush leaderboard {}: {}", board.getName(), e.getMessage());
+                return null;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // ==================== Change Feed ====================
+
+    @Override
+    public Subscription watch(String table, ChangeListener listener) {
+        return requireChangeFeed().watch(table, null, Objects.requireNonNull(listener, "listener"));
+    }
+
+    @Override
+    public Subscription watch(String table, String key, ChangeListener listener) {
+        return requireChangeFeed().watch(table, Objects.requireNonNull(key, "key"),
+                Objects.requireNonNull(listener, "listener"));
+    }
+
+    private ChangeFeed requireChangeFeed() {
+        if (changeFeed == null) {
+            throw new IllegalStateException("Change feed is disabled (caching.changeFeedEnabled)");
+        }
+        return changeFeed;
+    }
+
+    /**
+     * 写入成功后登记变化，由下一个窗口合并发布。
+     */
+    private boolean recordChange(String table, String key, ChangeType type, boolean ok) {
+        if (ok && changeFeed != null) {
+            changeFeed.record(table, key, type);
+        }
+        return ok;
+    }
+
+    /**
+     * 每 changeFeedWindowMillis 毫秒把窗口内的变化按表各发布一条消息；Redis 连接后订阅已有的监听。
+     */
+    private void startChangeFeed() {
+        if (changeFeed == null) {
+            return;
+        }
+        changeFeed.subscribeAll();
+        long window = Math.max(10, config.getCaching().getChangeFeedWindowMillis());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                changeFeed.publishPending().get();
+            } catch (Exception e) {
+                log.error("Change feed publish error: {}", e.getMessage());
+            }
+        }, window, window, TimeUnit.MILLISECONDS);
+    }
+
+    // ==================== Cold Tier ====================
+
+    /**
+     * 每 accessFlushSeconds 秒写入访问时间，每 intervalMinutes 分钟在独立线程上归档一次不活跃的行。
+     */
+    private void startTiering() {
+        if (coldTier == null || persistProvider == null) {
+            return;
+        }
+        DatabaseConfig.PersistConfig.TieringConfig tiering = config.getPersist().getTiering();
+        long flushInterval = Math.max(1, tiering.getAccessFlushSeconds());
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                coldTier.flushAccess().get();
+            } catch (Exception e) {
+                log.error("Access time flush error: {}", e.getMessage());
+            }
+        }, flushInterval, flushInterval, TimeUnit.SECONDS);
+        long archiveInterval = Math.max(1, tiering.getIntervalMinutes());
+        scheduler.scheduleWithFixedDelay(coldTier::archive, archiveInterval, archiveInterval, TimeUnit.MINUTES);
+    }
+
+    private void touchTier(String table, String key) {
+        if (coldTier != null) {
+            coldTier.touch(table, key);
+        }
+    }
+
+    private CompletableFuture<Void> forgetTier(String table, String key) {
+        if (coldTier == null || !coldTier.isTiered(table)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return coldTier.forget(table, key).exceptionally(e -> {
+            log.warn("Failed to drop the archived copy of {}/{}: {}", table, key, e.getMessage());
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> restoreArchived(String table, Collection<String> keys) {
+        if (coldTier == null || !coldTier.isTiered(table)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return coldTier.restoreAll(table, keys);
+    }
+
+    /**
+     * Run an archive pass now instead of waiting for {@code persist.tiering.intervalMinutes}.
+     *
+     * @return Rows archived; fails if tiering is disabled
+     */
+    public CompletableFuture<Long> archiveColdRows() {
+        if (coldTier == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Tiering is disabled (persist.tiering)"));
+        }
+        return coldTier.archive();
+    }
+
+    /**
+     * Archived / restored row counts of the cold tier.
+     *
+     * @return Stats, or null if tiering is disabled
+     */
+    public TieringStats getTieringStats() {
+        return coldTier != null ? coldTier.getStats() : null;
+    }
+
+    // ==================== Repository API ====================
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Repository<T> getRepository(Class<T> entityClass) {
+        Repository<?> existing = repositories.get(entityClass);
+        if (existing != null) {
+            return (Repository<T>) existing;
+        }
+
+        RepositoryImpl<T> created = new RepositoryImpl<>(this, entityClass, gson);
+        Repository<?> raced = repositories.putIfAbsent(entityClass, created);
+        if (raced != null) {
+            return (Repository<T>) raced;
+        }
+        // 插件通常在启用时获取仓库：此时就在后台建表并预编译语句，不等到首个玩家进入
+        if (persistAvailable()) {
+            warmUpRepositories(List.of(created));
+        }
+        return created;
+    }
+
+    // ==================== Warm-up ====================
+
+    /**
+     * Startup warm-up, run at the end of {@link #initialize()}: load the names of all existing
+     * tables in one query, create the tables of the repositories registered so far in parallel,
+     * then open the pooled connections and prepare the per-row statements on them.
+     * Repositories registered later are warmed when {@link #getRepository} creates them.
+     *
+     * <p>Failures are only logged; {@link #ensureTable} still handles anything not warmed.</p>
+     *
+     * @return Completion future (never fails)
+     */
+    public CompletableFuture<Void> warmUp() {
+        if (!persistAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.currentTimeMillis();
+        return persistProvider.listTables()
+                .thenAccept(ensuredTables::addAll)
+                .exceptionally(e -> {
+                    log.warn("Failed to list tables, falling back to per-table checks: {}", e.getMessage());
+                    return null;
+                })
+                .thenCompose(v -> warmUpRepositories(new ArrayList<>(repositories.values())))
+                .thenRun(() -> log.info("Warm-up finished in {}ms: {} tables known, {} repositories",
+                        System.currentTimeMillis() - start, ensuredTables.size(), repositories.size()));
+    }
+
+    private CompletableFuture<Void> warmUpRepositories(List<Repository<?>> repos) {
+        List<CompletableFuture<Void>> ensured = new ArrayList<>(repos.size());
+        for (Repository<?> repo : repos) {
+            ensured.add(((RepositoryImpl<?>) repo).ensureTable().exceptionally(e -> {
+                log.warn("Failed to prepare table {}: {}", repo.getTableName(), e.getMessage());
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(ensured.toArray(new CompletableFuture[0])).thenCompose(v -> {
+            PersistProvider persist = persistProvider;
+            if (persist == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            Map<String, List<String>> tables = new LinkedHashMap<>();
+            for (Repository<?> repo : repos) {
+                tables.put(repo.getTableName(), ((RepositoryImpl<?>) repo).getColumns());
+            }
+            return persist.warmUp(tables);
+        }).exceptionally(e -> {
+            log.warn("Connection warm-up failed: {}", e.getMessage());
+            return null;
+        });
+    }
+
+    // ==================== Provider Access ====================
+
+    @Override
+    public Optional<CacheProvider> getCacheProvider() {
+        return Optional.ofNullable(redisProvider);
+    }
+
+    @Override
+    public Optional<PersistProvider> getPersistProvider() {
+        return Optional.ofNullable(persistProvider);
+    }
+
+    /**
+     * In-flight deduplication of {@link #get(String, String)}: loads started vs calls that joined one.
+     *
+     * @return Read coalescing state
+     */
+    public SingleFlight<String, Optional<Map<String, Object>>> getReadFlight() {
+        return getFlight;
+    }
+
+    /**
+     * Number of reads answered "absent" by the negative cache.
+     */
+    public long getNegativeCacheHits() {
+        return negativeCacheHits.sum();
+    }
+
+    /**
+     * Per-table bloom filter.
+     *
+     * @return Bloom filter, or empty if disabled
+     */
+    public Optional<BloomFilterIndex> getBloomFilter() {
+        return Optional.ofNullable(bloomFilter);
+    }
+
+    /**
+     * 每个分片一个 MySQLProvider（同一库名、账号与连接池配置），共用持久层熔断器。
+     */
+    private CompletableFuture<Void> initializeShards() {
+        DatabaseConfig.PersistConfig.MySQLConfig base = config.getPersist().getMysql();
+        DatabaseConfig.PersistConfig.MySQLConfig.ShardingConfig sharding = base.getSharding();
+        List<String> endpoints = sharding.getShards();
+        if (endpoints == null || endpoints.isEmpty()) {
+            log.warn("MySQL sharding is enabled but persist.mysql.sharding.shards is empty");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<MySQLProvider> shards = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            int idx = endpoint.lastIndexOf(':');
+            if (idx < 1) {
+                log.warn("Invalid MySQL shard '{}', expected host:port", endpoint);
+                return CompletableFuture.completedFuture(null);
+            }
+            DatabaseConfig.PersistConfig.MySQLConfig shardConfig = new DatabaseConfig.PersistConfig.MySQLConfig();
+            shardConfig.setHost(endpoint.substring(0, idx).trim());
+            shardConfig.setPort(Integer.parseInt(endpoint.substring(idx + 1).trim()));
+            shardConfig.setDatabase(base.getDatabase());
+            shardConfig.setUsername(base.getUsername());
+            shardConfig.setPassword(base.getPassword());
+            shardConfig.setTimezone(base.getTimezone());
+            shardConfig.setPool(base.getPool());
+            shards.add(new MySQLProvider(shardConfig, config.getAdvanced().getExecutor(), persistBreaker));
+        }
+
+        return CompletableFuture.allOf(shards.stream()
+                        .map(MySQLProvider::initialize)
+                        .toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    ShardedPersistProvider sharded = new ShardedPersistProvider(
+                            new ArrayList<>(shards), sharding.getPreviousShardCount());
+                    resharder = new Resharder(sharded, sharding.getMigrationBatchSize());
+                    persistProvider = sharded;
+                    if (sharded.isResharding()) {
+                        log.warn("MySQL shards resized from {} to {}; run /yrdb reshard to move rows, "
+                                        + "then set previousShardCount back to 0",
+                                sharded.getPreviousRouter().getShards(), shards.size());
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Failed to initialize MySQL shards: {}", e.getMessage());
+                    shards.forEach(MySQLProvider::close);
+                    return null;
+                });
+    }
+
+    /**
+     * Start a resharding pass that moves rows to their owner after shards were appended.
+     *
+     * @return Stats of the finished pass; fails if the persist layer is not sharded or a pass is running
+     */
+    public CompletableFuture<ReshardStats> reshard() {
+        Resharder current = resharder;
+        if (current == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Persist layer is not sharded"));
+        }
+        return current.run();
+    }
+
+    /**
+     * Progress of the current or last resharding pass.
+     *
+     * @return Stats, or null if the persist layer is not sharded
+     */
+    public ReshardStats getReshardStats() {
+        Resharder current = resharder;
+        return current != null ? current.getStats() : null;
+    }
+
+    // ==================== Data Transfer ====================
+
+    /**
+     * Export tables of the persist layer to chunk files, or resume an unfinished export.
+     *
+     * @param name   Export directory name under advanced.transfer.directory; null for {@code export-<time>}
+     * @param tables Tables to export; empty for all tables
+     * @return Stats of the finished export; fails if the persist layer is unavailable or a transfer is running
+     */
+    public CompletableFuture<TransferStats> exportData(String name, Collection<String> tables) {
+        PersistProvider source = availablePersist();
+        if (source == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Persist layer is not available"));
+        }
+        String directory = name != null ? name
+                : "export-" + LocalDateTime.now().format(EXPORT_NAME_FORMAT);
+        return transfer.exportTo(source, transferDirectory().resolve(directory), tables);
+    }
+
+    /**
+     * Import a finished export into the persist layer, or resume an unfinished import of it.
+     * Imported rows are added to the bloom filter and lose their absent markers like any write,
+     * and cached copies written before a row was imported are dropped, so neither reads nor
+     * write-backs see the old row.
+     *
+     * @param name Export directory, relative to advanced.transfer.directory
+     * @return Stats of the finished import
+     */
+    public CompletableFuture<TransferStats> importData(String name) {
+        PersistProvider target = availablePersist();
+        if (target == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Persist layer is not available"));
+        }
+        Path directory = transferDirectory().resolve(name);
+        if (!Files.exists(directory.resolve(DataTransfer.MANIFEST_FILE))) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No export found in " + directory));
+        }
+        return transfer.importFrom(directory, target, new DataTransfer.BatchListener() {
+            @Override
+            public CompletableFuture<Void> beforeWrite(String table, List<String> keys) {
+                return beforeImport(table, keys);
+            }
+
+            @Override
+            public CompletableFuture<Void> afterWrite(String table, List<String> keys) {
+                return afterImport(table, keys);
+            }
+        });
+    }
+
+    /**
+     * 与 set() 相同：写入前登记到布隆过滤器，并推进写入代数，正在进行的读取不会再标记为不存在。
+     */
+    private CompletableFuture<Void> beforeImport(String table, List<String> keys) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(keys.size() * 2);
+        for (String key : keys) {
+            if (bloomFilter != null) {
+                futures.add(bloomFilter.add(table, key));
+            }
+            futures.add(clearAbsent(table, key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * 导入后清除不存在标记，并删除导入前写入的缓存副本（及其 pending 回写，sweep 发现缓存已删除时移除）。
+     * 导入之后写入的缓存保留。Redis 被绕开时记为旧缓存，恢复后再删除。
+     */
+    private CompletableFuture<Void> afterImport(String table, List<String> keys) {
+        long importedAt = System.currentTimeMillis();
+        RedisProvider cache = redisProvider;
+        if (cache == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!cacheAvailable()) {
+            keys.forEach(key -> markCacheStale(buildCacheKey(table, key)));
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<?>> futures = new ArrayList<>(keys.size() * 2);
+        for (String key : keys) {
+            String cacheKey = buildCacheKey(table, key);
+            futures.add(clearAbsent(table, key));
+            futures.add(cache.deleteIfWrittenBefore(cacheKey, keyLayout.writtenKey(cacheKey), importedAt));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Copy tables of the persist layer into the other persist type configured in
+     * {@code persist.mysql} / {@code persist.sqlite}; switch {@code persist.type} afterwards.
+     * An interrupted migration resumes from its checkpoint when started again. The target tables
+     * must be empty: the copy then holds exactly the rows the bloom filters and absent markers
+     * describe, and cached rows still pending are written back to it after the switch.
+     *
+     * @param targetType "mysql" or "sqlite", different from the current persist type
+     * @param tables     Tables to copy; empty for all tables
+     * @return Stats of the finished migration
+     */
+    public CompletableFuture<TransferStats> migrateData(String targetType, Collection<String> tables) {
+        PersistProvider source = availablePersist();
+        if (source == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Persist layer is not available"));
+        }
+        String type = targetType.toLowerCase();
+        if (type.equals(config.getPersist().getType().toLowerCase())) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Persist layer is already " + type));
+        }
+
+        PersistProvider target;
+        switch (type) {
+            case "mysql":
+                if (config.getPersist().getMysql().getSharding().isEnabled()) {
+                    // 分片目标需要按分片路由写入，先迁到单库再通过 reshard 扩容
+                    return CompletableFuture.failedFuture(new IllegalArgumentException(
+                            "Migrating into sharded MySQL is not supported, migrate into one MySQL first"));
+                }
+                target = new MySQLProvider(config.getPersist().getMysql(), config.getAdvanced().getExecutor());
+                break;
+            case "sqlite":
+                target = new SQLiteProvider(config.getPersist().getSqlite(), config.getAdvanced().getExecutor());
+                break;
+            default:
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Unknown persist type: " + targetType));
+        }
+
+        Path checkpoint = transferDirectory().resolve("migrate-" + type + ".json");
+        return target.initialize()
+                .thenCompose(v -> transfer.migrate(source, target, checkpoint, tables))
+                .whenComplete((stats, e) -> target.close());
+    }
+
+    /**
+     * Progress of the current or last export, import or migration.
+     *
+     * @return Stats, or null if no transfer has run
+     */
+    public TransferStats getTransferStats() {
+        TransferStats stats = transfer.getStats();
+        return stats.getOperation() != null ? stats : null;
+    }
+
+    public boolean isTransferRunning() {
+        return transfer.isRunning();
+    }
+
+    private Path transferDirectory() {
+        return Paths.get(config.getAdvanced().getTransfer().getDirectory());
+    }
+
+    /**
+     * Queue wait / execution statistics of the persistence provider's JDBC executor.
+     *
+     * @return Statistics, or null if no JDBC provider is active
+     */
+    public ExecutorStats getPersistExecutorStats() {
+        PersistProvider current = persistProvider;
+        if (current instanceof MySQLProvider) {
+            return ((MySQLProvider) current).getExecutorStats();
+        }
+        if (current instanceof SQLiteProvider) {
+            return ((SQLiteProvider) current).getExecutorStats();
+        }
+        if (current instanceof ShardedPersistProvider) {
+            List<ExecutorStats> shardStats = new ArrayList<>();
+            for (PersistProvider shard : ((ShardedPersistProvider) current).getShards()) {
+                if (shard instanceof MySQLProvider && ((MySQLProvider) shard).getExecutorStats() != null) {
+                    shardStats.add(((MySQLProvider) shard).getExecutorStats());
+                }
+            }
+            return shardStats.isEmpty() ? null : ExecutorStats.combine("YRDatabase-MySQL-Shards", shardStats);
+        }
+        return null;
+    }
+
+    // ==================== Circuit Breakers ====================
+
+    /**
+     * Redis 可用于常规读写：已连接、熔断器关闭，且没有在清理熔断期间的旧缓存。
+     */
+    private boolean cacheAvailable() {
+        RedisProvider cache = redisProvider;
+        return cache != null && cache.isConnected() && cacheBreaker.isClosed() && !cacheRecovering;
+    }
+
+    /**
+     * 持久层可用于常规读写：已连接且熔断器关闭（SQLite 不经过熔断器，始终关闭）。
+     */
+    private boolean persistAvailable() {
+        PersistProvider persist = persistProvider;
+        return persist != null && persist.isConnected() && persistBreaker.isClosed();
+    }
+
+    /**
+     * Redis provider if it can be used right now, otherwise null.
+     */
+    RedisProvider availableCache() {
+        return cacheAvailable() ? redisProvider : null;
+    }
+
+    /**
+     * Persist provider if it can be used right now, otherwise null.
+     */
+    PersistProvider availablePersist() {
+        return persistAvailable() ? persistProvider : null;
+    }
+
+    private void onBreakerStateChange(CircuitBreaker breaker, Supplier<? extends StorageProvider> provider,
+                                      CircuitBreaker.State state) {
+        switch (state) {
+            case OPEN:
+                if (breaker == cacheBreaker) {
+                    cacheRecovering = true;
+                    staleCachePollUntil = System.currentTimeMillis() + STALE_CACHE_POLL_WINDOW.toMillis();
+                }
+                scheduleProbe(breaker, provider, Math.max(1, breaker.getRemainingOpenMillis()));
+                break;
+            case CLOSED:
+                if (breaker == cacheBreaker) {
+                    staleCachePollUntil = System.currentTimeMillis() + STALE_CACHE_POLL_WINDOW.toMillis();
+                    invalidateStaleCache();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void scheduleProbe(CircuitBreaker breaker, Supplier<? extends StorageProvider> provider, long delayMillis) {
+        long generation = breaker.getOpenCount();
+        try {
+            scheduler.schedule(() -> probe(breaker, provider, generation), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 正在关闭
+        }
+    }
+
+    /**
+     * 熔断打开时长结束后的试探：未连接时先重连，再发一次 ping 作为半开试探调用。
+     * 失败会让熔断器以翻倍的时长重新打开，并由状态监听再次安排试探（指数退避重连）。
+     */
+    private void probe(CircuitBreaker breaker, Supplier<? extends StorageProvider> providerSupplier, long generation) {
+        StorageProvider provider = providerSupplier.get();
+        if (provider == null || breaker.getState() == CircuitBreaker.State.CLOSED) {
+            return;
+        }
+
+        CompletableFuture<Void> ready = provider.isConnected()
+                ? CompletableFuture.completedFuture(null)
+                : provider.reconnect().exceptionally(e -> {
+                    log.warn("Reconnect for circuit breaker '{}' failed: {}", breaker.getName(), e.getMessage());
+                    return null;
+                });
+        ready.thenCompose(v -> provider.ping()).whenComplete((latency, e) -> {
+            // 试探被拒且期间没有重新打开（否则监听已安排下一次），稍后再试
+            if (breaker.getState() != CircuitBreaker.State.CLOSED && breaker.getOpenCount() == generation) {
+                scheduleProbe(breaker, providerSupplier,
+                        Math.max(BREAKER_PROBE_RETRY_MILLIS, breaker.getRemainingOpenMillis()));
+            }
+        });
+    }
+
+    /**
+     * 记录一个在 Redis 被绕开期间写入/删除的 key，Redis 恢复后删除其旧缓存和不存在标记。
+     * 标记同时写入持久层的共享表：其他子服的扫描在回写前会先清除这些 key 的旧缓存，
+     * 不会把熔断前的 Redis 副本覆盖到熔断期间直接写入的数据上。
+     */
+    private void markCacheStale(String cacheKey) {
+        if (redisProvider == null) {
+            return;
+        }
+        long markedAt = System.currentTimeMillis();
+        staleCacheKeys.merge(cacheKey, markedAt, Math::max);
+        recordSharedStale(cacheKey, markedAt);
+        if (cacheAvailable()) {
+            // Redis 恰好已恢复
+            invalidateStaleCache();
+        }
+    }
+
+    private static Map<String, String> staleCacheSchema() {
+        Map<String, String> schema = new LinkedHashMap<>();
+        schema.put("id", "VARCHAR(255) PRIMARY KEY");
+        schema.put("marked_at", "BIGINT");
+        return schema;
+    }
+
+    private void recordSharedStale(String cacheKey, long markedAt) {
+        PersistProvider persist = availablePersist();
+        if (persist == null) {
+            return;
+        }
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", cacheKey);
+        row.put("marked_at", markedAt);
+        ensureTable(STALE_CACHE_TABLE, staleCacheSchema())
+                .thenCompose(ok -> persist.upsert(STALE_CACHE_TABLE, row, "id"))
+                .thenAccept(ok -> {
+                    sharedStaleUnannounced = true;
+                    if (cacheBreaker.isClosed()) {
+                        announceSharedStale();
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Failed to share stale cache mark of {}: {}", cacheKey, e.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * 在 Redis 发布“有共享标记”的通知，其他子服在通知有效期内的扫描会查询共享表。
+     * Redis 不可用时保留待发布状态，熔断关闭后的清理会再发布。
+     */
+    private void announceSharedStale() {
+        RedisProvider cache = redisProvider;
+        if (cache == null || !sharedStaleUnannounced) {
+            return;
+        }
+        sharedStaleUnannounced = false;
+        cache.setEx(keyLayout.staleMarksKey(), "1", STALE_CACHE_POLL_WINDOW).exceptionally(e -> {
+            sharedStaleUnannounced = true;
+            return false;
+        });
+    }
+
+    /**
+     * 扫描前是否需要查询共享标记表：本服熔断最近打开过、上次查询仍有标记，或其他子服发布了通知。
+     * 其余时候只做一次 Redis EXISTS，不再每次扫描都查询持久层。
+     */
+    private CompletableFuture<Boolean> shouldPollSharedStale() {
+        if (sharedStaleSeen || System.currentTimeMillis() < staleCachePollUntil) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return redisProvider.exists(keyLayout.staleMarksKey()).exceptionally(e -> true);
+    }
+
+    /**
+     * 清除共享表中（任意子服记录的）旧缓存，完成后删除对应标记。
+     */
+    private CompletableFuture<Void> invalidateSharedStaleCache() {
+        RedisProvider cache = redisProvider;
+        PersistProvider persist = availablePersist();
+        if (cache == null || persist == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return ensureTable(STALE_CACHE_TABLE, staleCacheSchema())
+                .thenCompose(ok -> persist.executeQuery("SELECT `id`, `marked_at` FROM `" + STALE_CACHE_TABLE
+                        + "` LIMIT ?", STALE_CACHE_BATCH))
+                .thenCompose(rows -> {
+                    sharedStaleSeen = !rows.isEmpty();
+                    List<CompletableFuture<Void>> futures = new ArrayList<>(rows.size());
+                    for (Map<String, Object> row : rows) {
+                        Object markedAt = row.get("marked_at");
+                        futures.add(invalidateCacheKey(cache, String.valueOf(row.get("id")),
+                                markedAt instanceof Number ? ((Number) markedAt).longValue() : 0L));
+                    }
+                    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+                })
+                .exceptionally(e -> {
+                    log.warn("Failed to invalidate shared stale cache entries: {}", e.getMessage());
+                    sharedStaleSeen = true;
+                    return null;
+                });
+    }
+
+    /**
+     * 删除一个旧缓存（不存在标记、缓存），再删除不晚于 {@code markedAt} 的共享标记。
+     * 缓存在标记之后写入过（其他子服的熔断未打开，写入时间更晚）时保留，照常由 sweep 落库；
+     * 比较依赖各子服时钟大致同步。pending 登记不在此处删除：缓存已删除时 sweep 会自行移除，
+     * 避免误删删除之后新写入的登记。
+     */
+    private CompletableFuture<Void> invalidateCacheKey(RedisProvider cache, String cacheKey, long markedAt) {
+        String[] parts = keyLayout.parse(cacheKey);
+        CompletableFuture<Boolean> absentCleared = parts != null
+                ? cache.delete(buildAbsentKey(parts[0], parts[1]))
+                : CompletableFuture.completedFuture(true);
+        return absentCleared
+                .thenCompose(d -> cache.deleteIfWrittenBefore(cacheKey, keyLayout.writtenKey(cacheKey), markedAt))
+                .thenAccept(deleted -> {
+                    if (!deleted) {
+                        log.debug("Kept {}: cached after its stale mark", cacheKey);
+                    }
+                })
+                .thenCompose(v -> {
+                    PersistProvider persist = availablePersist();
+                    if (persist == null) {
+                        // 共享标记保留，之后的扫描会再清除一次（幂等）
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    // 之后又被标记（更晚的 marked_at）时保留
+                    return persist.executeUpdate("DELETE FROM `" + STALE_CACHE_TABLE
+                                    + "` WHERE `id` = ? AND `marked_at` <= ?", cacheKey, markedAt)
+                            .handle((count, e) -> (Void) null);
+                });
+    }
+
+    /**
+     * Redis 恢复后清除熔断期间产生的旧缓存；清除完成前 Redis 仍被绕开，避免读到旧值或被 sweep 回写。
+     */
+    private void invalidateStaleCache() {
+        RedisProvider cache = redisProvider;
+        // 熔断再次打开时等下一次关闭再清理
+        if (cache == null || !cacheBreaker.isClosed() || !invalidatingStaleCache.compareAndSet(false, true)) {
+            return;
+        }
+
+        announceSharedStale();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        // 其他子服记录的标记也在恢复使用 Redis 前清除
+        futures.add(invalidateSharedStaleCache());
+        for (Map.Entry<String, Long> stale : new ArrayList<>(staleCacheKeys.entrySet())) {
+            String cacheKey = stale.getKey();
+            long markedAt = stale.getValue();
+            futures.add(invalidateCacheKey(cache, cacheKey, markedAt)
+                    .thenRun(() -> staleCacheKeys.remove(cacheKey, markedAt)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).whenComplete((v, e) -> {
+            invalidatingStaleCache.set(false);
+            if (e != null) {
+                log.warn("Failed to invalidate {} stale cache entries, retrying: {}",
+                        staleCacheKeys.size(), e.getMessage());
+                try {
+                    scheduler.schedule(this::invalidateStaleCache, BREAKER_PROBE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException ignored) {
+                    // 正在关闭
+                }
+                return;
+            }
+            if (!staleCacheKeys.isEmpty()) {
+                invalidateStaleCache();
+                return;
+            }
+            if (cacheRecovering) {
+                cacheRecovering = false;
+                log.info("Redis cache back in use");
+            }
+            // 标记翻转前后刚加入的 key（markCacheStale 先加入再检查可用性，两边至少一方会处理）
+            if (!staleCacheKeys.isEmpty()) {
+                invalidateStaleCache();
+            }
+        });
+    }
+
+    public CircuitBreaker getCacheBreaker() {
+        return cacheBreaker;
+    }
+
+    public CircuitBreaker getPersistBreaker() {
+        return persistBreaker;
+    }
+
+    // ==================== Status ====================
+
+    @Override
     public boolean isConnected() {
         boolean cacheOk = redisProvider == null || redisProvider.isConnected();
         boolean persistOk = persistProvider == null || persistProvider.isConnected();
@@ -695,48 +2480,182 @@ public class DatabaseManagerImpl implements DatabaseManager {
 
     @Override
     public DatabaseStatus getStatus() {
+        return healthMonitor.getLatest();
+    }
+
+    @Override
+    public CompletableFuture<DatabaseStatus> refreshStatus() {
+        return healthMonitor.refresh();
+    }
+
+    /**
+     * 采样一次所有后端：延迟、连接池、pending 集合大小与最早到期分数、DBSIZE。
+     * 各探测并行执行，单项失败或超时只影响该项。
+     */
+    private CompletableFuture<DatabaseStatus> sampleStatus() {
+        RedisProvider cache = redisProvider;
+        PersistProvider persist = persistProvider;
+
+        CompletableFuture<Long> cacheLatency = probe(cache, RedisProvider::ping);
+        CompletableFuture<Long> persistLatency = probe(persist, PersistProvider::ping);
+        CompletableFuture<Long> pending = probe(cache, this::pendingCount);
+        CompletableFuture<Long> oldestPending = probe(cache, this::oldestPendingScore);
+        CompletableFuture<Long> entries = probe(cache, CacheProvider::dbSize);
+
+        return CompletableFuture.allOf(cacheLatency, persistLatency, pending, oldestPending, entries)
+                .thenApply(v -> {
+                    DatabaseStatus connection = buildStatus(cacheLatency.join(), persistLatency.join(), true);
+                    return DatabaseStatus.builder()
+                            .connected(connection.isConnected())
+                            .cacheStatus(connection.getCacheStatus())
+                            .persistStatus(connection.getPersistStatus())
+                            .cachedEntries(entries.join())
+                            .pendingPersist(pending.join())
+                            .oldestPendingScore(oldestPending.join())
+                            .sampledAt(System.currentTimeMillis())
+                            .build();
+                });
+    }
+
+    /**
+     * pending 条目总数（所有分片之和）。
+     */
+    private CompletableFuture<Long> pendingCount(RedisProvider cache) {
+        List<CompletableFuture<Long>> shards = new ArrayList<>();
+        for (String pendingKey : keyLayout.pendingKeys()) {
+            shards.add(cache.zcard(pendingKey));
+        }
+        return CompletableFuture.allOf(shards.toArray(new CompletableFuture[0]))
+                .thenApply(v -> shards.stream().mapToLong(CompletableFuture::join).sum());
+    }
+
+    /**
+     * 所有分片中最早到期的分数，全部为空时为 0。
+     */
+    private CompletableFuture<Long> oldestPendingScore(RedisProvider cache) {
+        List<CompletableFuture<Map<String, Double>>> shards = new ArrayList<>();
+        for (String pendingKey : keyLayout.pendingKeys()) {
+            shards.add(cache.zrangeWithScores(pendingKey, 0, 0));
+        }
+        return CompletableFuture.allOf(shards.toArray(new CompletableFuture[0])).thenApply(v -> shards.stream()
+                .flatMap(shard -> shard.join().values().stream())
+                .mapToLong(Double::longValue)
+                .min()
+                .orElse(0L));
+    }
+
+    private static <P> CompletableFuture<Long> probe(P provider, Function<P, CompletableFuture<Long>> call) {
+        if (provider == null) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+        try {
+            return call.apply(provider)
+                    .completeOnTimeout(-1L, HEALTH_PROBE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> -1L);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+    }
+
+    /**
+     * 构建状态（不做任何 I/O）。probed=false 时只包含连接标志，用于首次采样前。
+     */
+    private DatabaseStatus buildStatus(long cacheLatency, long persistLatency, boolean probed) {
         DatabaseStatus.ProviderStatus cacheStatus = null;
         DatabaseStatus.ProviderStatus persistStatus = null;
 
-        if (redisProvider != null) {
-            long latency = redisProvider.ping().join();
+        RedisProvider cache = redisProvider;
+        if (cache != null) {
             cacheStatus = DatabaseStatus.ProviderStatus.builder()
                     .enabled(true)
-                    .connected(redisProvider.isConnected())
-                    .type("redis")
-                    .host(config.getCache().getHost())
-                    .port(config.getCache().getPort())
-                    .latencyMs(latency)
-                    .errorMessage(latency < 0 ? "Connection failed" : null)
+                    .connected(cache.isConnected())
+                    .type(cache.isCluster() ? "redis-cluster" : "redis")
+                    .host(cache.isCluster()
+                            ? String.join(",", config.getCache().getCluster().getNodes())
+                            : config.getCache().getHost())
+                    .port(cache.isCluster() ? 0 : config.getCache().getPort())
+                    .latencyMs(cacheLatency)
+                    .errorMessage(probed && cacheLatency < 0 ? "Connection failed" : null)
+                    .circuitState(cacheBreaker.getState().name())
                     .build();
         }
 
-        if (persistProvider != null) {
-            long latency = persistProvider.ping().join();
-            String type = persistProvider.getType().name().toLowerCase();
+        PersistProvider persist = persistProvider;
+        if (persist != null) {
+            String type = persist.getType().name().toLowerCase();
             String host = type.equals("mysql") ? config.getPersist().getMysql().getHost() : "local";
             int port = type.equals("mysql") ? config.getPersist().getMysql().getPort() : 0;
+            if (persist instanceof ShardedPersistProvider) {
+                type = "mysql-sharded";
+                host = String.join(",", config.getPersist().getMysql().getSharding().getShards());
+                port = 0;
+            }
 
-            persistStatus = DatabaseStatus.ProviderStatus.builder()
+            DatabaseStatus.ProviderStatus.ProviderStatusBuilder builder = DatabaseStatus.ProviderStatus.builder()
                     .enabled(true)
-                    .connected(persistProvider.isConnected())
+                    .connected(persist.isConnected())
                     .type(type)
                     .host(host)
                     .port(port)
-                    .latencyMs(latency)
-                    .errorMessage(latency < 0 ? "Connection failed" : null)
-                    .build();
+                    .latencyMs(persistLatency)
+                    .errorMessage(probed && persistLatency < 0 ? "Connection failed" : null)
+                    .circuitState(persistBreaker.getState().name());
+
+            if (persist instanceof MySQLProvider) {
+                HikariPoolMXBean pool = ((MySQLProvider) persist).getPoolMXBean();
+                if (pool != null) {
+                    builder.poolActive(pool.getActiveConnections())
+                            .poolIdle(pool.getIdleConnections())
+                            .poolTotal(pool.getTotalConnections())
+                            .poolWaiting(pool.getThreadsAwaitingConnection());
+                }
+                ReplicaRouter<?> replicas = ((MySQLProvider) persist).getReplicaRouter();
+                builder.replicas(replicas.size())
+                        .replicasHealthy(replicas.getHealthy())
+                        .replicaReads(replicas.getReplicaReads())
+                        .replicaFallbacks(replicas.getFallbacks());
+            } else if (persist instanceof ShardedPersistProvider) {
+                int active = 0, idle = 0, total = 0, waiting = 0;
+                for (PersistProvider shard : ((ShardedPersistProvider) persist).getShards()) {
+                    HikariPoolMXBean pool = shard instanceof MySQLProvider ? ((MySQLProvider) shard).getPoolMXBean() : null;
+                    if (pool != null) {
+                        active += pool.getActiveConnections();
+                        idle += pool.getIdleConnections();
+                        total += pool.getTotalConnections();
+                        waiting += pool.getThreadsAwaitingConnection();
+                    }
+                }
+                builder.poolActive(active).poolIdle(idle).poolTotal(total).poolWaiting(waiting);
+            } else {
+                // SQLite 只有一个连接，用 JDBC 执行器的占用情况代替
+                ExecutorStats stats = getPersistExecutorStats();
+                if (stats != null) {
+                    builder.poolActive(stats.getActive())
+                            .poolIdle(Math.max(0, stats.getConcurrency() - stats.getActive()))
+                            .poolTotal(stats.getConcurrency())
+                            .poolWaiting(stats.getWaiting());
+                }
+            }
+            persistStatus = builder.build();
         }
 
         return DatabaseStatus.builder()
                 .connected(isConnected())
                 .cacheStatus(cacheStatus)
                 .persistStatus(persistStatus)
-                .cachedEntries(0) // Could be implemented with DBSIZE
-                .pendingPersist(0)
+                .cachedEntries(-1)
+                .pendingPersist(-1)
+                .oldestPendingScore(-1)
                 .build();
     }
 
+    /**
+     * Background health sampler (sample/failure counts).
+     */
+    public HealthMonitor getHealthMonitor() {
+        return healthMonitor;
+    }
+
     @Override
     public void close() {
         log.info("Shutting down YRDatabase...");
@@ -752,6 +2671,49 @@ public class DatabaseManagerImpl implements DatabaseManager {
             Thread.currentThread().interrupt();
         }
 
+        if (cacheAvailable() && persistAvailable()) {
+            try {
+                flushCounters().get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Counter flush on shutdown did not finish, the rest stays in Redis: {}", e.getMessage());
+            }
+            try {
+                flushLeaderboards().get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Leaderboard flush on shutdown did not finish, the rest stays in Redis: {}", e.getMessage());
+            }
+        }
+
+        if (changeFeed != null) {
+            // 发布最后一个窗口的变化，再停止投递
+            try {
+                changeFeed.publishPending().get(3, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to publish the last changes: {}", e.getMessage());
+            }
+            changeFeed.close();
+        }
+
+        if (leases != null && cacheAvailable()) {
+            try {
+                leases.releaseAll().get(3, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                log.warn("Failed to release ownership leases, they will expire: {}", e.getMessage());
+            }
+        }
+
+        if (coldTier != null) {
+            // 停止归档，写入最后一批访问时间
+            coldTier.close();
+            if (persistAvailable()) {
+                try {
+                    coldTier.flushAccess().get(3, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.warn("Failed to write the last access times: {}", e.getMessage());
+                }
+            }
+        }
+
         if (redisProvider != null) {
             try {
                 redisProvider.close();
@@ -760,6 +2722,25 @@ public class DatabaseManagerImpl implements DatabaseManager {
             }
         }
 
+        WriteSpool currentSpool = spool;
+        if (currentSpool != null) {
+            // 关服前尽量回放，剩余的留在磁盘上，下次启动后继续
+            if (persistAvailable()) {
+                try {
+                    drainSpool().get(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    log.warn("Spool replay on shutdown did not finish: {}", e.getMessage());
+                }
+            }
+            spool = null;
+            currentSpool.close();
+            SpoolStats remaining = currentSpool.getStats();
+            if (remaining.getPendingKeys() > 0) {
+                log.warn("{} spooled writes left in {}, they will be replayed on next start",
+                        remaining.getPendingKeys(), currentSpool.getDirectory());
+            }
+        }
+
         if (persistProvider != null) {
             try {
                 persistProvider.close();
@@ -774,6 +2755,76 @@ public class DatabaseManagerImpl implements DatabaseManager {
         log.info("YRDatabase shutdown complete");
     }
 
+    // ==================== Ownership Leases ====================
+
+    /**
+     * 每 leaseTTLSeconds / 3 秒批量续期本服持有的租约，并重试仍被其他子服持有的租约。
+     */
+    private void startLeaseRenewal() {
+        if (leases == null || redisProvider == null) {
+            return;
+        }
+        long interval = Math.max(1000, config.getCaching().getLeaseTTLSeconds() * 1000L / 3);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                if (cacheAvailable()) {
+                    leases.renew();
+                }
+            } catch (Exception e) {
+                log.error("Lease renewal error: {}", e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Ownership leases enabled (owner={}, ttl={}s)", leases.getOwner(),
+                config.getCaching().getLeaseTTLSeconds());
+    }
+
+    /**
+     * A player arrived on this server: claim the ownership lease of its keys.
+     *
+     * @param playerKey Primary key of the player's rows
+     */
+    public CompletableFuture<Void> playerJoined(String playerKey) {
+        if (leases == null || !cacheAvailable()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return leases.join(playerKey).thenApply(held -> null);
+    }
+
+    /**
+     * A player left this server: persist its pending keys as owner, then release the lease so the
+     * next server can claim it without waiting for expiry.
+     *
+     * @param playerKey Primary key of the player's rows
+     */
+    public CompletableFuture<Void> playerLeft(String playerKey) {
+        if (leases == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        leases.quit(playerKey);
+        if (!leases.holds(playerKey) || !cacheAvailable() || !persistAvailable()) {
+            return leases.release(playerKey).thenApply(r -> null);
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String table : ensuredTables) {
+            String cacheKey = buildCacheKey(table, playerKey);
+            // 未开启时间轮时不知道哪些 key 待落库，逐表检查（不存在的 key 只多一次 GET）
+            if (ownedKeys == null || ownedKeys.contains(cacheKey)) {
+                futures.add(processPendingKey(cacheKey));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenCompose(v -> leases.release(playerKey))
+                .thenApply(r -> (Void) null);
+    }
+
+    /**
+     * Ownership leases in use, or null if disabled.
+     */
+    public LeaseManager getLeaseManager() {
+        return leases;
+    }
+
     // ==================== Online Checker ====================
 
     @Override
@@ -784,7 +2835,18 @@ public class DatabaseManagerImpl implements DatabaseManager {
     // ==================== Utilities ====================
 
     private String buildCacheKey(String table, String key) {
-        return "yrdatabase:" + table + ":" + key;
+        return keyLayout.cacheKey(table, key);
+    }
+
+    private String buildAbsentKey(String table, String key) {
+        return keyLayout.absentKey(table, key);
+    }
+
+    /**
+     * Redis key naming in use (hash-tagged with sharded pending sets in cluster mode).
+     */
+    public KeyLayout getKeyLayout() {
+        return keyLayout;
     }
 
     /**
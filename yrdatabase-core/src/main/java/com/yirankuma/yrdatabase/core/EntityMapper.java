@@ -1,9 +1,12 @@
 package com.yirankuma.yrdatabase.core;
 
 import com.yirankuma.yrdatabase.api.annotation.Column;
+import com.yirankuma.yrdatabase.api.annotation.Index;
+import com.yirankuma.yrdatabase.api.annotation.Lazy;
 import com.yirankuma.yrdatabase.api.annotation.PrimaryKey;
 import com.yirankuma.yrdatabase.api.annotation.Table;
 import com.yirankuma.yrdatabase.api.annotation.Transient;
+import com.yirankuma.yrdatabase.api.annotation.Version;
 import lombok.Data;
 
 import java.lang.reflect.Field;
@@ -17,25 +20,43 @@ import java.util.*;
  */
 public class EntityMapper<T> {
 
+    // MySQL 标识符长度上限
+    private static final int MAX_INDEX_NAME_LENGTH = 64;
+
     private final Class<T> entityClass;
     private final String tableName;
     private final Map<String, FieldMapping> fieldMappings;
+    private final Map<String, LazyFieldMapping> lazyMappings;
+    private final List<IndexDefinition> indexes;
     private final String primaryKeyColumn;
     private final Field primaryKeyField;
+    private final String versionColumn;
+    private final Field versionField;
 
     public EntityMapper(Class<T> entityClass) {
         this.entityClass = entityClass;
         this.tableName = resolveTableName(entityClass);
         this.fieldMappings = new LinkedHashMap<>();
+        this.lazyMappings = new LinkedHashMap<>();
         
         String pkColumn = null;
         Field pkField = null;
+        String verColumn = null;
+        Field verField = null;
+        // Fields sharing an index name form one composite index, in declaration order
+        Map<String, IndexDefinition> indexesByName = new LinkedHashMap<>();
 
         for (Field field : getAllFields(entityClass)) {
             if (shouldSkipField(field)) {
                 continue;
             }
 
+            Lazy lazyAnn = field.getAnnotation(Lazy.class);
+            if (lazyAnn != null) {
+                lazyMappings.put(field.getName(), createLazyMapping(field, lazyAnn));
+                continue;
+            }
+
             FieldMapping mapping = createFieldMapping(field);
             fieldMappings.put(mapping.getColumnName(), mapping);
 
@@ -43,10 +64,47 @@ public class EntityMapper<T> {
                 pkColumn = mapping.getColumnName();
                 pkField = field;
             }
+
+            if (field.isAnnotationPresent(Version.class)) {
+                if (verField != null) {
+                    throw new IllegalArgumentException(entityClass.getSimpleName()
+                            + " declares more than one @Version field");
+                }
+                verColumn = mapping.getColumnName();
+                verField = field;
+            }
+
+            Index indexAnn = field.getAnnotation(Index.class);
+            if (indexAnn != null) {
+                String indexName = indexAnn.value().isEmpty()
+                        ? indexName(tableName, mapping.getColumnName())
+                        : indexAnn.value();
+                IndexDefinition index = indexesByName.computeIfAbsent(indexName,
+                        name -> new IndexDefinition(name, new ArrayList<>()));
+                index.getColumns().add(mapping.getColumnName());
+                // A composite index is unique if any of its fields says so
+                index.setUnique(index.isUnique() || indexAnn.unique());
+            }
         }
 
         this.primaryKeyColumn = pkColumn != null ? pkColumn : "id";
         this.primaryKeyField = pkField;
+        this.versionColumn = verColumn;
+        this.versionField = verField;
+        this.indexes = List.copyOf(indexesByName.values());
+    }
+
+    /**
+     * Generated index name {@code idx_<table>_<suffix>}. Names longer than MySQL's 64-character
+     * identifier limit are cut and end with a hash of the full name, so they stay unique.
+     */
+    public static String indexName(String table, String suffix) {
+        String name = "idx_" + table + "_" + suffix;
+        if (name.length() <= MAX_INDEX_NAME_LENGTH) {
+            return name;
+        }
+        String hash = String.format("%08x", name.hashCode());
+        return name.substring(0, MAX_INDEX_NAME_LENGTH - hash.length() - 1) + "_" + hash;
     }
 
     private String resolveTableName(Class<T> clazz) {
@@ -104,9 +162,43 @@ public class EntityMapper<T> {
             nullable = false;
         }
 
+        // Check for @Version annotation: never null, so a missing version always reads as 0
+        if (field.isAnnotationPresent(Version.class)) {
+            Class<?> type = field.getType();
+            if (type != int.class && type != Integer.class && type != long.class && type != Long.class) {
+                throw new IllegalArgumentException("@Version field " + field.getName() + " of "
+                        + entityClass.getSimpleName() + " must be an int or long");
+            }
+            if (columnAnn == null || columnAnn.type().isEmpty()) {
+                sqlType = "BIGINT";
+            }
+            nullable = false;
+            if (defaultValue == null) {
+                defaultValue = "0";
+            }
+        }
+
         return new FieldMapping(field, columnName, sqlType, nullable, defaultValue);
     }
 
+    private LazyFieldMapping createLazyMapping(Field field, Lazy lazyAnn) {
+        if (field.isAnnotationPresent(PrimaryKey.class) || field.isAnnotationPresent(Version.class)
+                || field.isAnnotationPresent(Index.class)) {
+            throw new IllegalArgumentException("@Lazy field " + field.getName() + " of "
+                    + entityClass.getSimpleName() + " cannot be a primary key, version or index");
+        }
+        if (lazyAnn.chunkSize() < 2) {
+            throw new IllegalArgumentException("@Lazy field " + field.getName() + " of "
+                    + entityClass.getSimpleName() + " needs a chunk size of at least 2");
+        }
+        field.setAccessible(true);
+        Column columnAnn = field.getAnnotation(Column.class);
+        String columnName = columnAnn != null && !columnAnn.value().isEmpty()
+                ? columnAnn.value()
+                : toSnakeCase(field.getName());
+        return new LazyFieldMapping(field, columnName, lazyAnn.chunkSize());
+    }
+
     private String inferSqlType(Class<?> type, int length) {
         if (type == String.class) {
             return "VARCHAR(" + length + ")";
@@ -154,6 +246,61 @@ public class EntityMapper<T> {
         return primaryKeyColumn;
     }
 
+    /**
+     * Resolve a Java field name or column name to its column name.
+     *
+     * @param fieldOrColumn Field or column name
+     * @return Column name
+     * @throws IllegalArgumentException if the entity has no such field
+     */
+    public String resolveColumn(String fieldOrColumn) {
+        if (fieldMappings.containsKey(fieldOrColumn)) {
+            return fieldOrColumn;
+        }
+        for (FieldMapping mapping : fieldMappings.values()) {
+            if (mapping.getField().getName().equals(fieldOrColumn)) {
+                return mapping.getColumnName();
+            }
+        }
+        throw new IllegalArgumentException("Unknown field '" + fieldOrColumn + "' for " + entityClass.getSimpleName());
+    }
+
+    /**
+     * Fields declared with {@link Lazy}; not part of {@link #toMap} or the table schema.
+     *
+     * @return Lazy field mappings (empty if none)
+     */
+    public Collection<LazyFieldMapping> getLazyFields() {
+        return Collections.unmodifiableCollection(lazyMappings.values());
+    }
+
+    /**
+     * Resolve a Java field name or column name to its {@link Lazy} field.
+     *
+     * @throws IllegalArgumentException if the entity has no such lazy field
+     */
+    public LazyFieldMapping resolveLazyField(String fieldOrColumn) {
+        LazyFieldMapping mapping = lazyMappings.get(fieldOrColumn);
+        if (mapping != null) {
+            return mapping;
+        }
+        for (LazyFieldMapping lazy : lazyMappings.values()) {
+            if (lazy.getColumnName().equals(fieldOrColumn)) {
+                return lazy;
+            }
+        }
+        throw new IllegalArgumentException("'" + fieldOrColumn + "' is not a @Lazy field of " + entityClass.getSimpleName());
+    }
+
+    /**
+     * Secondary indexes declared with {@link Index}.
+     *
+     * @return Index definitions (empty if none)
+     */
+    public List<IndexDefinition> getIndexes() {
+        return indexes;
+    }
+
     public Map<String, String> getTableSchema() {
         Map<String, String> schema = new LinkedHashMap<>();
         for (FieldMapping mapping : fieldMappings.values()) {
@@ -197,6 +344,41 @@ public class EntityMapper<T> {
         }
     }
 
+    /**
+     * Column of the {@link Version} field.
+     *
+     * @return Column name, or null if the entity is not versioned
+     */
+    public String getVersionColumn() {
+        return versionColumn;
+    }
+
+    /**
+     * Current version of an entity (0 if unset or not versioned).
+     */
+    public long getVersion(T entity) {
+        if (versionField == null) {
+            return 0L;
+        }
+        try {
+            Object value = versionField.get(entity);
+            return value != null ? ((Number) value).longValue() : 0L;
+        } catch (IllegalAccessException e) {
+            return 0L;
+        }
+    }
+
+    public void setVersion(T entity, long version) {
+        if (versionField == null) {
+            return;
+        }
+        try {
+            versionField.set(entity, convertValue(version, versionField.getType()));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot set version of " + entityClass.getSimpleName(), e);
+        }
+    }
+
     public String getPrimaryKeyValue(T entity) {
         if (primaryKeyField == null) {
             return null;
@@ -251,6 +433,20 @@ public class EntityMapper<T> {
         return value;
     }
 
+    @Data
+    public static class IndexDefinition {
+        private final String name;
+        private final List<String> columns;
+        private boolean unique;
+    }
+
+    @Data
+    public static class LazyFieldMapping {
+        private final Field field;
+        private final String columnName;
+        private final int chunkSize;
+    }
+
     @Data
     public static class FieldMapping {
         private final Field field;
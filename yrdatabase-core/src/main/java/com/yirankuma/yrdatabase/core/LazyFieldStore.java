@@ -0,0 +1,279 @@
+package com.yirankuma.yrdatabase.core;
+
+import com.google.gson.Gson;
+import com.yirankuma.yrdatabase.api.CacheStrategy;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stores {@link com.yirankuma.yrdatabase.api.annotation.Lazy @Lazy} fields of one entity table in
+ * its side table {@code <table>_lazy}.
+ *
+ * <p>Each value is encoded as text ({@code byte[]} as Base64, strings as-is, everything else as
+ * JSON) and split into chunks of at most {@code chunkSize} characters, one row per chunk keyed
+ * {@code <id>:<column>:<n>}. Chunk rows go through the regular cache and write-behind path of
+ * {@link DatabaseManagerImpl}, so a lazy field is cached like any other row once loaded. Chunk 0
+ * holds the chunk count; every chunk carries the revision of the save that wrote it, so a read
+ * that overlaps a save is retried instead of mixing two values.</p>
+ *
+ * @param <T> Entity type
+ * @author YiranKuma
+ */
+class LazyFieldStore<T> {
+
+    static final String SUFFIX = "_lazy";
+
+    private static final int READ_ATTEMPTS = 3;
+
+    private final DatabaseManagerImpl databaseManager;
+    private final EntityMapper<T> entityMapper;
+    private final Gson gson;
+    private final String table;
+
+    LazyFieldStore(DatabaseManagerImpl databaseManager, EntityMapper<T> entityMapper, Gson gson) {
+        this.databaseManager = databaseManager;
+        this.entityMapper = entityMapper;
+        this.gson = gson;
+        this.table = entityMapper.getTableName() + SUFFIX;
+    }
+
+    static Map<String, String> schema() {
+        Map<String, String> schema = new LinkedHashMap<>();
+        schema.put("id", "VARCHAR(255) PRIMARY KEY");
+        schema.put("data", "LONGTEXT");
+        schema.put("chunks", "INT");
+        schema.put("rev", "VARCHAR(32)");
+        return schema;
+    }
+
+    String getTable() {
+        return table;
+    }
+
+    private String chunkKey(String id, EntityMapper.LazyFieldMapping mapping, int index) {
+        return id + ":" + mapping.getColumnName() + ":" + index;
+    }
+
+    // ==================== Load ====================
+
+    /**
+     * Read a lazy field from the side table and set it on the entity.
+     */
+    CompletableFuture<T> load(T entity, EntityMapper.LazyFieldMapping mapping) {
+        String id = entityMapper.getPrimaryKeyValue(entity);
+        if (id == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Entity must have a primary key value"));
+        }
+        return read(id, mapping, READ_ATTEMPTS)
+                .thenCompose(payload -> payload.isPresent()
+                        ? CompletableFuture.completedFuture(decode(payload.get(), mapping.getField()))
+                        : readLegacy(id, mapping))
+                .thenApply(value -> {
+                    try {
+                        mapping.getField().set(entity, value);
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException("Cannot set " + mapping.getField().getName(), e);
+                    }
+                    return entity;
+                });
+    }
+
+    private CompletableFuture<Optional<String>> read(String id, EntityMapper.LazyFieldMapping mapping, int attempts) {
+        return databaseManager.get(table, chunkKey(id, mapping, 0)).thenCompose(head -> {
+            if (head.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            int chunks = chunkCount(head.get());
+            String first = stringOf(head.get().get("data"));
+            if (chunks <= 1) {
+                return CompletableFuture.completedFuture(Optional.of(first));
+            }
+
+            Object rev = head.get().get("rev");
+            List<CompletableFuture<Optional<Map<String, Object>>>> rest = new ArrayList<>(chunks - 1);
+            for (int i = 1; i < chunks; i++) {
+                rest.add(databaseManager.get(table, chunkKey(id, mapping, i)));
+            }
+            return CompletableFuture.allOf(rest.toArray(new CompletableFuture[0])).thenCompose(v -> {
+                StringBuilder payload = new StringBuilder(first);
+                for (CompletableFuture<Optional<Map<String, Object>>> future : rest) {
+                    Optional<Map<String, Object>> chunk = future.join();
+                    if (chunk.isEmpty() || !String.valueOf(chunk.get().get("rev")).equals(String.valueOf(rev))) {
+                        // 读取期间有新的保存：重新读取
+                        if (attempts > 1) {
+                            return read(id, mapping, attempts - 1);
+                        }
+                        return CompletableFuture.failedFuture(new IllegalStateException("Lazy field "
+                                + mapping.getColumnName() + " of " + entityMapper.getTableName() + "/" + id
+                                + " changed while being read"));
+                    }
+                    payload.append(stringOf(chunk.get().get("data")));
+                }
+                return CompletableFuture.completedFuture(Optional.of(payload.toString()));
+            });
+        });
+    }
+
+    /**
+     * A field marked {@code @Lazy} after rows were written still has its value in the entity
+     * table's own column (never in the cache entry, which no longer includes it); read it from
+     * the database until the field is saved again.
+     */
+    private CompletableFuture<Object> readLegacy(String id, EntityMapper.LazyFieldMapping mapping) {
+        var persistProvider = databaseManager.getPersistProvider();
+        if (persistProvider.isEmpty() || !persistProvider.get().isConnected()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return persistProvider.get().query(entityMapper.getTableName(), Map.of("id", id)).thenApply(rows -> {
+            Object value = rows.isEmpty() ? null : rows.get(0).get(mapping.getColumnName());
+            if (value == null) {
+                return null;
+            }
+            Class<?> type = mapping.getField().getType();
+            if (type.isInstance(value)) {
+                return value;
+            }
+            if (value instanceof String) {
+                return decode((String) value, mapping.getField());
+            }
+            return gson.fromJson(gson.toJson(value), mapping.getField().getGenericType());
+        });
+    }
+
+    // ==================== Save ====================
+
+    /**
+     * Write every non-null lazy field of an entity; null fields (not loaded) are left unchanged.
+     */
+    CompletableFuture<Boolean> save(String id, T entity, CacheStrategy strategy) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (EntityMapper.LazyFieldMapping mapping : entityMapper.getLazyFields()) {
+            Object value;
+            try {
+                value = mapping.getField().get(entity);
+            } catch (IllegalAccessException e) {
+                continue;
+            }
+            if (value != null) {
+                futures.add(write(id, mapping, encode(value), strategy));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    private CompletableFuture<Boolean> write(String id, EntityMapper.LazyFieldMapping mapping, String payload,
+                                             CacheStrategy strategy) {
+        List<String> chunks = split(payload, mapping.getChunkSize());
+        String rev = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+        return databaseManager.get(table, chunkKey(id, mapping, 0)).thenCompose(oldHead -> {
+            int oldChunks = oldHead.map(LazyFieldStore::chunkCount).orElse(0);
+            // 先写后续分块，最后写首块：读者看到新首块时分块已就绪
+            List<CompletableFuture<Boolean>> writes = new ArrayList<>(chunks.size());
+            for (int i = 1; i < chunks.size(); i++) {
+                writes.add(databaseManager.set(table, chunkKey(id, mapping, i), chunkRow(chunks.get(i), chunks.size(), rev),
+                        strategy));
+            }
+            return CompletableFuture.allOf(writes.toArray(new CompletableFuture[0]))
+                    .thenCompose(v -> writes.stream().allMatch(CompletableFuture::join)
+                            ? databaseManager.set(table, chunkKey(id, mapping, 0),
+                                    chunkRow(chunks.get(0), chunks.size(), rev), strategy)
+                            : CompletableFuture.completedFuture(false))
+                    .thenCompose(ok -> ok && oldChunks > chunks.size()
+                            ? deleteChunks(id, mapping, chunks.size(), oldChunks)
+                            : CompletableFuture.completedFuture(ok));
+        });
+    }
+
+    private static Map<String, Object> chunkRow(String data, int chunks, String rev) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("data", data);
+        row.put("chunks", chunks);
+        row.put("rev", rev);
+        return row;
+    }
+
+    // ==================== Delete ====================
+
+    /**
+     * Delete every lazy field of an entity.
+     */
+    CompletableFuture<Boolean> delete(String id) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (EntityMapper.LazyFieldMapping mapping : entityMapper.getLazyFields()) {
+            futures.add(databaseManager.get(table, chunkKey(id, mapping, 0)).thenCompose(head -> head.isPresent()
+                    ? deleteChunks(id, mapping, 0, chunkCount(head.get()))
+                    : CompletableFuture.completedFuture(true)));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    private CompletableFuture<Boolean> deleteChunks(String id, EntityMapper.LazyFieldMapping mapping, int from, int to) {
+        List<CompletableFuture<Boolean>> deletes = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            deletes.add(databaseManager.delete(table, chunkKey(id, mapping, i)));
+        }
+        return CompletableFuture.allOf(deletes.toArray(new CompletableFuture[0]))
+                .thenApply(v -> deletes.stream().allMatch(CompletableFuture::join));
+    }
+
+    // ==================== Codec ====================
+
+    String encode(Object value) {
+        if (value instanceof byte[]) {
+            return Base64.getEncoder().encodeToString((byte[]) value);
+        }
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return gson.toJson(value);
+    }
+
+    Object decode(String payload, Field field) {
+        Class<?> type = field.getType();
+        if (type == byte[].class) {
+            return Base64.getDecoder().decode(payload);
+        }
+        if (type == String.class) {
+            return payload;
+        }
+        return gson.fromJson(payload, field.getGenericType());
+    }
+
+    /**
+     * Split into chunks of at most {@code chunkSize} characters, never between the two halves
+     * of a surrogate pair.
+     */
+    static List<String> split(String payload, int chunkSize) {
+        List<String> chunks = new ArrayList<>(payload.length() / chunkSize + 1);
+        int start = 0;
+        do {
+            int end = Math.min(payload.length(), start + chunkSize);
+            if (end < payload.length() && Character.isHighSurrogate(payload.charAt(end - 1))) {
+                end--;
+            }
+            chunks.add(payload.substring(start, end));
+            start = end;
+        } while (start < payload.length());
+        return chunks;
+    }
+
+    private static int chunkCount(Map<String, Object> head) {
+        Object chunks = head.get("chunks");
+        return chunks instanceof Number ? ((Number) chunks).intValue() : 1;
+    }
+
+    private static String stringOf(Object data) {
+        return data != null ? data.toString() : "";
+    }
+}
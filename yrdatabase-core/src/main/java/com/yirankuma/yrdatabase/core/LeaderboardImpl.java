@@ -0,0 +1,507 @@
+package com.yirankuma.yrdatabase.core;
+
+import com.yirankuma.yrdatabase.api.Leaderboard;
+import com.yirankuma.yrdatabase.api.LeaderboardEntry;
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.api.query.Condition;
+import com.yirankuma.yrdatabase.api.query.Operator;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import com.yirankuma.yrdatabase.core.cache.KeyLayout;
+import com.yirankuma.yrdatabase.core.concurrent.SingleFlight;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of Leaderboard.
+ *
+ * <p>Scores live in the sorted set {@code yrdatabase:leaderboard:<name>}. A submission updates
+ * the set and marks the player in {@code :dirty} in one script; {@link #flush()} pops dirty
+ * players, reads their current scores with one {@code ZMSCORE} and writes them to the table with
+ * one batched upsert (a player missing from the set is deleted from the table).</p>
+ *
+ * <p>When the set is not marked {@code :loaded} (first use, or Redis lost its data) it is rebuilt
+ * from the table in keyset-paged {@code ZADD NX} batches before the first call is answered.
+ * {@code NX} keeps scores submitted while the rebuild runs, so servers may rebuild concurrently.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class LeaderboardImpl implements Leaderboard {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]{1,48}");
+    private static final String TABLE_PREFIX = "leaderboard_";
+    private static final String ID = "id";
+    private static final String SCORE = "score";
+    private static final String UPDATED_AT = "updated_at";
+    private static final Map<String, String> SCHEMA = Map.of(
+            ID, "VARCHAR(64) PRIMARY KEY",
+            SCORE, "DOUBLE NOT NULL",
+            UPDATED_AT, "BIGINT");
+    // 重建时每页从表中读取的行数
+    private static final int LOAD_PAGE_SIZE = 1000;
+    // 每轮回写从待回写集合取出的玩家数
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final DatabaseManagerImpl databaseManager;
+    private final String name;
+    private final String table;
+    private final String boardKey;
+    private final String dirtyKey;
+    private final String loadedKey;
+    // 同一进程内的并发首次访问共用一次重建
+    private final SingleFlight<String, Boolean> loadFlight = new SingleFlight<>();
+    // Redis 被绕开期间直接写入表的玩家，恢复后先用表中的分数修正有序集合
+    private final Set<String> staleMembers = ConcurrentHashMap.newKeySet();
+    private volatile boolean tableEnsured = false;
+    private volatile boolean loaded = false;
+
+    public LeaderboardImpl(DatabaseManagerImpl databaseManager, String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Invalid leaderboard name: " + name);
+        }
+        this.databaseManager = databaseManager;
+        this.name = name;
+        this.table = TABLE_PREFIX + name;
+        KeyLayout keyLayout = databaseManager.getKeyLayout();
+        this.boardKey = keyLayout.leaderboardKey(name);
+        this.dirtyKey = keyLayout.leaderboardDirtyKey(name);
+        this.loadedKey = keyLayout.leaderboardLoadedKey(name);
+    }
+
+    // ==================== Leaderboard API ====================
+
+    @Override
+    public CompletableFuture<Boolean> submit(String playerId, double score) {
+        if (!Double.isFinite(score)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Score must be finite: " + score));
+        }
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.submitScore(boardKey, dirtyKey, playerId, score));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        markStale(playerId);
+        Map<String, Object> row = new HashMap<>();
+        row.put(ID, playerId);
+        row.put(SCORE, score);
+        row.put(UPDATED_AT, System.currentTimeMillis());
+        return ensureTable().thenCompose(v -> persist.upsert(table, row, ID));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(String playerId) {
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.removeScore(boardKey, dirtyKey, playerId));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        markStale(playerId);
+        return ensureTable().thenCompose(v -> persist.deleteWhere(table, Map.of(ID, playerId)))
+                .thenApply(deleted -> deleted >= 0);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Double>> scoreOf(String playerId) {
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.zscore(boardKey, playerId));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return ensureTable().thenCompose(v -> persist.query(table, Map.of(ID, playerId)))
+                .thenApply(rows -> rows.isEmpty() ? Optional.empty() : Optional.of(toDouble(rows.get(0).get(SCORE))));
+    }
+
+    @Override
+    public CompletableFuture<List<LeaderboardEntry>> top(int n) {
+        if (n <= 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.zrevrangeWithScores(boardKey, 0, n - 1))
+                    .thenApply(scores -> entries(1, scores));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return ensureTable().thenCompose(v -> persist.select(rankedSpec().limit(n).build()))
+                .thenApply(rows -> entries(1, scoresOf(rows)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Long>> rankOf(String playerId) {
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.zrevrank(boardKey, playerId))
+                    .thenApply(rank -> rank.map(r -> r + 1));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return scoreOf(playerId).thenCompose(score -> score.isEmpty()
+                ? CompletableFuture.completedFuture(Optional.<Long>empty())
+                : countAbove(persist, playerId, score.get()).thenApply(above -> Optional.of(above + 1)));
+    }
+
+    @Override
+    public CompletableFuture<List<LeaderboardEntry>> around(String playerId, int k) {
+        int span = Math.max(0, k);
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.zrevrank(boardKey, playerId)).thenCompose(rank -> {
+                if (rank.isEmpty()) {
+                    return CompletableFuture.completedFuture(Collections.<LeaderboardEntry>emptyList());
+                }
+                long start = Math.max(0, rank.get() - span);
+                return redis.zrevrangeWithScores(boardKey, start, rank.get() + span)
+                        .thenApply(scores -> entries(start + 1, scores));
+            });
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return scoreOf(playerId).thenCompose(score -> {
+            if (score.isEmpty()) {
+                return CompletableFuture.completedFuture(Collections.<LeaderboardEntry>emptyList());
+            }
+            double own = score.get();
+            CompletableFuture<Long> rank = countAbove(persist, playerId, own).thenApply(above -> above + 1);
+            CompletableFuture<Map<String, Double>> above = nearestAbove(persist, playerId, own, span);
+            // 排在后面的 k 名：从本人所在行开始的键集分页
+            CompletableFuture<Map<String, Double>> below = span == 0
+                    ? CompletableFuture.completedFuture(Collections.emptyMap())
+                    : persist.select(rankedSpec().cursorValue(own).cursorValue(playerId).limit(span).build())
+                            .thenApply(LeaderboardImpl::scoresOf);
+            return CompletableFuture.allOf(rank, above, below).thenApply(v -> {
+                Map<String, Double> window = new LinkedHashMap<>(above.join());
+                window.put(playerId, own);
+                window.putAll(below.join());
+                return entries(rank.join() - above.join().size(), window);
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> size() {
+        RedisProvider redis = databaseManager.availableCache();
+        if (redis != null) {
+            return ready(redis).thenCompose(v -> redis.zcard(boardKey));
+        }
+        PersistProvider persist = databaseManager.availablePersist();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        return ensureTable().thenCompose(v -> persist.countAll(table));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public String getTableName() {
+        return table;
+    }
+
+    // ==================== Flush ====================
+
+    /**
+     * Write the scores changed since the last flush to the table, a batch at a time. Players
+     * whose batch fails are marked dirty again.
+     */
+    CompletableFuture<Void> flush() {
+        RedisProvider redis = databaseManager.availableCache();
+        PersistProvider persist = databaseManager.availablePersist();
+        if (redis == null || persist == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return checkLoaded(redis)
+                .thenCompose(v -> ready(redis))
+                // 未完成重建时有序集合可能缺少玩家，会被误当作已移除
+                .thenCompose(v -> loaded
+                        ? redis.spop(dirtyKey, FLUSH_BATCH_SIZE)
+                        : CompletableFuture.completedFuture(Collections.<String>emptySet()))
+                .thenCompose(popped -> {
+                    if (popped.isEmpty()) {
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    List<String> members = new ArrayList<>(popped);
+                    return redis.zmscore(boardKey, members)
+                            .thenCompose(scores -> persistScores(persist, members, scores))
+                            .exceptionally(e -> {
+                                log.warn("Leaderboard flush of {} players in {} failed: {}",
+                                        members.size(), name, e.getMessage());
+                                return false;
+                            })
+                            .thenCompose(ok -> {
+                                if (!ok) {
+                                    // 放回待回写集合，下次 flush 重试
+                                    return markDirty(redis, members);
+                                }
+                                return members.size() >= FLUSH_BATCH_SIZE
+                                        ? flush()
+                                        : CompletableFuture.completedFuture(null);
+                            });
+                });
+    }
+
+    private CompletableFuture<Boolean> persistScores(PersistProvider persist, List<String> members, List<Double> scores) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (int i = 0; i < members.size(); i++) {
+            Double score = i < scores.size() ? scores.get(i) : null;
+            if (score == null) {
+                removed.add(members.get(i));
+                continue;
+            }
+            Map<String, Object> row = new HashMap<>();
+            row.put(ID, members.get(i));
+            row.put(SCORE, score);
+            row.put(UPDATED_AT, now);
+            rows.add(row);
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        futures.add(persist.batchUpsert(table, rows, ID));
+        for (String member : removed) {
+            futures.add(persist.deleteWhere(table, Map.of(ID, member)).thenApply(deleted -> deleted >= 0));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    private CompletableFuture<Void> markDirty(RedisProvider redis, List<String> members) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String member : members) {
+            futures.add(redis.sadd(dirtyKey, member).exceptionally(e -> {
+                log.error("Lost leaderboard update of {} in {}: {}", member, name, e.getMessage());
+                return false;
+            }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // ==================== Loading ====================
+
+    /**
+     * Make sure the sorted set holds the whole board: rebuild it from the table if it is not
+     * marked loaded, then correct the players written to the table while Redis was bypassed.
+     */
+    private CompletableFuture<Void> ready(RedisProvider redis) {
+        if (loaded && staleMembers.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loadFlight.execute(name, () -> {
+            PersistProvider persist = databaseManager.availablePersist();
+            if (persist == null) {
+                // 无法重建：先只用 Redis 中已有的数据作答
+                return CompletableFuture.completedFuture(false);
+            }
+            CompletableFuture<Boolean> load = loaded
+                    ? CompletableFuture.completedFuture(true)
+                    : ensureTable()
+                            .thenCompose(v -> redis.exists(loadedKey))
+                            .thenCompose(exists -> exists ? CompletableFuture.completedFuture(true) : load(redis, persist));
+            return load.thenCompose(ok -> repairStale(redis, persist).thenApply(v -> ok));
+        }).thenAccept(ok -> {
+            if (ok) {
+                loaded = true;
+            }
+        }).exceptionally(e -> {
+            log.warn("Failed to load leaderboard {}: {}", name, e.getMessage());
+            return null;
+        });
+    }
+
+    /**
+     * Stream the table into the sorted set, one keyset page at a time.
+     */
+    private CompletableFuture<Boolean> load(RedisProvider redis, PersistProvider persist) {
+        log.info("Rebuilding leaderboard {} from {}", name, table);
+        return loadPage(redis, persist, null, 0);
+    }
+
+    private CompletableFuture<Boolean> loadPage(RedisProvider redis, PersistProvider persist, String after, long total) {
+        QuerySpec.QuerySpecBuilder spec = QuerySpec.builder()
+                .table(table)
+                .column(ID)
+                .column(SCORE)
+                .order(new QuerySpec.Order(ID, false))
+                .limit(LOAD_PAGE_SIZE);
+        if (after != null) {
+            spec.cursorValue(after);
+        }
+        return persist.select(spec.build()).thenCompose(rows -> {
+            // NX：重建期间新提交的分数不会被表中的旧分数覆盖
+            return redis.zaddAll(boardKey, scoresOf(rows), true).thenCompose(added -> {
+                long loadedRows = total + rows.size();
+                if (rows.size() < LOAD_PAGE_SIZE) {
+                    log.info("Leaderboard {} rebuilt with {} players", name, loadedRows);
+                    return redis.set(loadedKey, "1");
+                }
+                String last = String.valueOf(rows.get(rows.size() - 1).get(ID));
+                return loadPage(redis, persist, last, loadedRows);
+            });
+        });
+    }
+
+    /**
+     * Overwrite the scores of players written to the table while Redis was bypassed.
+     */
+    private CompletableFuture<Void> repairStale(RedisProvider redis, PersistProvider persist) {
+        if (staleMembers.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<String> members = new ArrayList<>(staleMembers);
+        QuerySpec spec = QuerySpec.builder()
+                .table(table)
+                .column(ID)
+                .column(SCORE)
+                .condition(new Condition(ID, Operator.IN, members))
+                .build();
+        return persist.select(spec).thenCompose(rows -> {
+            Map<String, Double> scores = scoresOf(rows);
+            List<String> removed = new ArrayList<>();
+            for (String member : members) {
+                if (!scores.containsKey(member)) {
+                    removed.add(member);
+                }
+            }
+            CompletableFuture<Long> zrem = removed.isEmpty()
+                    ? CompletableFuture.completedFuture(0L)
+                    : redis.zrem(boardKey, removed.toArray(new String[0]));
+            return redis.zaddAll(boardKey, scores, false).thenCombine(zrem, (a, b) -> null);
+        }).thenRun(() -> members.forEach(staleMembers::remove));
+    }
+
+    /**
+     * Forget the loaded state once Redis lost the board (e.g. restarted without persistence).
+     */
+    private CompletableFuture<Void> checkLoaded(RedisProvider redis) {
+        if (!loaded) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return redis.exists(loadedKey).thenAccept(exists -> {
+            if (!exists) {
+                loaded = false;
+            }
+        });
+    }
+
+    private void markStale(String playerId) {
+        if (databaseManager.getCacheProvider().isPresent()) {
+            staleMembers.add(playerId);
+        }
+    }
+
+    // ==================== Table ====================
+
+    private CompletableFuture<Void> ensureTable() {
+        if (tableEnsured) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return databaseManager.ensureTable(table, SCHEMA).thenCompose(created -> {
+            PersistProvider persist = databaseManager.availablePersist();
+            if (!created || persist == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return persist.createIndex(table, EntityMapper.indexName(table, SCORE), List.of(SCORE), false)
+                    .exceptionally(e -> {
+                        log.warn("Failed to create score index on {}: {}", table, e.getMessage());
+                        return false;
+                    })
+                    .thenAccept(indexed -> tableEnsured = true);
+        });
+    }
+
+    /**
+     * Rows ordered like the sorted set: score, then id, both descending.
+     */
+    private QuerySpec.QuerySpecBuilder rankedSpec() {
+        return QuerySpec.builder()
+                .table(table)
+                .column(ID)
+                .column(SCORE)
+                .order(new QuerySpec.Order(SCORE, true))
+                .order(new QuerySpec.Order(ID, true));
+    }
+
+    /**
+     * Number of players ranked above the given one.
+     */
+    private CompletableFuture<Long> countAbove(PersistProvider persist, String playerId, double score) {
+        String sql = "SELECT COUNT(*) FROM `" + table + "` WHERE " + aboveClause();
+        // 分片时每个分片返回一行计数，求和即可
+        return persist.executeQuery(sql, score, score, playerId).thenApply(rows -> {
+            long count = 0;
+            for (Map<String, Object> row : rows) {
+                count += ((Number) row.values().iterator().next()).longValue();
+            }
+            return count;
+        });
+    }
+
+    /**
+     * Up to {@code k} players ranked directly above the given one, best first.
+     */
+    private CompletableFuture<Map<String, Double>> nearestAbove(PersistProvider persist, String playerId,
+                                                                double score, int k) {
+        if (k == 0) {
+            return CompletableFuture.completedFuture(Collections.emptyMap());
+        }
+        String sql = "SELECT `" + ID + "`, `" + SCORE + "` FROM `" + table + "` WHERE " + aboveClause()
+                + " ORDER BY `" + SCORE + "` ASC, `" + ID + "` ASC LIMIT " + k;
+        return persist.executeQuery(sql, score, score, playerId).thenApply(rows -> {
+            // 分片时各分片各返回至多 k 行：合并后取最接近的 k 行，再倒序为名次顺序
+            List<Map<String, Object>> nearest = new ArrayList<>(rows);
+            nearest.sort(Comparator.<Map<String, Object>>comparingDouble(row -> toDouble(row.get(SCORE)))
+                    .thenComparing(row -> String.valueOf(row.get(ID))));
+            nearest = new ArrayList<>(nearest.subList(0, Math.min(k, nearest.size())));
+            Collections.reverse(nearest);
+            return scoresOf(nearest);
+        });
+    }
+
+    private static String aboveClause() {
+        return "`" + SCORE + "` > ? OR (`" + SCORE + "` = ? AND `" + ID + "` > ?)";
+    }
+
+    private static Map<String, Double> scoresOf(List<Map<String, Object>> rows) {
+        Map<String, Double> scores = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            scores.put(String.valueOf(row.get(ID)), toDouble(row.get(SCORE)));
+        }
+        return scores;
+    }
+
+    private static List<LeaderboardEntry> entries(long firstRank, Map<String, Double> scores) {
+        List<LeaderboardEntry> entries = new ArrayList<>(scores.size());
+        long rank = firstRank;
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            entries.add(new LeaderboardEntry(rank++, entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(String.valueOf(value));
+    }
+}
@@ -0,0 +1,169 @@
+package com.yirankuma.yrdatabase.core;
+
+import com.yirankuma.yrdatabase.api.query.Condition;
+import com.yirankuma.yrdatabase.api.query.Operator;
+import com.yirankuma.yrdatabase.api.query.Query;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of {@link Query} on top of {@link com.yirankuma.yrdatabase.api.provider.PersistProvider#select}.
+ * Field names are validated against the entity when they are added, so no user input reaches
+ * the SQL text.
+ *
+ * @param <T> Entity type
+ * @author YiranKuma
+ */
+class QueryImpl<T> implements Query<T> {
+
+    private final RepositoryImpl<T> repository;
+    private final DatabaseManagerImpl databaseManager;
+    private final EntityMapper<T> entityMapper;
+
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<QuerySpec.Order> orders = new ArrayList<>();
+    private final Set<String> columns = new LinkedHashSet<>();
+    private int limit;
+    private T afterEntity;
+    private Map<String, Object> afterRow;
+
+    QueryImpl(RepositoryImpl<T> repository, DatabaseManagerImpl databaseManager, EntityMapper<T> entityMapper) {
+        this.repository = repository;
+        this.databaseManager = databaseManager;
+        this.entityMapper = entityMapper;
+    }
+
+    @Override
+    public Query<T> where(String field, Operator operator, Object value) {
+        Objects.requireNonNull(operator, "operator");
+        if (operator == Operator.IN && !(value instanceof Collection)) {
+            throw new IllegalArgumentException("IN requires a collection value");
+        }
+        conditions.add(new Condition(entityMapper.resolveColumn(field), operator, value));
+        return this;
+    }
+
+    @Override
+    public Query<T> eq(String field, Object value) {
+        return where(field, Operator.EQ, value);
+    }
+
+    @Override
+    public Query<T> in(String field, Collection<?> values) {
+        return where(field, Operator.IN, new ArrayList<>(values));
+    }
+
+    @Override
+    public Query<T> orderBy(String field) {
+        orders.add(new QuerySpec.Order(entityMapper.resolveColumn(field), false));
+        return this;
+    }
+
+    @Override
+    public Query<T> orderByDesc(String field) {
+        orders.add(new QuerySpec.Order(entityMapper.resolveColumn(field), true));
+        return this;
+    }
+
+    @Override
+    public Query<T> limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be >= 0");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    @Override
+    public Query<T> after(T last) {
+        this.afterEntity = last;
+        this.afterRow = null;
+        return this;
+    }
+
+    @Override
+    public Query<T> after(Map<String, Object> lastRow) {
+        this.afterRow = lastRow;
+        this.afterEntity = null;
+        return this;
+    }
+
+    @Override
+    public Query<T> select(String... fields) {
+        for (String field : fields) {
+            columns.add(entityMapper.resolveColumn(field));
+        }
+        return this;
+    }
+
+    @Override
+    public QuerySpec toSpec() {
+        // Append the primary key so the ordering is total; keyset pagination needs unique cursors
+        List<QuerySpec.Order> effectiveOrders = new ArrayList<>(orders);
+        String primaryKey = entityMapper.getPrimaryKeyColumn();
+        boolean orderedByKey = effectiveOrders.stream().anyMatch(o -> o.getColumn().equals(primaryKey));
+        if (!orderedByKey && (!effectiveOrders.isEmpty() || afterEntity != null || afterRow != null)) {
+            effectiveOrders.add(new QuerySpec.Order(primaryKey, false));
+        }
+
+        QuerySpec.QuerySpecBuilder builder = QuerySpec.builder()
+                .table(entityMapper.getTableName())
+                .conditions(conditions)
+                .orders(effectiveOrders)
+                .limit(limit);
+
+        if (!columns.isEmpty()) {
+            Set<String> projected = new LinkedHashSet<>(columns);
+            projected.add(primaryKey);
+            for (QuerySpec.Order order : effectiveOrders) {
+                projected.add(order.getColumn());
+            }
+            builder.columns(projected);
+        }
+
+        Map<String, Object> cursorSource = afterEntity != null ? entityMapper.toMap(afterEntity) : afterRow;
+        if (cursorSource != null) {
+            for (QuerySpec.Order order : effectiveOrders) {
+                if (!cursorSource.containsKey(order.getColumn())) {
+                    throw new IllegalArgumentException("Cursor row is missing column " + order.getColumn());
+                }
+                builder.cursorValue(cursorSource.get(order.getColumn()));
+            }
+        }
+        return builder.build();
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> listRows() {
+        QuerySpec spec;
+        try {
+            spec = toSpec();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return repository.ensureTable().thenCompose(v -> {
+            var persistProvider = databaseManager.getPersistProvider();
+            if (persistProvider.isEmpty() || !persistProvider.get().isConnected()) {
+                return CompletableFuture.completedFuture(Collections.<Map<String, Object>>emptyList());
+            }
+            return persistProvider.get().select(spec);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<T>> list() {
+        return listRows().thenApply(rows -> rows.stream()
+                .map(entityMapper::fromMap)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> first() {
+        limit(1);
+        return list().thenApply(results -> results.isEmpty() ? Optional.empty() : Optional.of(results.get(0)));
+    }
+}
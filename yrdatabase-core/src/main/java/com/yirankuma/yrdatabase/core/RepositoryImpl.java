@@ -2,10 +2,16 @@ package com.yirankuma.yrdatabase.core;
 
 import com.google.gson.Gson;
 import com.yirankuma.yrdatabase.api.CacheStrategy;
+import com.yirankuma.yrdatabase.api.OptimisticLockException;
 import com.yirankuma.yrdatabase.api.Repository;
+import com.yirankuma.yrdatabase.api.query.Query;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -14,12 +20,16 @@ import java.util.stream.Collectors;
  * @param <T> Entity type
  * @author YiranKuma
  */
+@Slf4j
 public class RepositoryImpl<T> implements Repository<T> {
 
+    private static final int DEFAULT_UPDATE_ATTEMPTS = 5;
+
     private final DatabaseManagerImpl databaseManager;
     private final Class<T> entityClass;
     private final EntityMapper<T> entityMapper;
     private final Gson gson;
+    private final LazyFieldStore<T> lazyFields;
     private volatile boolean tableEnsured = false;
 
     public RepositoryImpl(DatabaseManagerImpl databaseManager, Class<T> entityClass, Gson gson) {
@@ -27,14 +37,24 @@ public class RepositoryImpl<T> implements Repository<T> {
         this.entityClass = entityClass;
         this.entityMapper = new EntityMapper<>(entityClass);
         this.gson = gson;
+        this.lazyFields = entityMapper.getLazyFields().isEmpty()
+                ? null
+                : new LazyFieldStore<>(databaseManager, entityMapper, gson);
+        if (entityMapper.getVersionColumn() != null) {
+            databaseManager.registerVersionColumn(entityMapper.getTableName(), entityMapper.getVersionColumn());
+        }
     }
 
-    private CompletableFuture<Void> ensureTable() {
+    CompletableFuture<Void> ensureTable() {
         if (tableEnsured) {
             return CompletableFuture.completedFuture(null);
         }
 
         return databaseManager.ensureTable(entityMapper.getTableName(), entityMapper.getTableSchema())
+                .thenCompose(success -> success && lazyFields != null
+                        ? databaseManager.ensureTable(lazyFields.getTable(), LazyFieldStore.schema())
+                        : CompletableFuture.completedFuture(success))
+                .thenCompose(success -> success ? ensureIndexes().thenApply(v -> true) : CompletableFuture.completedFuture(false))
                 .thenAccept(success -> {
                     if (success) {
                         tableEnsured = true;
@@ -42,6 +62,29 @@ public class RepositoryImpl<T> implements Repository<T> {
                 });
     }
 
+    /**
+     * Create the indexes declared with @Index. A failing index (e.g. a unique index over
+     * existing duplicates) is logged but does not make the table unusable.
+     */
+    private CompletableFuture<Void> ensureIndexes() {
+        var persistProvider = databaseManager.getPersistProvider();
+        if (entityMapper.getIndexes().isEmpty() || persistProvider.isEmpty() || !persistProvider.get().isConnected()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (EntityMapper.IndexDefinition index : entityMapper.getIndexes()) {
+            futures.add(persistProvider.get()
+                    .createIndex(entityMapper.getTableName(), index.getName(), index.getColumns(), index.isUnique())
+                    .exceptionally(e -> {
+                        log.warn("Failed to create index {} on {}: {}",
+                                index.getName(), entityMapper.getTableName(), e.getMessage());
+                        return false;
+                    }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
     @Override
     public CompletableFuture<Optional<T>> findById(String id) {
         return ensureTable().thenCompose(v ->
@@ -99,8 +142,35 @@ public class RepositoryImpl<T> implements Repository<T> {
         }
 
         Map<String, Object> data = entityMapper.toMap(entity);
-        return ensureTable().thenCompose(v ->
-                databaseManager.set(entityMapper.getTableName(), id, data, strategy));
+        String versionColumn = entityMapper.getVersionColumn();
+        if (versionColumn == null) {
+            return ensureTable()
+                    .thenCompose(v -> databaseManager.set(entityMapper.getTableName(), id, data, strategy))
+                    .thenCompose(saved -> saveLazyFields(id, entity, strategy, saved));
+        }
+
+        long expectedVersion = entityMapper.getVersion(entity);
+        return ensureTable()
+                .thenCompose(v -> databaseManager.compareAndSet(entityMapper.getTableName(), id, data,
+                        versionColumn, expectedVersion, strategy))
+                .thenApply(saved -> {
+                    if (saved) {
+                        entityMapper.setVersion(entity, expectedVersion + 1);
+                    }
+                    return saved;
+                })
+                .thenCompose(saved -> saveLazyFields(id, entity, strategy, saved));
+    }
+
+    /**
+     * Write the loaded lazy fields after the entity row; skipped if the row was not saved
+     * (e.g. a version conflict).
+     */
+    private CompletableFuture<Boolean> saveLazyFields(String id, T entity, CacheStrategy strategy, boolean saved) {
+        if (!saved || lazyFields == null) {
+            return CompletableFuture.completedFuture(saved);
+        }
+        return lazyFields.save(id, entity, strategy);
     }
 
     @Override
@@ -122,10 +192,76 @@ public class RepositoryImpl<T> implements Repository<T> {
                 .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
     }
 
+    @Override
+    public CompletableFuture<Optional<T>> update(String id, UnaryOperator<T> updater) {
+        return update(id, updater, DEFAULT_UPDATE_ATTEMPTS);
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> update(String id, UnaryOperator<T> updater, int maxAttempts) {
+        return findById(id).thenCompose(current -> {
+            if (current.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.<T>empty());
+            }
+            long version = entityMapper.getVersion(current.get());
+            T updated = updater.apply(current.get());
+            if (updated == null) {
+                return CompletableFuture.completedFuture(current);
+            }
+            // 更新函数可能返回新对象：按读到的版本比较
+            entityMapper.setVersion(updated, version);
+
+            return save(updated).handle((saved, e) -> {
+                if (e == null) {
+                    return saved
+                            ? CompletableFuture.completedFuture(Optional.of(updated))
+                            : CompletableFuture.<Optional<T>>failedFuture(new IllegalStateException(
+                                    "Failed to save " + entityMapper.getTableName() + "/" + id));
+                }
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof OptimisticLockException && maxAttempts > 1) {
+                    // 有其他写入抢先：重新读取并再次应用更新
+                    return update(id, updater, maxAttempts - 1);
+                }
+                return CompletableFuture.<Optional<T>>failedFuture(cause);
+            }).thenCompose(Function.identity());
+        });
+    }
+
+    @Override
+    public CompletableFuture<T> load(T entity, String field) {
+        EntityMapper.LazyFieldMapping mapping;
+        try {
+            mapping = entityMapper.resolveLazyField(field);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return ensureTable().thenCompose(v -> lazyFields.load(entity, mapping));
+    }
+
+    @Override
+    public CompletableFuture<T> loadAll(T entity) {
+        if (lazyFields == null) {
+            return CompletableFuture.completedFuture(entity);
+        }
+        return ensureTable().thenCompose(v -> {
+            List<CompletableFuture<T>> loads = new ArrayList<>();
+            for (EntityMapper.LazyFieldMapping mapping : entityMapper.getLazyFields()) {
+                loads.add(lazyFields.load(entity, mapping));
+            }
+            return CompletableFuture.allOf(loads.toArray(new CompletableFuture[0])).thenApply(x -> entity);
+        });
+    }
+
     @Override
     public CompletableFuture<Boolean> deleteById(String id) {
-        return ensureTable().thenCompose(v ->
-                databaseManager.delete(entityMapper.getTableName(), id));
+        return ensureTable().thenCompose(v -> {
+            CompletableFuture<Boolean> deleted = databaseManager.delete(entityMapper.getTableName(), id);
+            if (lazyFields == null) {
+                return deleted;
+            }
+            return deleted.thenCombine(lazyFields.delete(id), (row, lazy) -> row && lazy);
+        });
     }
 
     @Override
@@ -136,8 +272,11 @@ public class RepositoryImpl<T> implements Repository<T> {
                 return CompletableFuture.completedFuture(false);
             }
 
+            CompletableFuture<Integer> lazyDeleted = lazyFields != null
+                    ? persistProvider.get().deleteWhere(lazyFields.getTable(), null)
+                    : CompletableFuture.completedFuture(0);
             return persistProvider.get().deleteWhere(entityMapper.getTableName(), null)
-                    .thenApply(count -> count >= 0);
+                    .thenCombine(lazyDeleted, (count, lazyCount) -> count >= 0 && lazyCount >= 0);
         });
     }
 
@@ -164,6 +303,11 @@ public class RepositoryImpl<T> implements Repository<T> {
         return databaseManager.persistAndClear(entityMapper.getTableName(), id);
     }
 
+    @Override
+    public Query<T> query() {
+        return new QueryImpl<>(this, databaseManager, entityMapper);
+    }
+
     @Override
     public Class<T> getEntityClass() {
         return entityClass;
@@ -173,4 +317,11 @@ public class RepositoryImpl<T> implements Repository<T> {
     public String getTableName() {
         return entityMapper.getTableName();
     }
+
+    /**
+     * Column names of the entity table, in declaration order.
+     */
+    List<String> getColumns() {
+        return new ArrayList<>(entityMapper.getTableSchema().keySet());
+    }
 }
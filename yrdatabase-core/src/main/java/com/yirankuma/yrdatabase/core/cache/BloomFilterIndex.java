@@ -0,0 +1,331 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.api.provider.CacheProvider;
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Per-table Bloom filter of known primary keys, stored as a Redis bitmap shared by all servers.
+ *
+ * <p>Every write adds its key before the data is written, so a negative answer means the key
+ * has never been written through YRDatabase. Existing rows are added by a background scan
+ * (keyset-paginated, ids only) that only ever sets bits, so writes made during the scan are
+ * never lost. Until a table's scan has completed the filter answers "maybe" for every key.</p>
+ *
+ * <p>Bits are never cleared: deleted keys simply become false positives. The bitmap key
+ * includes its size and hash count, so changing the sizing starts a fresh filter. Keys moved
+ * to a cold-tier archive table still exist, so the scan covers that table too.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class BloomFilterIndex {
+
+    private static final String KEY_PREFIX = "yrdatabase:bloom:";
+    private static final String LOCK_PREFIX = "yrdatabase:lock:bloom:";
+    // 重建可能持续较久，锁的自动过期时间需覆盖整个扫描
+    private static final long REBUILD_LOCK_TTL_SECONDS = 600;
+    // ready 标记在本地缓存的时间，过期后重新确认（其他子服可能已重建完成）
+    private static final long READY_RECHECK_MILLIS = 60000;
+    private static final int SCAN_BATCH_SIZE = 1000;
+    // Redis bitmap 上限为 2^32 位
+    private static final long MAX_BITS = 1L << 32;
+
+    private final Supplier<CacheProvider> cacheSupplier;
+    private final Supplier<PersistProvider> persistSupplier;
+    private final long bits;
+    private final int hashes;
+    private final long rebuildIntervalSeconds;
+
+    private final Map<String, TableState> tables = new ConcurrentHashMap<>();
+    // 表 → 归档表（未分层的表返回 null）
+    private volatile Function<String, String> archiveTables = table -> null;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    public BloomFilterIndex(Supplier<CacheProvider> cacheSupplier, Supplier<PersistProvider> persistSupplier,
+                            DatabaseConfig.CachingConfig config) {
+        this.cacheSupplier = cacheSupplier;
+        this.persistSupplier = persistSupplier;
+        this.bits = optimalBits(config.getBloomExpectedKeys(), config.getBloomFalsePositiveRate());
+        this.hashes = optimalHashes(config.getBloomExpectedKeys(), bits);
+        this.rebuildIntervalSeconds = Math.max(60, config.getBloomRebuildIntervalSeconds());
+    }
+
+    /**
+     * Set the archive table whose keys also belong to a table's filter.
+     *
+     * @param archiveTables Table to archive table, null for tables without one
+     */
+    public void setArchiveTables(Function<String, String> archiveTables) {
+        this.archiveTables = archiveTables;
+    }
+
+    private static class TableState {
+        volatile boolean ready;
+        volatile long checkedAt;
+        final AtomicBoolean checking = new AtomicBoolean();
+    }
+
+    // ==================== Lookup ====================
+
+    /**
+     * Check whether a key may exist in the table.
+     *
+     * @return False only if the key has definitely never been written; true otherwise
+     *         (including while the filter is not built yet or Redis is unavailable)
+     */
+    public CompletableFuture<Boolean> mightContain(String table, String key) {
+        CacheProvider cache = cacheSupplier.get();
+        TableState state = refreshState(table);
+        if (cache == null || !cache.isConnected() || !state.ready) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        checks.increment();
+        return cache.getBits(bitmapKey(table), positions(key, bits, hashes))
+                .thenApply(values -> {
+                    for (Boolean bit : values) {
+                        if (!bit) {
+                            negatives.increment();
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .exceptionally(e -> {
+                    log.debug("Bloom filter check failed for {}/{}: {}", table, key, e.getMessage());
+                    return true;
+                });
+    }
+
+    /**
+     * Add a key before it is written. If the bits cannot be set, the table's filter is
+     * marked not ready so no false negative can be produced for this key.
+     */
+    public CompletableFuture<Void> add(String table, String key) {
+        CacheProvider cache = cacheSupplier.get();
+        if (cache == null || !cache.isConnected()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return cache.setBits(bitmapKey(table), positions(key, bits, hashes))
+                .<Void>thenApply(ok -> null)
+                .exceptionally(e -> {
+                    log.warn("Bloom filter add failed for {}/{}, disabling filter until rebuilt: {}",
+                            table, key, e.getMessage());
+                    invalidate(table);
+                    return null;
+                });
+    }
+
+    private void invalidate(String table) {
+        TableState state = tables.computeIfAbsent(table, t -> new TableState());
+        state.ready = false;
+        CacheProvider cache = cacheSupplier.get();
+        if (cache != null && cache.isConnected()) {
+            cache.delete(readyKey(table)).exceptionally(e -> false);
+        }
+    }
+
+    // ==================== Rebuild ====================
+
+    private TableState refreshState(String table) {
+        TableState state = tables.computeIfAbsent(table, t -> new TableState());
+        if (System.currentTimeMillis() - state.checkedAt < READY_RECHECK_MILLIS) {
+            return state;
+        }
+        if (!state.checking.compareAndSet(false, true)) {
+            return state;
+        }
+
+        CacheProvider cache = cacheSupplier.get();
+        if (cache == null || !cache.isConnected()) {
+            state.checking.set(false);
+            return state;
+        }
+
+        cache.exists(readyKey(table)).thenCompose(ready -> {
+            state.ready = ready;
+            state.checkedAt = System.currentTimeMillis();
+            if (ready) {
+                return CompletableFuture.completedFuture((Void) null);
+            }
+            // 多个子服只需一个执行扫描
+            return cache.setNxEx(LOCK_PREFIX + table, "1", Duration.ofSeconds(REBUILD_LOCK_TTL_SECONDS))
+                    .thenCompose(locked -> locked ? rebuild(cache, table) : CompletableFuture.completedFuture((Void) null));
+        }).whenComplete((v, e) -> {
+            if (e != null) {
+                log.warn("Bloom filter state check for {} failed: {}", table, e.getMessage());
+            }
+            state.checking.set(false);
+        });
+        return state;
+    }
+
+    private CompletableFuture<Void> rebuild(CacheProvider cache, String table) {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null || !persist.isConnected()) {
+            return cache.delete(LOCK_PREFIX + table).thenApply(v -> (Void) null);
+        }
+
+        log.info("Rebuilding bloom filter for table {} ({} bits, {} hashes)", table, bits, hashes);
+        long start = System.currentTimeMillis();
+        String archive = archiveTables.apply(table);
+        return scanPage(cache, persist, table, table, null, 0L)
+                .thenCompose(count -> archive == null
+                        ? CompletableFuture.completedFuture(count)
+                        : scanPage(cache, persist, table, archive, null, count))
+                .handle((count, e) -> {
+                    if (e != null) {
+                        log.warn("Bloom filter rebuild for {} failed: {}", table, e.getMessage());
+                    } else {
+                        cache.setEx(readyKey(table), "1", Duration.ofSeconds(rebuildIntervalSeconds));
+                        TableState state = tables.computeIfAbsent(table, t -> new TableState());
+                        state.ready = true;
+                        state.checkedAt = System.currentTimeMillis();
+                        log.info("Bloom filter for table {} rebuilt with {} keys in {}ms",
+                                table, count, System.currentTimeMillis() - start);
+                    }
+                    cache.delete(LOCK_PREFIX + table);
+                    return null;
+                });
+    }
+
+    /**
+     * Keyset pagination over the primary key: only ids are read, and each page continues
+     * after the last id of the previous one (no OFFSET scans). Ids of {@code scanTable} are
+     * added to the filter of {@code table}.
+     */
+    private CompletableFuture<Long> scanPage(CacheProvider cache, PersistProvider persist, String table,
+                                             String scanTable, Object afterId, long scanned) {
+        // 通过查询规格而不是原始 SQL，分片持久层会按 id 合并各分片的结果
+        QuerySpec.QuerySpecBuilder spec = QuerySpec.builder()
+                .table(scanTable)
+                .column("id")
+                .order(new QuerySpec.Order("id", false))
+                .limit(SCAN_BATCH_SIZE);
+        if (afterId != null) {
+            spec.cursorValue(afterId);
+        }
+        CompletableFuture<List<Map<String, Object>>> page = persist.select(spec.build());
+
+        return page.thenCompose(rows -> {
+            if (rows.isEmpty()) {
+                return CompletableFuture.completedFuture(scanned);
+            }
+            long[] offsets = new long[rows.size() * hashes];
+            int i = 0;
+            for (Map<String, Object> row : rows) {
+                long[] keyPositions = positions(String.valueOf(row.get("id")), bits, hashes);
+                System.arraycopy(keyPositions, 0, offsets, i, hashes);
+                i += hashes;
+            }
+            Object lastId = rows.get(rows.size() - 1).get("id");
+            long total = scanned + rows.size();
+            return cache.setBits(bitmapKey(table), offsets).thenCompose(ok -> rows.size() < SCAN_BATCH_SIZE
+                    ? CompletableFuture.completedFuture(total)
+                    : scanPage(cache, persist, table, scanTable, lastId, total));
+        });
+    }
+
+    // ==================== Hashing ====================
+
+    /**
+     * Bitmap size for the expected number of keys and false positive rate.
+     */
+    static long optimalBits(long expectedKeys, double falsePositiveRate) {
+        double n = Math.max(1, expectedKeys);
+        double p = Math.min(0.5, Math.max(1e-9, falsePositiveRate));
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return Math.max(64, Math.min(MAX_BITS, m));
+    }
+
+    /**
+     * Number of hash functions minimizing the false positive rate for this size.
+     */
+    static int optimalHashes(long expectedKeys, long bits) {
+        long k = Math.round((double) bits / Math.max(1, expectedKeys) * Math.log(2));
+        return (int) Math.max(1, Math.min(16, k));
+    }
+
+    /**
+     * Bit positions of a key (Kirsch-Mitzenmacher double hashing over a 64-bit hash).
+     * Must stay stable across JVMs since the bitmap is shared between servers.
+     */
+    static long[] positions(String key, long bits, int hashes) {
+        long hash = hash64(key.getBytes(StandardCharsets.UTF_8));
+        long h1 = hash;
+        long h2 = mix64(hash ^ 0x9E3779B97F4A7C15L) | 1L;
+        long[] positions = new long[hashes];
+        for (int i = 0; i < hashes; i++) {
+            positions[i] = Math.floorMod(h1 + i * h2, bits);
+        }
+        return positions;
+    }
+
+    private static long hash64(byte[] data) {
+        // FNV-1a followed by a MurmurHash3 finalizer for better bit dispersion
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        return mix64(h);
+    }
+
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private String bitmapKey(String table) {
+        return KEY_PREFIX + table + ":" + bits + ":" + hashes;
+    }
+
+    private String readyKey(String table) {
+        return bitmapKey(table) + ":ready";
+    }
+
+    // ==================== Statistics ====================
+
+    /**
+     * Number of filter lookups performed (excludes tables whose filter is not built yet).
+     */
+    public long getChecks() {
+        return checks.sum();
+    }
+
+    /**
+     * Number of lookups answered "definitely absent".
+     */
+    public long getNegatives() {
+        return negatives.sum();
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+}
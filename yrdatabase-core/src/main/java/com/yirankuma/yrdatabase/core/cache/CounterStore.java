@@ -0,0 +1,327 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Redis side of the atomic counters.
+ *
+ * <p>An increment adds the delta to the hash {@code yrdatabase:counter:<cacheKey>} with
+ * {@code HINCRBY}/{@code HINCRBYFLOAT} and marks the cache key dirty in
+ * {@code yrdatabase:counters}. A flush claims dirty keys in one script, moving them from the dirty
+ * set to {@code yrdatabase:counters:claimed} with a deadline, so each key is flushed by one
+ * server at a time, and moves each hash to {@code <counterKey>:processing}. The caller then adds
+ * the deltas to the persisted rows and either {@link #commitAndApply commits} them (deleting the
+ * processing hash, then the claim) or hands them back with {@link #restore}.</p>
+ *
+ * <p>If a server stops mid-flush its claims expire after {@link #CLAIM_TTL} and the next flush
+ * takes those keys over, merging newer deltas into the processing hash. Deltas are therefore
+ * flushed at least once: twice only if the server stopped between the database write and the
+ * commit.</p>
+ *
+ * <p>The fields changed through counters are recorded per table, so that writing a cached row
+ * back can leave them out (see {@link #fields}).</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class CounterStore {
+
+    // 缓存行在读取与替换之间被修改时的重试次数
+    private static final int APPLY_ATTEMPTS = 3;
+    // 认领的有效期：须长于一次 flush，过期后其他子服接手
+    static final Duration CLAIM_TTL = Duration.ofMinutes(5);
+    // 计数列集合的本地缓存有效期
+    private static final long FIELDS_REFRESH_MILLIS = 5000;
+
+    private final Supplier<RedisProvider> redisSupplier;
+    private final KeyLayout keyLayout;
+    // 表 → 计数列（本服累加过的列与最近一次从 Redis 读取的列）
+    private final Map<String, Set<String>> knownFields = new ConcurrentHashMap<>();
+    private final Map<String, Long> fieldsLoadedAt = new ConcurrentHashMap<>();
+
+    public CounterStore(Supplier<RedisProvider> redisSupplier, KeyLayout keyLayout) {
+        this.redisSupplier = redisSupplier;
+        this.keyLayout = keyLayout;
+    }
+
+    /**
+     * Add {@code delta} to the unflushed value of a counter field.
+     *
+     * @param delta Long for {@code HINCRBY}, anything else for {@code HINCRBYFLOAT}
+     */
+    public CompletableFuture<Boolean> increment(String cacheKey, String field, Number delta) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        String counterKey = keyLayout.counterKey(cacheKey);
+        // 先登记计数列，回写缓存行时才能在第一次 flush 之前排除它
+        return registerField(redis, cacheKey, field)
+                .thenCompose(v -> isIntegral(delta)
+                        ? redis.hincrBy(counterKey, field, delta.longValue())
+                        : redis.hincrByFloat(counterKey, field, delta.doubleValue()))
+                // 先累加再标记：flush 在两者之间取走增量时，标记会让下一次 flush 再检查一次
+                .thenCompose(v -> redis.sadd(keyLayout.counterSetKey(cacheKey), cacheKey))
+                .thenApply(v -> true);
+    }
+
+    private CompletableFuture<Void> registerField(RedisProvider redis, String cacheKey, String field) {
+        String[] parts = keyLayout.parse(cacheKey);
+        if (parts == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Set<String> fields = knownFields.computeIfAbsent(parts[0], t -> ConcurrentHashMap.newKeySet());
+        if (fields.contains(field)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return redis.sadd(keyLayout.counterFieldsKey(parts[0]), field).thenAccept(added -> fields.add(field));
+    }
+
+    /**
+     * Fields of a table that are changed through counters. Their values only reach the database
+     * through flushes, so a write-back of a cached row must leave them out: the cached copy may
+     * predate a flush that has already been added to the database. Read from Redis at most every
+     * few seconds; fields this server incremented are always included.
+     */
+    public CompletableFuture<Set<String>> fields(String table) {
+        RedisProvider redis = redisSupplier.get();
+        Set<String> local = knownFields.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet());
+        long now = System.currentTimeMillis();
+        if (redis == null || now - fieldsLoadedAt.getOrDefault(table, 0L) < FIELDS_REFRESH_MILLIS) {
+            return CompletableFuture.completedFuture(Set.copyOf(local));
+        }
+        return redis.smembers(keyLayout.counterFieldsKey(table))
+                .thenApply(stored -> {
+                    local.addAll(stored);
+                    fieldsLoadedAt.put(table, now);
+                    return Set.copyOf(local);
+                })
+                .exceptionally(e -> {
+                    log.warn("Failed to read counter fields of {}: {}", table, e.getMessage());
+                    return Set.copyOf(local);
+                });
+    }
+
+    /**
+     * Unflushed delta of a counter field (0 if none), including deltas a flush has taken but not
+     * committed yet.
+     */
+    public CompletableFuture<Double> pending(String cacheKey, String field) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(0.0);
+        }
+        return redis.hget(keyLayout.counterKey(cacheKey), field)
+                .thenCombine(redis.hget(keyLayout.counterProcessingKey(cacheKey), field),
+                        (unflushed, processing) -> unflushed.map(Double::parseDouble).orElse(0.0)
+                                + processing.map(Double::parseDouble).orElse(0.0));
+    }
+
+    /**
+     * Claim up to {@code batchSize} dirty cache keys per dirty set (expired claims first) and take
+     * their deltas. Taken deltas stay in their processing hash, and the key stays claimed, until
+     * the caller {@link #commitAndApply commits} or {@link #restore restores} them; keys without
+     * deltas are committed right away.
+     *
+     * @return Cache key -> field -> delta
+     */
+    public CompletableFuture<Map<String, Map<String, Number>>> take(int batchSize) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        List<CompletableFuture<List<String>>> claimed = new ArrayList<>();
+        List<String> setKeys = keyLayout.counterSetKeys();
+        List<String> claimKeys = keyLayout.counterClaimKeys();
+        for (int i = 0; i < setKeys.size(); i++) {
+            claimed.add(redis.claimMembers(setKeys.get(i), claimKeys.get(i), batchSize, CLAIM_TTL));
+        }
+        return CompletableFuture.allOf(claimed.toArray(new CompletableFuture[0])).thenCompose(v -> {
+            Map<String, CompletableFuture<Map<String, String>>> hashes = new LinkedHashMap<>();
+            for (CompletableFuture<List<String>> members : claimed) {
+                for (String cacheKey : members.join()) {
+                    hashes.put(cacheKey, redis.stageHash(keyLayout.counterKey(cacheKey),
+                            keyLayout.counterProcessingKey(cacheKey)));
+                }
+            }
+            return CompletableFuture.allOf(hashes.values().toArray(new CompletableFuture[0])).thenCompose(w -> {
+                Map<String, Map<String, Number>> deltas = new LinkedHashMap<>();
+                List<String> empty = new ArrayList<>();
+                hashes.forEach((cacheKey, hash) -> {
+                    Map<String, Number> fields = new LinkedHashMap<>();
+                    hash.join().forEach((field, value) -> {
+                        Number delta = parse(value);
+                        if (delta.doubleValue() != 0) {
+                            fields.put(field, delta);
+                        }
+                    });
+                    if (!fields.isEmpty()) {
+                        deltas.put(cacheKey, fields);
+                    } else {
+                        empty.add(cacheKey);
+                    }
+                });
+                return commit(empty).thenApply(x -> deltas);
+            });
+        });
+    }
+
+    /**
+     * Drop taken deltas once they have been written to the database, without touching cached rows.
+     */
+    public CompletableFuture<Void> commit(Collection<String> cacheKeys) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String cacheKey : cacheKeys) {
+            futures.add(release(redis, cacheKey, redis.delete(keyLayout.counterProcessingKey(cacheKey))));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Drop the claim of a key once its processing hash is gone. If that step failed the claim is
+     * kept, so the deltas are flushed again after it expires.
+     */
+    private CompletableFuture<Boolean> release(RedisProvider redis, String cacheKey, CompletableFuture<Boolean> dropped) {
+        return dropped
+                .thenCompose(v -> redis.zrem(keyLayout.counterClaimKey(cacheKey), cacheKey))
+                .thenApply(removed -> true)
+                .exceptionally(e -> {
+                    log.error("Failed to commit counters of {}, they will be flushed again: {}", cacheKey, e.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * Put back deltas that could not be flushed, on top of increments made since they were taken.
+     */
+    public CompletableFuture<Void> restore(Collection<String> cacheKeys) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String cacheKey : cacheKeys) {
+            futures.add(redis.unstageHash(keyLayout.counterKey(cacheKey), keyLayout.counterProcessingKey(cacheKey))
+                    .thenCompose(v -> redis.sadd(keyLayout.counterSetKey(cacheKey), cacheKey))
+                    .thenCompose(v -> redis.zrem(keyLayout.counterClaimKey(cacheKey), cacheKey))
+                    .thenApply(v -> true)
+                    .exceptionally(e -> {
+                        // 认领未释放：过期后由下一次 flush 接手处理中 hash
+                        log.warn("Failed to restore counters of {}: {}", cacheKey, e.getMessage());
+                        return false;
+                    }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Commit deltas that have been written to the database and add them to the cached rows in the
+     * same step, so reads of a cached row plus {@link #pending} never count a delta twice or miss
+     * it. Only the counter fields are rewritten (exact decimal arithmetic); the rest of the
+     * document keeps its text, and a row changed in between is re-read.
+     */
+    public CompletableFuture<Void> commitAndApply(Map<String, Map<String, Number>> flushed) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        flushed.forEach((cacheKey, fields) -> futures.add(release(redis, cacheKey,
+                commitToCachedRow(redis, cacheKey, fields, APPLY_ATTEMPTS))));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Boolean> commitToCachedRow(RedisProvider redis, String cacheKey,
+                                                         Map<String, Number> fields, int attempts) {
+        String processingKey = keyLayout.counterProcessingKey(cacheKey);
+        return redis.get(cacheKey).thenCompose(cached -> {
+            String expected = cached.orElse(null);
+            String updated = expected != null ? addToJson(expected, fields) : null;
+            if (expected != null && updated == null) {
+                // 不是 JSON 对象，无法加上增量
+                return redis.delete(processingKey);
+            }
+            return redis.replaceAndDelete(cacheKey, expected, updated, processingKey).thenCompose(applied -> {
+                if (applied) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                if (attempts <= 1) {
+                    log.warn("Cached row {} kept changing, counters not applied to it", cacheKey);
+                    return redis.delete(processingKey);
+                }
+                // 读取后被其他写入修改：重新读取
+                return commitToCachedRow(redis, cacheKey, fields, attempts - 1);
+            });
+        });
+    }
+
+    /**
+     * Add deltas to numeric fields of a JSON document; a missing or null field counts as 0 and a
+     * non-numeric one is left unchanged.
+     *
+     * @return The updated document, or null if it is not a JSON object
+     */
+    static String addToJson(String json, Map<String, Number> deltas) {
+        JsonObject doc;
+        try {
+            JsonElement parsed = JsonParser.parseString(json);
+            if (!parsed.isJsonObject()) {
+                return null;
+            }
+            doc = parsed.getAsJsonObject();
+        } catch (JsonParseException e) {
+            return null;
+        }
+        deltas.forEach((field, delta) -> {
+            JsonElement current = doc.get(field);
+            BigDecimal value = BigDecimal.ZERO;
+            if (current != null && !current.isJsonNull()) {
+                if (!current.isJsonPrimitive()) {
+                    return;
+                }
+                try {
+                    value = new BigDecimal(current.getAsString());
+                } catch (NumberFormatException e) {
+                    return;
+                }
+            }
+            doc.add(field, new JsonPrimitive(value.add(new BigDecimal(delta.toString()))));
+        });
+        // JsonElement.toString 保留 null 字段，其余数值按原文本输出
+        return doc.toString();
+    }
+
+    private static boolean isIntegral(Number delta) {
+        return delta instanceof Long || delta instanceof Integer || delta instanceof Short || delta instanceof Byte;
+    }
+
+    private static Number parse(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(value);
+        }
+    }
+}
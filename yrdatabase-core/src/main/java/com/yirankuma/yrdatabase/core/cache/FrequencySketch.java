@@ -0,0 +1,89 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Approximate per-key access counter (count-min sketch with periodic aging).
+ *
+ * <p>Memory is fixed ({@code 4 * width} counters) no matter how many keys are seen. Estimates
+ * can only be too high, never too low. After {@code 10 * width} increments every counter is
+ * halved, so the counts follow recent popularity instead of growing forever.</p>
+ *
+ * @author YiranKuma
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 255;
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+
+    private final AtomicIntegerArray counters;
+    private final int width;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param width Counters per row, rounded up to a power of two (at least 64)
+     */
+    FrequencySketch(int width) {
+        int size = Integer.highestOneBit(Math.max(64, width) - 1) << 1;
+        this.width = size;
+        this.mask = size - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * size);
+        this.sampleSize = 10 * size;
+    }
+
+    void increment(String key) {
+        int hash = spread(key.hashCode());
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * width + indexOf(hash, row);
+            int current;
+            do {
+                current = counters.get(index);
+                if (current >= MAX_COUNT) {
+                    break;
+                }
+            } while (!counters.compareAndSet(index, current, current + 1));
+        }
+
+        // 只有恰好达到阈值的线程执行衰减
+        if (additions.incrementAndGet() == sampleSize) {
+            age();
+        }
+    }
+
+    int frequency(String key) {
+        int hash = spread(key.hashCode());
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(row * width + indexOf(hash, row)));
+        }
+        return min;
+    }
+
+    private void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            int current;
+            do {
+                current = counters.get(i);
+            } while (!counters.compareAndSet(i, current, current >>> 1));
+        }
+        additions.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & mask;
+    }
+
+    private static int spread(int x) {
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
@@ -0,0 +1,310 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Redis key naming for cached rows and their bookkeeping entries.
+ *
+ * <p>Standalone layout (unchanged from earlier versions):</p>
+ * <ul>
+ *   <li>cache: {@code yrdatabase:<table>:<key>}</li>
+ *   <li>absent marker: {@code yrdatabase:absent:<table>:<key>}, with its write generation
+ *       {@code yrdatabase:absent-gen:<table>:<key>}</li>
+ *   <li>lock: {@code yrdatabase:lock:<cacheKey>}</li>
+ *   <li>write stamp: {@code yrdatabase:written:<cacheKey>}</li>
+ *   <li>ownership lease: {@code yrdatabase:lease:<key>}</li>
+ *   <li>counter deltas: {@code yrdatabase:counter:<cacheKey>}, and {@code :processing} for
+ *       deltas being flushed</li>
+ *   <li>pending set: {@code yrdatabase:pending}</li>
+ *   <li>dirty counter set: {@code yrdatabase:counters}, with {@code :claimed} (keys being
+ *       flushed)</li>
+ *   <li>counter fields of a table: {@code yrdatabase:counter-fields:<table>}</li>
+ *   <li>stale mark notice: {@code yrdatabase:stale-marks}</li>
+ *   <li>leaderboard: {@code yrdatabase:leaderboard:<board>}, with {@code :dirty} (players to
+ *       flush) and {@code :loaded} (rebuilt from the table) alongside</li>
+ * </ul>
+ *
+ * <p>Cluster layout wraps the primary key in a hash tag ({@code yrdatabase:<table>:{<key>}}), so
+ * all tables of one player, their absent markers, locks, lease and counters hash to the same slot;
+ * a leaderboard tags its name the same way, so its sorted set and bookkeeping keys share a slot.
+ * The pending set (and the dirty counter set alongside it) is split into shards by slot range: shard {@code i} covers slots
+ * {@code [i * 16384 / n, (i + 1) * 16384 / n)} and its own key is tagged to land in that range,
+ * so with evenly assigned slots each shard lives on the node owning its players and sweeps over
+ * different shards run on different nodes in parallel.</p>
+ *
+ * <p>All servers must use the same layout and shard count; changing either leaves existing
+ * pending entries in keys that are no longer scanned, so flush before switching.</p>
+ *
+ * @author YiranKuma
+ */
+public class KeyLayout {
+
+    public static final String PREFIX = "yrdatabase:";
+    private static final String PENDING_KEY = "yrdatabase:pending";
+    private static final String ABSENT_PREFIX = "yrdatabase:absent:";
+    private static final String ABSENT_GENERATION_PREFIX = "yrdatabase:absent-gen:";
+    private static final String LOCK_PREFIX = "yrdatabase:lock:";
+    private static final String WRITTEN_PREFIX = "yrdatabase:written:";
+    private static final String STALE_MARKS_KEY = "yrdatabase:stale-marks";
+    private static final String LEASE_PREFIX = "yrdatabase:lease:";
+    private static final String COUNTER_PREFIX = "yrdatabase:counter:";
+    private static final String COUNTER_SET_KEY = "yrdatabase:counters";
+    private static final String COUNTER_CLAIM_SUFFIX = ":claimed";
+    private static final String COUNTER_FIELDS_PREFIX = "yrdatabase:counter-fields:";
+    private static final String LEADERBOARD_PREFIX = "yrdatabase:leaderboard:";
+    static final int SLOTS = 16384;
+
+    private final boolean hashTags;
+    private final List<String> pendingKeys;
+    private final List<String> counterSetKeys;
+    private final List<String> counterClaimKeys;
+
+    /**
+     * @param hashTags      Wrap primary keys in hash tags (cluster mode)
+     * @param pendingShards Number of pending sets (1 = single {@code yrdatabase:pending})
+     */
+    public KeyLayout(boolean hashTags, int pendingShards) {
+        this.hashTags = hashTags;
+        int shards = Math.max(1, Math.min(SLOTS, pendingShards));
+        if (shards == 1) {
+            this.pendingKeys = Collections.singletonList(PENDING_KEY);
+            this.counterSetKeys = Collections.singletonList(COUNTER_SET_KEY);
+        } else {
+            List<String> keys = new ArrayList<>(shards);
+            List<String> counterKeys = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                String tag = shardTag(i, shards);
+                keys.add(PENDING_KEY + ":{" + tag + "}");
+                counterKeys.add(COUNTER_SET_KEY + ":{" + tag + "}");
+            }
+            this.pendingKeys = Collections.unmodifiableList(keys);
+            this.counterSetKeys = Collections.unmodifiableList(counterKeys);
+        }
+        List<String> claimKeys = new ArrayList<>(counterSetKeys.size());
+        for (String setKey : counterSetKeys) {
+            claimKeys.add(setKey + COUNTER_CLAIM_SUFFIX);
+        }
+        this.counterClaimKeys = Collections.unmodifiableList(claimKeys);
+    }
+
+    /**
+     * Layout of a single Redis instance: no hash tags, one pending set.
+     */
+    public static KeyLayout standalone() {
+        return new KeyLayout(false, 1);
+    }
+
+    // ==================== Keys ====================
+
+    public String cacheKey(String table, String key) {
+        return PREFIX + table + ":" + tagged(key);
+    }
+
+    public String absentKey(String table, String key) {
+        return ABSENT_PREFIX + table + ":" + tagged(key);
+    }
+
+    /**
+     * Write generation of a key, bumped by every write; an absent marker is only placed if it is
+     * unchanged since the read started. Shares the hash tag of the absent marker.
+     */
+    public String absentGenerationKey(String table, String key) {
+        return ABSENT_GENERATION_PREFIX + table + ":" + tagged(key);
+    }
+
+    /**
+     * Lock guarding the persistence of a cache key; shares its hash tag.
+     */
+    public String lockKey(String cacheKey) {
+        return LOCK_PREFIX + cacheKey;
+    }
+
+    /**
+     * Time (epoch millis) of the last write of a cache key that bypassed persistence; shares its
+     * hash tag and TTL, so stale-cache invalidation can keep copies written after a mark.
+     */
+    public String writtenKey(String cacheKey) {
+        return WRITTEN_PREFIX + cacheKey;
+    }
+
+    /**
+     * Notice that some server recorded stale cache marks in the persistence layer, so other
+     * servers know to poll them.
+     */
+    public String staleMarksKey() {
+        return STALE_MARKS_KEY;
+    }
+
+    /**
+     * Ownership lease of a player (primary key), shared by all its tables.
+     */
+    public String leaseKey(String key) {
+        return LEASE_PREFIX + tagged(key);
+    }
+
+    /**
+     * Hash of unflushed counter deltas of a cache key (field -> delta); shares its hash tag.
+     */
+    public String counterKey(String cacheKey) {
+        return COUNTER_PREFIX + cacheKey;
+    }
+
+    /**
+     * Hash of counter deltas taken by a flush that has not been committed yet; shares the hash tag
+     * of {@link #counterKey}.
+     */
+    public String counterProcessingKey(String cacheKey) {
+        return counterKey(cacheKey) + ":processing";
+    }
+
+    /**
+     * Sorted set of a leaderboard (player id -> score).
+     */
+    public String leaderboardKey(String board) {
+        return LEADERBOARD_PREFIX + tagged(board);
+    }
+
+    /**
+     * Set of players whose leaderboard score changed since the last flush; shares the board's hash tag.
+     */
+    public String leaderboardDirtyKey(String board) {
+        return leaderboardKey(board) + ":dirty";
+    }
+
+    /**
+     * Marker set once a leaderboard has been rebuilt from its table; shares the board's hash tag.
+     */
+    public String leaderboardLoadedKey(String board) {
+        return leaderboardKey(board) + ":loaded";
+    }
+
+    /**
+     * Pending set (shard) a cache key is registered in.
+     */
+    public String pendingKey(String cacheKey) {
+        return pendingKeys.get(shardOf(cacheKey));
+    }
+
+    /**
+     * Set (shard) of cache keys with unflushed counter deltas.
+     */
+    public String counterSetKey(String cacheKey) {
+        return counterSetKeys.get(shardOf(cacheKey));
+    }
+
+    /**
+     * Sorted set (shard) of cache keys whose counters a flush has claimed (member -> claim
+     * deadline); shares the hash tag of {@link #counterSetKey}.
+     */
+    public String counterClaimKey(String cacheKey) {
+        return counterClaimKeys.get(shardOf(cacheKey));
+    }
+
+    /**
+     * Set of the fields of a table that are changed through counters.
+     */
+    public String counterFieldsKey(String table) {
+        return COUNTER_FIELDS_PREFIX + table;
+    }
+
+    /**
+     * All pending sets, to be scanned by sweeps.
+     */
+    public List<String> pendingKeys() {
+        return pendingKeys;
+    }
+
+    /**
+     * Split a cache key into {@code [table, key]}.
+     *
+     * @return Table and primary key, or null if this is not a cache key of this layout
+     */
+    public String[] parse(String cacheKey) {
+        if (!cacheKey.startsWith(PREFIX)) return null;
+        String rest = cacheKey.substring(PREFIX.length());
+        int idx = rest.indexOf(':');
+        if (idx < 1) return null;
+        String key = rest.substring(idx + 1);
+        if (hashTags) {
+            if (key.length() < 2 || key.charAt(0) != '{' || key.charAt(key.length() - 1) != '}') return null;
+            key = key.substring(1, key.length() - 1);
+        }
+        return new String[]{rest.substring(0, idx), key};
+    }
+
+    /**
+     * All dirty counter sets, to be drained by counter flushes.
+     */
+    public List<String> counterSetKeys() {
+        return counterSetKeys;
+    }
+
+    /**
+     * Claim sets, in the same order as {@link #counterSetKeys()}.
+     */
+    public List<String> counterClaimKeys() {
+        return counterClaimKeys;
+    }
+
+    public boolean isHashTagged() {
+        return hashTags;
+    }
+
+    private String tagged(String key) {
+        return hashTags ? "{" + key + "}" : key;
+    }
+
+    // ==================== Slots ====================
+
+    private int shardOf(String cacheKey) {
+        if (pendingKeys.size() == 1) {
+            return 0;
+        }
+        return slot(cacheKey) * pendingKeys.size() / SLOTS;
+    }
+
+    /**
+     * Smallest tag whose slot lies in the range of shard {@code index}; deterministic, so every
+     * server derives the same shard keys.
+     */
+    private static String shardTag(int index, int shards) {
+        int from = index * SLOTS / shards;
+        int to = (index + 1) * SLOTS / shards;
+        for (int n = 0; ; n++) {
+            String tag = index + "-" + n;
+            int slot = crc16(tag.getBytes(StandardCharsets.UTF_8)) % SLOTS;
+            if (slot >= from && slot < to) {
+                return tag;
+            }
+        }
+    }
+
+    /**
+     * Cluster slot of a key, honouring hash tags (Redis Cluster specification).
+     */
+    static int slot(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                key = key.substring(start + 1, end);
+            }
+        }
+        return crc16(key.getBytes(StandardCharsets.UTF_8)) % SLOTS;
+    }
+
+    // CRC16-CCITT (XModem), as used by Redis Cluster
+    private static int crc16(byte[] bytes) {
+        int crc = 0;
+        for (byte b : bytes) {
+            crc ^= (b & 0xff) << 8;
+            for (int i = 0; i < 8; i++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+        }
+        return crc & 0xffff;
+    }
+}
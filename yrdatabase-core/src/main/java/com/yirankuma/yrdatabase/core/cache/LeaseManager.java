@@ -0,0 +1,164 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-player ownership leases ({@code yrdatabase:lease:<key>}).
+ *
+ * <p>The sub-server a player is on claims a lease for the player and renews all of its leases
+ * in one pipelined call per renewal round. While it holds a lease it persists that player's
+ * pending keys without taking the per-key lock. A lease held by another server is never taken
+ * over: the claim is retried every round until the other server releases it (the player left
+ * there) or it expires (that server crashed).</p>
+ *
+ * <p>A lease counts as held locally until {@code ttl} after the claim was sent, which is never
+ * later than its expiry in Redis, so a server that cannot renew stops acting as the owner before
+ * anyone else can claim the lease.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class LeaseManager {
+
+    private final Supplier<RedisProvider> redisSupplier;
+    private final KeyLayout keyLayout;
+    private final String owner;
+    private final long ttlMillis;
+
+    // 在本服在线、需要持有租约的玩家
+    private final Set<String> wanted = ConcurrentHashMap.newKeySet();
+    // 已持有的租约 → 本地认定的有效期截止时间（毫秒）
+    private final Map<String, Long> held = new ConcurrentHashMap<>();
+
+    /**
+     * @param redisSupplier Current Redis provider (may be null while disconnected)
+     * @param owner         Identifier of this server, stored as the lease value
+     * @param ttl           Lease lifetime; renew at least every third of it
+     */
+    public LeaseManager(Supplier<RedisProvider> redisSupplier, KeyLayout keyLayout, String owner, Duration ttl) {
+        this.redisSupplier = redisSupplier;
+        this.keyLayout = keyLayout;
+        this.owner = owner;
+        this.ttlMillis = Math.max(1000, ttl.toMillis());
+    }
+
+    /**
+     * The player arrived on this server: claim the lease now and keep claiming it every round.
+     */
+    public CompletableFuture<Integer> join(String key) {
+        wanted.add(key);
+        return claim(List.of(key));
+    }
+
+    /**
+     * The player left this server. The lease is still renewed until {@link #release} so the
+     * player's remaining keys can be persisted as owner first.
+     */
+    public void quit(String key) {
+        wanted.remove(key);
+    }
+
+    /**
+     * Give up the lease unless the player has come back in the meantime.
+     */
+    public CompletableFuture<Boolean> release(String key) {
+        if (wanted.contains(key) || held.remove(key) == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return redis.releaseLease(keyLayout.leaseKey(key), owner).exceptionally(e -> {
+            // 释放失败时租约到期后自然失效
+            log.warn("Failed to release lease of {}: {}", key, e.getMessage());
+            return false;
+        });
+    }
+
+    /**
+     * Renew every held lease and retry the claims still waiting on another server.
+     *
+     * @return Number of leases held after this round
+     */
+    public CompletableFuture<Integer> renew() {
+        Set<String> keys = new LinkedHashSet<>(wanted);
+        keys.addAll(held.keySet());
+        return claim(new ArrayList<>(keys));
+    }
+
+    /**
+     * Release every held lease (shutdown).
+     */
+    public CompletableFuture<Void> releaseAll() {
+        wanted.clear();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String key : new ArrayList<>(held.keySet())) {
+            futures.add(release(key));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Whether this server currently owns the player's keys.
+     */
+    public boolean holds(String key) {
+        Long validUntil = held.get(key);
+        return validUntil != null && validUntil > System.currentTimeMillis();
+    }
+
+    public int heldCount() {
+        return held.size();
+    }
+
+    public int wantedCount() {
+        return wanted.size();
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private CompletableFuture<Integer> claim(List<String> keys) {
+        RedisProvider redis = redisSupplier.get();
+        if (keys.isEmpty() || redis == null) {
+            return CompletableFuture.completedFuture(held.size());
+        }
+        List<String> leaseKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            leaseKeys.add(keyLayout.leaseKey(key));
+        }
+
+        // 按发出请求的时间计算有效期，不会晚于 Redis 中的实际过期时间
+        long sentAt = System.currentTimeMillis();
+        return redis.claimLeases(leaseKeys, owner, Duration.ofMillis(ttlMillis)).thenApply(granted -> {
+            for (int i = 0; i < keys.size(); i++) {
+                String key = keys.get(i);
+                if (granted.get(i)) {
+                    // 请求期间已被 release 的租约不再记为持有，留给它自然过期
+                    if (wanted.contains(key) || held.containsKey(key)) {
+                        held.put(key, sentAt + ttlMillis);
+                    }
+                } else if (held.remove(key) != null) {
+                    log.warn("Lost ownership lease of {} to another server", key);
+                }
+            }
+            return held.size();
+        }).exceptionally(e -> {
+            // 续期失败时已持有的租约按本地有效期自然失效
+            log.warn("Failed to claim {} ownership leases: {}", keys.size(), e.getMessage());
+            return held.size();
+        });
+    }
+}
@@ -0,0 +1,28 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time statistics of the local timing-wheel sweep.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class LocalSweepStats {
+    /**
+     * Keys written or refreshed by this server and waiting in the timing wheel.
+     */
+    private final int ownedKeys;
+
+    /**
+     * Keys the timing wheel has handed to refresh or persist.
+     */
+    private final long fired;
+
+    /**
+     * Keys found by the global safety-net scan that no live server was tracking.
+     */
+    private final long orphansFound;
+}
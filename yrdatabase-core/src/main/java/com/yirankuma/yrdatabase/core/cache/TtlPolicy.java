@@ -0,0 +1,131 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses the Redis TTL of a cached row; the pending score uses the same value, so the TTL
+ * also decides when the sweep persists the row.
+ *
+ * <p>The base TTL is the table's entry in {@code caching.tableTTLs}, otherwise
+ * {@code caching.playerDataTTL} for keys of online players and {@code caching.defaultTTL} for
+ * everything else. With {@code caching.adaptiveTTL} the base is scaled between
+ * {@code adaptiveMinFactor} (key not read or written recently) and {@code adaptiveMaxFactor}
+ * (at least {@code adaptiveHotAccesses} recent accesses), as counted by a fixed-size
+ * {@link FrequencySketch}. Finally a random jitter of up to {@code ±ttlJitter} is applied, so
+ * keys written in the same burst (restart, event start) expire and become due for persistence
+ * spread over time instead of in one sweep.</p>
+ *
+ * @author YiranKuma
+ */
+public class TtlPolicy {
+
+    private final long defaultTtl;
+    private final long playerDataTtl;
+    private final double jitter;
+    private final Map<String, TableTtl> tables;
+    // 不低于扫描间隔，保证 key 过期前至少被扫描一次
+    private final long minTtl;
+
+    private final FrequencySketch sketch;
+    private final int hotAccesses;
+    private final double minFactor;
+    private final double maxFactor;
+
+    public TtlPolicy(DatabaseConfig.CachingConfig config) {
+        this.defaultTtl = config.getDefaultTTL();
+        this.playerDataTtl = config.getPlayerDataTTL() > 0 ? config.getPlayerDataTTL() : config.getDefaultTTL();
+        this.jitter = clampJitter(config.getTtlJitter());
+        this.tables = parseTables(config.getTableTTLs(), jitter);
+        this.minTtl = Math.max(1, config.getSweepIntervalSeconds() + 1L);
+
+        this.sketch = config.isAdaptiveTTL() ? new FrequencySketch(config.getAdaptiveSketchWidth()) : null;
+        this.hotAccesses = Math.max(1, config.getAdaptiveHotAccesses());
+        this.minFactor = Math.max(0.01, config.getAdaptiveMinFactor());
+        this.maxFactor = Math.max(minFactor, config.getAdaptiveMaxFactor());
+    }
+
+    private static class TableTtl {
+        final long ttl;
+        final double jitter;
+
+        TableTtl(long ttl, double jitter) {
+            this.ttl = ttl;
+            this.jitter = jitter;
+        }
+    }
+
+    /**
+     * Parse {@code table:seconds} or {@code table:seconds:jitter} entries.
+     */
+    private static Map<String, TableTtl> parseTables(List<String> entries, double defaultJitter) {
+        if (entries == null || entries.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, TableTtl> parsed = new HashMap<>();
+        for (String entry : entries) {
+            String[] parts = entry.split(":");
+            if (parts.length < 2 || parts.length > 3 || parts[0].trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid table TTL '" + entry + "', expected table:seconds[:jitter]");
+            }
+            try {
+                long ttl = Long.parseLong(parts[1].trim());
+                double tableJitter = parts.length == 3 ? clampJitter(Double.parseDouble(parts[2].trim())) : defaultJitter;
+                parsed.put(parts[0].trim(), new TableTtl(ttl, tableJitter));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid table TTL '" + entry + "', expected table:seconds[:jitter]", e);
+            }
+        }
+        return parsed;
+    }
+
+    private static double clampJitter(double value) {
+        return Math.max(0, Math.min(0.9, value));
+    }
+
+    /**
+     * Count a read or write of a key (no-op unless adaptive TTLs are enabled).
+     */
+    public void recordAccess(String cacheKey) {
+        if (sketch != null) {
+            sketch.increment(cacheKey);
+        }
+    }
+
+    /**
+     * TTL for a cache write or refresh.
+     *
+     * @param table        Table of the key
+     * @param cacheKey     Full Redis key
+     * @param playerOnline Whether the key belongs to an online player
+     * @return TTL in seconds
+     */
+    public long ttlSeconds(String table, String cacheKey, boolean playerOnline) {
+        TableTtl tableTtl = tables.get(table);
+        long base = tableTtl != null ? tableTtl.ttl : (playerOnline ? playerDataTtl : defaultTtl);
+        double spread = tableTtl != null ? tableTtl.jitter : jitter;
+
+        double ttl = base * factor(cacheKey);
+        if (spread > 0) {
+            ttl *= 1 + ThreadLocalRandom.current().nextDouble(-spread, spread);
+        }
+        return Math.max(minTtl, Math.round(ttl));
+    }
+
+    double factor(String cacheKey) {
+        if (sketch == null) {
+            return 1.0;
+        }
+        int accesses = Math.min(hotAccesses, sketch.frequency(cacheKey));
+        return minFactor + (maxFactor - minFactor) * accesses / hotAccesses;
+    }
+
+    public boolean isAdaptive() {
+        return sketch != null;
+    }
+}
@@ -0,0 +1,228 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Executor for blocking work such as JDBC calls.
+ *
+ * <p>Two modes are supported (see {@code advanced.executor}):</p>
+ * <ul>
+ *   <li><b>fixed</b> - a fixed pool of platform threads with an unbounded queue</li>
+ *   <li><b>virtual</b> - one virtual thread per task, gated by a semaphore so that at most
+ *       {@code concurrency} tasks run at once (sized to the connection pool)</li>
+ * </ul>
+ *
+ * <p>In both modes the time a task spends waiting (queue or semaphore) is tracked separately
+ * from the time it spends running, so queueing delay is visible during load spikes.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class BlockingExecutor implements Executor {
+
+    public static final String MODE_FIXED = "fixed";
+    public static final String MODE_VIRTUAL = "virtual";
+
+    private final String name;
+    private final boolean virtual;
+    private final int concurrency;
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalExecNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxExecNanos = new AtomicLong();
+
+    /**
+     * Create an executor.
+     *
+     * @param name        Thread name prefix
+     * @param mode        "virtual" or "fixed" (anything else is treated as fixed)
+     * @param concurrency Maximum number of tasks running at once
+     */
+    public BlockingExecutor(String name, String mode, int concurrency) {
+        this.name = name;
+        this.virtual = MODE_VIRTUAL.equalsIgnoreCase(mode);
+        this.concurrency = Math.max(1, concurrency);
+
+        if (virtual) {
+            this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+            this.permits = new Semaphore(this.concurrency, true);
+        } else {
+            this.delegate = new ThreadPoolExecutor(this.concurrency, this.concurrency, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), platformThreadFactory(name));
+            this.permits = null;
+        }
+    }
+
+    /**
+     * Platform thread factory with readable thread names, for schedulers that stay on platform threads.
+     */
+    public static ThreadFactory platformThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * Thread factory matching the given mode.
+     *
+     * @param name Thread name prefix
+     * @param mode "virtual" or "fixed"
+     * @return Virtual thread factory in virtual mode, daemon platform thread factory otherwise
+     */
+    public static ThreadFactory threadFactory(String name, String mode) {
+        if (MODE_VIRTUAL.equalsIgnoreCase(mode)) {
+            return Thread.ofVirtual().name(name + "-", 0).factory();
+        }
+        return platformThreadFactory(name);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        submit(task, error -> {
+            throw error;
+        });
+    }
+
+    /**
+     * Run a task and complete the returned future with its result, like
+     * {@link CompletableFuture#supplyAsync(Supplier, Executor)}. Unlike a plain {@code execute},
+     * the future is also completed (exceptionally) when the task never runs because its thread
+     * was interrupted while waiting for a permit, or is rejected because the executor has
+     * already been shut down; callers never see the rejection thrown synchronously.
+     *
+     * @param task Task to run
+     * @return Future of the task's result
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            submit(() -> {
+                try {
+                    future.complete(task.get());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e instanceof CompletionException ? e : new CompletionException(e));
+                }
+            }, error -> future.completeExceptionally(new CompletionException(error)));
+        } catch (RejectedExecutionException e) {
+            // 已关闭：与中断一样通过 future 上报，调用方（如 replicaPool.supply）不会同步抛出
+            future.completeExceptionally(new CompletionException(e));
+        }
+        return future;
+    }
+
+    private void submit(Runnable task, Consumer<IllegalStateException> onInterrupted) {
+        long submittedAt = System.nanoTime();
+        waiting.incrementAndGet();
+
+        try {
+            delegate.execute(() -> run(task, submittedAt, onInterrupted));
+        } catch (RejectedExecutionException e) {
+            waiting.decrementAndGet();
+            throw e;
+        }
+        submitted.increment();
+    }
+
+    private void run(Runnable task, long submittedAt, Consumer<IllegalStateException> onInterrupted) {
+        boolean acquired = false;
+        try {
+            if (permits != null) {
+                permits.acquire();
+                acquired = true;
+            }
+        } catch (InterruptedException e) {
+            waiting.decrementAndGet();
+            completed.increment();
+            Thread.currentThread().interrupt();
+            onInterrupted.accept(new IllegalStateException(name + " interrupted while waiting for a permit", e));
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        waiting.decrementAndGet();
+        active.incrementAndGet();
+        record(totalWaitNanos, maxWaitNanos, startedAt - submittedAt);
+        try {
+            task.run();
+        } finally {
+            record(totalExecNanos, maxExecNanos, System.nanoTime() - startedAt);
+            active.decrementAndGet();
+            completed.increment();
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Snapshot of wait/execution statistics since creation.
+     */
+    public ExecutorStats getStats() {
+        long done = Math.max(1, completed.sum());
+        return ExecutorStats.builder()
+                .name(name)
+                .mode(virtual ? MODE_VIRTUAL : MODE_FIXED)
+                .concurrency(concurrency)
+                .submitted(submitted.sum())
+                .completed(completed.sum())
+                .active(active.get())
+                .waiting(waiting.get())
+                .avgQueueWaitMs(totalWaitNanos.sum() / 1_000_000.0 / done)
+                .maxQueueWaitMs(maxWaitNanos.get() / 1_000_000.0)
+                .avgExecutionMs(totalExecNanos.sum() / 1_000_000.0 / done)
+                .maxExecutionMs(maxExecNanos.get() / 1_000_000.0)
+                .build();
+    }
+
+    /**
+     * Stop accepting tasks and wait briefly for running ones.
+     */
+    public void shutdown() {
+        delegate.shutdown();
+        try {
+            if (!delegate.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("{} did not terminate in time", name);
+                delegate.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            delegate.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
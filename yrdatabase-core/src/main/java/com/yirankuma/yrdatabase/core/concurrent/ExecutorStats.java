@@ -0,0 +1,76 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Point-in-time statistics of a {@link BlockingExecutor}.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class ExecutorStats {
+    private final String name;
+    private final String mode;
+    private final int concurrency;
+    private final long submitted;
+    private final long completed;
+    private final int active;
+    private final int waiting;
+
+    /**
+     * Average time between submission and start (queue or permit wait).
+     */
+    private final double avgQueueWaitMs;
+    private final double maxQueueWaitMs;
+
+    /**
+     * Average time spent running.
+     */
+    private final double avgExecutionMs;
+    private final double maxExecutionMs;
+
+    /**
+     * Combined view of several executors (e.g. one per shard): counts are summed, maxima kept,
+     * averages weighted by completed tasks.
+     */
+    public static ExecutorStats combine(String name, List<ExecutorStats> stats) {
+        int concurrency = 0;
+        int active = 0;
+        int waiting = 0;
+        long submitted = 0;
+        long completed = 0;
+        double totalWaitMs = 0;
+        double totalExecMs = 0;
+        double maxWaitMs = 0;
+        double maxExecMs = 0;
+        for (ExecutorStats s : stats) {
+            concurrency += s.getConcurrency();
+            active += s.getActive();
+            waiting += s.getWaiting();
+            submitted += s.getSubmitted();
+            completed += s.getCompleted();
+            totalWaitMs += s.getAvgQueueWaitMs() * s.getCompleted();
+            totalExecMs += s.getAvgExecutionMs() * s.getCompleted();
+            maxWaitMs = Math.max(maxWaitMs, s.getMaxQueueWaitMs());
+            maxExecMs = Math.max(maxExecMs, s.getMaxExecutionMs());
+        }
+        long done = Math.max(1, completed);
+        return ExecutorStats.builder()
+                .name(name)
+                .mode(stats.get(0).getMode())
+                .concurrency(concurrency)
+                .submitted(submitted)
+                .completed(completed)
+                .active(active)
+                .waiting(waiting)
+                .avgQueueWaitMs(totalWaitMs / done)
+                .maxQueueWaitMs(maxWaitMs)
+                .avgExecutionMs(totalExecMs / done)
+                .maxExecutionMs(maxExecMs)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent asynchronous loads per key.
+ *
+ * <p>While a load for a key is in flight, further callers for the same key receive the
+ * same future instead of starting another load. The entry is removed as soon as the load
+ * completes, so results are never cached beyond the lifetime of the load itself.</p>
+ *
+ * <p>The shared result is handed to every caller as-is; callers that return mutable
+ * values to user code should copy them.</p>
+ *
+ * @param <K> Key type
+ * @param <V> Result type
+ * @author YiranKuma
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Run the loader for this key, or join a load that is already in flight.
+     *
+     * @param key    Deduplication key
+     * @param loader Starts the load; only called by the first caller
+     * @return Future of the (possibly shared) result
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+
+        CompletableFuture<V> created = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+
+        loads.increment();
+        CompletableFuture<V> source;
+        try {
+            source = loader.get();
+        } catch (Throwable e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            // Remove before completing so callers reacting to the result start a fresh load
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(value);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Detach the in-flight load for this key, if any.
+     * Callers already waiting still get its result; later callers start a new load.
+     * Used after a write so that readers arriving later never see data loaded before it.
+     *
+     * @param key Deduplication key
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    /**
+     * Number of loads actually started.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Number of calls that joined an in-flight load instead of starting one.
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    /**
+     * Loads currently in flight.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+}
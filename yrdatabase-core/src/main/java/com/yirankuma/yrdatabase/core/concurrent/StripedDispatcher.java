@@ -0,0 +1,155 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs tasks on a fixed set of single-threaded lanes.
+ *
+ * <p>Tasks with the same key always run on the same lane, so they execute in submission
+ * order; tasks with different keys run in parallel. Each lane has a bounded queue; when it
+ * is full the task is rejected and counted instead of blocking the caller (typically a
+ * Redis I/O thread).</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class StripedDispatcher {
+
+    private final String name;
+    private final ThreadPoolExecutor[] lanes;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong maxQueueDepth = new AtomicLong();
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param name          Thread name prefix
+     * @param laneCount     Number of lanes (threads)
+     * @param queueCapacity Maximum queued tasks per lane
+     */
+    public StripedDispatcher(String name, int laneCount, int queueCapacity) {
+        this.name = name;
+        this.lanes = new ThreadPoolExecutor[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                    r -> {
+                        Thread t = new Thread(r, threadName);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * Submit a task on the lane selected by key.
+     *
+     * @param key  Ordering key (tasks with equal keys run in order); null uses lane 0
+     * @param task Task to run
+     * @return Future completed after the task ran, or failed with
+     *         {@link RejectedExecutionException} if the lane queue is full or the dispatcher is shut down
+     */
+    public CompletableFuture<Void> dispatch(Object key, Runnable task) {
+        ThreadPoolExecutor lane = lanes[laneOf(key)];
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            lane.execute(() -> {
+                try {
+                    task.run();
+                    future.complete(null);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        dispatched.increment();
+        maxQueueDepth.accumulateAndGet(lane.getQueue().size(), Math::max);
+        return future;
+    }
+
+    private int laneOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    /**
+     * Number of tasks accepted so far.
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Number of tasks rejected because a lane queue was full.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Tasks currently waiting across all lanes.
+     */
+    public int getQueued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * Highest queue depth observed on a single lane.
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Stop accepting tasks and wait for queued tasks to finish.
+     *
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void shutdown(long timeoutMillis) {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                if (!lane.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    log.warn("{} did not drain in time, {} task(s) dropped", name, lane.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdownNow();
+            }
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hierarchical timing wheel holding one deadline per key.
+ *
+ * <p>Level 0 has {@code wheelSize} slots of one tick each; every further level has slots
+ * {@code wheelSize} times wider. A key is placed in the lowest level whose range covers its
+ * deadline and moves down a level each time the clock reaches its slot, so scheduling,
+ * rescheduling and cancelling are O(1) and {@link #advance} only touches slots that are due.
+ * Deadlines beyond the top level are parked in its farthest slot and re-placed when it comes
+ * round.</p>
+ *
+ * <p>The wheel has no thread of its own: the owner calls {@link #advance} periodically (at
+ * least once per tick for exact timing; late calls catch up and return everything overdue).</p>
+ *
+ * @param <K> Key type
+ * @author YiranKuma
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int levels;
+    // 每层一个槽位的跨度（tick 数）：wheelSize^level
+    private final long[] slotTicks;
+    private final List<List<Set<K>>> slots;
+    private final Map<K, Entry> entries = new HashMap<>();
+    private final List<K> overdue = new ArrayList<>();
+    // ReentrantLock instead of synchronized so virtual threads are not pinned while waiting
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+
+    private static final class Entry {
+        final long deadlineTick;
+        final int level;
+        final int slot;
+
+        Entry(long deadlineTick, int level, int slot) {
+            this.deadlineTick = deadlineTick;
+            this.level = level;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * @param tickMillis  Resolution of the wheel
+     * @param wheelSize   Slots per level
+     * @param levels      Number of levels; the wheel covers {@code wheelSize^levels} ticks
+     * @param startMillis Current time
+     */
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel: tick=" + tickMillis
+                    + "ms, size=" + wheelSize + ", levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.slotTicks = new long[levels + 1];
+        slotTicks[0] = 1;
+        for (int i = 1; i <= levels; i++) {
+            slotTicks[i] = Math.multiplyExact(slotTicks[i - 1], wheelSize);
+        }
+        this.slots = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Set<K>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new HashSet<>());
+            }
+            slots.add(wheel);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedule a key, replacing its previous deadline.
+     *
+     * @param deadlineMillis When the key becomes due; past deadlines are due on the next advance
+     */
+    public void schedule(K key, long deadlineMillis) {
+        // 向上取整：不早于截止时间触发
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        lock.lock();
+        try {
+            remove(key);
+            place(key, deadlineTick);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return True if the key was scheduled
+     */
+    public boolean cancel(K key) {
+        lock.lock();
+        try {
+            return remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.lock();
+        try {
+            return entries.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move the clock forward and remove every key whose deadline has passed.
+     *
+     * @param nowMillis Current time
+     * @return Due keys, in deadline order per tick
+     */
+    public List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        lock.lock();
+        try {
+            List<K> due = new ArrayList<>(overdue);
+            overdue.clear();
+            for (K key : due) {
+                entries.remove(key);
+            }
+
+            while (currentTick < targetTick) {
+                currentTick++;
+                // 先把高层到期的槽位降级，再处理第 0 层
+                for (int level = levels - 1; level >= 1; level--) {
+                    if (currentTick % slotTicks[level] == 0) {
+                        cascade(level, (int) ((currentTick / slotTicks[level]) % wheelSize));
+                    }
+                }
+                Set<K> slot = slots.get(0).get((int) (currentTick % wheelSize));
+                for (K key : slot) {
+                    entries.remove(key);
+                    due.add(key);
+                }
+                slot.clear();
+            }
+
+            // 降级过程中已到期的 key
+            for (K key : overdue) {
+                entries.remove(key);
+                due.add(key);
+            }
+            overdue.clear();
+            return due;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cascade(int level, int index) {
+        Set<K> slot = slots.get(level).get(index);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(slot);
+        slot.clear();
+        for (K key : keys) {
+            Entry entry = entries.remove(key);
+            place(key, entry.deadlineTick);
+        }
+    }
+
+    private void place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            entries.put(key, new Entry(deadlineTick, -1, -1));
+            overdue.add(key);
+            return;
+        }
+        for (int level = 0; level < levels; level++) {
+            if (delta < slotTicks[level + 1]) {
+                int index = (int) ((deadlineTick / slotTicks[level]) % wheelSize);
+                slots.get(level).get(index).add(key);
+                entries.put(key, new Entry(deadlineTick, level, index));
+                return;
+            }
+        }
+        // 超出整个时间轮范围：暂放在顶层最远的槽位，轮到时按真实截止时间重新放置
+        int top = levels - 1;
+        long parkedTick = currentTick + slotTicks[levels] - 1;
+        int index = (int) ((parkedTick / slotTicks[top]) % wheelSize);
+        slots.get(top).get(index).add(key);
+        entries.put(key, new Entry(deadlineTick, top, index));
+    }
+
+    private boolean remove(K key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level < 0) {
+            overdue.remove(key);
+        } else {
+            slots.get(entry.level).get(entry.slot).remove(key);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,341 @@
+package com.yirankuma.yrdatabase.core.feed;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.yirankuma.yrdatabase.api.feed.ChangeEvent;
+import com.yirankuma.yrdatabase.api.feed.ChangeListener;
+import com.yirankuma.yrdatabase.api.feed.ChangeType;
+import com.yirankuma.yrdatabase.api.feed.Subscription;
+import com.yirankuma.yrdatabase.core.concurrent.StripedDispatcher;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Publishes row changes over Redis Pub/Sub and delivers them to local watchers.
+ *
+ * <p>Writes are {@link #record recorded} into a per-table map where the last change of a key wins;
+ * {@link #publishPending()} (run every {@code changeFeedWindowMillis}) sends each table's map as one
+ * message on {@code yrdatabase:changes:<table>}. Each watched table is subscribed once, and the
+ * message is split into one {@link ChangeEvent} per key, dispatched on a {@link StripedDispatcher}
+ * so that changes to the same key arrive in order.</p>
+ *
+ * <p>When Redis is not available (disabled or bypassed by the circuit breaker), changes are
+ * delivered to local watchers only.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class ChangeFeed {
+
+    public static final String CHANNEL_PREFIX = "yrdatabase:changes:";
+
+    // 单条消息最多携带的 key 数，窗口内变化更多时拆成多条
+    static final int MAX_KEYS_PER_MESSAGE = 500;
+
+    private static final int DISPATCH_LANES = 2;
+    private static final int DISPATCH_QUEUE_SIZE = 10000;
+
+    private final Supplier<RedisProvider> redisSupplier;
+    private final String origin;
+    private final Gson gson = new Gson();
+    private final StripedDispatcher dispatcher;
+
+    // 窗口内待发布的变化：表 → key → 类型，同一 key 只保留最后一次。
+    // 内层 map 只在 compute 中修改，发布时整体 remove，二者对同一张表互斥，不会丢失变化
+    private final Map<String, Map<String, ChangeType>> pending = new ConcurrentHashMap<>();
+    // 本服的监听者，按表分组
+    private final Map<String, TableWatchers> watchers = new ConcurrentHashMap<>();
+
+    /**
+     * @param redisSupplier Redis provider, may return null when Redis is disabled
+     * @param origin        Server id reported as {@link ChangeEvent#getOrigin()}
+     */
+    public ChangeFeed(Supplier<RedisProvider> redisSupplier, String origin) {
+        this.redisSupplier = redisSupplier;
+        this.origin = origin;
+        this.dispatcher = new StripedDispatcher("YRDatabase-ChangeFeed", DISPATCH_LANES, DISPATCH_QUEUE_SIZE);
+    }
+
+    public static String channel(String table) {
+        return CHANNEL_PREFIX + table;
+    }
+
+    // ==================== Publishing ====================
+
+    /**
+     * Record a change to be published with the next window.
+     */
+    public void record(String table, String key, ChangeType type) {
+        pending.compute(table, (t, changes) -> {
+            Map<String, ChangeType> target = changes != null ? changes : new LinkedHashMap<>();
+            // PERSIST 只是落库，不覆盖同一窗口内真正的写入或删除
+            target.merge(key, type, (previous, next) -> next == ChangeType.PERSIST ? previous : next);
+            return target;
+        });
+    }
+
+    /**
+     * Publish everything recorded since the last call, one message per table.
+     */
+    public CompletableFuture<Void> publishPending() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String table : new ArrayList<>(pending.keySet())) {
+            Map<String, ChangeType> changes = pending.remove(table);
+            if (changes == null || changes.isEmpty()) {
+                continue;
+            }
+            for (ChangeMessage message : split(changes)) {
+                futures.add(publish(table, message));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private List<ChangeMessage> split(Map<String, ChangeType> changes) {
+        List<ChangeMessage> messages = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        ChangeMessage current = null;
+        for (Map.Entry<String, ChangeType> entry : changes.entrySet()) {
+            if (current == null || current.keys.size() >= MAX_KEYS_PER_MESSAGE) {
+                current = new ChangeMessage(origin, now);
+                messages.add(current);
+            }
+            current.keys.put(entry.getKey(), entry.getValue());
+        }
+        return messages;
+    }
+
+    private CompletableFuture<Void> publish(String table, ChangeMessage message) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis == null || !redis.isConnected()) {
+            deliver(table, message);
+            return CompletableFuture.completedFuture(null);
+        }
+        // 本服的监听者通过订阅收到自己发布的消息；发布失败时直接在本地投递
+        return redis.publish(channel(table), gson.toJson(message))
+                .handle((receivers, e) -> {
+                    if (e != null) {
+                        log.debug("Failed to publish changes of {}, delivering locally: {}", table, e.getMessage());
+                        deliver(table, message);
+                    }
+                    return null;
+                });
+    }
+
+    // ==================== Watching ====================
+
+    /**
+     * Watch a table, or a single key of it when {@code key} is not null.
+     */
+    public Subscription watch(String table, String key, ChangeListener listener) {
+        Watch watch = new Watch(table, key, listener);
+        synchronized (watchers) {
+            TableWatchers tableWatchers = watchers.get(table);
+            if (tableWatchers == null) {
+                tableWatchers = new TableWatchers();
+                watchers.put(table, tableWatchers);
+                subscribe(table);
+            }
+            tableWatchers.add(watch);
+        }
+        return watch;
+    }
+
+    /**
+     * Subscribe every watched table; called once Redis is connected.
+     */
+    public void subscribeAll() {
+        synchronized (watchers) {
+            for (String table : watchers.keySet()) {
+                subscribe(table);
+            }
+        }
+    }
+
+    private void subscribe(String table) {
+        RedisProvider redis = redisSupplier.get();
+        if (redis != null && redis.isConnected()) {
+            redis.subscribe(channel(table), message -> receive(table, message));
+        }
+    }
+
+    private void cancel(Watch watch) {
+        synchronized (watchers) {
+            TableWatchers tableWatchers = watchers.get(watch.table);
+            if (tableWatchers == null || !tableWatchers.remove(watch)) {
+                return;
+            }
+            if (tableWatchers.isEmpty()) {
+                watchers.remove(watch.table);
+                RedisProvider redis = redisSupplier.get();
+                if (redis != null && redis.isConnected()) {
+                    redis.unsubscribe(channel(watch.table));
+                }
+            }
+        }
+    }
+
+    /**
+     * Handle a message received on a table channel.
+     */
+    void receive(String table, String json) {
+        ChangeMessage message;
+        try {
+            message = gson.fromJson(json, ChangeMessage.class);
+        } catch (JsonSyntaxException e) {
+            log.warn("Ignoring malformed change message on {}: {}", channel(table), e.getMessage());
+            return;
+        }
+        if (message != null && message.keys != null) {
+            deliver(table, message);
+        }
+    }
+
+    private void deliver(String table, ChangeMessage message) {
+        TableWatchers tableWatchers = watchers.get(table);
+        if (tableWatchers == null) {
+            return;
+        }
+        for (Map.Entry<String, ChangeType> entry : message.keys.entrySet()) {
+            String key = entry.getKey();
+            List<Watch> targets = tableWatchers.matching(key);
+            if (targets.isEmpty()) {
+                continue;
+            }
+            ChangeEvent event = new ChangeEvent(table, key, entry.getValue(), message.origin, message.timestamp);
+            dispatcher.dispatch(table + ":" + key, () -> notify(targets, event))
+                    .exceptionally(e -> {
+                        log.warn("Dropped change event {}/{}: {}", table, key, e.getMessage());
+                        return null;
+                    });
+        }
+    }
+
+    private void notify(List<Watch> targets, ChangeEvent event) {
+        for (Watch watch : targets) {
+            if (!watch.active) {
+                continue;
+            }
+            try {
+                watch.listener.onChange(event);
+            } catch (Exception e) {
+                log.error("Error in change listener for {}/{}: {}", event.getTable(), event.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Number of change events rejected because the dispatch queue was full.
+     */
+    public long getDroppedEvents() {
+        return dispatcher.getRejected();
+    }
+
+    /**
+     * Stop delivering; events already queued are still delivered.
+     */
+    public void close() {
+        synchronized (watchers) {
+            RedisProvider redis = redisSupplier.get();
+            if (redis != null && redis.isConnected()) {
+                for (String table : watchers.keySet()) {
+                    redis.unsubscribe(channel(table));
+                }
+            }
+            watchers.clear();
+        }
+        dispatcher.shutdown(5000);
+    }
+
+    // ==================== Internals ====================
+
+    /**
+     * Wire format: {@code {"origin":"...","timestamp":...,"keys":{"<key>":"SET",...}}}.
+     */
+    private static class ChangeMessage {
+        String origin;
+        long timestamp;
+        Map<String, ChangeType> keys = new LinkedHashMap<>();
+
+        ChangeMessage(String origin, long timestamp) {
+            this.origin = origin;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private static class TableWatchers {
+        final List<Watch> all = new CopyOnWriteArrayList<>();
+        final Map<String, List<Watch>> byKey = new ConcurrentHashMap<>();
+
+        void add(Watch watch) {
+            if (watch.key == null) {
+                all.add(watch);
+            } else {
+                byKey.computeIfAbsent(watch.key, k -> new CopyOnWriteArrayList<>()).add(watch);
+            }
+        }
+
+        boolean remove(Watch watch) {
+            if (watch.key == null) {
+                return all.remove(watch);
+            }
+            List<Watch> list = byKey.get(watch.key);
+            if (list == null || !list.remove(watch)) {
+                return false;
+            }
+            if (list.isEmpty()) {
+                byKey.remove(watch.key);
+            }
+            return true;
+        }
+
+        boolean isEmpty() {
+            return all.isEmpty() && byKey.isEmpty();
+        }
+
+        List<Watch> matching(String key) {
+            List<Watch> forKey = byKey.get(key);
+            if (forKey == null) {
+                return all;
+            }
+            List<Watch> targets = new ArrayList<>(all);
+            targets.addAll(forKey);
+            return targets;
+        }
+    }
+
+    private class Watch implements Subscription {
+        final String table;
+        final String key;
+        final ChangeListener listener;
+        volatile boolean active = true;
+
+        Watch(String table, String key, ChangeListener listener) {
+            this.table = table;
+            this.key = key;
+            this.listener = listener;
+        }
+
+        @Override
+        public void cancel() {
+            if (active) {
+                active = false;
+                ChangeFeed.this.cancel(this);
+            }
+        }
+
+        @Override
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
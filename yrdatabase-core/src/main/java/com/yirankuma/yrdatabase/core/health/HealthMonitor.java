@@ -0,0 +1,118 @@
+package com.yirankuma.yrdatabase.core.health;
+
+import com.yirankuma.yrdatabase.api.DatabaseStatus;
+import com.yirankuma.yrdatabase.core.concurrent.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Samples backend health in the background so that status reads never block.
+ *
+ * <p>{@link #getLatest()} returns the most recent snapshot without any I/O (or the
+ * connection-flags-only fallback before the first sample). {@link #refresh()} forces a new
+ * sample; concurrent refreshes, including the periodic one, share a single probe.</p>
+ *
+ * <p>A sample that fails or exceeds the timeout keeps the previous snapshot, whose
+ * {@code sampledAt} then shows how stale it is.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class HealthMonitor {
+
+    private static final String FLIGHT_KEY = "status";
+
+    private final Supplier<CompletableFuture<DatabaseStatus>> sampler;
+    private final Supplier<DatabaseStatus> fallback;
+    private final long timeoutMillis;
+
+    private final SingleFlight<String, DatabaseStatus> flight = new SingleFlight<>();
+    private volatile DatabaseStatus latest;
+
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Create a monitor.
+     *
+     * @param sampler       Probes all backends; only called by one refresh at a time
+     * @param fallback      Builds a status without I/O, used until the first sample succeeds
+     * @param timeoutMillis Upper bound for a whole sample
+     */
+    public HealthMonitor(Supplier<CompletableFuture<DatabaseStatus>> sampler, Supplier<DatabaseStatus> fallback,
+                         long timeoutMillis) {
+        this.sampler = sampler;
+        this.fallback = fallback;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Schedule periodic sampling. Uses a fixed delay so a slow probe never piles up runs.
+     *
+     * @param scheduler       Scheduler to run on
+     * @param intervalSeconds Delay between samples; values &lt;= 0 disable periodic sampling
+     */
+    public void start(ScheduledExecutorService scheduler, long intervalSeconds) {
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::refresh, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Latest snapshot, returned immediately.
+     */
+    public DatabaseStatus getLatest() {
+        DatabaseStatus current = latest;
+        return current != null ? current : fallback.get();
+    }
+
+    /**
+     * Take a new sample, or join the one already running.
+     *
+     * @return Future with the new snapshot (the previous one if sampling failed); never fails
+     */
+    public CompletableFuture<DatabaseStatus> refresh() {
+        return flight.execute(FLIGHT_KEY, this::sample);
+    }
+
+    private CompletableFuture<DatabaseStatus> sample() {
+        CompletableFuture<DatabaseStatus> source;
+        try {
+            source = sampler.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        return source
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .handle((status, e) -> {
+                    if (e != null || status == null) {
+                        failures.increment();
+                        log.warn("Health sample failed: {}", e != null ? e.toString() : "no status");
+                        return getLatest();
+                    }
+                    samples.increment();
+                    latest = status;
+                    return status;
+                });
+    }
+
+    /**
+     * Number of successful samples.
+     */
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    /**
+     * Number of samples that failed or timed out.
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+}
@@ -1,24 +1,39 @@
 package com.yirankuma.yrdatabase.core.provider.mysql;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.provider.PersistProvider;
 import com.yirankuma.yrdatabase.api.provider.ProviderType;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.query.CompiledQuery;
+import com.yirankuma.yrdatabase.core.query.SqlQueryCompiler;
+import com.yirankuma.yrdatabase.core.resilience.CircuitBreaker;
+import com.yirankuma.yrdatabase.core.resilience.ReplicaRouter;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.extern.slf4j.Slf4j;
 
 import java.sql.*;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * MySQL persistence provider implementation using HikariCP.
  *
+ * <p>When {@code persist.mysql.replicas} is set, bulk reads ({@link #queryAll}, unconditional
+ * {@link #count}, {@link #select} and condition queries that do not filter on the primary key)
+ * are spread over the replicas. Reads by primary key always go to the primary, so a player's
+ * data is visible immediately after it was written; bulk reads may lag by the replication delay.</p>
+ *
  * @author YiranKuma
  */
 @Slf4j
@@ -26,12 +41,40 @@ public class MySQLProvider implements PersistProvider {
 
     private final DatabaseConfig.PersistConfig.MySQLConfig config;
     private HikariDataSource dataSource;
-    private ExecutorService executor;
+    private final String executorMode;
+    private BlockingExecutor executor;
+    private volatile ReplicaRouter<HikariDataSource> replicas = new ReplicaRouter<>("MySQL", Collections.emptyList(), 0);
+    private BlockingExecutor replicaExecutor;
     private volatile boolean connected = false;
-    private final Set<String> createdTables = new HashSet<>();
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+    // 已确认没有旧版 JSON 哈希（或已迁移）的 key；达到上限时清空，之后的 key 最多多检查一次
+    private static final int MIGRATED_HASH_LIMIT = 100_000;
+    private final Set<String> migratedHashes = ConcurrentHashMap.newKeySet();
+    private final SqlQueryCompiler queryCompiler = new SqlQueryCompiler();
+    private final CircuitBreaker circuitBreaker;
 
     public MySQLProvider(DatabaseConfig.PersistConfig.MySQLConfig config) {
+        this(config, BlockingExecutor.MODE_FIXED);
+    }
+
+    /**
+     * @param config       MySQL configuration
+     * @param executorMode "fixed" (platform thread pool) or "virtual" (virtual threads gated by pool size)
+     */
+    public MySQLProvider(DatabaseConfig.PersistConfig.MySQLConfig config, String executorMode) {
+        this(config, executorMode, CircuitBreaker.disabled("mysql"));
+    }
+
+    /**
+     * @param config         MySQL configuration
+     * @param executorMode   "fixed" or "virtual"
+     * @param circuitBreaker Breaker wrapped around every statement
+     */
+    public MySQLProvider(DatabaseConfig.PersistConfig.MySQLConfig config, String executorMode,
+                         CircuitBreaker circuitBreaker) {
         this.config = config;
+        this.executorMode = executorMode;
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
@@ -42,40 +85,14 @@ public class MySQLProvider implements PersistProvider {
     public CompletableFuture<Void> initialize() {
         return CompletableFuture.runAsync(() -> {
             try {
-                HikariConfig hikariConfig = new HikariConfig();
                 String driverClass = resolveDriverClass();
-                hikariConfig.setDriverClassName(driverClass);
-                hikariConfig.setJdbcUrl(String.format(
-                        "jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=%s&characterEncoding=utf8&allowPublicKeyRetrieval=true",
-                        config.getHost(), config.getPort(), config.getDatabase(), config.getTimezone()
-                ));
-                hikariConfig.setUsername(config.getUsername());
-                hikariConfig.setPassword(config.getPassword());
-                hikariConfig.setMaximumPoolSize(config.getPool().getMaxSize());
-                hikariConfig.setMinimumIdle(config.getPool().getMinIdle());
-                hikariConfig.setConnectionTimeout(config.getPool().getConnectionTimeout());
-                hikariConfig.setIdleTimeout(config.getPool().getIdleTimeout());
-
-                long configMaxLifetime = config.getPool().getMaxLifetime();
-                long safeMaxLifetime = Math.min(configMaxLifetime, 30 * 60 * 1000L);
-                if (configMaxLifetime != safeMaxLifetime) {
-                    log.warn("MySQL maxLifetime {}ms exceeds Hikari recommendations, using {}ms instead",
-                            configMaxLifetime, safeMaxLifetime);
-                }
-                hikariConfig.setMaxLifetime(safeMaxLifetime);
-                // Ping idle connections every 60s to prevent MySQL from closing them
-                hikariConfig.setKeepaliveTime(60000);
+                HikariConfig hikariConfig = hikariConfig(driverClass, config.getHost(), config.getPort(),
+                        config.getPool().getMaxSize(), config.getPool().getMinIdle());
                 hikariConfig.setPoolName("YRDatabase-MySQL");
 
-                // Performance optimizations
-                hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-                hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-                hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-                hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
-                hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
-
                 dataSource = new HikariDataSource(hikariConfig);
-                executor = Executors.newFixedThreadPool(config.getPool().getMaxSize());
+                // Concurrency matches the pool size so virtual threads never queue inside Hikari
+                executor = new BlockingExecutor("YRDatabase-MySQL", executorMode, config.getPool().getMaxSize());
 
                 // Test connection
                 try (Connection conn = dataSource.getConnection()) {
@@ -84,6 +101,8 @@ public class MySQLProvider implements PersistProvider {
 
                 log.info("MySQL connected successfully to {}:{}/{} using driver {}",
                         config.getHost(), config.getPort(), config.getDatabase(), driverClass);
+
+                initializeReplicas(driverClass);
             } catch (Exception e) {
                 log.error("Failed to connect to MySQL: {}", e.getMessage());
                 connected = false;
@@ -92,6 +111,72 @@ public class MySQLProvider implements PersistProvider {
         });
     }
 
+    private HikariConfig hikariConfig(String driverClass, String host, int port, int maxSize, int minIdle) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setDriverClassName(driverClass);
+        hikariConfig.setJdbcUrl(String.format(
+                "jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=%s&characterEncoding=utf8&allowPublicKeyRetrieval=true",
+                host, port, config.getDatabase(), config.getTimezone()
+        ));
+        hikariConfig.setUsername(config.getUsername());
+        hikariConfig.setPassword(config.getPassword());
+        hikariConfig.setMaximumPoolSize(maxSize);
+        hikariConfig.setMinimumIdle(Math.min(minIdle, maxSize));
+        hikariConfig.setConnectionTimeout(config.getPool().getConnectionTimeout());
+        hikariConfig.setIdleTimeout(config.getPool().getIdleTimeout());
+
+        long configMaxLifetime = config.getPool().getMaxLifetime();
+        long safeMaxLifetime = Math.min(configMaxLifetime, 30 * 60 * 1000L);
+        if (configMaxLifetime != safeMaxLifetime) {
+            log.warn("MySQL maxLifetime {}ms exceeds Hikari recommendations, using {}ms instead",
+                    configMaxLifetime, safeMaxLifetime);
+        }
+        hikariConfig.setMaxLifetime(safeMaxLifetime);
+        // Ping idle connections every 60s to prevent MySQL from closing them
+        hikariConfig.setKeepaliveTime(60000);
+
+        // Performance optimizations
+        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+        hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+        return hikariConfig;
+    }
+
+    /**
+     * Open one pool per configured replica. Replicas that are down at startup do not fail
+     * initialization; their reads fall back to the primary until they answer.
+     */
+    private void initializeReplicas(String driverClass) {
+        List<String> endpoints = config.getReplicas();
+        if (endpoints == null || endpoints.isEmpty()) {
+            replicas = new ReplicaRouter<>("MySQL", Collections.emptyList(), 0);
+            return;
+        }
+
+        int poolSize = Math.max(1, config.getReplicaPoolSize());
+        List<HikariDataSource> sources = new ArrayList<>(endpoints.size());
+        for (int i = 0; i < endpoints.size(); i++) {
+            String endpoint = endpoints.get(i);
+            int idx = endpoint.lastIndexOf(':');
+            if (idx < 1) {
+                throw new IllegalArgumentException("Invalid MySQL replica '" + endpoint + "', expected host:port");
+            }
+            HikariConfig replicaConfig = hikariConfig(driverClass, endpoint.substring(0, idx).trim(),
+                    Integer.parseInt(endpoint.substring(idx + 1).trim()), poolSize, 0);
+            replicaConfig.setPoolName("YRDatabase-MySQL-Replica-" + i);
+            replicaConfig.setReadOnly(true);
+            // 从库启动时不可用不影响主库，连接在首次读取时建立
+            replicaConfig.setInitializationFailTimeout(-1);
+            sources.add(new HikariDataSource(replicaConfig));
+        }
+        // 从库读取使用独立的执行器，大查询不会占用主库的执行槽位
+        replicaExecutor = new BlockingExecutor("YRDatabase-MySQL-Replica", executorMode, poolSize * sources.size());
+        replicas = new ReplicaRouter<>("MySQL", sources, config.getReplicaCooldownMillis());
+        log.info("MySQL read replicas configured: {}", endpoints);
+    }
+
     private String resolveDriverClass() throws ClassNotFoundException {
         String[] candidates = {
             "com.mysql.cj.jdbc.Driver",
@@ -109,18 +194,55 @@ public class MySQLProvider implements PersistProvider {
     }
 
     private <T> CompletableFuture<T> executeAsync(SqlFunction<T> function) {
+        // 熔断打开时直接失败，调用方最多等待 callTimeoutMillis
+        return circuitBreaker.execute(() -> supplyOnPrimary(function), MySQLProvider::isAvailabilityError);
+    }
+
+    /**
+     * DDL、事务与批量读取：不受 callTimeoutMillis 限制，耗时与结果也不计入熔断（熔断未关闭时仍直接失败）。
+     */
+    private <T> CompletableFuture<T> executeLongAsync(SqlFunction<T> function) {
+        return circuitBreaker.executeLongRunning(() -> supplyOnPrimary(function));
+    }
+
+    private <T> CompletableFuture<T> supplyOnPrimary(SqlFunction<T> function) {
         if (!connected || dataSource == null) {
             return CompletableFuture.failedFuture(new IllegalStateException("MySQL not connected"));
         }
 
-        return CompletableFuture.supplyAsync(() -> {
+        return executor.supply(() -> {
             try (Connection conn = dataSource.getConnection()) {
                 return function.apply(conn);
             } catch (SQLException e) {
                 log.error("MySQL operation failed: {}", e.getMessage());
                 throw new RuntimeException(e);
             }
-        }, executor);
+        });
+    }
+
+    /**
+     * Only connection, timeout and transient errors count against the breaker;
+     * syntax or constraint errors mean the server itself is answering fine.
+     */
+    private static boolean isAvailabilityError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                SQLException sqlError = (SQLException) cause;
+                String sqlState = sqlError.getSQLState();
+                return sqlError instanceof SQLTransientException
+                        || sqlError instanceof SQLRecoverableException
+                        || (sqlState != null && sqlState.startsWith("08"));
+            }
+        }
+        // 超时、执行器拒绝、未连接等
+        return true;
+    }
+
+    /**
+     * Circuit breaker guarding all statements of this provider.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     @FunctionalInterface
@@ -164,7 +286,16 @@ public class MySQLProvider implements PersistProvider {
         String table = parts[0];
         String pk = parts[1];
         
-        return deleteWhere(table, Map.of("id", pk)).thenApply(count -> count > 0);
+        // 同时删除 kv_hash 中的同名哈希；只用作哈希的 key 没有对应的表
+        return tableExists(table)
+                .thenCompose(present -> present
+                        ? deleteWhere(table, Map.of("id", pk))
+                        : CompletableFuture.completedFuture(0))
+                .thenCombine(ensureHashTable().thenCompose(v -> executeUpdate(
+                        "DELETE FROM `" + HASH_TABLE + "` WHERE `hkey` = ?", key)), (rows, fields) -> {
+                    rememberMigrated(key);
+                    return rows > 0 || fields > 0;
+                });
     }
 
     @Override
@@ -173,7 +304,15 @@ public class MySQLProvider implements PersistProvider {
         String table = parts[0];
         String pk = parts[1];
         
-        return count(table, Map.of("id", pk)).thenApply(count -> count > 0);
+        return tableExists(table)
+                .thenCompose(present -> present
+                        ? count(table, Map.of("id", pk))
+                        : CompletableFuture.completedFuture(0L))
+                .thenCompose(count -> count > 0
+                        ? CompletableFuture.completedFuture(true)
+                        : ensureHashTable().thenCompose(v -> executeQuery(
+                                "SELECT 1 FROM `" + HASH_TABLE + "` WHERE `hkey` = ? LIMIT 1", key))
+                                .thenApply(rows -> !rows.isEmpty()));
     }
 
     private String[] parseKey(String key) {
@@ -213,51 +352,169 @@ public class MySQLProvider implements PersistProvider {
                 .thenApply(v -> futures.stream().allMatch(f -> f.join()));
     }
 
-    // ==================== Hash Operations (stored as JSON) ====================
+    // ==================== Hash Operations (one row per field) ====================
+
+    /**
+     * Create the hash table on first use. Binary collation: hash keys and fields are
+     * case-sensitive, as in Redis.
+     */
+    private CompletableFuture<Void> ensureHashTable() {
+        if (createdTables.contains(HASH_TABLE)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executeAsync(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS `" + HASH_TABLE + "` ("
+                        + "`hkey` VARCHAR(255) NOT NULL, `field` VARCHAR(128) NOT NULL, `value` LONGTEXT, "
+                        + "PRIMARY KEY (`hkey`, `field`)"
+                        + ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin");
+            }
+            createdTables.add(HASH_TABLE);
+            return null;
+        });
+    }
 
     @Override
     public CompletableFuture<Optional<String>> hget(String key, String field) {
-        return hgetAll(key).thenApply(map -> Optional.ofNullable(map.get(field)));
+        return ensureHashTable()
+                .thenCompose(v -> readHashField(key, field))
+                .thenCompose(value -> value.isPresent() || migratedHashes.contains(key)
+                        ? CompletableFuture.completedFuture(value)
+                        : migrateLegacyHash(key).thenCompose(v -> readHashField(key, field)));
+    }
+
+    private CompletableFuture<Optional<String>> readHashField(String key, String field) {
+        return executeQuery("SELECT `value` FROM `" + HASH_TABLE + "` WHERE `hkey` = ? AND `field` = ?", key, field)
+                .thenApply(rows -> rows.isEmpty()
+                        ? Optional.<String>empty()
+                        : Optional.ofNullable(rows.get(0).get("value")).map(Object::toString));
     }
 
     @Override
     public CompletableFuture<Boolean> hset(String key, String field, String value) {
-        return hgetAll(key).thenCompose(existing -> {
-            existing.put(field, value);
-            return hmset(key, existing);
-        });
+        return hmset(key, Map.of(field, value));
     }
 
     @Override
     public CompletableFuture<Map<String, String>> hgetAll(String key) {
-        return get(key).thenApply(opt -> {
-            if (opt.isEmpty()) return new HashMap<>();
-            try {
-                com.google.gson.Gson gson = new com.google.gson.Gson();
-                @SuppressWarnings("unchecked")
-                Map<String, String> map = gson.fromJson(opt.get(), Map.class);
-                return map != null ? new HashMap<>(map) : new HashMap<>();
-            } catch (Exception e) {
-                return new HashMap<>();
-            }
-        });
+        return ensureHashTable()
+                .thenCompose(v -> readHash(key))
+                .thenCompose(fields -> !fields.isEmpty() || migratedHashes.contains(key)
+                        ? CompletableFuture.completedFuture(fields)
+                        : migrateLegacyHash(key).thenCompose(v -> readHash(key)));
+    }
+
+    private CompletableFuture<Map<String, String>> readHash(String key) {
+        return executeQuery("SELECT `field`, `value` FROM `" + HASH_TABLE + "` WHERE `hkey` = ?", key)
+                .thenApply(rows -> {
+                    Map<String, String> fields = new HashMap<>();
+                    for (Map<String, Object> row : rows) {
+                        Object value = row.get("value");
+                        fields.put(String.valueOf(row.get("field")), value != null ? value.toString() : null);
+                    }
+                    return fields;
+                });
     }
 
     @Override
     public CompletableFuture<Boolean> hdel(String key, String... fields) {
-        return hgetAll(key).thenCompose(existing -> {
-            for (String field : fields) {
-                existing.remove(field);
-            }
-            return hmset(key, existing);
-        });
+        if (fields.length == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        Object[] params = new Object[fields.length + 1];
+        params[0] = key;
+        System.arraycopy(fields, 0, params, 1, fields.length);
+        return ensureHashTable()
+                .thenCompose(v -> migrateLegacyHash(key))
+                .thenCompose(v -> executeUpdate("DELETE FROM `" + HASH_TABLE + "` WHERE `hkey` = ? AND `field` IN ("
+                        + String.join(", ", Collections.nCopies(fields.length, "?")) + ")", params))
+                .thenApply(deleted -> deleted >= 0);
     }
 
     @Override
     public CompletableFuture<Boolean> hmset(String key, Map<String, String> fields) {
-        com.google.gson.Gson gson = new com.google.gson.Gson();
-        String json = gson.toJson(fields);
-        return set(key, json);
+        if (fields.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        List<Object> params = new ArrayList<>(fields.size() * 3);
+        fields.forEach((field, value) -> {
+            params.add(key);
+            params.add(field);
+            params.add(value);
+        });
+        return ensureHashTable()
+                .thenCompose(v -> migrateLegacyHash(key))
+                .thenCompose(v -> executeUpdate(hashUpsertSql(fields.size()), params.toArray()))
+                .thenApply(affected -> affected >= 0);
+    }
+
+    // ==================== Legacy Hashes ====================
+
+    /**
+     * Earlier versions stored a hash as one JSON object in the {@code value} column of its
+     * {@code table:pk} row (default table {@code kv_store}). On first use of such a key its fields
+     * are copied into {@link #HASH_TABLE} (fields already written there win) and the JSON row is
+     * deleted. Checked once per key and process.
+     */
+    private CompletableFuture<Void> migrateLegacyHash(String key) {
+        if (migratedHashes.contains(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String[] parts = parseKey(key);
+        return tableExists(parts[0])
+                .thenCompose(exists -> exists ? get(key) : CompletableFuture.completedFuture(Optional.<String>empty()))
+                .thenCompose(json -> {
+                    Map<String, String> fields = json.map(MySQLProvider::parseLegacyHash).orElse(null);
+                    if (fields == null) {
+                        // 没有旧数据，或该行不是 JSON 对象（普通键值），保持不变
+                        rememberMigrated(key);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    List<Object> params = new ArrayList<>(fields.size() * 3);
+                    fields.forEach((field, value) -> {
+                        params.add(key);
+                        params.add(field);
+                        params.add(value);
+                    });
+                    CompletableFuture<Integer> copied = fields.isEmpty()
+                            ? CompletableFuture.completedFuture(0)
+                            : executeUpdate(hashInsertMissingSql(fields.size()), params.toArray());
+                    // 复制成功后才删除旧行；中途失败时下次重新迁移（已复制的字段被忽略）
+                    return copied.thenCompose(n -> deleteWhere(parts[0], Map.of("id", parts[1])))
+                            .thenAccept(n -> {
+                                rememberMigrated(key);
+                                log.info("Migrated legacy hash {} ({} fields) into {}", key, fields.size(), HASH_TABLE);
+                            });
+                });
+    }
+
+    private void rememberMigrated(String key) {
+        if (migratedHashes.size() >= MIGRATED_HASH_LIMIT) {
+            migratedHashes.clear();
+        }
+        migratedHashes.add(key);
+    }
+
+    /**
+     * @return The fields of a legacy JSON hash, or null if the value is not a JSON object
+     */
+    static Map<String, String> parseLegacyHash(String json) {
+        JsonElement parsed;
+        try {
+            parsed = JsonParser.parseString(json);
+        } catch (JsonParseException e) {
+            return null;
+        }
+        if (!parsed.isJsonObject()) {
+            return null;
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : parsed.getAsJsonObject().entrySet()) {
+            JsonElement value = entry.getValue();
+            fields.put(entry.getKey(), value.isJsonNull() ? null
+                    : value.isJsonPrimitive() ? value.getAsString() : value.toString());
+        }
+        return fields;
     }
 
     // ==================== Table Operations ====================
@@ -268,7 +525,7 @@ public class MySQLProvider implements PersistProvider {
             return CompletableFuture.completedFuture(true);
         }
 
-        return executeAsync(conn -> {
+        return executeLongAsync(conn -> {
             StringBuilder sql = new StringBuilder("CREATE TABLE IF NOT EXISTS `")
                     .append(tableName).append("` (");
             
@@ -296,6 +553,58 @@ public class MySQLProvider implements PersistProvider {
         });
     }
 
+    @Override
+    public CompletableFuture<Boolean> createIndex(String tableName, String indexName, List<String> columns, boolean unique) {
+        return executeLongAsync(conn -> {
+            // MySQL has no CREATE INDEX IF NOT EXISTS
+            try (PreparedStatement check = conn.prepareStatement(
+                    "SELECT 1 FROM information_schema.statistics " +
+                    "WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ? LIMIT 1")) {
+                check.setString(1, tableName);
+                check.setString(2, indexName);
+                try (ResultSet rs = check.executeQuery()) {
+                    if (rs.next()) {
+                        return true;
+                    }
+                }
+            }
+
+            // TEXT/BLOB columns can only be indexed with a prefix length
+            Set<String> prefixed = new HashSet<>();
+            try (PreparedStatement types = conn.prepareStatement(
+                    "SELECT column_name, data_type FROM information_schema.columns " +
+                    "WHERE table_schema = DATABASE() AND table_name = ?")) {
+                types.setString(1, tableName);
+                try (ResultSet rs = types.executeQuery()) {
+                    while (rs.next()) {
+                        String dataType = rs.getString(2).toLowerCase();
+                        if (dataType.endsWith("text") || dataType.endsWith("blob")) {
+                            prefixed.add(rs.getString(1).toLowerCase());
+                        }
+                    }
+                }
+            }
+
+            String columnList = columns.stream()
+                    .map(c -> "`" + c + "`" + (prefixed.contains(c.toLowerCase()) ? "(191)" : ""))
+                    .collect(Collectors.joining(", "));
+            String sql = "CREATE " + (unique ? "UNIQUE " : "") + "INDEX `" + indexName + "` ON `" + tableName
+                    + "` (" + columnList + ")";
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sql);
+                log.debug("Created index {} on {}", indexName, tableName);
+                return true;
+            } catch (SQLException e) {
+                // 1061 = duplicate key name: another server created it in the meantime
+                if (e.getErrorCode() == 1061) {
+                    return true;
+                }
+                throw e;
+            }
+        });
+    }
+
     @Override
     public CompletableFuture<Boolean> tableExists(String tableName) {
         if (createdTables.contains(tableName)) {
@@ -315,8 +624,43 @@ public class MySQLProvider implements PersistProvider {
     }
 
     @Override
-    public CompletableFuture<Boolean> dropTable(String tableName) {
+    public CompletableFuture<Set<String>> listTables() {
         return executeAsync(conn -> {
+            Set<String> tables = new HashSet<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT table_name FROM information_schema.tables "
+                         + "WHERE table_schema = DATABASE() AND table_type = 'BASE TABLE'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            createdTables.addAll(tables);
+            return tables;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> describeTable(String tableName) {
+        return executeAsync(conn -> {
+            Map<String, String> schema = new LinkedHashMap<>();
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT column_name, column_type, column_key "
+                    + "FROM information_schema.columns WHERE table_schema = DATABASE() AND table_name = ? "
+                    + "ORDER BY ordinal_position")) {
+                stmt.setString(1, tableName);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String type = rs.getString(2).toUpperCase();
+                        schema.put(rs.getString(1), "PRI".equals(rs.getString(3)) ? type + " PRIMARY KEY" : type);
+                    }
+                }
+            }
+            return schema;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> dropTable(String tableName) {
+        return executeLongAsync(conn -> {
             try (Statement stmt = conn.createStatement()) {
                 stmt.execute("DROP TABLE IF EXISTS `" + tableName + "`");
                 createdTables.remove(tableName);
@@ -333,17 +677,11 @@ public class MySQLProvider implements PersistProvider {
             return queryAll(table);
         }
 
-        StringBuilder sql = new StringBuilder("SELECT * FROM `").append(table).append("` WHERE ");
-        List<Object> params = new ArrayList<>();
-        List<String> clauses = new ArrayList<>();
-
-        for (Map.Entry<String, Object> entry : conditions.entrySet()) {
-            clauses.add("`" + entry.getKey() + "` = ?");
-            params.add(entry.getValue());
-        }
-
-        sql.append(String.join(" AND ", clauses));
-        return executeQuery(sql.toString(), params.toArray());
+        String sql = selectSql(table, conditions.keySet());
+        Object[] params = conditions.values().toArray();
+        return isKeyLookup(conditions)
+                ? executeQuery(sql, params)
+                : executeReplicaQuery(sql, params);
     }
 
     @Override
@@ -354,30 +692,23 @@ public class MySQLProvider implements PersistProvider {
 
     @Override
     public CompletableFuture<List<Map<String, Object>>> queryAll(String table) {
-        return executeQuery("SELECT * FROM `" + table + "`");
+        return executeReplicaQuery("SELECT * FROM `" + table + "`");
     }
 
     @Override
     public CompletableFuture<Long> count(String table, Map<String, Object> conditions) {
-        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM `").append(table).append("`");
-        List<Object> params = new ArrayList<>();
-
-        if (conditions != null && !conditions.isEmpty()) {
-            sql.append(" WHERE ");
-            List<String> clauses = new ArrayList<>();
-            for (Map.Entry<String, Object> entry : conditions.entrySet()) {
-                clauses.add("`" + entry.getKey() + "` = ?");
-                params.add(entry.getValue());
-            }
-            sql.append(String.join(" AND ", clauses));
-        }
-
-        return executeQuery(sql.toString(), params.toArray())
-                .thenApply(results -> {
-                    if (results.isEmpty()) return 0L;
-                    Object count = results.get(0).values().iterator().next();
-                    return ((Number) count).longValue();
-                });
+        Map<String, Object> where = conditions != null ? conditions : Collections.emptyMap();
+        String sql = countSql(table, where.keySet());
+        Object[] params = where.values().toArray();
+
+        CompletableFuture<List<Map<String, Object>>> rows = isKeyLookup(conditions)
+                ? executeQuery(sql, params)
+                : executeReplicaQuery(sql, params);
+        return rows.thenApply(results -> {
+            if (results.isEmpty()) return 0L;
+            Object count = results.get(0).values().iterator().next();
+            return ((Number) count).longValue();
+        });
     }
 
     @Override
@@ -411,33 +742,9 @@ public class MySQLProvider implements PersistProvider {
 
     @Override
     public CompletableFuture<Boolean> upsert(String table, Map<String, Object> data, String primaryKey) {
-        StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` (");
-        List<String> columns = new ArrayList<>();
-        List<String> placeholders = new ArrayList<>();
-        List<String> updates = new ArrayList<>();
-        List<Object> values = new ArrayList<>();
-
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            columns.add("`" + entry.getKey() + "`");
-            placeholders.add("?");
-            values.add(entry.getValue());
-            if (!entry.getKey().equals(primaryKey)) {
-                updates.add("`" + entry.getKey() + "` = VALUES(`" + entry.getKey() + "`)");
-            }
-        }
-
-        sql.append(String.join(", ", columns))
-                .append(") VALUES (")
-                .append(String.join(", ", placeholders))
-                .append(") ON DUPLICATE KEY UPDATE ");
-
-        if (updates.isEmpty()) {
-            sql.append("`").append(primaryKey).append("` = `").append(primaryKey).append("`");
-        } else {
-            sql.append(String.join(", ", updates));
-        }
-
-        return executeUpdate(sql.toString(), values.toArray())
+        // 列按名称排序：同一张表的保存总是同一条 SQL，预编译语句缓存才能命中
+        Map<String, Object> sorted = new TreeMap<>(data);
+        return executeUpdate(upsertSql(table, sorted.keySet(), primaryKey), sorted.values().toArray())
                 .thenApply(affected -> affected >= 0);
     }
 
@@ -469,48 +776,228 @@ public class MySQLProvider implements PersistProvider {
 
     @Override
     public CompletableFuture<Integer> deleteWhere(String table, Map<String, Object> conditions) {
-        StringBuilder sql = new StringBuilder("DELETE FROM `").append(table).append("`");
-        List<Object> values = new ArrayList<>();
+        Map<String, Object> where = conditions != null ? conditions : Collections.emptyMap();
+        return executeUpdate(deleteSql(table, where.keySet()), where.values().toArray());
+    }
 
-        if (conditions != null && !conditions.isEmpty()) {
-            sql.append(" WHERE ");
-            List<String> clauses = new ArrayList<>();
-            for (Map.Entry<String, Object> entry : conditions.entrySet()) {
-                clauses.add("`" + entry.getKey() + "` = ?");
-                values.add(entry.getValue());
+    // ==================== Versioned Writes ====================
+
+    @Override
+    public CompletableFuture<Boolean> compareAndSet(String table, Map<String, Object> data, String keyColumn,
+                                                    String versionColumn, long expectedVersion) {
+        Map<String, Object> sorted = new TreeMap<>(data);
+        return executeUpdate(versionedUpdateSql(table, sorted.keySet(), keyColumn, versionColumn, "="),
+                        versionedUpdateParams(sorted, keyColumn, expectedVersion))
+                .thenCompose(updated -> {
+                    if (updated > 0 || expectedVersion != 0) {
+                        return CompletableFuture.completedFuture(updated > 0);
+                    }
+                    // 期望版本 0 表示新实体：行不存在时插入，已被其他写入抢先插入则视为冲突
+                    return executeUpdate(insertIfAbsentSql(table, sorted.keySet(), keyColumn), sorted.values().toArray())
+                            .thenApply(inserted -> inserted > 0);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upsertVersioned(String table, Map<String, Object> data, String keyColumn,
+                                                      String versionColumn) {
+        Map<String, Object> sorted = new TreeMap<>(data);
+        return executeUpdate(versionedUpdateSql(table, sorted.keySet(), keyColumn, versionColumn, "<="),
+                        versionedUpdateParams(sorted, keyColumn, sorted.get(versionColumn)))
+                .thenCompose(updated -> updated > 0
+                        ? CompletableFuture.completedFuture(true)
+                        // 没有更新到行：行不存在则插入；库中版本更新时插入被忽略，旧数据不覆盖新数据
+                        : executeUpdate(insertIfAbsentSql(table, sorted.keySet(), keyColumn), sorted.values().toArray())
+                                .thenApply(inserted -> true));
+    }
+
+    /**
+     * Parameters of {@link #versionedUpdateSql}: the non-key values, the key, then the version to compare.
+     */
+    private static Object[] versionedUpdateParams(Map<String, Object> sorted, String keyColumn, Object version) {
+        List<Object> params = new ArrayList<>(sorted.size() + 1);
+        sorted.forEach((column, value) -> {
+            if (!column.equals(keyColumn)) {
+                params.add(value);
             }
-            sql.append(String.join(" AND ", clauses));
+        });
+        params.add(sorted.get(keyColumn));
+        params.add(version);
+        return params.toArray();
+    }
+
+    // ==================== SQL Builders ====================
+    // 相同操作必须生成完全相同的 SQL 文本，预热时预编译的语句才会被后续请求复用
+
+    static String selectSql(String table, Collection<String> conditionColumns) {
+        return "SELECT * FROM `" + table + "`" + whereSql(conditionColumns);
+    }
+
+    static String countSql(String table, Collection<String> conditionColumns) {
+        return "SELECT COUNT(*) FROM `" + table + "`" + whereSql(conditionColumns);
+    }
+
+    static String deleteSql(String table, Collection<String> conditionColumns) {
+        return "DELETE FROM `" + table + "`" + whereSql(conditionColumns);
+    }
+
+    static String upsertSql(String table, Collection<String> columns, String primaryKey) {
+        List<String> updates = columns.stream()
+                .filter(column -> !column.equals(primaryKey))
+                .map(column -> "`" + column + "` = VALUES(`" + column + "`)")
+                .collect(Collectors.toList());
+        if (updates.isEmpty()) {
+            updates.add("`" + primaryKey + "` = `" + primaryKey + "`");
         }
+        return "INSERT INTO `" + table + "` ("
+                + columns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "))
+                + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", "))
+                + ") ON DUPLICATE KEY UPDATE " + String.join(", ", updates);
+    }
 
-        return executeUpdate(sql.toString(), values.toArray());
+    static String versionedUpdateSql(String table, Collection<String> columns, String keyColumn,
+                                     String versionColumn, String comparison) {
+        return "UPDATE `" + table + "` SET "
+                + columns.stream()
+                        .filter(column -> !column.equals(keyColumn))
+                        .map(column -> "`" + column + "` = ?")
+                        .collect(Collectors.joining(", "))
+                + " WHERE `" + keyColumn + "` = ? AND `" + versionColumn + "` " + comparison + " ?";
+    }
+
+    static String insertIfAbsentSql(String table, Collection<String> columns, String keyColumn) {
+        // 重复时把主键更新为自身：不改变数据，影响行数为 0（不用 INSERT IGNORE，以免吞掉其他错误）
+        return "INSERT INTO `" + table + "` ("
+                + columns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "))
+                + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", "))
+                + ") ON DUPLICATE KEY UPDATE `" + keyColumn + "` = `" + keyColumn + "`";
+    }
+
+    static String hashUpsertSql(int rows) {
+        return "INSERT INTO `" + HASH_TABLE + "` (`hkey`, `field`, `value`) VALUES "
+                + String.join(", ", Collections.nCopies(rows, "(?, ?, ?)"))
+                + " ON DUPLICATE KEY UPDATE `value` = VALUES(`value`)";
+    }
+
+    static String hashInsertMissingSql(int rows) {
+        return "INSERT INTO `" + HASH_TABLE + "` (`hkey`, `field`, `value`) VALUES "
+                + String.join(", ", Collections.nCopies(rows, "(?, ?, ?)"))
+                + " ON DUPLICATE KEY UPDATE `hkey` = `hkey`";
+    }
+
+    static String incrementSql(String table, String keyColumn, List<String> columns) {
+        return "INSERT INTO `" + table + "` (`" + keyColumn + "`, "
+                + columns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "))
+                + ") VALUES (?, "
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", "))
+                + ") ON DUPLICATE KEY UPDATE "
+                + columns.stream()
+                        .map(column -> "`" + column + "` = COALESCE(`" + column + "`, 0) + VALUES(`" + column + "`)")
+                        .collect(Collectors.joining(", "));
+    }
+
+    private static String whereSql(Collection<String> conditionColumns) {
+        if (conditionColumns.isEmpty()) {
+            return "";
+        }
+        return " WHERE " + conditionColumns.stream()
+                .map(column -> "`" + column + "` = ?")
+                .collect(Collectors.joining(" AND "));
     }
 
     // ==================== Raw SQL ====================
 
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> select(QuerySpec spec) {
+        CompiledQuery compiled;
+        try {
+            compiled = queryCompiler.compile(spec);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return executeReplicaQuery(compiled.getSql(), compiled.getParams().toArray());
+    }
+
     @Override
     public CompletableFuture<List<Map<String, Object>>> executeQuery(String sql, Object... params) {
-        return executeAsync(conn -> {
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                for (int i = 0; i < params.length; i++) {
-                    stmt.setObject(i + 1, params[i]);
-                }
+        return executeAsync(conn -> readRows(conn, sql, params));
+    }
 
-                try (ResultSet rs = stmt.executeQuery()) {
-                    List<Map<String, Object>> results = new ArrayList<>();
-                    ResultSetMetaData meta = rs.getMetaData();
-                    int columnCount = meta.getColumnCount();
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> executeBulkQuery(String sql, Object... params) {
+        return executeLongAsync(conn -> readRows(conn, sql, params));
+    }
 
-                    while (rs.next()) {
-                        Map<String, Object> row = new LinkedHashMap<>();
-                        for (int i = 1; i <= columnCount; i++) {
-                            row.put(meta.getColumnLabel(i), rs.getObject(i));
-                        }
-                        results.add(row);
+    private static List<Map<String, Object>> readRows(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Map<String, Object>> results = new ArrayList<>();
+                ResultSetMetaData meta = rs.getMetaData();
+                int columnCount = meta.getColumnCount();
+
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= columnCount; i++) {
+                        row.put(meta.getColumnLabel(i), rs.getObject(i));
                     }
-                    return results;
+                    results.add(row);
                 }
+                return results;
+            }
+        }
+    }
+
+    /**
+     * Run a bulk read on a replica, falling back to the primary (without the call timeout, see
+     * {@link #executeBulkQuery}) when no replica is available or the chosen one fails with an
+     * availability error. Other errors (bad SQL, missing table) are returned as-is, since the
+     * primary would fail the same way.
+     */
+    private CompletableFuture<List<Map<String, Object>>> executeReplicaQuery(String sql, Object... params) {
+        ReplicaRouter<HikariDataSource> router = replicas;
+        BlockingExecutor replicaPool = replicaExecutor;
+        if (router.isEmpty() || replicaPool == null || !connected) {
+            return executeBulkQuery(sql, params);
+        }
+        HikariDataSource replica = router.select();
+        if (replica == null) {
+            return executeBulkQuery(sql, params);
+        }
+
+        CompletableFuture<List<Map<String, Object>>> read = replicaPool.supply(() -> {
+            try (Connection conn = replica.getConnection()) {
+                return readRows(conn, sql, params);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
             }
         });
+
+        return read.handle((rows, error) -> {
+            if (error == null) {
+                router.markHealthy(replica);
+                return CompletableFuture.completedFuture(rows);
+            }
+            if (!isAvailabilityError(error)) {
+                return CompletableFuture.<List<Map<String, Object>>>failedFuture(error);
+            }
+            log.debug("MySQL replica read failed, using primary: {}", error.getMessage());
+            router.markFailed(replica);
+            router.recordFallback();
+            return executeBulkQuery(sql, params);
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Reads filtering on the primary key are per-player reads and must see this server's own writes.
+     */
+    private static boolean isKeyLookup(Map<String, Object> conditions) {
+        return conditions != null && conditions.containsKey("id");
     }
 
     @Override
@@ -529,7 +1016,7 @@ public class MySQLProvider implements PersistProvider {
 
     @Override
     public <R> CompletableFuture<R> transaction(Function<Connection, R> action) {
-        return executeAsync(conn -> {
+        return executeLongAsync(conn -> {
             boolean autoCommit = conn.getAutoCommit();
             try {
                 conn.setAutoCommit(false);
@@ -584,6 +1071,139 @@ public class MySQLProvider implements PersistProvider {
         });
     }
 
+    @Override
+    public CompletableFuture<Boolean> batchUpsert(String table, List<Map<String, Object>> rows, String primaryKey) {
+        if (rows.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return executeAsync(conn -> {
+            List<String> columns = new ArrayList<>(new TreeSet<>(rows.get(0).keySet()));
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(upsertSql(table, columns, primaryKey))) {
+                for (Map<String, Object> row : rows) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        stmt.setObject(i + 1, row.get(columns.get(i)));
+                    }
+                    stmt.addBatch();
+                }
+
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> batchIncrement(String table, String keyColumn,
+                                                     Map<String, Map<String, Number>> deltas) {
+        if (deltas.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return executeAsync(conn -> {
+            conn.setAutoCommit(false);
+            try {
+                // 同一组列共用一条语句，一次 executeBatch
+                for (Map.Entry<List<String>, List<Map.Entry<String, Map<String, Number>>>> group
+                        : groupByColumns(deltas).entrySet()) {
+                    List<String> columns = group.getKey();
+                    try (PreparedStatement stmt = conn.prepareStatement(incrementSql(table, keyColumn, columns))) {
+                        for (Map.Entry<String, Map<String, Number>> row : group.getValue()) {
+                            stmt.setObject(1, row.getKey());
+                            for (int i = 0; i < columns.size(); i++) {
+                                stmt.setObject(i + 2, row.getValue().get(columns.get(i)));
+                            }
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Rows grouped by their (sorted) set of counter columns.
+     */
+    static Map<List<String>, List<Map.Entry<String, Map<String, Number>>>> groupByColumns(
+            Map<String, Map<String, Number>> deltas) {
+        Map<List<String>, List<Map.Entry<String, Map<String, Number>>>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Number>> row : deltas.entrySet()) {
+            List<String> columns = new ArrayList<>(new TreeMap<>(row.getValue()).keySet());
+            groups.computeIfAbsent(columns, k -> new ArrayList<>()).add(row);
+        }
+        return groups;
+    }
+
+    // ==================== Warm-up ====================
+
+    /**
+     * Borrow {@code pool.minIdle} connections at once, which makes Hikari open them now instead
+     * of on the first burst of joins, and prepare the per-row statements on each of them. With
+     * {@code useServerPrepStmts} and {@code cachePrepStmts} the prepared statements stay cached
+     * on the connection after they are closed.
+     */
+    @Override
+    public CompletableFuture<Void> warmUp(Map<String, List<String>> tables) {
+        if (!connected || dataSource == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> statements = new ArrayList<>();
+        tables.forEach((table, columns) -> {
+            List<String> key = List.of("id");
+            statements.add(selectSql(table, key));
+            statements.add(countSql(table, key));
+            statements.add(deleteSql(table, key));
+            statements.add(upsertSql(table, new TreeSet<>(columns), "id"));
+        });
+        int connections = Math.max(1, Math.min(config.getPool().getMinIdle(), config.getPool().getMaxSize()));
+
+        return CompletableFuture.runAsync(() -> {
+            List<Connection> held = new ArrayList<>(connections);
+            try {
+                for (int i = 0; i < connections; i++) {
+                    held.add(dataSource.getConnection());
+                }
+                for (Connection conn : held) {
+                    for (String sql : statements) {
+                        try (PreparedStatement ignored = conn.prepareStatement(sql)) {
+                            // 只预编译，不执行
+                        } catch (SQLException e) {
+                            log.debug("Failed to prepare {}: {}", sql, e.getMessage());
+                        }
+                    }
+                }
+                log.debug("MySQL warm-up: {} connections, {} statements each", held.size(), statements.size());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            } finally {
+                for (Connection conn : held) {
+                    try {
+                        conn.close();
+                    } catch (SQLException ignored) {
+                        // returned to the pool anyway
+                    }
+                }
+            }
+        }, executor);
+    }
+
     // ==================== Status ====================
 
     @Override
@@ -596,6 +1216,33 @@ public class MySQLProvider implements PersistProvider {
         return ProviderType.MYSQL;
     }
 
+    /**
+     * Queue wait / execution statistics of the JDBC executor.
+     *
+     * @return Statistics, or null if not initialized
+     */
+    public ExecutorStats getExecutorStats() {
+        BlockingExecutor current = executor;
+        return current != null ? current.getStats() : null;
+    }
+
+    /**
+     * Live connection pool statistics (active/idle/total connections, waiting threads).
+     *
+     * @return Pool bean, or null if not initialized
+     */
+    public HikariPoolMXBean getPoolMXBean() {
+        HikariDataSource current = dataSource;
+        return current != null && !current.isClosed() ? current.getHikariPoolMXBean() : null;
+    }
+
+    /**
+     * Read replica routing (replica count, healthy replicas, reads served and fallbacks).
+     */
+    public ReplicaRouter<HikariDataSource> getReplicaRouter() {
+        return replicas;
+    }
+
     @Override
     public CompletableFuture<Void> reconnect() {
         close();
@@ -626,6 +1273,14 @@ public class MySQLProvider implements PersistProvider {
                 dataSource.close();
                 dataSource = null;
             }
+            if (replicaExecutor != null) {
+                replicaExecutor.shutdown();
+                replicaExecutor = null;
+            }
+            for (HikariDataSource replica : replicas.getTargets()) {
+                replica.close();
+            }
+            replicas = new ReplicaRouter<>("MySQL", Collections.emptyList(), 0);
             log.info("MySQL connection closed");
         } catch (Exception e) {
             log.error("Error closing MySQL connection: {}", e.getMessage());
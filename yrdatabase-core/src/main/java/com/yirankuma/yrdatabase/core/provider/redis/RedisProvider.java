@@ -3,10 +3,30 @@ package com.yirankuma.yrdatabase.core.provider.redis;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.provider.CacheProvider;
 import com.yirankuma.yrdatabase.api.provider.ProviderType;
+import com.yirankuma.yrdatabase.api.provider.StreamEntry;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.resilience.CircuitBreaker;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.ReadFrom;
 import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAddArgs;
+import io.lettuce.core.XGroupCreateArgs;
+import io.lettuce.core.XReadArgs;
+import io.lettuce.core.api.StatefulConnection;
 import io.lettuce.core.api.StatefulRedisConnection;
-import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.masterreplica.MasterReplica;
+import io.lettuce.core.masterreplica.StatefulRedisMasterReplicaConnection;
 import io.lettuce.core.pubsub.RedisPubSubListener;
 import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
 import io.lettuce.core.pubsub.api.async.RedisPubSubAsyncCommands;
@@ -26,6 +46,18 @@ import java.util.function.Consumer;
 /**
  * Redis cache provider implementation using Lettuce.
  *
+ * <p>Connects either to a single Redis instance or, when {@code cache.cluster.enabled} is set,
+ * to a Redis Cluster through {@link RedisClusterClient}. In cluster mode commands are routed by
+ * slot, multi-key commands (MGET/MSET/DEL) are split per slot and KEYS/DBSIZE are run on every
+ * master by Lettuce's advanced cluster API.</p>
+ *
+ * <p>With {@code cache.replicas} (standalone) or {@code cache.cluster.replicaReads} set, statistics
+ * reads (KEYS, DBSIZE, ZCARD, ZRANGE WITHSCORES) use a second pool that prefers replicas and falls
+ * back to the primary. All other commands, including every per-player read, stay on the primary.</p>
+ *
+ * <p>Commands run on a dedicated {@link BlockingExecutor} sized to the connection pool, never on
+ * the common fork-join pool, so waiting for a pooled connection cannot starve unrelated async work.</p>
+ *
  * @author YiranKuma
  */
 @Slf4j
@@ -33,14 +65,31 @@ public class RedisProvider implements CacheProvider {
 
     private final DatabaseConfig.CacheConfig config;
     private ClientResources clientResources;
-    private RedisClient redisClient;
-    private GenericObjectPool<StatefulRedisConnection<String, String>> connectionPool;
+    private AbstractRedisClient redisClient;
+    private GenericObjectPool<StatefulConnection<String, String>> connectionPool;
+    private GenericObjectPool<StatefulConnection<String, String>> replicaPool;
     private StatefulRedisPubSubConnection<String, String> pubSubConnection;
     private final Map<String, Consumer<String>> subscriptions = new ConcurrentHashMap<>();
     private volatile boolean connected = false;
+    private final String executorMode;
+    private BlockingExecutor executor;
+    private final CircuitBreaker circuitBreaker;
 
     public RedisProvider(DatabaseConfig.CacheConfig config) {
+        this(config, CircuitBreaker.disabled("redis"));
+    }
+
+    public RedisProvider(DatabaseConfig.CacheConfig config, CircuitBreaker circuitBreaker) {
+        this(config, BlockingExecutor.MODE_FIXED, circuitBreaker);
+    }
+
+    /**
+     * @param executorMode "virtual" or "fixed", see {@link BlockingExecutor}
+     */
+    public RedisProvider(DatabaseConfig.CacheConfig config, String executorMode, CircuitBreaker circuitBreaker) {
         this.config = config;
+        this.executorMode = executorMode;
+        this.circuitBreaker = circuitBreaker;
     }
 
     /**
@@ -56,36 +105,67 @@ public class RedisProvider implements CacheProvider {
                         .computationThreadPoolSize(4)
                         .build();
 
-                RedisURI.Builder uriBuilder = RedisURI.builder()
-                        .withHost(config.getHost())
-                        .withPort(config.getPort())
-                        .withDatabase(config.getDatabase())
-                        .withTimeout(Duration.ofMillis(config.getTimeout()));
-
-                if (config.getPassword() != null && !config.getPassword().isEmpty()) {
-                    uriBuilder.withPassword(config.getPassword().toCharArray());
-                }
-
-                redisClient = RedisClient.create(clientResources, uriBuilder.build());
-
                 // Create connection pool
-                GenericObjectPoolConfig<StatefulRedisConnection<String, String>> poolConfig =
+                GenericObjectPoolConfig<StatefulConnection<String, String>> poolConfig =
                         new GenericObjectPoolConfig<>();
                 poolConfig.setMaxTotal(config.getPool().getMaxTotal());
                 poolConfig.setMaxIdle(config.getPool().getMaxIdle());
                 poolConfig.setMinIdle(config.getPool().getMinIdle());
                 poolConfig.setTestOnBorrow(true);
                 poolConfig.setTestWhileIdle(true);
+                // 借用等待不超过命令超时，池耗尽时按超时失败而不是无限等待
+                poolConfig.setMaxWait(Duration.ofMillis(Math.max(1, config.getTimeout())));
+                executor = new BlockingExecutor("YRDatabase-Redis", executorMode,
+                        config.getPool().getMaxTotal());
 
-                connectionPool = ConnectionPoolSupport.createGenericObjectPool(
-                        redisClient::connect, poolConfig);
-
-                // Create pub/sub connection
-                pubSubConnection = redisClient.connectPubSub();
+                if (config.getCluster().isEnabled()) {
+                    RedisClusterClient clusterClient = RedisClusterClient.create(clientResources, clusterUris());
+                    // 周期 + 自适应（MOVED/ASK、节点断开）拓扑刷新，扩缩容或主从切换后自动更新路由
+                    clusterClient.setOptions(ClusterClientOptions.builder()
+                            .topologyRefreshOptions(ClusterTopologyRefreshOptions.enabled())
+                            .build());
+                    redisClient = clusterClient;
+                    connectionPool = ConnectionPoolSupport.createGenericObjectPool(
+                            () -> clusterClient.connect(), poolConfig);
+                    if (config.getCluster().isReplicaReads()) {
+                        replicaPool = ConnectionPoolSupport.createGenericObjectPool(() -> {
+                            StatefulRedisClusterConnection<String, String> connection = clusterClient.connect();
+                            connection.setReadFrom(ReadFrom.REPLICA_PREFERRED);
+                            return connection;
+                        }, poolConfig);
+                    }
+                    // 集群中 PUBLISH 会广播到所有节点，订阅任意节点即可
+                    pubSubConnection = clusterClient.connectPubSub();
+                } else {
+                    RedisClient client = RedisClient.create(clientResources, uri(config.getHost(), config.getPort(),
+                            config.getDatabase()));
+                    redisClient = client;
+                    connectionPool = ConnectionPoolSupport.createGenericObjectPool(
+                            () -> client.connect(), poolConfig);
+                    List<RedisURI> replicaUris = replicaUris();
+                    if (!replicaUris.isEmpty()) {
+                        // 静态主从拓扑：主节点也在列表中，副本全部不可用时由 Lettuce 回退到主节点
+                        replicaPool = ConnectionPoolSupport.createGenericObjectPool(() -> {
+                            StatefulRedisMasterReplicaConnection<String, String> connection =
+                                    MasterReplica.connect(client, StringCodec.UTF8, replicaUris);
+                            connection.setReadFrom(ReadFrom.REPLICA_PREFERRED);
+                            return connection;
+                        }, poolConfig);
+                    }
+                    pubSubConnection = client.connectPubSub();
+                }
                 pubSubConnection.addListener(new PubSubListener());
+                if (!subscriptions.isEmpty()) {
+                    // reconnect() 后恢复之前的订阅
+                    pubSubConnection.async().subscribe(subscriptions.keySet().toArray(new String[0]));
+                }
 
                 connected = true;
-                log.info("Redis connected successfully to {}:{}", config.getHost(), config.getPort());
+                if (config.getCluster().isEnabled()) {
+                    log.info("Redis cluster connected successfully via {}", config.getCluster().getNodes());
+                } else {
+                    log.info("Redis connected successfully to {}:{}", config.getHost(), config.getPort());
+                }
             } catch (Exception e) {
                 log.error("Failed to connect to Redis: {}", e.getMessage());
                 connected = false;
@@ -94,31 +174,174 @@ public class RedisProvider implements CacheProvider {
         });
     }
 
-    private <T> CompletableFuture<T> executeAsync(AsyncCommand<T> command) {
-        if (!connected) {
-            return CompletableFuture.failedFuture(new IllegalStateException("Redis not connected"));
+    private RedisURI uri(String host, int port, int database) {
+        RedisURI.Builder uriBuilder = RedisURI.builder()
+                .withHost(host)
+                .withPort(port)
+                .withDatabase(database)
+                .withTimeout(Duration.ofMillis(config.getTimeout()));
+
+        if (config.getPassword() != null && !config.getPassword().isEmpty()) {
+            uriBuilder.withPassword(config.getPassword().toCharArray());
         }
+        return uriBuilder.build();
+    }
 
-        return CompletableFuture.supplyAsync(() -> {
-            StatefulRedisConnection<String, String> connection = null;
-            try {
-                connection = connectionPool.borrowObject();
-                RedisAsyncCommands<String, String> commands = connection.async();
-                return command.execute(commands).toCompletableFuture().join();
-            } catch (Exception e) {
-                log.error("Redis command failed: {}", e.getMessage());
-                throw new RuntimeException(e);
-            } finally {
-                if (connection != null) {
-                    connectionPool.returnObject(connection);
+    private List<RedisURI> clusterUris() {
+        List<String> nodes = config.getCluster().getNodes();
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("cache.cluster.nodes must list at least one host:port");
+        }
+        if (config.getDatabase() != 0) {
+            log.warn("Redis Cluster only supports database 0, ignoring cache.database={}", config.getDatabase());
+        }
+        List<RedisURI> uris = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            int idx = node.lastIndexOf(':');
+            if (idx < 1) {
+                throw new IllegalArgumentException("Invalid cluster node '" + node + "', expected host:port");
+            }
+            uris.add(uri(node.substring(0, idx).trim(), Integer.parseInt(node.substring(idx + 1).trim()), 0));
+        }
+        return uris;
+    }
+
+    /**
+     * Primary followed by the configured replicas, or empty if no replica is configured.
+     */
+    private List<RedisURI> replicaUris() {
+        List<String> replicas = config.getReplicas();
+        if (replicas == null || replicas.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<RedisURI> uris = new ArrayList<>(replicas.size() + 1);
+        uris.add(uri(config.getHost(), config.getPort(), config.getDatabase()));
+        for (String replica : replicas) {
+            int idx = replica.lastIndexOf(':');
+            if (idx < 1) {
+                throw new IllegalArgumentException("Invalid Redis replica '" + replica + "', expected host:port");
+            }
+            uris.add(uri(replica.substring(0, idx).trim(), Integer.parseInt(replica.substring(idx + 1).trim()),
+                    config.getDatabase()));
+        }
+        return uris;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisClusterAsyncCommands<String, String> commands(StatefulConnection<String, String> connection) {
+        if (connection instanceof StatefulRedisClusterConnection) {
+            return ((StatefulRedisClusterConnection<String, String>) connection).async();
+        }
+        return ((StatefulRedisConnection<String, String>) connection).async();
+    }
+
+    private <T> CompletableFuture<T> executeAsync(AsyncCommand<T> command) {
+        return executeAsync(connectionPool, command);
+    }
+
+    /**
+     * Statistics reads that tolerate replication lag; uses the replica pool when configured.
+     */
+    private <T> CompletableFuture<T> executeReplicaAsync(AsyncCommand<T> command) {
+        GenericObjectPool<StatefulConnection<String, String>> pool = replicaPool;
+        return executeAsync(pool != null ? pool : connectionPool, command);
+    }
+
+    private <T> CompletableFuture<T> executeAsync(GenericObjectPool<StatefulConnection<String, String>> pool,
+                                                  AsyncCommand<T> command) {
+        // 熔断打开时直接失败，不再占用线程等待超时
+        return circuitBreaker.execute(() -> {
+            if (!connected) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Redis not connected"));
+            }
+
+            return executor.supply(() -> {
+                StatefulConnection<String, String> connection = null;
+                try {
+                    connection = pool.borrowObject();
+                    return command.execute(commands(connection)).toCompletableFuture().join();
+                } catch (Exception e) {
+                    log.error("Redis command failed: {}", e.getMessage());
+                    throw new RuntimeException(e);
+                } finally {
+                    if (connection != null) {
+                        pool.returnObject(connection);
+                    }
                 }
+            });
+        }, RedisProvider::isAvailabilityError);
+    }
+
+    /**
+     * Only connection, timeout and server-unavailable errors count against the breaker; an error
+     * reply such as WRONGTYPE or a failing script means the server itself is answering fine.
+     */
+    private static boolean isAvailabilityError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RedisCommandExecutionException) {
+                String message = String.valueOf(cause.getMessage());
+                return message.startsWith("LOADING") || message.startsWith("BUSY")
+                        || message.startsWith("MASTERDOWN") || message.startsWith("CLUSTERDOWN")
+                        || message.startsWith("TRYAGAIN");
             }
-        });
+        }
+        // 连接断开、超时、连接池耗尽、未连接等
+        return true;
+    }
+
+    /**
+     * Send a batch of commands on one connection with a single flush instead of one round trip each.
+     * In cluster mode Lettuce still routes every command to the node owning its slot.
+     */
+    private <T> CompletableFuture<List<T>> executePipelined(List<AsyncCommand<T>> batch) {
+        return circuitBreaker.execute(() -> {
+            if (!connected) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Redis not connected"));
+            }
+
+            return executor.supply(() -> {
+                StatefulConnection<String, String> connection = null;
+                try {
+                    connection = connectionPool.borrowObject();
+                    RedisClusterAsyncCommands<String, String> commands = commands(connection);
+                    List<io.lettuce.core.RedisFuture<T>> futures = new ArrayList<>(batch.size());
+                    connection.setAutoFlushCommands(false);
+                    try {
+                        for (AsyncCommand<T> command : batch) {
+                            futures.add(command.execute(commands));
+                        }
+                        connection.flushCommands();
+                    } finally {
+                        // 连接归还到池中前恢复自动 flush
+                        connection.setAutoFlushCommands(true);
+                    }
+                    List<T> results = new ArrayList<>(futures.size());
+                    for (io.lettuce.core.RedisFuture<T> future : futures) {
+                        results.add(future.toCompletableFuture().join());
+                    }
+                    return results;
+                } catch (Exception e) {
+                    log.error("Redis pipeline failed: {}", e.getMessage());
+                    throw new RuntimeException(e);
+                } finally {
+                    if (connection != null) {
+                        connectionPool.returnObject(connection);
+                    }
+                }
+            });
+        }, RedisProvider::isAvailabilityError);
+    }
+
+    /**
+     * Circuit breaker guarding all commands of this provider.
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
     }
 
     @FunctionalInterface
     private interface AsyncCommand<T> {
-        io.lettuce.core.RedisFuture<T> execute(RedisAsyncCommands<String, String> commands);
+        io.lettuce.core.RedisFuture<T> execute(RedisClusterAsyncCommands<String, String> commands);
     }
 
     // ==================== Basic Operations ====================
@@ -216,7 +439,12 @@ public class RedisProvider implements CacheProvider {
 
     @Override
     public CompletableFuture<List<String>> keys(String pattern) {
-        return executeAsync(cmd -> cmd.keys(pattern));
+        return executeReplicaAsync(cmd -> cmd.keys(pattern));
+    }
+
+    @Override
+    public CompletableFuture<Long> dbSize() {
+        return executeReplicaAsync(cmd -> cmd.dbsize());
     }
 
     // ==================== Pub/Sub ====================
@@ -293,6 +521,573 @@ public class RedisProvider implements CacheProvider {
         return executeAsync(cmd -> cmd.zrangebyscore(key, io.lettuce.core.Range.create(min, max)));
     }
 
+    @Override
+    public CompletableFuture<Long> zcard(String key) {
+        return executeReplicaAsync(cmd -> cmd.zcard(key));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Double>> zrangeWithScores(String key, long start, long stop) {
+        return executeReplicaAsync(cmd -> cmd.zrangeWithScores(key, start, stop)).thenApply(values -> {
+            Map<String, Double> result = new LinkedHashMap<>();
+            for (io.lettuce.core.ScoredValue<String> value : values) {
+                result.put(value.getValue(), value.getScore());
+            }
+            return result;
+        });
+    }
+
+    // ==================== Bitmap Operations ====================
+
+    // One script call instead of a GETBIT/SETBIT per offset; avoids BitFieldArgs inner classes (see setNxEx)
+    private static final String GET_BITS_SCRIPT =
+            "local r = {} for i, o in ipairs(ARGV) do r[i] = redis.call('GETBIT', KEYS[1], o) end return r";
+    private static final String SET_BITS_SCRIPT =
+            "for _, o in ipairs(ARGV) do redis.call('SETBIT', KEYS[1], o, 1) end return 1";
+
+    @Override
+    public CompletableFuture<List<Boolean>> getBits(String key, long... offsets) {
+        if (offsets.length == 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        String[] args = toArgs(offsets);
+        return executeAsync(cmd -> cmd.<List<Object>>eval(GET_BITS_SCRIPT, ScriptOutputType.MULTI, new String[]{key}, args))
+                .thenApply(values -> {
+                    List<Boolean> bits = new ArrayList<>(values.size());
+                    for (Object value : values) {
+                        bits.add(value instanceof Number && ((Number) value).longValue() == 1L);
+                    }
+                    return bits;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setBits(String key, long... offsets) {
+        if (offsets.length == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        String[] args = toArgs(offsets);
+        return executeAsync(cmd -> cmd.<Long>eval(SET_BITS_SCRIPT, ScriptOutputType.INTEGER, new String[]{key}, args))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    private static String[] toArgs(long[] offsets) {
+        String[] args = new String[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            args[i] = Long.toString(offsets[i]);
+        }
+        return args;
+    }
+
+    // ==================== Lease Operations ====================
+
+    // 未被占用或已由 owner 持有时（重新）设置有效期并返回 1，被其他子服持有时返回 0
+    private static final String CLAIM_LEASE_SCRIPT =
+            "local cur = redis.call('GET', KEYS[1]) "
+                    + "if cur == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end "
+                    + "if not cur then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end "
+                    + "return 0";
+    private static final String RELEASE_LEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0";
+
+    /**
+     * Acquire or renew leases in one pipelined round trip. A lease is granted if it is free or
+     * already held by {@code owner}; leases held by others are left untouched.
+     *
+     * @return Per key, whether {@code owner} now holds the lease
+     */
+    public CompletableFuture<List<Boolean>> claimLeases(List<String> keys, String owner, Duration ttl) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        String ttlMillis = Long.toString(ttl.toMillis());
+        List<AsyncCommand<Long>> batch = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            batch.add(cmd -> cmd.<Long>eval(CLAIM_LEASE_SCRIPT, ScriptOutputType.INTEGER,
+                    new String[]{key}, owner, ttlMillis));
+        }
+        return executePipelined(batch).thenApply(results -> {
+            List<Boolean> granted = new ArrayList<>(results.size());
+            for (Long result : results) {
+                granted.add(result != null && result == 1L);
+            }
+            return granted;
+        });
+    }
+
+    // 租约被其他子服持有时返回 0；否则 SET NX 加锁，返回 1 表示加锁成功
+    private static final String LOCK_UNLESS_LEASED_SCRIPT =
+            "local cur = redis.call('GET', KEYS[2]) "
+                    + "if cur and cur ~= ARGV[1] then return 0 end "
+                    + "if redis.call('SET', KEYS[1], '1', 'NX', 'EX', ARGV[2]) then return 1 end "
+                    + "return 0";
+
+    /**
+     * Take a persistence lock unless the player's lease is held by another server. Both keys
+     * must share a hash slot (see {@link com.yirankuma.yrdatabase.core.cache.KeyLayout}).
+     *
+     * @param lockKey  Lock to set with NX
+     * @param leaseKey Ownership lease of the player
+     * @param owner    This server's lease value; a lease held by it does not block the lock
+     * @return True if the lock was taken; false if it is already held or another server owns the lease
+     */
+    public CompletableFuture<Boolean> lockUnlessLeased(String lockKey, String leaseKey, String owner, Duration ttl) {
+        return executeAsync(cmd -> cmd.<Long>eval(LOCK_UNLESS_LEASED_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{lockKey, leaseKey}, owner, Long.toString(Math.max(1, ttl.getSeconds()))))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Delete a lease if it is still held by {@code owner}.
+     */
+    public CompletableFuture<Boolean> releaseLease(String key, String owner) {
+        return executeAsync(cmd -> cmd.<Long>eval(RELEASE_LEASE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key}, owner))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    // ==================== Counter Operations ====================
+
+    // 把 KEYS[1] 的各字段累加到 KEYS[2] 后删除 KEYS[1]；整数用 HINCRBY 保持精度，否则退回 HINCRBYFLOAT
+    private static final String MERGE_HASH =
+            "local function merge(from, to) "
+                    + "local d = redis.call('HGETALL', from) "
+                    + "for i = 1, #d, 2 do "
+                    + "local r = redis.pcall('HINCRBY', to, d[i], d[i + 1]) "
+                    + "if type(r) == 'table' and r.err then redis.call('HINCRBYFLOAT', to, d[i], d[i + 1]) end "
+                    + "end "
+                    + "redis.call('DEL', from) "
+                    + "end ";
+    // 把增量移入处理中 hash（上次未提交的残留会合并进来），返回 [field1, value1, field2, value2, ...]
+    private static final String STAGE_HASH_SCRIPT = MERGE_HASH
+            + "if redis.call('EXISTS', KEYS[2]) == 1 then merge(KEYS[1], KEYS[2]) "
+            + "elseif redis.call('EXISTS', KEYS[1]) == 1 then redis.call('RENAME', KEYS[1], KEYS[2]) end "
+            + "return redis.call('HGETALL', KEYS[2])";
+    // 把处理中 hash 加回增量 hash（之后的新增量保留在其上）
+    private static final String UNSTAGE_HASH_SCRIPT = MERGE_HASH + "merge(KEYS[2], KEYS[1]) return 1";
+    // 认领一批待处理成员（成员 -> 认领截止时间）：先接手认领已过期的成员，再从脏集合 SPOP 补足；
+    // 弹出的成员仍被其他子服认领时放回脏集合，等对方提交后再处理
+    private static final String CLAIM_MEMBERS_SCRIPT =
+            "local t = redis.call('TIME') "
+                    + "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) "
+                    + "local out = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now, 'LIMIT', 0, ARGV[1]) "
+                    + "local seen = {} "
+                    + "for i = 1, #out do seen[out[i]] = true end "
+                    + "local left = tonumber(ARGV[1]) - #out "
+                    + "if left > 0 then "
+                    + "local popped = redis.call('SPOP', KEYS[1], left) "
+                    + "for i = 1, #popped do "
+                    + "local m = popped[i] "
+                    + "local d = redis.call('ZSCORE', KEYS[2], m) "
+                    + "if d and tonumber(d) > now then redis.call('SADD', KEYS[1], m) "
+                    + "elseif not seen[m] then seen[m] = true out[#out + 1] = m end "
+                    + "end "
+                    + "end "
+                    + "for i = 1, #out do redis.call('ZADD', KEYS[2], now + tonumber(ARGV[2]), out[i]) end "
+                    + "return out";
+    // 值仍等于期望内容（ARGV[1] 为 0 时：仍不存在）才替换并保留 TTL，同时删除 KEYS[2]；否则返回 0
+    private static final String REPLACE_AND_DELETE_SCRIPT =
+            "local cur = redis.call('GET', KEYS[1]) "
+                    + "if ARGV[1] == '1' then "
+                    + "if cur ~= ARGV[2] then return 0 end "
+                    + "local ttl = redis.call('PTTL', KEYS[1]) "
+                    + "if ttl > 0 then redis.call('SET', KEYS[1], ARGV[3], 'PX', ttl) "
+                    + "else redis.call('SET', KEYS[1], ARGV[3]) end "
+                    + "elseif cur then return 0 end "
+                    + "redis.call('DEL', KEYS[2]) "
+                    + "return 1";
+    // 值仍等于读取时的内容才替换，并保留原有 TTL；已变化或不存在时返回 0
+    private static final String REPLACE_IF_EQUALS_SCRIPT =
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end "
+                    + "local ttl = redis.call('PTTL', KEYS[1]) "
+                    + "if ttl > 0 then redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl) "
+                    + "else redis.call('SET', KEYS[1], ARGV[2]) end "
+                    + "return 1";
+
+    public CompletableFuture<Long> hincrBy(String key, String field, long amount) {
+        return executeAsync(cmd -> cmd.hincrby(key, field, amount));
+    }
+
+    public CompletableFuture<Double> hincrByFloat(String key, String field, double amount) {
+        return executeAsync(cmd -> cmd.hincrbyfloat(key, field, amount));
+    }
+
+    public CompletableFuture<Boolean> sadd(String key, String member) {
+        return executeAsync(cmd -> cmd.sadd(key, member)).thenApply(added -> added != null && added > 0);
+    }
+
+    /**
+     * All members of a set.
+     */
+    public CompletableFuture<Set<String>> smembers(String key) {
+        return executeAsync(cmd -> cmd.smembers(key));
+    }
+
+    /**
+     * Claim up to {@code count} members for processing. Members whose claim in {@code claimKey}
+     * has expired (their claimer stopped) are taken over first; the rest are popped from
+     * {@code setKey}. A popped member that another caller still claims is put back. Every returned
+     * member is claimed until now + {@code claimTtl} (Redis server time) and stays claimed until
+     * the caller removes it from {@code claimKey}. Both keys must share a hash slot.
+     *
+     * @return Claimed members
+     */
+    public CompletableFuture<List<String>> claimMembers(String setKey, String claimKey, long count, Duration claimTtl) {
+        return executeAsync(cmd -> cmd.<List<Object>>eval(CLAIM_MEMBERS_SCRIPT, ScriptOutputType.MULTI,
+                new String[]{setKey, claimKey}, Long.toString(Math.max(1, count)),
+                Long.toString(Math.max(1, claimTtl.toMillis()))))
+                .thenApply(values -> {
+                    List<String> members = new ArrayList<>(values.size());
+                    for (Object value : values) {
+                        members.add(String.valueOf(value));
+                    }
+                    return members;
+                });
+    }
+
+    /**
+     * Remove and return up to {@code count} random members of a set.
+     */
+    public CompletableFuture<Set<String>> spop(String key, long count) {
+        return executeAsync(cmd -> cmd.spop(key, count));
+    }
+
+    /**
+     * Move a hash into {@code processingKey} (adding to what a previous, uncommitted call left
+     * there) and return the result, so each value is handed out once and stays in Redis until the
+     * caller deletes {@code processingKey} or {@link #unstageHash unstages} it. Both keys must share
+     * a hash slot.
+     */
+    public CompletableFuture<Map<String, String>> stageHash(String key, String processingKey) {
+        return executeAsync(cmd -> cmd.<List<Object>>eval(STAGE_HASH_SCRIPT, ScriptOutputType.MULTI,
+                new String[]{key, processingKey}))
+                .thenApply(values -> {
+                    Map<String, String> hash = new LinkedHashMap<>();
+                    for (int i = 0; i + 1 < values.size(); i += 2) {
+                        hash.put(String.valueOf(values.get(i)), String.valueOf(values.get(i + 1)));
+                    }
+                    return hash;
+                });
+    }
+
+    /**
+     * Add a staged hash back onto {@code key} and delete {@code processingKey}.
+     */
+    public CompletableFuture<Boolean> unstageHash(String key, String processingKey) {
+        return executeAsync(cmd -> cmd.<Long>eval(UNSTAGE_HASH_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, processingKey}))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Replace a value only if it still equals {@code expected}, keeping its TTL, and delete
+     * {@code deleteKey} in the same step. With {@code expected} null nothing is replaced and
+     * {@code deleteKey} is only deleted if {@code key} still does not exist. Both keys must share a
+     * hash slot.
+     *
+     * @return True if applied; false if {@code key} changed (or appeared)
+     */
+    public CompletableFuture<Boolean> replaceAndDelete(String key, String expected, String value, String deleteKey) {
+        return executeAsync(cmd -> cmd.<Long>eval(REPLACE_AND_DELETE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, deleteKey}, expected != null ? "1" : "0",
+                expected != null ? expected : "", value != null ? value : ""))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Replace a value only if it still equals {@code expected}, keeping its TTL.
+     *
+     * @return True if replaced; false if the value changed or the key does not exist
+     */
+    public CompletableFuture<Boolean> replaceIfEquals(String key, String expected, String value) {
+        return executeAsync(cmd -> cmd.<Long>eval(REPLACE_IF_EQUALS_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key}, expected, value))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    // ==================== Leaderboard Operations ====================
+
+    // 设置或移除成员分数，并在同一脚本中把成员登记到待回写集合
+    private static final String SUBMIT_SCORE_SCRIPT =
+            "redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) redis.call('SADD', KEYS[2], ARGV[1]) return 1";
+    private static final String REMOVE_SCORE_SCRIPT =
+            "redis.call('ZREM', KEYS[1], ARGV[1]) redis.call('SADD', KEYS[2], ARGV[1]) return 1";
+
+    /**
+     * Set a member's score and mark it dirty in one step.
+     */
+    public CompletableFuture<Boolean> submitScore(String key, String dirtyKey, String member, double score) {
+        return executeAsync(cmd -> cmd.<Long>eval(SUBMIT_SCORE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, dirtyKey}, member, Double.toString(score)))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Remove a member and mark it dirty in one step.
+     */
+    public CompletableFuture<Boolean> removeScore(String key, String dirtyKey, String member) {
+        return executeAsync(cmd -> cmd.<Long>eval(REMOVE_SCORE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, dirtyKey}, member))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Add many members in one ZADD.
+     *
+     * @param onlyMissing Keep the score of members that already exist (ZADD NX)
+     * @return Number of members added
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Long> zaddAll(String key, Map<String, Double> scores, boolean onlyMissing) {
+        if (scores.isEmpty()) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        io.lettuce.core.ScoredValue<String>[] values = new io.lettuce.core.ScoredValue[scores.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            values[i++] = io.lettuce.core.ScoredValue.just(entry.getValue(), entry.getKey());
+        }
+        // 同 setNxEx：直接实例化参数类
+        io.lettuce.core.ZAddArgs args = onlyMissing ? new io.lettuce.core.ZAddArgs().nx() : new io.lettuce.core.ZAddArgs();
+        return executeAsync(cmd -> cmd.zadd(key, args, values));
+    }
+
+    /**
+     * Members with scores by rank, highest score first.
+     */
+    public CompletableFuture<Map<String, Double>> zrevrangeWithScores(String key, long start, long stop) {
+        return executeAsync(cmd -> cmd.zrevrangeWithScores(key, start, stop)).thenApply(values -> {
+            Map<String, Double> result = new LinkedHashMap<>();
+            for (io.lettuce.core.ScoredValue<String> value : values) {
+                result.put(value.getValue(), value.getScore());
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Rank of a member, highest score first, starting at 0.
+     */
+    public CompletableFuture<Optional<Long>> zrevrank(String key, String member) {
+        return executeAsync(cmd -> cmd.zrevrank(key, member)).thenApply(Optional::ofNullable);
+    }
+
+    public CompletableFuture<Optional<Double>> zscore(String key, String member) {
+        return executeAsync(cmd -> cmd.zscore(key, member)).thenApply(Optional::ofNullable);
+    }
+
+    /**
+     * Scores of many members in one call; null for members not in the set.
+     */
+    public CompletableFuture<List<Double>> zmscore(String key, List<String> members) {
+        if (members.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return executeAsync(cmd -> cmd.zmscore(key, members.toArray(new String[0])));
+    }
+
+    // ==================== Versioned Operations ====================
+
+    // 缓存的 JSON 中版本字段等于期望值时整体替换并返回 1；版本不符返回 0；key 不存在返回 -1
+    private static final String COMPARE_AND_SET_JSON_SCRIPT =
+            "local cur = redis.call('GET', KEYS[1]) "
+                    + "if not cur then return -1 end "
+                    + "local v = cjson.decode(cur)[ARGV[1]] "
+                    + "if v == nil or v == cjson.null then v = 0 end "
+                    + "if tonumber(v) ~= tonumber(ARGV[2]) then return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[3], 'EX', ARGV[4]) "
+                    + "redis.call('SET', KEYS[2], ARGV[5], 'EX', ARGV[4]) "
+                    + "return 1";
+
+    /**
+     * Replace a cached JSON document only if its version field still equals {@code expectedVersion}.
+     * A missing version field counts as 0. On success the write time is stored in {@code stampKey}
+     * as by {@link #setExStamped}.
+     *
+     * @return 1 if replaced, 0 on a version conflict, -1 if the key is not cached
+     */
+    public CompletableFuture<Long> compareAndSetJson(String key, String stampKey, String versionField,
+                                                     long expectedVersion, String json, Duration ttl,
+                                                     long stampMillis) {
+        return executeAsync(cmd -> cmd.<Long>eval(COMPARE_AND_SET_JSON_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, stampKey}, versionField, Long.toString(expectedVersion), json,
+                Long.toString(Math.max(1, ttl.getSeconds())), Long.toString(stampMillis)));
+    }
+
+    // ==================== Stamped Writes ====================
+
+    // 写入值并在 KEYS[2] 记下写入时间（同一 TTL）；ARGV[4] 为 1 时只在 key 不存在时写入，已存在返回 0
+    private static final String SET_STAMPED_SCRIPT =
+            "if ARGV[4] == '1' then "
+                    + "if not redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', ARGV[2]) then return 0 end "
+                    + "else redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) end "
+                    + "redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[2]) "
+                    + "return 1";
+    // 写入时间不晚于 ARGV[1]（或没有记录）时删除值和写入时间并返回 1；之后写入过时保留并返回 0
+    private static final String DELETE_IF_WRITTEN_BEFORE_SCRIPT =
+            "local at = tonumber(redis.call('GET', KEYS[2]) or '0') "
+                    + "if at > tonumber(ARGV[1]) then return 0 end "
+                    + "redis.call('DEL', KEYS[1], KEYS[2]) "
+                    + "return 1";
+
+    /**
+     * Set a value with a TTL and atomically record the write time in {@code stampKey}, which
+     * expires with it. Both keys must share a hash slot.
+     *
+     * @param stampMillis Write time (epoch millis)
+     */
+    public CompletableFuture<Boolean> setExStamped(String key, String stampKey, String value, Duration ttl,
+                                                   long stampMillis) {
+        return setStamped(key, stampKey, value, ttl, stampMillis, false);
+    }
+
+    /**
+     * Like {@link #setExStamped}, but only if the key does not exist yet.
+     *
+     * @return True if the value was written
+     */
+    public CompletableFuture<Boolean> setNxExStamped(String key, String stampKey, String value, Duration ttl,
+                                                     long stampMillis) {
+        return setStamped(key, stampKey, value, ttl, stampMillis, true);
+    }
+
+    private CompletableFuture<Boolean> setStamped(String key, String stampKey, String value, Duration ttl,
+                                                  long stampMillis, boolean onlyMissing) {
+        return executeAsync(cmd -> cmd.<Long>eval(SET_STAMPED_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, stampKey}, value, Long.toString(Math.max(1, ttl.getSeconds())),
+                Long.toString(stampMillis), onlyMissing ? "1" : "0"))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Delete a value unless the write time in {@code stampKey} is later than {@code millis}. A value
+     * without a recorded write time counts as written before.
+     *
+     * @return True if deleted (or absent); false if it was written after {@code millis} and kept
+     */
+    public CompletableFuture<Boolean> deleteIfWrittenBefore(String key, String stampKey, long millis) {
+        return executeAsync(cmd -> cmd.<Long>eval(DELETE_IF_WRITTEN_BEFORE_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{key, stampKey}, Long.toString(millis)))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    // ==================== Absent Markers ====================
+
+    // 写代数自读取开始后未变化时才写入不存在标记
+    private static final String MARK_ABSENT_SCRIPT =
+            "local g = redis.call('GET', KEYS[2]) or '' "
+                    + "if g ~= ARGV[1] then return 0 end "
+                    + "redis.call('SET', KEYS[1], '1', 'EX', ARGV[2]) "
+                    + "return 1";
+
+    // 删除不存在标记并推进写代数
+    private static final String BUMP_ABSENT_SCRIPT =
+            "redis.call('DEL', KEYS[1]) "
+                    + "redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+                    + "return 1";
+
+    /**
+     * Set an absent marker only if the key's write generation still equals {@code generation},
+     * so a read whose query ran before a write cannot mark the key absent after that write.
+     *
+     * @param absentKey     Absent marker key
+     * @param generationKey Write generation key (same hash slot)
+     * @param generation    Generation read before the query, or null if there was none
+     * @param ttl           Marker TTL
+     * @return True if the marker was set
+     */
+    public CompletableFuture<Boolean> markAbsent(String absentKey, String generationKey, String generation,
+                                                 Duration ttl) {
+        return executeAsync(cmd -> cmd.<Long>eval(MARK_ABSENT_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{absentKey, generationKey}, generation != null ? generation : "",
+                Long.toString(Math.max(1, ttl.getSeconds()))))
+                .thenApply(result -> result != null && result == 1L);
+    }
+
+    /**
+     * Delete an absent marker and bump the key's write generation, invalidating markers of reads
+     * still in flight.
+     *
+     * @param absentKey     Absent marker key
+     * @param generationKey Write generation key (same hash slot)
+     * @param ttl           How long the generation is kept; must outlast any read
+     */
+    public CompletableFuture<Void> clearAbsent(String absentKey, String generationKey, Duration ttl) {
+        return executeAsync(cmd -> cmd.<Long>eval(BUMP_ABSENT_SCRIPT, ScriptOutputType.INTEGER,
+                new String[]{absentKey, generationKey}, Long.toString(Math.max(1, ttl.getSeconds()))))
+                .thenApply(result -> null);
+    }
+
+    // ==================== Stream Operations ====================
+
+    @Override
+    public CompletableFuture<String> xadd(String stream, Map<String, String> fields, long maxLen) {
+        // Same caveat as setNxEx: instantiate args directly instead of XAddArgs.Builder
+        XAddArgs args = new XAddArgs();
+        if (maxLen > 0) {
+            args.maxlen(maxLen).approximateTrimming();
+        }
+        return executeAsync(cmd -> cmd.xadd(stream, args, fields));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> xgroupCreate(String stream, String group) {
+        // Check first instead of relying on BUSYGROUP errors, which would be logged as failures
+        return exists(stream).thenCompose(streamExists -> {
+            if (!streamExists) {
+                return createGroup(stream, group);
+            }
+            return executeAsync(cmd -> cmd.xinfoGroups(stream)).thenCompose(groups -> {
+                for (Object info : groups) {
+                    if (info instanceof List && group.equals(infoValue((List<?>) info, "name"))) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                }
+                return createGroup(stream, group);
+            });
+        });
+    }
+
+    private CompletableFuture<Boolean> createGroup(String stream, String group) {
+        XGroupCreateArgs args = new XGroupCreateArgs().mkstream(true);
+        return executeAsync(cmd -> cmd.xgroupCreate(XReadArgs.StreamOffset.from(stream, "$"), group, args))
+                .thenApply("OK"::equals);
+    }
+
+    private static Object infoValue(List<?> info, String name) {
+        for (int i = 0; i + 1 < info.size(); i += 2) {
+            if (name.equals(String.valueOf(info.get(i)))) {
+                return info.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<List<StreamEntry>> xreadGroup(String stream, String group, String consumer,
+                                                           String offset, int count) {
+        XReadArgs args = new XReadArgs().count(count);
+        return executeAsync(cmd -> cmd.xreadgroup(io.lettuce.core.Consumer.from(group, consumer), args,
+                XReadArgs.StreamOffset.from(stream, offset)))
+                .thenApply(messages -> {
+                    List<StreamEntry> entries = new ArrayList<>(messages.size());
+                    for (StreamMessage<String, String> message : messages) {
+                        entries.add(new StreamEntry(message.getId(), message.getBody()));
+                    }
+                    return entries;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Long> xack(String stream, String group, String... ids) {
+        if (ids.length == 0) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        return executeAsync(cmd -> cmd.xack(stream, group, ids));
+    }
+
     // ==================== Status ====================
 
     @Override
@@ -305,6 +1100,30 @@ public class RedisProvider implements CacheProvider {
         return ProviderType.REDIS;
     }
 
+    /**
+     * Queue wait / execution statistics of the command executor.
+     *
+     * @return Statistics, or null if not initialized
+     */
+    public ExecutorStats getExecutorStats() {
+        BlockingExecutor current = executor;
+        return current != null ? current.getStats() : null;
+    }
+
+    /**
+     * Whether this provider is connected to a Redis Cluster.
+     */
+    public boolean isCluster() {
+        return config.getCluster().isEnabled();
+    }
+
+    /**
+     * Whether statistics reads are sent to replicas.
+     */
+    public boolean hasReplicaReads() {
+        return replicaPool != null;
+    }
+
     @Override
     public CompletableFuture<Void> reconnect() {
         close();
@@ -331,6 +1150,10 @@ public class RedisProvider implements CacheProvider {
                 connectionPool.close();
                 connectionPool = null;
             }
+            if (replicaPool != null) {
+                replicaPool.close();
+                replicaPool = null;
+            }
             if (redisClient != null) {
                 redisClient.shutdown();
                 redisClient = null;
@@ -339,6 +1162,10 @@ public class RedisProvider implements CacheProvider {
                 clientResources.shutdown();
                 clientResources = null;
             }
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
             log.info("Redis connection closed");
         } catch (Exception e) {
             log.error("Error closing Redis connection: {}", e.getMessage());
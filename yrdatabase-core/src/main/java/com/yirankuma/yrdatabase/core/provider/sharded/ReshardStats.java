@@ -0,0 +1,35 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of a {@link Resharder} run.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class ReshardStats {
+    private final boolean running;
+    private final int tables;
+
+    /**
+     * Rows read from the shards that existed before the resize.
+     */
+    private final long scanned;
+    private final long moved;
+
+    /**
+     * Rows whose new owner already had a newer copy; only the old copy was deleted.
+     */
+    private final long superseded;
+
+    /**
+     * Rows that could not be moved; they stay on the old shard until the next run.
+     */
+    private final long failed;
+
+    private final long startedAt;
+    private final long finishedAt;
+}
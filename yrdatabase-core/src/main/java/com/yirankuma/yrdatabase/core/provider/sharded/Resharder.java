@@ -0,0 +1,253 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves rows to their new owner after shards were appended, while the server keeps running.
+ *
+ * <p>With jump consistent hashing only rows on the old shards can move, so those shards are
+ * scanned table by table (keyset pagination over {@code id}, one row at a time so player saves
+ * are not starved). For each row whose owner changed:</p>
+ * <ol>
+ *   <li>if the new owner already has the key, a newer write went there: only the old copy is deleted</li>
+ *   <li>otherwise the row is inserted on the new owner and then deleted from the old one</li>
+ *   <li>if that delete finds nothing, the key was deleted by a player in between, so the
+ *       inserted copy is removed again</li>
+ * </ol>
+ *
+ * <p>Rows of the hash table ({@link PersistProvider#HASH_TABLE}) are moved field by field,
+ * identified by {@code (hkey, field)} instead of {@code id}.</p>
+ *
+ * <p>Rows that fail stay where they are; the provider still finds them through its fallback
+ * reads, and the next run retries them. Running the same migration on several servers is
+ * safe but wasteful, so it is started manually on one server.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class Resharder {
+
+    private final ShardedPersistProvider provider;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile int tables;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    public Resharder(ShardedPersistProvider provider, int batchSize) {
+        this.provider = provider;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Run one full pass over the old shards.
+     *
+     * @return Stats of the pass; fails if no resize is in progress or a pass is already running
+     */
+    public CompletableFuture<ReshardStats> run() {
+        ShardRouter previous = provider.getPreviousRouter();
+        if (previous == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("No resize in progress (previousShardCount is not set)"));
+        }
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Resharding is already running"));
+        }
+
+        scanned.reset();
+        moved.reset();
+        superseded.reset();
+        failed.reset();
+        tables = 0;
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        log.info("Resharding from {} to {} shards started", previous.getShards(), provider.getRouter().getShards());
+
+        return listTables(previous.getShards()).thenCompose(names -> {
+            tables = names.size();
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (String table : names) {
+                for (int shard = 0; shard < previous.getShards(); shard++) {
+                    int source = shard;
+                    chain = chain.thenCompose(v -> (PersistProvider.HASH_TABLE.equals(table)
+                            ? scanHashPage(source, null, null)
+                            : scanPage(table, source, null))
+                            .exceptionally(e -> {
+                                log.warn("Resharding table {} on shard {} failed: {}", table, source, e.getMessage());
+                                return null;
+                            }));
+                }
+            }
+            return chain;
+        }).handle((v, e) -> {
+            finishedAt = System.currentTimeMillis();
+            running.set(false);
+            if (e != null) {
+                log.error("Resharding failed: {}", e.getMessage());
+            } else {
+                log.info("Resharding pass finished in {}ms: {} scanned, {} moved, {} superseded, {} failed",
+                        finishedAt - startedAt, scanned.sum(), moved.sum(), superseded.sum(), failed.sum());
+            }
+            return getStats();
+        });
+    }
+
+    private CompletableFuture<List<String>> listTables(int oldShards) {
+        List<CompletableFuture<Set<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < oldShards; i++) {
+            futures.add(provider.getShards().get(i).listTables());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Set<String> names = new TreeSet<>();
+            for (CompletableFuture<Set<String>> future : futures) {
+                names.addAll(future.join());
+            }
+            return new ArrayList<>(names);
+        });
+    }
+
+    private CompletableFuture<Void> scanPage(String table, int source, Object afterId) {
+        PersistProvider shard = provider.getShards().get(source);
+        CompletableFuture<List<Map<String, Object>>> page = afterId == null
+                ? shard.executeQuery("SELECT * FROM `" + table + "` ORDER BY `id` LIMIT ?", batchSize)
+                : shard.executeQuery("SELECT * FROM `" + table + "` WHERE `id` > ? ORDER BY `id` LIMIT ?",
+                        afterId, batchSize);
+
+        return page.thenCompose(rows -> {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (Map<String, Object> row : rows) {
+                chain = chain.thenCompose(v -> moveRow(table, source, row));
+            }
+            if (rows.size() < batchSize) {
+                return chain;
+            }
+            Object lastId = rows.get(rows.size() - 1).get("id");
+            return chain.thenCompose(v -> scanPage(table, source, lastId));
+        });
+    }
+
+    /**
+     * Hash rows are keyed by {@code (hkey, field)} and routed by their hash key, so each field
+     * moves on its own; paging is by {@code (hkey, field)} as well.
+     */
+    private CompletableFuture<Void> scanHashPage(int source, String afterKey, String afterField) {
+        PersistProvider shard = provider.getShards().get(source);
+        String table = PersistProvider.HASH_TABLE;
+        CompletableFuture<List<Map<String, Object>>> page = afterKey == null
+                ? shard.executeQuery("SELECT * FROM `" + table + "` ORDER BY `hkey`, `field` LIMIT ?", batchSize)
+                : shard.executeQuery("SELECT * FROM `" + table + "` WHERE `hkey` > ? OR (`hkey` = ? AND `field` > ?) "
+                        + "ORDER BY `hkey`, `field` LIMIT ?", afterKey, afterKey, afterField, batchSize);
+
+        return page.thenCompose(rows -> {
+            CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+            for (Map<String, Object> row : rows) {
+                Object hashKey = row.get("hkey");
+                Object field = row.get("field");
+                if (hashKey == null || field == null) {
+                    continue;
+                }
+                Map<String, Object> key = Map.of("hkey", hashKey, "field", field);
+                chain = chain.thenCompose(v -> moveRow(table, source, row, key,
+                        ShardedPersistProvider.keyOf(hashKey.toString())));
+            }
+            if (rows.size() < batchSize) {
+                return chain;
+            }
+            Map<String, Object> last = rows.get(rows.size() - 1);
+            return chain.thenCompose(v -> scanHashPage(source, String.valueOf(last.get("hkey")),
+                    String.valueOf(last.get("field"))));
+        });
+    }
+
+    private CompletableFuture<Void> moveRow(String table, int source, Map<String, Object> row) {
+        Object id = row.get("id");
+        if (id == null) {
+            scanned.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        return moveRow(table, source, row, Map.of("id", id), id);
+    }
+
+    /**
+     * @param key        Columns identifying the row
+     * @param routingKey Value the router places the row by
+     */
+    private CompletableFuture<Void> moveRow(String table, int source, Map<String, Object> row,
+                                            Map<String, Object> key, Object routingKey) {
+        scanned.increment();
+        int target = provider.getRouter().shardOf(routingKey);
+        if (target == source) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PersistProvider from = provider.getShards().get(source);
+        PersistProvider to = provider.getShards().get(target);
+
+        return existsOn(to, table, key).thenCompose(existing -> {
+            if (existing) {
+                // 新位置已有更新的写入，旧副本直接删除
+                return from.deleteWhere(table, key).thenAccept(d -> superseded.increment());
+            }
+            return to.insert(table, row).thenCompose(inserted -> {
+                if (!inserted) {
+                    failed.increment();
+                    return CompletableFuture.completedFuture((Void) null);
+                }
+                return from.deleteWhere(table, key).thenCompose(deleted -> {
+                    if (deleted > 0) {
+                        moved.increment();
+                        return CompletableFuture.completedFuture((Void) null);
+                    }
+                    // 复制期间玩家删除了该 key，撤销刚插入的副本
+                    return to.deleteWhere(table, key).thenAccept(d -> superseded.increment());
+                });
+            });
+        }).exceptionally(e -> {
+            failed.increment();
+            log.debug("Failed to move {}/{} from shard {} to {}: {}", table, key.values(), source, target, e.getMessage());
+            return null;
+        });
+    }
+
+    private static CompletableFuture<Boolean> existsOn(PersistProvider shard, String table, Map<String, Object> key) {
+        if (PersistProvider.HASH_TABLE.equals(table)) {
+            // 新分片上的哈希表在首次使用时创建，hget 顺带建表
+            return shard.hget(String.valueOf(key.get("hkey")), String.valueOf(key.get("field")))
+                    .thenApply(Optional::isPresent);
+        }
+        return shard.count(table, key).thenApply(count -> count > 0);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public ReshardStats getStats() {
+        return ReshardStats.builder()
+                .running(running.get())
+                .tables(tables)
+                .scanned(scanned.sum())
+                .moved(moved.sum())
+                .superseded(superseded.sum())
+                .failed(failed.sum())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+}
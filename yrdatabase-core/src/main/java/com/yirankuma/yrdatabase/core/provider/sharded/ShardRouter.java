@@ -0,0 +1,63 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps primary keys to shard indexes with jump consistent hashing (Lamping &amp; Veach).
+ *
+ * <p>Growing from N to N+1 shards moves only about 1/(N+1) of the keys, and every moved key
+ * goes to the new shard, so resharding only has to scan the existing shards. Shards are
+ * identified by position: new shards must be appended, never inserted or reordered.</p>
+ *
+ * <p>The hash must stay stable across JVMs and releases since it decides where rows live.</p>
+ *
+ * @author YiranKuma
+ */
+public class ShardRouter {
+
+    private final int shards;
+
+    public ShardRouter(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = shards;
+    }
+
+    /**
+     * Shard owning this primary key.
+     */
+    public int shardOf(Object key) {
+        return jumpHash(hash64(String.valueOf(key).getBytes(StandardCharsets.UTF_8)), shards);
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    static int jumpHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
+    private static long hash64(byte[] data) {
+        // FNV-1a followed by a MurmurHash3 finalizer, same as the bloom filter
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
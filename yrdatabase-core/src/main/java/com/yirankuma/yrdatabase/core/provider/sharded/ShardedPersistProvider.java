@@ -0,0 +1,666 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.api.provider.ProviderType;
+import com.yirankuma.yrdatabase.api.query.Condition;
+import com.yirankuma.yrdatabase.api.query.Operator;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Persistence provider spreading rows over several shards by primary key.
+ *
+ * <p>Every row is owned by exactly one shard, chosen by {@link ShardRouter} from its {@code id}.
+ * Operations addressing a single key (everything {@code DatabaseManagerImpl} does for a player)
+ * go to the owning shard only. Table-wide reads ({@code queryAll}, {@code count}, condition
+ * queries without the key, the query builder) run on all shards in parallel and are merged;
+ * query builder results are re-sorted by the query's ordering and cut to its limit, which is
+ * exact because each shard already returns its own first {@code limit} rows.</p>
+ *
+ * <p>While resharding ({@code previousShardCount} set), a key may still live on the shard that
+ * owned it under the old shard count. Reads by key fall back to that shard on a miss, deletes
+ * by key are applied to both, and table-wide reads drop copies that also exist on the new
+ * owner. Counts may include rows that are being moved at that moment.</p>
+ *
+ * <p>Transactions cannot span shards and are rejected. Raw SQL is run on every shard:
+ * {@link #executeQuery} and {@link #executeBulkQuery} concatenate the results, {@link #executeUpdate}
+ * sums affected rows.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class ShardedPersistProvider implements PersistProvider {
+
+    private static final String KEY_COLUMN = "id";
+
+    private final List<PersistProvider> shards;
+    private final ShardRouter router;
+    private final ShardRouter previousRouter;
+
+    /**
+     * @param shards             Shard providers, in shard-index order
+     * @param previousShardCount Shard count before the last resize while its rows are being moved,
+     *                           0 (or the current count) otherwise
+     */
+    public ShardedPersistProvider(List<PersistProvider> shards, int previousShardCount) {
+        if (previousShardCount > shards.size()) {
+            throw new IllegalArgumentException("Shrinking from " + previousShardCount + " to " + shards.size()
+                    + " shards is not supported; shards can only be appended");
+        }
+        this.shards = List.copyOf(shards);
+        this.router = new ShardRouter(shards.size());
+        this.previousRouter = previousShardCount > 0 && previousShardCount != shards.size()
+                ? new ShardRouter(previousShardCount)
+                : null;
+    }
+
+    // ==================== Routing ====================
+
+    private PersistProvider owner(Object key) {
+        return shards.get(router.shardOf(key));
+    }
+
+    /**
+     * Shard that owned the key before the resize, or null if it has not moved.
+     */
+    private PersistProvider previousOwner(Object key) {
+        if (previousRouter == null) {
+            return null;
+        }
+        int previous = previousRouter.shardOf(key);
+        return previous == router.shardOf(key) ? null : shards.get(previous);
+    }
+
+    private static Object keyOf(Map<String, Object> values) {
+        return values != null ? values.get(KEY_COLUMN) : null;
+    }
+
+    private static Object keyOf(QuerySpec spec) {
+        for (Condition condition : spec.getConditions()) {
+            if (condition.getColumn().equals(KEY_COLUMN) && condition.getOperator() == Operator.EQ) {
+                return condition.getValue();
+            }
+        }
+        return null;
+    }
+
+    static String keyOf(String key) {
+        // 与 MySQLProvider / SQLiteProvider 的 "table:key" 格式一致
+        int colonIndex = key.indexOf(':');
+        return colonIndex > 0 ? key.substring(colonIndex + 1) : key;
+    }
+
+    /**
+     * Read from the owning shard, then from the previous owner if the key may not have moved yet.
+     */
+    private <T> CompletableFuture<T> readByKey(Object key, Function<PersistProvider, CompletableFuture<T>> read,
+                                               Predicate<T> found) {
+        CompletableFuture<T> current = read.apply(owner(key));
+        PersistProvider previous = previousOwner(key);
+        if (previous == null) {
+            return current;
+        }
+        return current.thenCompose(result -> found.test(result)
+                ? CompletableFuture.completedFuture(result)
+                : read.apply(previous));
+    }
+
+    /**
+     * Write by key to the owning shard and, while resharding, to the previous owner as well
+     * (used for updates and deletes, so no stale copy survives on the old shard).
+     */
+    private CompletableFuture<Integer> writeByKey(Object key, Function<PersistProvider, CompletableFuture<Integer>> write) {
+        CompletableFuture<Integer> current = write.apply(owner(key));
+        PersistProvider previous = previousOwner(key);
+        if (previous == null) {
+            return current;
+        }
+        return current.thenCombine(write.apply(previous), Integer::sum);
+    }
+
+    private <T> CompletableFuture<List<T>> onAll(Function<PersistProvider, CompletableFuture<T>> call) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (PersistProvider shard : shards) {
+            futures.add(call.apply(shard));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<T> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+
+    private CompletableFuture<Boolean> allTrue(Function<PersistProvider, CompletableFuture<Boolean>> call) {
+        return onAll(call).thenApply(results -> results.stream().allMatch(Boolean::booleanValue));
+    }
+
+    private CompletableFuture<Integer> sum(Function<PersistProvider, CompletableFuture<Integer>> call) {
+        return onAll(call).thenApply(results -> results.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Scatter a table read to every shard and concatenate the rows.
+     */
+    private CompletableFuture<List<Map<String, Object>>> gather(
+            Function<PersistProvider, CompletableFuture<List<Map<String, Object>>>> read) {
+        return onAll(read).thenApply(this::combine);
+    }
+
+    /**
+     * Concatenate per-shard rows. While resharding, a row found on a shard that no longer owns
+     * it is dropped if its owner returned the same key (the copy has not been deleted yet).
+     */
+    List<Map<String, Object>> combine(List<List<Map<String, Object>>> perShard) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (previousRouter == null) {
+            perShard.forEach(rows::addAll);
+            return rows;
+        }
+
+        Set<String> owned = new HashSet<>();
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            for (Map<String, Object> row : perShard.get(shard)) {
+                Object key = keyOf(row);
+                if (key != null && router.shardOf(key) == shard) {
+                    owned.add(String.valueOf(key));
+                }
+            }
+        }
+        for (int shard = 0; shard < perShard.size(); shard++) {
+            for (Map<String, Object> row : perShard.get(shard)) {
+                Object key = keyOf(row);
+                if (key == null || router.shardOf(key) == shard || !owned.contains(String.valueOf(key))) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Merge per-shard results of one query: sort by the query's ordering and keep the first
+     * {@code limit} rows (0 = all). Strings are compared in Java's natural order, which can
+     * differ from case-insensitive collations across shard boundaries.
+     */
+    static List<Map<String, Object>> merge(List<Map<String, Object>> rows, List<QuerySpec.Order> orders, int limit) {
+        List<Map<String, Object>> merged = new ArrayList<>(rows);
+        if (!orders.isEmpty()) {
+            merged.sort((a, b) -> {
+                for (QuerySpec.Order order : orders) {
+                    int result = compareValues(a.get(order.getColumn()), b.get(order.getColumn()));
+                    if (result != 0) {
+                        return order.isDescending() ? -result : result;
+                    }
+                }
+                return 0;
+            });
+        }
+        return limit > 0 && merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object a, Object b) {
+        // 与 MySQL 一致：升序时 NULL 排在最前
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (a instanceof Comparable && a.getClass().isInstance(b)) {
+            return ((Comparable) a).compareTo(b);
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    // ==================== Basic Key-Value Operations ====================
+
+    @Override
+    public CompletableFuture<Optional<String>> get(String key) {
+        return readByKey(keyOf(key), shard -> shard.get(key), Optional::isPresent);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> set(String key, String value) {
+        return owner(keyOf(key)).set(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> setEx(String key, String value, Duration ttl) {
+        return owner(keyOf(key)).setEx(key, value, ttl);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> delete(String key) {
+        return writeByKey(keyOf(key), shard -> shard.delete(key).thenApply(deleted -> deleted ? 1 : 0))
+                .thenApply(count -> count > 0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return readByKey(keyOf(key), shard -> shard.exists(key), Boolean::booleanValue);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> mget(List<String> keys) {
+        Map<String, CompletableFuture<Optional<String>>> futures = new HashMap<>();
+        for (String key : keys) {
+            futures.put(key, get(key));
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    Map<String, String> result = new HashMap<>();
+                    futures.forEach((key, future) -> future.join().ifPresent(value -> result.put(key, value)));
+                    return result;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> mset(Map<String, String> entries) {
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        entries.forEach((key, value) -> futures.add(set(key, value)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    // ==================== Hash Operations ====================
+
+    @Override
+    public CompletableFuture<Optional<String>> hget(String key, String field) {
+        return readByKey(keyOf(key), shard -> shard.hget(key, field), Optional::isPresent);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hset(String key, String field, String value) {
+        return owner(keyOf(key)).hset(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        CompletableFuture<Map<String, String>> current = owner(keyOf(key)).hgetAll(key);
+        PersistProvider previous = previousOwner(keyOf(key));
+        if (previous == null) {
+            return current;
+        }
+        // 迁移期间字段可能分散在新旧两个分片上，新分片上的值较新
+        return previous.hgetAll(key).thenCombine(current, (old, fresh) -> {
+            Map<String, String> merged = new HashMap<>(old);
+            merged.putAll(fresh);
+            return merged;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hdel(String key, String... fields) {
+        return writeByKey(keyOf(key), shard -> shard.hdel(key, fields).thenApply(ok -> ok ? 1 : 0))
+                .thenApply(count -> count > 0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hmset(String key, Map<String, String> fields) {
+        return owner(keyOf(key)).hmset(key, fields);
+    }
+
+    // ==================== Table Operations ====================
+
+    @Override
+    public CompletableFuture<Boolean> createTable(String tableName, Map<String, String> schema) {
+        return allTrue(shard -> shard.createTable(tableName, schema));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> tableExists(String tableName) {
+        return allTrue(shard -> shard.tableExists(tableName));
+    }
+
+    /**
+     * Tables present on every shard; a table missing on one shard is left out so that
+     * {@code ensureTable} still creates it there.
+     */
+    @Override
+    public CompletableFuture<Set<String>> listTables() {
+        return onAll(PersistProvider::listTables).thenApply(perShard -> {
+            Set<String> common = new HashSet<>(perShard.get(0));
+            for (Set<String> tables : perShard) {
+                common.retainAll(tables);
+            }
+            return common;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> describeTable(String tableName) {
+        // 各分片结构相同，读第一个分片即可
+        return shards.get(0).describeTable(tableName);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> dropTable(String tableName) {
+        return allTrue(shard -> shard.dropTable(tableName));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> createIndex(String tableName, String indexName, List<String> columns, boolean unique) {
+        // 唯一索引只在单个分片内生效
+        return allTrue(shard -> shard.createIndex(tableName, indexName, columns, unique));
+    }
+
+    // ==================== Query Operations ====================
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> query(String table, Map<String, Object> conditions) {
+        Object key = keyOf(conditions);
+        if (key != null) {
+            return readByKey(key, shard -> shard.query(table, conditions), rows -> !rows.isEmpty());
+        }
+        return gather(shard -> shard.query(table, conditions));
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> query(String table, String whereClause, Object... params) {
+        return gather(shard -> shard.query(table, whereClause, params));
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> queryAll(String table) {
+        return gather(shard -> shard.queryAll(table));
+    }
+
+    @Override
+    public CompletableFuture<Long> count(String table, Map<String, Object> conditions) {
+        Object key = keyOf(conditions);
+        if (key != null) {
+            return readByKey(key, shard -> shard.count(table, conditions), count -> count > 0);
+        }
+        return onAll(shard -> shard.count(table, conditions))
+                .thenApply(counts -> counts.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Override
+    public CompletableFuture<Long> countAll(String table) {
+        return count(table, null);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> select(QuerySpec spec) {
+        Object key = keyOf(spec);
+        if (key != null) {
+            return readByKey(key, shard -> shard.select(spec), rows -> !rows.isEmpty());
+        }
+        return gather(shard -> shard.select(spec))
+                .thenApply(rows -> merge(rows, spec.getOrders(), spec.getLimit()));
+    }
+
+    // ==================== Insert/Update Operations ====================
+
+    @Override
+    public CompletableFuture<Boolean> insert(String table, Map<String, Object> data) {
+        Object key = keyOf(data);
+        if (key == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Sharded insert into " + table + " requires an '" + KEY_COLUMN + "' value"));
+        }
+        return owner(key).insert(table, data);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upsert(String table, Map<String, Object> data, String primaryKey) {
+        Object key = data.get(primaryKey);
+        if (key == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Sharded upsert into " + table + " requires a '" + primaryKey + "' value"));
+        }
+        return owner(key).upsert(table, data, primaryKey);
+    }
+
+    @Override
+    public CompletableFuture<Integer> update(String table, Map<String, Object> data, Map<String, Object> conditions) {
+        Object key = keyOf(conditions);
+        if (key != null) {
+            return writeByKey(key, shard -> shard.update(table, data, conditions));
+        }
+        return sum(shard -> shard.update(table, data, conditions));
+    }
+
+    @Override
+    public CompletableFuture<Integer> deleteWhere(String table, Map<String, Object> conditions) {
+        Object key = keyOf(conditions);
+        if (key != null) {
+            return writeByKey(key, shard -> shard.deleteWhere(table, conditions));
+        }
+        return sum(shard -> shard.deleteWhere(table, conditions));
+    }
+
+    // ==================== Versioned Writes ====================
+
+    @Override
+    public CompletableFuture<Boolean> compareAndSet(String table, Map<String, Object> data, String keyColumn,
+                                                    String versionColumn, long expectedVersion) {
+        Object key = data.get(keyColumn);
+        if (key == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Sharded compare-and-set on " + table + " requires a '" + keyColumn + "' value"));
+        }
+        PersistProvider owner = owner(key);
+        CompletableFuture<Boolean> current = owner.compareAndSet(table, data, keyColumn, versionColumn, expectedVersion);
+        PersistProvider previous = previousOwner(key);
+        if (previous == null || expectedVersion == 0) {
+            return current;
+        }
+        // 迁移期间行可能还在旧分片上：新分片没有该行且旧分片版本匹配时，把新版本插入新分片
+        // （Resharder 发现新分片已有该行时只删除旧副本）
+        return current.thenCompose(ok -> {
+            if (ok) {
+                return CompletableFuture.completedFuture(true);
+            }
+            Map<String, Object> where = Map.of(keyColumn, key);
+            return owner.query(table, where).thenCompose(ownerRows -> {
+                if (!ownerRows.isEmpty()) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                return previous.query(table, where).thenCompose(previousRows -> {
+                    if (previousRows.isEmpty() || !versionEquals(previousRows.get(0).get(versionColumn), expectedVersion)) {
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    // 期望版本 0 只在新分片上没有该行时插入，并发的迁移写入只有一个成功
+                    return owner.compareAndSet(table, data, keyColumn, versionColumn, 0);
+                });
+            });
+        });
+    }
+
+    private static boolean versionEquals(Object stored, long expectedVersion) {
+        long version = stored instanceof Number ? ((Number) stored).longValue() : 0L;
+        return version == expectedVersion;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upsertVersioned(String table, Map<String, Object> data, String keyColumn,
+                                                      String versionColumn) {
+        Object key = data.get(keyColumn);
+        if (key == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Sharded upsert into " + table + " requires a '" + keyColumn + "' value"));
+        }
+        return owner(key).upsertVersioned(table, data, keyColumn, versionColumn);
+    }
+
+    // ==================== Raw SQL ====================
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> executeQuery(String sql, Object... params) {
+        return onAll(shard -> shard.executeQuery(sql, params)).thenApply(results -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            results.forEach(rows::addAll);
+            return rows;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> executeBulkQuery(String sql, Object... params) {
+        return onAll(shard -> shard.executeBulkQuery(sql, params)).thenApply(results -> {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            results.forEach(rows::addAll);
+            return rows;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdate(String sql, Object... params) {
+        return sum(shard -> shard.executeUpdate(sql, params));
+    }
+
+    @Override
+    public <R> CompletableFuture<R> transaction(Function<Connection, R> action) {
+        return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("Transactions cannot span persist shards"));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> batchInsert(String table, List<Map<String, Object>> rows) {
+        Map<Integer, List<Map<String, Object>>> byShard = new TreeMap<>();
+        for (Map<String, Object> row : rows) {
+            Object key = keyOf(row);
+            if (key == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Sharded batch insert into " + table + " requires an '" + KEY_COLUMN + "' value on every row"));
+            }
+            byShard.computeIfAbsent(router.shardOf(key), i -> new ArrayList<>()).add(row);
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        byShard.forEach((shard, shardRows) -> futures.add(shards.get(shard).batchInsert(table, shardRows)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> batchUpsert(String table, List<Map<String, Object>> rows, String primaryKey) {
+        Map<Integer, List<Map<String, Object>>> byShard = new TreeMap<>();
+        for (Map<String, Object> row : rows) {
+            Object key = row.get(primaryKey);
+            if (key == null) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                        "Sharded batch upsert into " + table + " requires a '" + primaryKey + "' value on every row"));
+            }
+            byShard.computeIfAbsent(router.shardOf(key), i -> new ArrayList<>()).add(row);
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        byShard.forEach((shard, shardRows) -> futures.add(shards.get(shard).batchUpsert(table, shardRows, primaryKey)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> batchIncrement(String table, String keyColumn,
+                                                     Map<String, Map<String, Number>> deltas) {
+        Map<Integer, Map<String, Map<String, Number>>> byShard = new TreeMap<>();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        deltas.forEach((key, row) -> {
+            PersistProvider previous = previousOwner(key);
+            if (previous == null) {
+                byShard.computeIfAbsent(router.shardOf(key), i -> new LinkedHashMap<>()).put(key, row);
+                return;
+            }
+            // 迁移期间：新分片还没有该行时累加到旧分片上的行，由 Resharder 一并迁移；
+            // 否则在新分片插入的部分行会让 Resharder 丢弃旧分片上的完整行
+            PersistProvider owner = owner(key);
+            futures.add(owner.query(table, Map.of(keyColumn, key)).thenCompose(rows ->
+                    (rows.isEmpty() ? previous : owner).batchIncrement(table, keyColumn, Map.of(key, row))));
+        });
+        byShard.forEach((shard, shardRows) -> futures.add(shards.get(shard).batchIncrement(table, keyColumn, shardRows)));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> futures.stream().allMatch(CompletableFuture::join));
+    }
+
+    // ==================== Warm-up ====================
+
+    @Override
+    public CompletableFuture<Void> warmUp(Map<String, List<String>> tables) {
+        return onAll(shard -> shard.warmUp(tables)).thenApply(v -> null);
+    }
+
+    // ==================== Status ====================
+
+    @Override
+    public boolean isConnected() {
+        return shards.stream().allMatch(PersistProvider::isConnected);
+    }
+
+    @Override
+    public ProviderType getType() {
+        return shards.get(0).getType();
+    }
+
+    @Override
+    public CompletableFuture<Void> reconnect() {
+        return CompletableFuture.allOf(shards.stream()
+                .map(PersistProvider::reconnect)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Latency of the slowest shard, or -1 if any shard is unreachable.
+     */
+    @Override
+    public CompletableFuture<Long> ping() {
+        return onAll(PersistProvider::ping).thenApply(latencies -> {
+            long max = 0;
+            for (long latency : latencies) {
+                if (latency < 0) {
+                    return -1L;
+                }
+                max = Math.max(max, latency);
+            }
+            return max;
+        });
+    }
+
+    @Override
+    public void close() {
+        for (PersistProvider shard : shards) {
+            try {
+                shard.close();
+            } catch (Exception e) {
+                log.error("Error closing persist shard: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ==================== Resharding ====================
+
+    /**
+     * Shard providers in shard-index order.
+     */
+    public List<PersistProvider> getShards() {
+        return shards;
+    }
+
+    public ShardRouter getRouter() {
+        return router;
+    }
+
+    /**
+     * Router for the shard count before the last resize, or null when not resharding.
+     */
+    public ShardRouter getPreviousRouter() {
+        return previousRouter;
+    }
+
+    public boolean isResharding() {
+        return previousRouter != null;
+    }
+}
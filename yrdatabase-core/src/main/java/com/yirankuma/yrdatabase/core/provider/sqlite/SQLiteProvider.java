@@ -1,8 +1,16 @@
 package com.yirankuma.yrdatabase.core.provider.sqlite;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.provider.PersistProvider;
 import com.yirankuma.yrdatabase.api.provider.ProviderType;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.query.CompiledQuery;
+import com.yirankuma.yrdatabase.core.query.SqlQueryCompiler;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.File;
@@ -10,8 +18,8 @@ import java.sql.*;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -25,17 +33,32 @@ public class SQLiteProvider implements PersistProvider {
 
     private final String dbPath;
     private Connection connection;
-    private ExecutorService executor;
+    private final String executorMode;
+    private BlockingExecutor executor;
     private volatile boolean connected = false;
-    private final Set<String> createdTables = new HashSet<>();
-    private final Object lock = new Object();
+    private final Set<String> createdTables = ConcurrentHashMap.newKeySet();
+    // 已确认没有旧版 JSON 哈希（或已迁移）的 key；达到上限时清空，之后的 key 最多多检查一次
+    private static final int MIGRATED_HASH_LIMIT = 100_000;
+    private final Set<String> migratedHashes = ConcurrentHashMap.newKeySet();
+    private final SqlQueryCompiler queryCompiler = new SqlQueryCompiler();
+    // ReentrantLock instead of synchronized so virtual threads are not pinned while waiting
+    private final ReentrantLock lock = new ReentrantLock();
 
     public SQLiteProvider(DatabaseConfig.PersistConfig.SQLiteConfig config) {
-        this.dbPath = config.getFile();
+        this(config.getFile(), BlockingExecutor.MODE_FIXED);
+    }
+
+    public SQLiteProvider(DatabaseConfig.PersistConfig.SQLiteConfig config, String executorMode) {
+        this(config.getFile(), executorMode);
     }
 
     public SQLiteProvider(String dbPath) {
+        this(dbPath, BlockingExecutor.MODE_FIXED);
+    }
+
+    public SQLiteProvider(String dbPath, String executorMode) {
         this.dbPath = dbPath;
+        this.executorMode = executorMode;
     }
 
     /**
@@ -67,7 +90,8 @@ public class SQLiteProvider implements PersistProvider {
                     stmt.execute("PRAGMA temp_store=MEMORY");
                 }
 
-                executor = Executors.newSingleThreadExecutor();
+                // Single connection: one statement at a time in either mode
+                executor = new BlockingExecutor("YRDatabase-SQLite", executorMode, 1);
                 connected = true;
 
                 log.info("SQLite connected successfully to {}", dbPath);
@@ -84,16 +108,17 @@ public class SQLiteProvider implements PersistProvider {
             return CompletableFuture.failedFuture(new IllegalStateException("SQLite not connected"));
         }
 
-        return CompletableFuture.supplyAsync(() -> {
-            synchronized (lock) {
-                try {
-                    return function.apply(connection);
-                } catch (SQLException e) {
-                    log.error("SQLite operation failed: {}", e.getMessage());
-                    throw new RuntimeException(e);
-                }
+        return executor.supply(() -> {
+            lock.lock();
+            try {
+                return function.apply(connection);
+            } catch (SQLException e) {
+                log.error("SQLite operation failed: {}", e.getMessage());
+                throw new RuntimeException(e);
+            } finally {
+                lock.unlock();
             }
-        }, executor);
+        });
     }
 
     @FunctionalInterface
@@ -136,7 +161,16 @@ public class SQLiteProvider implements PersistProvider {
         String table = parts[0];
         String pk = parts[1];
 
-        return deleteWhere(table, Map.of("id", pk)).thenApply(count -> count > 0);
+        // 同时删除 kv_hash 中的同名哈希；只用作哈希的 key 没有对应的表
+        return tableExists(table)
+                .thenCompose(present -> present
+                        ? deleteWhere(table, Map.of("id", pk))
+                        : CompletableFuture.completedFuture(0))
+                .thenCombine(ensureHashTable().thenCompose(v -> executeUpdate(
+                        "DELETE FROM `" + HASH_TABLE + "` WHERE `hkey` = ?", key)), (rows, fields) -> {
+                    rememberMigrated(key);
+                    return rows > 0 || fields > 0;
+                });
     }
 
     @Override
@@ -145,7 +179,15 @@ public class SQLiteProvider implements PersistProvider {
         String table = parts[0];
         String pk = parts[1];
 
-        return count(table, Map.of("id", pk)).thenApply(count -> count > 0);
+        return tableExists(table)
+                .thenCompose(present -> present
+                        ? count(table, Map.of("id", pk))
+                        : CompletableFuture.completedFuture(0L))
+                .thenCompose(count -> count > 0
+                        ? CompletableFuture.completedFuture(true)
+                        : ensureHashTable().thenCompose(v -> executeQuery(
+                                "SELECT 1 FROM `" + HASH_TABLE + "` WHERE `hkey` = ? LIMIT 1", key))
+                                .thenApply(rows -> !rows.isEmpty()));
     }
 
     private String[] parseKey(String key) {
@@ -185,51 +227,168 @@ public class SQLiteProvider implements PersistProvider {
                 .thenApply(v -> futures.stream().allMatch(f -> f.join()));
     }
 
-    // ==================== Hash Operations ====================
+    // ==================== Hash Operations (one row per field) ====================
+
+    private CompletableFuture<Void> ensureHashTable() {
+        if (createdTables.contains(HASH_TABLE)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return executeAsync(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS `" + HASH_TABLE + "` ("
+                        + "`hkey` TEXT NOT NULL, `field` TEXT NOT NULL, `value` TEXT, "
+                        + "PRIMARY KEY (`hkey`, `field`)) WITHOUT ROWID");
+            }
+            createdTables.add(HASH_TABLE);
+            return null;
+        });
+    }
 
     @Override
     public CompletableFuture<Optional<String>> hget(String key, String field) {
-        return hgetAll(key).thenApply(map -> Optional.ofNullable(map.get(field)));
+        return ensureHashTable()
+                .thenCompose(v -> readHashField(key, field))
+                .thenCompose(value -> value.isPresent() || migratedHashes.contains(key)
+                        ? CompletableFuture.completedFuture(value)
+                        : migrateLegacyHash(key).thenCompose(v -> readHashField(key, field)));
+    }
+
+    private CompletableFuture<Optional<String>> readHashField(String key, String field) {
+        return executeQuery("SELECT `value` FROM `" + HASH_TABLE + "` WHERE `hkey` = ? AND `field` = ?", key, field)
+                .thenApply(rows -> rows.isEmpty()
+                        ? Optional.<String>empty()
+                        : Optional.ofNullable(rows.get(0).get("value")).map(Object::toString));
     }
 
     @Override
     public CompletableFuture<Boolean> hset(String key, String field, String value) {
-        return hgetAll(key).thenCompose(existing -> {
-            existing.put(field, value);
-            return hmset(key, existing);
-        });
+        return hmset(key, Map.of(field, value));
     }
 
     @Override
     public CompletableFuture<Map<String, String>> hgetAll(String key) {
-        return get(key).thenApply(opt -> {
-            if (opt.isEmpty()) return new HashMap<>();
-            try {
-                com.google.gson.Gson gson = new com.google.gson.Gson();
-                @SuppressWarnings("unchecked")
-                Map<String, String> map = gson.fromJson(opt.get(), Map.class);
-                return map != null ? new HashMap<>(map) : new HashMap<>();
-            } catch (Exception e) {
-                return new HashMap<>();
-            }
-        });
+        return ensureHashTable()
+                .thenCompose(v -> readHash(key))
+                .thenCompose(fields -> !fields.isEmpty() || migratedHashes.contains(key)
+                        ? CompletableFuture.completedFuture(fields)
+                        : migrateLegacyHash(key).thenCompose(v -> readHash(key)));
+    }
+
+    private CompletableFuture<Map<String, String>> readHash(String key) {
+        return executeQuery("SELECT `field`, `value` FROM `" + HASH_TABLE + "` WHERE `hkey` = ?", key)
+                .thenApply(rows -> {
+                    Map<String, String> fields = new HashMap<>();
+                    for (Map<String, Object> row : rows) {
+                        Object value = row.get("value");
+                        fields.put(String.valueOf(row.get("field")), value != null ? value.toString() : null);
+                    }
+                    return fields;
+                });
     }
 
     @Override
     public CompletableFuture<Boolean> hdel(String key, String... fields) {
-        return hgetAll(key).thenCompose(existing -> {
-            for (String field : fields) {
-                existing.remove(field);
-            }
-            return hmset(key, existing);
-        });
+        if (fields.length == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        Object[] params = new Object[fields.length + 1];
+        params[0] = key;
+        System.arraycopy(fields, 0, params, 1, fields.length);
+        return ensureHashTable()
+                .thenCompose(v -> migrateLegacyHash(key))
+                .thenCompose(v -> executeUpdate("DELETE FROM `" + HASH_TABLE + "` WHERE `hkey` = ? AND `field` IN ("
+                        + String.join(", ", Collections.nCopies(fields.length, "?")) + ")", params))
+                .thenApply(deleted -> deleted >= 0);
     }
 
     @Override
     public CompletableFuture<Boolean> hmset(String key, Map<String, String> fields) {
-        com.google.gson.Gson gson = new com.google.gson.Gson();
-        String json = gson.toJson(fields);
-        return set(key, json);
+        if (fields.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        List<Object> params = new ArrayList<>(fields.size() * 3);
+        fields.forEach((field, value) -> {
+            params.add(key);
+            params.add(field);
+            params.add(value);
+        });
+        return ensureHashTable()
+                .thenCompose(v -> migrateLegacyHash(key))
+                .thenCompose(v -> executeUpdate("INSERT INTO `" + HASH_TABLE + "` (`hkey`, `field`, `value`) VALUES "
+                        + String.join(", ", Collections.nCopies(fields.size(), "(?, ?, ?)"))
+                        + " ON CONFLICT(`hkey`, `field`) DO UPDATE SET `value` = excluded.`value`", params.toArray()))
+                .thenApply(affected -> affected >= 0);
+    }
+
+    // ==================== Legacy Hashes ====================
+
+    /**
+     * Earlier versions stored a hash as one JSON object in the {@code value} column of its
+     * {@code table:pk} row (default table {@code kv_store}). On first use of such a key its fields
+     * are copied into {@link #HASH_TABLE} (fields already written there win) and the JSON row is
+     * deleted. Checked once per key and process.
+     */
+    private CompletableFuture<Void> migrateLegacyHash(String key) {
+        if (migratedHashes.contains(key)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String[] parts = parseKey(key);
+        return tableExists(parts[0])
+                .thenCompose(exists -> exists ? get(key) : CompletableFuture.completedFuture(Optional.<String>empty()))
+                .thenCompose(json -> {
+                    Map<String, String> fields = json.map(SQLiteProvider::parseLegacyHash).orElse(null);
+                    if (fields == null) {
+                        // 没有旧数据，或该行不是 JSON 对象（普通键值），保持不变
+                        rememberMigrated(key);
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    List<Object> params = new ArrayList<>(fields.size() * 3);
+                    fields.forEach((field, value) -> {
+                        params.add(key);
+                        params.add(field);
+                        params.add(value);
+                    });
+                    CompletableFuture<Integer> copied = fields.isEmpty()
+                            ? CompletableFuture.completedFuture(0)
+                            : executeUpdate("INSERT INTO `" + HASH_TABLE + "` (`hkey`, `field`, `value`) VALUES "
+                                    + String.join(", ", Collections.nCopies(fields.size(), "(?, ?, ?)"))
+                                    + " ON CONFLICT(`hkey`, `field`) DO NOTHING", params.toArray());
+                    // 复制成功后才删除旧行；中途失败时下次重新迁移（已复制的字段被忽略）
+                    return copied.thenCompose(n -> deleteWhere(parts[0], Map.of("id", parts[1])))
+                            .thenAccept(n -> {
+                                rememberMigrated(key);
+                                log.info("Migrated legacy hash {} ({} fields) into {}", key, fields.size(), HASH_TABLE);
+                            });
+                });
+    }
+
+    private void rememberMigrated(String key) {
+        if (migratedHashes.size() >= MIGRATED_HASH_LIMIT) {
+            migratedHashes.clear();
+        }
+        migratedHashes.add(key);
+    }
+
+    /**
+     * @return The fields of a legacy JSON hash, or null if the value is not a JSON object
+     */
+    static Map<String, String> parseLegacyHash(String json) {
+        JsonElement parsed;
+        try {
+            parsed = JsonParser.parseString(json);
+        } catch (JsonParseException e) {
+            return null;
+        }
+        if (!parsed.isJsonObject()) {
+            return null;
+        }
+        Map<String, String> fields = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : parsed.getAsJsonObject().entrySet()) {
+            JsonElement value = entry.getValue();
+            fields.put(entry.getKey(), value.isJsonNull() ? null
+                    : value.isJsonPrimitive() ? value.getAsString() : value.toString());
+        }
+        return fields;
     }
 
     // ==================== Table Operations ====================
@@ -279,6 +438,23 @@ public class SQLiteProvider implements PersistProvider {
         return mysqlType;
     }
 
+    @Override
+    public CompletableFuture<Boolean> createIndex(String tableName, String indexName, List<String> columns, boolean unique) {
+        return executeAsync(conn -> {
+            String columnList = columns.stream()
+                    .map(c -> "`" + c + "`")
+                    .collect(Collectors.joining(", "));
+            String sql = "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS `" + indexName
+                    + "` ON `" + tableName + "` (" + columnList + ")";
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sql);
+                log.debug("Created index {} on {}", indexName, tableName);
+                return true;
+            }
+        });
+    }
+
     @Override
     public CompletableFuture<Boolean> tableExists(String tableName) {
         if (createdTables.contains(tableName)) {
@@ -300,6 +476,55 @@ public class SQLiteProvider implements PersistProvider {
         });
     }
 
+    @Override
+    public CompletableFuture<Set<String>> listTables() {
+        return executeAsync(conn -> {
+            Set<String> tables = new HashSet<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery(
+                         "SELECT name FROM sqlite_master WHERE type='table' AND name NOT LIKE 'sqlite_%'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            createdTables.addAll(tables);
+            return tables;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> describeTable(String tableName) {
+        return executeAsync(conn -> {
+            Map<String, String> schema = new LinkedHashMap<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(`" + tableName + "`)")) {
+                while (rs.next()) {
+                    String type = convertFromSQLiteType(rs.getString("type"), rs.getInt("pk") > 0);
+                    schema.put(rs.getString("name"), type);
+                }
+            }
+            return schema;
+        });
+    }
+
+    /**
+     * 把 SQLite 的列类型换回 MySQL 可用的类型；TEXT 主键在 MySQL 中必须有长度。
+     */
+    private String convertFromSQLiteType(String sqliteType, boolean primaryKey) {
+        String upper = sqliteType == null ? "" : sqliteType.toUpperCase();
+        String type;
+        if (upper.contains("INT")) {
+            type = "BIGINT";
+        } else if (upper.contains("REAL") || upper.contains("DOUBLE") || upper.contains("FLOAT")) {
+            type = "DOUBLE";
+        } else if (upper.contains("BLOB")) {
+            type = "BLOB";
+        } else {
+            type = primaryKey ? "VARCHAR(255)" : "TEXT";
+        }
+        return primaryKey ? type + " PRIMARY KEY" : type;
+    }
+
     @Override
     public CompletableFuture<Boolean> dropTable(String tableName) {
         return executeAsync(conn -> {
@@ -397,26 +622,28 @@ public class SQLiteProvider implements PersistProvider {
 
     @Override
     public CompletableFuture<Boolean> upsert(String table, Map<String, Object> data, String primaryKey) {
-        StringBuilder sql = new StringBuilder("INSERT OR REPLACE INTO `").append(table).append("` (");
-        List<String> columns = new ArrayList<>();
-        List<String> placeholders = new ArrayList<>();
-        List<Object> values = new ArrayList<>();
-
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            columns.add("`" + entry.getKey() + "`");
-            placeholders.add("?");
-            values.add(entry.getValue());
-        }
-
-        sql.append(String.join(", ", columns))
-                .append(") VALUES (")
-                .append(String.join(", ", placeholders))
-                .append(")");
-
-        return executeUpdate(sql.toString(), values.toArray())
+        List<String> columns = new ArrayList<>(data.keySet());
+        return executeUpdate(upsertSql(table, columns, primaryKey), data.values().toArray())
                 .thenApply(affected -> affected >= 0);
     }
 
+    /**
+     * Insert a row or update only the given columns of an existing one, like MySQL's
+     * {@code ON DUPLICATE KEY UPDATE}; {@code INSERT OR REPLACE} would reset the other columns.
+     */
+    static String upsertSql(String table, List<String> columns, String primaryKey) {
+        List<String> updates = columns.stream()
+                .filter(column -> !column.equals(primaryKey))
+                .map(column -> "`" + column + "` = excluded.`" + column + "`")
+                .collect(Collectors.toList());
+        return "INSERT INTO `" + table + "` ("
+                + columns.stream().map(column -> "`" + column + "`").collect(Collectors.joining(", "))
+                + ") VALUES ("
+                + columns.stream().map(column -> "?").collect(Collectors.joining(", "))
+                + ") ON CONFLICT(`" + primaryKey + "`) "
+                + (updates.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + String.join(", ", updates));
+    }
+
     @Override
     public CompletableFuture<Integer> update(String table, Map<String, Object> data, Map<String, Object> conditions) {
         StringBuilder sql = new StringBuilder("UPDATE `").append(table).append("` SET ");
@@ -461,8 +688,87 @@ public class SQLiteProvider implements PersistProvider {
         return executeUpdate(sql.toString(), values.toArray());
     }
 
+    // ==================== Versioned Writes ====================
+
+    @Override
+    public CompletableFuture<Boolean> compareAndSet(String table, Map<String, Object> data, String keyColumn,
+                                                    String versionColumn, long expectedVersion) {
+        return versionedUpdate(table, data, keyColumn, versionColumn, "=", expectedVersion)
+                .thenCompose(updated -> {
+                    if (updated > 0 || expectedVersion != 0) {
+                        return CompletableFuture.completedFuture(updated > 0);
+                    }
+                    // 期望版本 0 表示新实体：行不存在时插入，已被其他写入抢先插入则视为冲突
+                    return insertIfAbsent(table, data, keyColumn).thenApply(inserted -> inserted > 0);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> upsertVersioned(String table, Map<String, Object> data, String keyColumn,
+                                                      String versionColumn) {
+        return versionedUpdate(table, data, keyColumn, versionColumn, "<=", data.get(versionColumn))
+                .thenCompose(updated -> updated > 0
+                        ? CompletableFuture.completedFuture(true)
+                        // 没有更新到行：行不存在则插入；库中版本更新时插入被忽略，旧数据不覆盖新数据
+                        : insertIfAbsent(table, data, keyColumn).thenApply(inserted -> true));
+    }
+
+    private CompletableFuture<Integer> versionedUpdate(String table, Map<String, Object> data, String keyColumn,
+                                                       String versionColumn, String comparison, Object version) {
+        StringBuilder sql = new StringBuilder("UPDATE `").append(table).append("` SET ");
+        List<String> setClauses = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (!entry.getKey().equals(keyColumn)) {
+                setClauses.add("`" + entry.getKey() + "` = ?");
+                values.add(entry.getValue());
+            }
+        }
+
+        sql.append(String.join(", ", setClauses))
+                .append(" WHERE `").append(keyColumn).append("` = ? AND `")
+                .append(versionColumn).append("` ").append(comparison).append(" ?");
+        values.add(data.get(keyColumn));
+        values.add(version);
+
+        return executeUpdate(sql.toString(), values.toArray());
+    }
+
+    private CompletableFuture<Integer> insertIfAbsent(String table, Map<String, Object> data, String keyColumn) {
+        StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` (");
+        List<String> columns = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        List<Object> values = new ArrayList<>();
+
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            columns.add("`" + entry.getKey() + "`");
+            placeholders.add("?");
+            values.add(entry.getValue());
+        }
+
+        // 只忽略主键冲突，不用 INSERT OR IGNORE（会连同 NOT NULL 等约束错误一起忽略）
+        sql.append(String.join(", ", columns))
+                .append(") VALUES (")
+                .append(String.join(", ", placeholders))
+                .append(") ON CONFLICT(`").append(keyColumn).append("`) DO NOTHING");
+
+        return executeUpdate(sql.toString(), values.toArray());
+    }
+
     // ==================== Raw SQL ====================
 
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> select(QuerySpec spec) {
+        CompiledQuery compiled;
+        try {
+            compiled = queryCompiler.compile(spec);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return executeQuery(compiled.getSql(), compiled.getParams().toArray());
+    }
+
     @Override
     public CompletableFuture<List<Map<String, Object>>> executeQuery(String sql, Object... params) {
         return executeAsync(conn -> {
@@ -506,17 +812,24 @@ public class SQLiteProvider implements PersistProvider {
     @Override
     public <R> CompletableFuture<R> transaction(Function<Connection, R> action) {
         return executeAsync(conn -> {
-            boolean autoCommit = conn.getAutoCommit();
+            // BEGIN IMMEDIATE 在开始时即取得写锁：事务内先读后写时，其他进程无法在两者之间写入
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("BEGIN IMMEDIATE");
+            }
             try {
-                conn.setAutoCommit(false);
                 R result = action.apply(conn);
-                conn.commit();
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("COMMIT");
+                }
                 return result;
             } catch (Exception e) {
-                conn.rollback();
-                throw new SQLException("Transaction failed", e);
-            } finally {
-                conn.setAutoCommit(autoCommit);
+                SQLException failure = new SQLException("Transaction failed", e);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ROLLBACK");
+                } catch (SQLException rollback) {
+                    failure.addSuppressed(rollback);
+                }
+                throw failure;
             }
         });
     }
@@ -557,6 +870,98 @@ public class SQLiteProvider implements PersistProvider {
         });
     }
 
+    @Override
+    public CompletableFuture<Boolean> batchUpsert(String table, List<Map<String, Object>> rows, String primaryKey) {
+        if (rows.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return executeAsync(conn -> {
+            List<String> columns = new ArrayList<>(rows.get(0).keySet());
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(upsertSql(table, columns, primaryKey))) {
+                for (Map<String, Object> row : rows) {
+                    for (int i = 0; i < columns.size(); i++) {
+                        stmt.setObject(i + 1, row.get(columns.get(i)));
+                    }
+                    stmt.addBatch();
+                }
+
+                stmt.executeBatch();
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> batchIncrement(String table, String keyColumn,
+                                                     Map<String, Map<String, Number>> deltas) {
+        if (deltas.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return executeAsync(conn -> {
+            // 按列集合分组：同一组列共用一条语句
+            Map<List<String>, List<Map.Entry<String, Map<String, Number>>>> groups = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, Number>> row : deltas.entrySet()) {
+                List<String> columns = new ArrayList<>(new TreeMap<>(row.getValue()).keySet());
+                groups.computeIfAbsent(columns, k -> new ArrayList<>()).add(row);
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                for (Map.Entry<List<String>, List<Map.Entry<String, Map<String, Number>>>> group : groups.entrySet()) {
+                    List<String> columns = group.getKey();
+                    StringBuilder sql = new StringBuilder("INSERT INTO `").append(table).append("` (`")
+                            .append(keyColumn).append("`, ");
+                    sql.append(columns.stream().map(c -> "`" + c + "`").collect(Collectors.joining(", ")));
+                    sql.append(") VALUES (?, ");
+                    sql.append(columns.stream().map(c -> "?").collect(Collectors.joining(", ")));
+                    sql.append(") ON CONFLICT(`").append(keyColumn).append("`) DO UPDATE SET ");
+                    sql.append(columns.stream()
+                            .map(c -> "`" + c + "` = COALESCE(`" + c + "`, 0) + excluded.`" + c + "`")
+                            .collect(Collectors.joining(", ")));
+
+                    try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+                        for (Map.Entry<String, Map<String, Number>> row : group.getValue()) {
+                            stmt.setObject(1, row.getKey());
+                            for (int i = 0; i < columns.size(); i++) {
+                                stmt.setObject(i + 2, row.getValue().get(columns.get(i)));
+                            }
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                }
+                conn.commit();
+                return true;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    // ==================== Warm-up ====================
+
+    /**
+     * Nothing to warm: the single connection is opened by {@link #initialize()} and the
+     * SQLite driver does not cache prepared statements.
+     */
+    @Override
+    public CompletableFuture<Void> warmUp(Map<String, List<String>> tables) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     // ==================== Status ====================
 
     @Override
@@ -573,6 +978,16 @@ public class SQLiteProvider implements PersistProvider {
         return ProviderType.SQLITE;
     }
 
+    /**
+     * Queue wait / execution statistics of the JDBC executor.
+     *
+     * @return Statistics, or null if not initialized
+     */
+    public ExecutorStats getExecutorStats() {
+        BlockingExecutor current = executor;
+        return current != null ? current.getStats() : null;
+    }
+
     @Override
     public CompletableFuture<Void> reconnect() {
         close();
@@ -0,0 +1,16 @@
+package com.yirankuma.yrdatabase.core.query;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * SQL text and bind parameters of a compiled {@link com.yirankuma.yrdatabase.api.query.QuerySpec}.
+ *
+ * @author YiranKuma
+ */
+@Data
+public class CompiledQuery {
+    private final String sql;
+    private final List<Object> params;
+}
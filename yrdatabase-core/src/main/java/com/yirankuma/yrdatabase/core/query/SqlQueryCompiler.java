@@ -0,0 +1,202 @@
+package com.yirankuma.yrdatabase.core.query;
+
+import com.yirankuma.yrdatabase.api.query.Condition;
+import com.yirankuma.yrdatabase.api.query.Operator;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles {@link QuerySpec}s to SQL for MySQL and SQLite (both accept backtick quoting and
+ * {@code LIMIT ?}).
+ *
+ * <p>The SQL text only depends on the shape of the query (columns, operators, IN sizes,
+ * ordering, cursor and limit presence), never on the values, so it is cached per shape and
+ * the same string is reused for every page. That keeps the JDBC prepared statement cache
+ * (MySQL {@code cachePrepStmts}) effective for hot queries.</p>
+ *
+ * @author YiranKuma
+ */
+public class SqlQueryCompiler {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final int MAX_CACHED_SHAPES = 1024;
+
+    private final Map<String, String> sqlCache = new ConcurrentHashMap<>();
+
+    /**
+     * Compile a query.
+     *
+     * @param spec Query specification
+     * @return SQL and parameters
+     * @throws IllegalArgumentException if an identifier is invalid, a non-equality operator is given
+     *                                  null, or the cursor doesn't match the ordering or contains null
+     */
+    public CompiledQuery compile(QuerySpec spec) {
+        if (!spec.getCursor().isEmpty() && spec.getCursor().size() != spec.getOrders().size()) {
+            throw new IllegalArgumentException("Cursor has " + spec.getCursor().size()
+                    + " values but the query orders by " + spec.getOrders().size() + " columns");
+        }
+        for (int i = 0; i < spec.getCursor().size(); i++) {
+            // NULL 与任何值比较都不为真，游标之后的行会被全部漏掉
+            if (spec.getCursor().get(i) == null) {
+                throw new IllegalArgumentException("Cursor value for " + spec.getOrders().get(i).getColumn()
+                        + " is null; keyset pagination needs non-null ordering columns");
+            }
+        }
+
+        String shape = shapeOf(spec);
+        String sql = sqlCache.get(shape);
+        if (sql == null) {
+            sql = buildSql(spec);
+            if (sqlCache.size() >= MAX_CACHED_SHAPES) {
+                sqlCache.clear();
+            }
+            sqlCache.put(shape, sql);
+        }
+        return new CompiledQuery(sql, params(spec));
+    }
+
+    /**
+     * Number of distinct query shapes currently cached.
+     */
+    public int getCachedShapes() {
+        return sqlCache.size();
+    }
+
+    private String shapeOf(QuerySpec spec) {
+        StringBuilder shape = new StringBuilder(spec.getTable()).append('|');
+        shape.append(String.join(",", spec.getColumns())).append('|');
+        for (Condition condition : spec.getConditions()) {
+            shape.append(condition.getColumn()).append(' ').append(condition.getOperator());
+            if (condition.getOperator() == Operator.IN) {
+                shape.append(((Collection<?>) condition.getValue()).size());
+            } else if (condition.getValue() == null) {
+                shape.append(" null");
+            }
+            shape.append(',');
+        }
+        shape.append('|');
+        for (QuerySpec.Order order : spec.getOrders()) {
+            shape.append(order.getColumn()).append(order.isDescending() ? " D," : " A,");
+        }
+        shape.append('|').append(!spec.getCursor().isEmpty()).append('|').append(spec.getLimit() > 0);
+        return shape.toString();
+    }
+
+    private String buildSql(QuerySpec spec) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (spec.getColumns().isEmpty()) {
+            sql.append('*');
+        } else {
+            List<String> quoted = new ArrayList<>();
+            for (String column : spec.getColumns()) {
+                quoted.add(quote(column));
+            }
+            sql.append(String.join(", ", quoted));
+        }
+        sql.append(" FROM ").append(quote(spec.getTable()));
+
+        List<String> predicates = new ArrayList<>();
+        for (Condition condition : spec.getConditions()) {
+            predicates.add(predicate(condition));
+        }
+        if (!spec.getCursor().isEmpty()) {
+            predicates.add(keysetPredicate(spec.getOrders()));
+        }
+        if (!predicates.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+
+        if (!spec.getOrders().isEmpty()) {
+            List<String> orders = new ArrayList<>();
+            for (QuerySpec.Order order : spec.getOrders()) {
+                orders.add(quote(order.getColumn()) + (order.isDescending() ? " DESC" : " ASC"));
+            }
+            sql.append(" ORDER BY ").append(String.join(", ", orders));
+        }
+
+        if (spec.getLimit() > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    private String predicate(Condition condition) {
+        String column = quote(condition.getColumn());
+        if (condition.getOperator() == Operator.IN) {
+            if (!(condition.getValue() instanceof Collection) || ((Collection<?>) condition.getValue()).isEmpty()) {
+                throw new IllegalArgumentException("IN on " + condition.getColumn() + " needs a non-empty collection");
+            }
+            int size = ((Collection<?>) condition.getValue()).size();
+            return column + " IN (" + String.join(", ", Collections.nCopies(size, "?")) + ")";
+        }
+        if (condition.getValue() == null) {
+            // "= NULL" 永远不为真
+            switch (condition.getOperator()) {
+                case EQ:
+                    return column + " IS NULL";
+                case NE:
+                    return column + " IS NOT NULL";
+                default:
+                    throw new IllegalArgumentException(condition.getOperator() + " on " + condition.getColumn()
+                            + " cannot compare with null");
+            }
+        }
+        return column + " " + condition.getOperator().getSql() + " ?";
+    }
+
+    /**
+     * Rows strictly after the cursor in the given ordering, expanded as
+     * {@code (a > ?) OR (a = ? AND b > ?) OR ...} so mixed ASC/DESC orderings work too.
+     */
+    private String keysetPredicate(List<QuerySpec.Order> orders) {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            List<String> parts = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                parts.add(quote(orders.get(j).getColumn()) + " = ?");
+            }
+            QuerySpec.Order order = orders.get(i);
+            parts.add(quote(order.getColumn()) + (order.isDescending() ? " < ?" : " > ?"));
+            terms.add("(" + String.join(" AND ", parts) + ")");
+        }
+        return "(" + String.join(" OR ", terms) + ")";
+    }
+
+    private List<Object> params(QuerySpec spec) {
+        List<Object> params = new ArrayList<>();
+        for (Condition condition : spec.getConditions()) {
+            if (condition.getOperator() == Operator.IN) {
+                params.addAll((Collection<?>) condition.getValue());
+            } else if (condition.getValue() != null) {
+                params.add(condition.getValue());
+            }
+        }
+        List<Object> cursor = spec.getCursor();
+        if (!cursor.isEmpty()) {
+            for (int i = 0; i < cursor.size(); i++) {
+                for (int j = 0; j <= i; j++) {
+                    params.add(cursor.get(j));
+                }
+            }
+        }
+        if (spec.getLimit() > 0) {
+            params.add(spec.getLimit());
+        }
+        return params;
+    }
+
+    private static String quote(String identifier) {
+        if (identifier == null || !IDENTIFIER.matcher(identifier).matches()) {
+            throw new IllegalArgumentException("Invalid identifier: " + identifier);
+        }
+        return "`" + identifier + "`";
+    }
+}
@@ -0,0 +1,333 @@
+package com.yirankuma.yrdatabase.core.resilience;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for one storage provider, driven by error rate and slow-call rate over a
+ * sliding window of the most recent calls.
+ *
+ * <ul>
+ *   <li><b>CLOSED</b> - calls pass; outcomes are recorded in the window</li>
+ *   <li><b>OPEN</b> - calls fail immediately with {@link CircuitOpenException}. The open duration
+ *       starts at {@code openMillis} and doubles on every consecutive re-open up to
+ *       {@code maxOpenMillis}</li>
+ *   <li><b>HALF_OPEN</b> - after the open duration, up to {@code halfOpenCalls} trial calls pass.
+ *       All succeeding closes the breaker, any failure (or slow call) opens it again</li>
+ * </ul>
+ *
+ * <p>Every call is bounded by {@code callTimeoutMillis}, so callers wait at most that long even
+ * when the backend hangs; a timed-out call counts as a failure. Calls that are expected to run
+ * long (DDL, transactions, bulk reads) go through {@link #executeLongRunning} instead, which is
+ * neither bounded nor recorded.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final DatabaseConfig.AdvancedConfig.CircuitBreakerConfig config;
+    private final LongSupplier clock;
+
+    // 滑动窗口（环形缓冲）
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int windowIndex;
+    private int windowCount;
+    private int failureCount;
+    private int slowCount;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private long openMillis;
+    private int consecutiveOpens;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long openCount;
+
+    private volatile Consumer<State> listener;
+    private final LongAdder rejected = new LongAdder();
+
+    public CircuitBreaker(String name, DatabaseConfig.AdvancedConfig.CircuitBreakerConfig config) {
+        this(name, config, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Millisecond clock, injectable for tests
+     */
+    public CircuitBreaker(String name, DatabaseConfig.AdvancedConfig.CircuitBreakerConfig config, LongSupplier clock) {
+        this.name = name;
+        this.config = config;
+        this.clock = clock;
+        int size = Math.max(1, config.getWindowSize());
+        this.failedCalls = new boolean[size];
+        this.slowCalls = new boolean[size];
+    }
+
+    /**
+     * Breaker that lets every call through and records nothing.
+     */
+    public static CircuitBreaker disabled(String name) {
+        DatabaseConfig.AdvancedConfig.CircuitBreakerConfig config = new DatabaseConfig.AdvancedConfig.CircuitBreakerConfig();
+        config.setEnabled(false);
+        return new CircuitBreaker(name, config);
+    }
+
+    /**
+     * Set the state transition listener (called after the transition, outside the lock).
+     */
+    public void setListener(Consumer<State> listener) {
+        this.listener = listener;
+    }
+
+    // ==================== Execution ====================
+
+    /**
+     * Run an asynchronous call through the breaker; every error counts as a failure.
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call) {
+        return execute(call, e -> true);
+    }
+
+    /**
+     * Run an asynchronous call through the breaker.
+     *
+     * @param call      Starts the call
+     * @param isFailure Which errors count against the backend's health (e.g. not constraint violations)
+     * @return The call's future, bounded by the call timeout, or a future failed with
+     *         {@link CircuitOpenException} if the breaker rejected the call
+     */
+    public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> call, Predicate<Throwable> isFailure) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+        if (!tryAcquire()) {
+            return CompletableFuture.failedFuture(new CircuitOpenException(name, getRemainingOpenMillis()));
+        }
+
+        long start = clock.getAsLong();
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(Math.max(1, config.getCallTimeoutMillis()), TimeUnit.MILLISECONDS)
+                .whenComplete((value, error) ->
+                        onResult(clock.getAsLong() - start, error != null && isFailure.test(error)));
+    }
+
+    /**
+     * Run a call that may legitimately take longer than the call timeout, such as DDL, a
+     * transaction or a bulk read. It is rejected unless the breaker is closed (it is no use as a
+     * trial call), is not bounded by the call timeout, and its outcome and duration are not
+     * recorded, so a long scan never opens the breaker.
+     *
+     * @return The call's future, or a future failed with {@link CircuitOpenException} if the
+     *         breaker is not closed
+     */
+    public <T> CompletableFuture<T> executeLongRunning(Supplier<CompletableFuture<T>> call) {
+        if (!config.isEnabled()) {
+            return call.get();
+        }
+        if (getState() != State.CLOSED) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new CircuitOpenException(name, getRemainingOpenMillis()));
+        }
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Ask for permission to make a call. Callers that get true must report the outcome
+     * with {@link #onResult}.
+     */
+    public boolean tryAcquire() {
+        if (!config.isEnabled()) {
+            return true;
+        }
+        State transition = null;
+        boolean permitted;
+        synchronized (this) {
+            if (state == State.OPEN && clock.getAsLong() - openedAt >= openMillis) {
+                state = State.HALF_OPEN;
+                halfOpenPermits = Math.max(1, config.getHalfOpenCalls());
+                halfOpenSuccesses = 0;
+                transition = State.HALF_OPEN;
+            }
+            switch (state) {
+                case CLOSED:
+                    permitted = true;
+                    break;
+                case HALF_OPEN:
+                    permitted = halfOpenPermits > 0;
+                    if (permitted) {
+                        halfOpenPermits--;
+                    }
+                    break;
+                case OPEN:
+                default:
+                    permitted = false;
+                    break;
+            }
+        }
+        if (!permitted) {
+            rejected.increment();
+        }
+        fire(transition);
+        return permitted;
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     *
+     * @param elapsedMillis Call duration
+     * @param failed        Whether the call failed
+     */
+    public void onResult(long elapsedMillis, boolean failed) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        boolean slow = elapsedMillis >= config.getSlowCallThresholdMillis();
+        State transition = null;
+        synchronized (this) {
+            switch (state) {
+                case HALF_OPEN:
+                    if (failed || slow) {
+                        transition = open();
+                    } else if (++halfOpenSuccesses >= Math.max(1, config.getHalfOpenCalls())) {
+                        transition = close();
+                    }
+                    break;
+                case CLOSED:
+                    record(failed, slow);
+                    if (windowCount >= Math.max(1, config.getMinimumCalls())
+                            && (failureCount >= config.getFailureRateThreshold() * windowCount
+                            || slowCount >= config.getSlowCallRateThreshold() * windowCount)) {
+                        transition = open();
+                    }
+                    break;
+                case OPEN:
+                default:
+                    // 打开前发出的调用，结果不再计入
+                    break;
+            }
+        }
+        fire(transition);
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (windowCount == failedCalls.length) {
+            if (failedCalls[windowIndex]) failureCount--;
+            if (slowCalls[windowIndex]) slowCount--;
+        } else {
+            windowCount++;
+        }
+        failedCalls[windowIndex] = failed;
+        slowCalls[windowIndex] = slow;
+        if (failed) failureCount++;
+        if (slow) slowCount++;
+        windowIndex = (windowIndex + 1) % failedCalls.length;
+    }
+
+    private State open() {
+        long base = Math.max(1, config.getOpenMillis());
+        long max = Math.max(base, config.getMaxOpenMillis());
+        // 指数退避：base * 2^n，封顶 max
+        int shift = Math.min(consecutiveOpens, 30);
+        openMillis = Math.min(max, base << shift);
+        consecutiveOpens++;
+        openCount++;
+        openedAt = clock.getAsLong();
+        state = State.OPEN;
+        resetWindow();
+        log.warn("Circuit breaker '{}' opened for {}ms", name, openMillis);
+        return State.OPEN;
+    }
+
+    private State close() {
+        consecutiveOpens = 0;
+        state = State.CLOSED;
+        resetWindow();
+        log.info("Circuit breaker '{}' closed", name);
+        return State.CLOSED;
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        failureCount = 0;
+        slowCount = 0;
+    }
+
+    private void fire(State transition) {
+        Consumer<State> current = listener;
+        if (transition == null || current == null) {
+            return;
+        }
+        try {
+            current.accept(transition);
+        } catch (Exception e) {
+            log.warn("Circuit breaker '{}' listener failed: {}", name, e.getMessage());
+        }
+    }
+
+    // ==================== State ====================
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Whether regular traffic should use this provider. False while OPEN or HALF_OPEN, so that
+     * only probes exercise a recovering backend.
+     */
+    public boolean isClosed() {
+        return !config.isEnabled() || getState() == State.CLOSED;
+    }
+
+    /**
+     * Time until an open breaker lets a trial call through, 0 if not open.
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMillis - (clock.getAsLong() - openedAt));
+    }
+
+    /**
+     * Number of times the breaker has opened.
+     */
+    public synchronized long getOpenCount() {
+        return openCount;
+    }
+
+    /**
+     * Number of calls rejected without reaching the backend.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,26 @@
+package com.yirankuma.yrdatabase.core.resilience;
+
+/**
+ * Thrown (as the cause of a failed future) when a call is rejected by an open circuit breaker.
+ *
+ * @author YiranKuma
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final String breaker;
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String breaker, long retryAfterMillis) {
+        super("Circuit breaker '" + breaker + "' is open, retry after " + retryAfterMillis + "ms");
+        this.breaker = breaker;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getBreaker() {
+        return breaker;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
@@ -0,0 +1,175 @@
+package com.yirankuma.yrdatabase.core.resilience;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Round-robin selection over read replicas with a per-replica cooldown.
+ *
+ * <p>A replica that fails with an availability error is skipped for {@code cooldownMillis};
+ * once the cooldown has passed it is offered again and a single success clears it. When no
+ * replica is available, {@link #select()} returns null and the caller reads from the primary.</p>
+ *
+ * @param <T> Replica handle (data source, connection pool, ...)
+ * @author YiranKuma
+ */
+@Slf4j
+public class ReplicaRouter<T> {
+
+    private final String name;
+    private final List<Replica<T>> replicas;
+    private final long cooldownMillis;
+    private final LongSupplier clock;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReplicaRouter(String name, List<T> replicas, long cooldownMillis) {
+        this(name, replicas, cooldownMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clock Millisecond clock, injectable for tests
+     */
+    public ReplicaRouter(String name, List<T> replicas, long cooldownMillis, LongSupplier clock) {
+        this.name = name;
+        List<Replica<T>> wrapped = new ArrayList<>(replicas.size());
+        for (T replica : replicas) {
+            wrapped.add(new Replica<>(replica));
+        }
+        this.replicas = Collections.unmodifiableList(wrapped);
+        this.cooldownMillis = cooldownMillis;
+        this.clock = clock;
+    }
+
+    private static class Replica<T> {
+        final T target;
+        volatile long downUntil;
+
+        Replica(T target) {
+            this.target = target;
+        }
+    }
+
+    // ==================== Routing ====================
+
+    /**
+     * Pick the next available replica.
+     *
+     * @return Replica to read from, or null if none is configured or all are cooling down
+     */
+    public T select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica<T> replica = replicas.get((start + i) % size);
+            if (replica.downUntil <= now) {
+                replicaReads.increment();
+                return replica.target;
+            }
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    /**
+     * Take a replica out of rotation for the cooldown period after an availability error.
+     */
+    public void markFailed(T target) {
+        Replica<T> replica = find(target);
+        if (replica == null) {
+            return;
+        }
+        if (replica.downUntil <= clock.getAsLong()) {
+            log.warn("{} replica unavailable, routing its reads elsewhere for {}ms", name, cooldownMillis);
+        }
+        replica.downUntil = clock.getAsLong() + cooldownMillis;
+    }
+
+    /**
+     * Put a replica back into rotation after a successful read.
+     */
+    public void markHealthy(T target) {
+        Replica<T> replica = find(target);
+        if (replica != null && replica.downUntil != 0) {
+            replica.downUntil = 0;
+            log.info("{} replica recovered", name);
+        }
+    }
+
+    /**
+     * Count a read that was meant for a replica but went to the primary (e.g. the replica failed).
+     */
+    public void recordFallback() {
+        fallbacks.increment();
+    }
+
+    private Replica<T> find(T target) {
+        for (Replica<T> replica : replicas) {
+            if (replica.target == target) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // ==================== Statistics ====================
+
+    public boolean isEmpty() {
+        return replicas.isEmpty();
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    /**
+     * Replicas currently in rotation.
+     */
+    public int getHealthy() {
+        long now = clock.getAsLong();
+        int healthy = 0;
+        for (Replica<T> replica : replicas) {
+            if (replica.downUntil <= now) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * Reads routed to a replica.
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * Replica-eligible reads served by the primary instead.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * All replica handles, for shutdown.
+     */
+    public List<T> getTargets() {
+        List<T> targets = new ArrayList<>(replicas.size());
+        for (Replica<T> replica : replicas) {
+            targets.add(replica.target);
+        }
+        return targets;
+    }
+}
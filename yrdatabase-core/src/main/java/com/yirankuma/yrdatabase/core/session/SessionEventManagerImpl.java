@@ -2,21 +2,37 @@ package com.yirankuma.yrdatabase.core.session;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.event.SessionReason;
 import com.yirankuma.yrdatabase.api.provider.CacheProvider;
+import com.yirankuma.yrdatabase.api.provider.StreamEntry;
 import com.yirankuma.yrdatabase.api.session.SessionEventData;
 import com.yirankuma.yrdatabase.api.session.SessionEventListener;
 import com.yirankuma.yrdatabase.api.session.SessionManager;
+import com.yirankuma.yrdatabase.core.concurrent.StripedDispatcher;
 import lombok.extern.slf4j.Slf4j;
 
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * Core implementation of SessionManager.
- * Subscribes to Redis Pub/Sub channels and notifies registered listeners.
+ * Subscribes to Redis Pub/Sub channels (or consumes the session stream when
+ * {@code session.transport} is {@code stream}) and notifies registered listeners.
+ *
+ * <p>Listeners are invoked on a {@link StripedDispatcher} rather than on the Redis I/O thread:
+ * events for the same player are delivered in order, events for different players in parallel.</p>
  *
  * <p>This class is platform-independent and used by both Nukkit and Allay platforms.</p>
  *
@@ -30,12 +46,27 @@ public class SessionEventManagerImpl implements SessionManager {
     public static final String CHANNEL_PLAYER_QUIT = "yrdatabase:player:quit";
     public static final String CHANNEL_PLAYER_TRANSFER = "yrdatabase:player:transfer";
 
+    // Redis Stream carrying the same messages (same as Waterdog publisher)
+    public static final String SESSION_STREAM = "yrdatabase:session:stream";
+    public static final String STREAM_FIELD_CHANNEL = "channel";
+    public static final String STREAM_FIELD_DATA = "data";
+
+    private static final String OFFSET_NEW = ">";
+
     private final Supplier<CacheProvider> cacheProviderSupplier;
     private final boolean proxyMode;
+    private final DatabaseConfig.SessionConfig sessionConfig;
     private final Gson gson;
     private final List<SessionEventListener> listeners = new CopyOnWriteArrayList<>();
 
     private volatile boolean started = false;
+    private volatile StripedDispatcher dispatcher;
+
+    // Stream consumer state (only touched by the stream thread)
+    private ScheduledExecutorService streamExecutor;
+    private String streamGroup;
+    private boolean streamGroupReady = false;
+    private String streamOffset = "0";
 
     /**
      * Create a new SessionEventManager.
@@ -44,8 +75,21 @@ public class SessionEventManagerImpl implements SessionManager {
      * @param proxyMode             Whether running in proxy mode (Redis Pub/Sub) or standalone
      */
     public SessionEventManagerImpl(Supplier<CacheProvider> cacheProviderSupplier, boolean proxyMode) {
+        this(cacheProviderSupplier, proxyMode, new DatabaseConfig.SessionConfig());
+    }
+
+    /**
+     * Create a new SessionEventManager.
+     *
+     * @param cacheProviderSupplier Supplier for the cache provider (lazy loading)
+     * @param proxyMode             Whether running in proxy mode (Redis Pub/Sub) or standalone
+     * @param sessionConfig         Session configuration (transport, stream settings)
+     */
+    public SessionEventManagerImpl(Supplier<CacheProvider> cacheProviderSupplier, boolean proxyMode,
+                                   DatabaseConfig.SessionConfig sessionConfig) {
         this.cacheProviderSupplier = cacheProviderSupplier;
         this.proxyMode = proxyMode;
+        this.sessionConfig = sessionConfig;
         this.gson = new GsonBuilder().create();
     }
 
@@ -76,12 +120,20 @@ public class SessionEventManagerImpl implements SessionManager {
             return;
         }
 
+        dispatcher = new StripedDispatcher("YRDatabase-SessionEvents",
+                sessionConfig.getDispatchThreads(), sessionConfig.getDispatchQueueSize());
+        started = true;
+
         if (proxyMode) {
-            subscribeToRedisChannels();
+            if (isStreamTransport()) {
+                startStreamConsumer();
+            } else {
+                subscribeToRedisChannels();
+            }
         }
 
-        started = true;
-        log.info("SessionEventManager started (proxyMode={})", proxyMode);
+        log.info("SessionEventManager started (proxyMode={}, transport={})",
+                proxyMode, sessionConfig.getTransport());
     }
 
     @Override
@@ -90,11 +142,23 @@ public class SessionEventManagerImpl implements SessionManager {
             return;
         }
 
+        started = false;
+
         if (proxyMode) {
-            unsubscribeFromRedisChannels();
+            if (isStreamTransport()) {
+                stopStreamConsumer();
+            } else {
+                unsubscribeFromRedisChannels();
+            }
+        }
+
+        // 等待已排队的事件处理完（如 REAL_QUIT 的保存逻辑）
+        StripedDispatcher current = dispatcher;
+        dispatcher = null;
+        if (current != null) {
+            current.shutdown(5000);
         }
 
-        started = false;
         log.info("SessionEventManager stopped");
     }
 
@@ -108,8 +172,8 @@ public class SessionEventManagerImpl implements SessionManager {
                 .build();
 
         if (!proxyMode) {
-            // In standalone mode, local quit means real quit
-            notifyQuit(data);
+            // In standalone mode, local quit means real quit; delivered inline on the platform thread
+            runListeners("quit", listener -> listener.onPlayerQuit(data));
         } else {
             // In proxy mode, wait for Redis confirmation
             // This is just a local trigger, the real event comes from Redis
@@ -127,8 +191,8 @@ public class SessionEventManagerImpl implements SessionManager {
                 .build();
 
         if (!proxyMode) {
-            // In standalone mode, local join means real join
-            notifyJoin(data);
+            // In standalone mode, local join means real join; delivered inline on the platform thread
+            runListeners("join", listener -> listener.onPlayerJoin(data));
         } else {
             // In proxy mode, wait for Redis confirmation
             log.debug("Local join triggered for {} in proxy mode, waiting for Redis confirmation", playerName);
@@ -172,9 +236,227 @@ public class SessionEventManagerImpl implements SessionManager {
         log.info("Unsubscribed from Redis session channels");
     }
 
+    // ==================== Redis Stream Consumer ====================
+
+    private boolean isStreamTransport() {
+        return "stream".equalsIgnoreCase(sessionConfig.getTransport());
+    }
+
+    private void startStreamConsumer() {
+        streamGroup = resolveServerId();
+        // 先补读本消费者已投递但未确认的事件（上次崩溃/重启前未处理完的），再读取新事件
+        streamOffset = "0";
+        streamGroupReady = false;
+
+        streamExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "YRDatabase-SessionStream");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(10, sessionConfig.getStreamPollIntervalMillis());
+        streamExecutor.scheduleWithFixedDelay(this::pollStream, 0, interval, TimeUnit.MILLISECONDS);
+
+        log.info("Consuming session stream {} as group {}", SESSION_STREAM, streamGroup);
+    }
+
+    private void stopStreamConsumer() {
+        if (streamExecutor == null) {
+            return;
+        }
+        streamExecutor.shutdown();
+        try {
+            if (!streamExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                streamExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            streamExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        streamExecutor = null;
+        log.info("Stopped consuming session stream");
+    }
+
+    /**
+     * Stable per-server consumer group name. Each sub-server uses its own group so that
+     * every server receives every event, and the group survives restarts for catch-up.
+     */
+    private String resolveServerId() {
+        return resolveServerId(sessionConfig);
+    }
+
+    /**
+     * Identifier of this sub-server: {@code session.serverId}, or one derived from the host name
+     * and working directory that stays the same across restarts.
+     */
+    public static String resolveServerId(DatabaseConfig.SessionConfig sessionConfig) {
+        String serverId = sessionConfig.getServerId();
+        if (serverId != null && !serverId.isBlank()) {
+            return serverId;
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + Integer.toHexString(System.getProperty("user.dir").hashCode());
+    }
+
+    private void pollStream() {
+        CacheProvider cacheProvider = cacheProviderSupplier.get();
+        if (!started || cacheProvider == null || !cacheProvider.isConnected()) {
+            return;
+        }
+
+        try {
+            if (!streamGroupReady) {
+                if (cacheProvider.xgroupCreate(SESSION_STREAM, streamGroup).join()) {
+                    log.info("Created consumer group {} on {}", streamGroup, SESSION_STREAM);
+                }
+                streamGroupReady = true;
+            }
+
+            int batchSize = Math.max(1, sessionConfig.getStreamBatchSize());
+            int processed = 0;
+            while (started && processed < sessionConfig.getStreamCatchUpLimit()) {
+                List<StreamEntry> batch = cacheProvider.xreadGroup(
+                        SESSION_STREAM, streamGroup, streamGroup, streamOffset, batchSize).join();
+
+                if (batch.isEmpty()) {
+                    if (OFFSET_NEW.equals(streamOffset)) {
+                        break;
+                    }
+                    // 未确认的历史事件已处理完，切换为读取新事件
+                    streamOffset = OFFSET_NEW;
+                    continue;
+                }
+
+                if (!handleStreamBatch(cacheProvider, batch)) {
+                    // 有事件因队列满被拒绝：下一轮从 PEL 开头按顺序重读，本轮不再读取该玩家之后的事件
+                    streamOffset = "0";
+                    break;
+                }
+                processed += batch.size();
+
+                if (!OFFSET_NEW.equals(streamOffset)) {
+                    streamOffset = batch.get(batch.size() - 1).getId();
+                } else if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            if (String.valueOf(e.getMessage()).contains("NOGROUP")) {
+                // 流或消费组被删除（如 FLUSHDB），下一轮重新创建
+                streamGroupReady = false;
+                streamOffset = OFFSET_NEW;
+            }
+            log.warn("Failed to read session stream: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deliver a batch and acknowledge what was delivered. Once an event of a player is rejected
+     * (lane queue full), that player's later events in the batch are held back unacknowledged too,
+     * so they are re-read after it and per-player order is kept.
+     *
+     * @return False if any event was rejected
+     */
+    private boolean handleStreamBatch(CacheProvider cacheProvider, List<StreamEntry> batch) {
+        long oldestAccepted = System.currentTimeMillis() - sessionConfig.getStreamCatchUpWindowMillis();
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(batch.size());
+        Set<String> heldBack = new HashSet<>();
+
+        for (StreamEntry entry : batch) {
+            if (entry.getFields() == null) {
+                // 未确认期间已被 XTRIM 裁剪的条目：从 PEL 读回时没有内容，直接确认
+                log.debug("Skipping trimmed session stream entry {}", entry.getId());
+                deliveries.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            if (entryTime(entry.getId()) < oldestAccepted) {
+                log.debug("Skipping stale session stream entry {}", entry.getId());
+                deliveries.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+            String message = entry.getFields().get(STREAM_FIELD_DATA);
+            String playerId = playerOf(message);
+            if (playerId != null && heldBack.contains(playerId)) {
+                deliveries.add(CompletableFuture.failedFuture(
+                        new IllegalStateException("Held back behind a rejected event")));
+                continue;
+            }
+            CompletableFuture<Void> delivery = handleMessage(entry.getFields().get(STREAM_FIELD_CHANNEL), message);
+            if (playerId != null && delivery.isCompletedExceptionally()) {
+                heldBack.add(playerId);
+            }
+            deliveries.add(delivery);
+        }
+
+        // 仅确认已成功投递的事件；因队列满被拒绝的事件留在 PEL 中，下一轮从 PEL 重新读取
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
+
+        List<String> acked = new ArrayList<>(batch.size());
+        boolean anyRejected = false;
+        for (int i = 0; i < batch.size(); i++) {
+            if (deliveries.get(i).isCompletedExceptionally()) {
+                anyRejected = true;
+            } else {
+                acked.add(batch.get(i).getId());
+            }
+        }
+
+        cacheProvider.xack(SESSION_STREAM, streamGroup, acked.toArray(new String[0])).join();
+        return !anyRejected;
+    }
+
+    /**
+     * Player of a session message, or null if it cannot be parsed.
+     */
+    private String playerOf(String message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = gson.fromJson(message, Map.class);
+            Object uid = data != null ? data.get("uid") : null;
+            return uid != null ? uid.toString() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static long entryTime(String entryId) {
+        int dash = entryId.indexOf('-');
+        try {
+            return Long.parseLong(dash > 0 ? entryId.substring(0, dash) : entryId);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
     // ==================== Message Handlers ====================
 
-    private void handleJoinMessage(String message) {
+    private CompletableFuture<Void> handleMessage(String channel, String message) {
+        if (channel == null || message == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        switch (channel) {
+            case CHANNEL_PLAYER_JOIN:
+                return handleJoinMessage(message);
+            case CHANNEL_PLAYER_QUIT:
+                return handleQuitMessage(message);
+            case CHANNEL_PLAYER_TRANSFER:
+                return handleTransferMessage(message);
+            default:
+                log.debug("Ignoring session message on unknown channel: {}", channel);
+                return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private CompletableFuture<Void> handleJoinMessage(String message) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> data = gson.fromJson(message, Map.class);
@@ -191,14 +473,15 @@ public class SessionEventManagerImpl implements SessionManager {
                     .build();
 
             log.debug("Received REAL_JOIN event for player: {}", playerName);
-            notifyJoin(eventData);
+            return notifyJoin(eventData);
 
         } catch (Exception e) {
             log.error("Failed to parse join message: {}", message, e);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    private void handleQuitMessage(String message) {
+    private CompletableFuture<Void> handleQuitMessage(String message) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> data = gson.fromJson(message, Map.class);
@@ -217,14 +500,15 @@ public class SessionEventManagerImpl implements SessionManager {
                     .build();
 
             log.debug("Received REAL_QUIT event for player: {}", playerName);
-            notifyQuit(eventData);
+            return notifyQuit(eventData);
 
         } catch (Exception e) {
             log.error("Failed to parse quit message: {}", message, e);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
-    private void handleTransferMessage(String message) {
+    private CompletableFuture<Void> handleTransferMessage(String message) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, Object> data = gson.fromJson(message, Map.class);
@@ -246,45 +530,68 @@ public class SessionEventManagerImpl implements SessionManager {
 
             log.debug("Received SERVER_TRANSFER event for player: {} ({} -> {})", 
                     playerName, fromServer, toServer);
-            notifyTransfer(eventData);
+            return notifyTransfer(eventData);
 
         } catch (Exception e) {
             log.error("Failed to parse transfer message: {}", message, e);
+            return CompletableFuture.completedFuture(null);
         }
     }
 
     // ==================== Listener Notification ====================
 
-    private void notifyJoin(SessionEventData data) {
-        for (SessionEventListener listener : listeners) {
-            try {
-                listener.onPlayerJoin(data);
-            } catch (Exception e) {
-                log.error("Error in session join listener: {}", e.getMessage(), e);
-            }
-        }
+    private CompletableFuture<Void> notifyJoin(SessionEventData data) {
+        return deliver(data, "join", listener -> listener.onPlayerJoin(data));
     }
 
-    private void notifyQuit(SessionEventData data) {
-        for (SessionEventListener listener : listeners) {
-            try {
-                listener.onPlayerQuit(data);
-            } catch (Exception e) {
-                log.error("Error in session quit listener: {}", e.getMessage(), e);
-            }
+    private CompletableFuture<Void> notifyQuit(SessionEventData data) {
+        return deliver(data, "quit", listener -> listener.onPlayerQuit(data));
+    }
+
+    private CompletableFuture<Void> notifyTransfer(SessionEventData data) {
+        return deliver(data, "transfer", listener -> listener.onPlayerTransfer(data));
+    }
+
+    /**
+     * Deliver an event to all listeners on the player's dispatch lane.
+     * Falls back to the calling thread when the manager is not started.
+     */
+    private CompletableFuture<Void> deliver(SessionEventData data, String kind, Consumer<SessionEventListener> action) {
+        Runnable task = () -> runListeners(kind, action);
+
+        StripedDispatcher current = dispatcher;
+        if (current == null) {
+            task.run();
+            return CompletableFuture.completedFuture(null);
         }
+
+        CompletableFuture<Void> future = current.dispatch(data.getPlayerId(), task);
+        if (future.isCompletedExceptionally()) {
+            log.warn("Session event queue full, dropped {} event for {} ({} dropped in total)",
+                    kind, data.getPlayerName(), current.getRejected());
+        }
+        return future;
     }
 
-    private void notifyTransfer(SessionEventData data) {
+    private void runListeners(String kind, Consumer<SessionEventListener> action) {
         for (SessionEventListener listener : listeners) {
             try {
-                listener.onPlayerTransfer(data);
+                action.accept(listener);
             } catch (Exception e) {
-                log.error("Error in session transfer listener: {}", e.getMessage(), e);
+                log.error("Error in session {} listener: {}", kind, e.getMessage(), e);
             }
         }
     }
 
+    /**
+     * Get the listener dispatcher, for monitoring queue depth and overflow.
+     *
+     * @return Dispatcher, or null if not started
+     */
+    public StripedDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
     /**
      * Trigger a server shutdown event.
      * This should be called by the platform plugin when the server is shutting down.
@@ -293,6 +600,7 @@ public class SessionEventManagerImpl implements SessionManager {
      * @param playerNames     Map of player ID to player name
      */
     public void triggerServerShutdown(List<String> onlinePlayerIds, Map<String, String> playerNames) {
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>(onlinePlayerIds.size());
         for (String playerId : onlinePlayerIds) {
             String playerName = playerNames.getOrDefault(playerId, "Unknown");
             SessionEventData data = SessionEventData.builder()
@@ -302,8 +610,12 @@ public class SessionEventManagerImpl implements SessionManager {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            notifyQuit(data);
+            deliveries.add(notifyQuit(data));
         }
+        // 关服时必须等监听器处理完，之后数据库连接就会关闭
+        CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
         log.info("Triggered server shutdown events for {} players", onlinePlayerIds.size());
     }
 }
@@ -0,0 +1,33 @@
+package com.yirankuma.yrdatabase.core.spool;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * One spooled persist write.
+ *
+ * @author YiranKuma
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpoolRecord {
+    /**
+     * Monotonic sequence number, also the replay order.
+     */
+    private long seq;
+    private String table;
+    private String key;
+    /**
+     * Row to upsert, or null for a delete (tombstone).
+     */
+    private Map<String, Object> data;
+    private long timestamp;
+
+    public boolean isDelete() {
+        return data == null;
+    }
+}
@@ -0,0 +1,38 @@
+package com.yirankuma.yrdatabase.core.spool;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time statistics of a {@link WriteSpool}.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class SpoolStats {
+    /**
+     * Keys with a spooled write that has not been replayed yet.
+     */
+    private final int pendingKeys;
+
+    /**
+     * Bytes on disk not yet replayed (including superseded records).
+     */
+    private final long pendingBytes;
+    private final int segments;
+
+    private final long appended;
+    private final long replayed;
+
+    /**
+     * Records skipped on replay because a newer write for the same key was spooled later.
+     */
+    private final long superseded;
+    private final long deadLettered;
+
+    /**
+     * Records per second applied by the most recent replay batch.
+     */
+    private final double replayRate;
+}
@@ -0,0 +1,691 @@
+package com.yirankuma.yrdatabase.core.spool;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Durable local spool for persist writes that could not reach the database.
+ *
+ * <p>Records are appended to segment files ({@code segment-<id>.log}) in the spool directory,
+ * each framed as {@code [length][CRC32][JSON]} and fsynced before the append completes.
+ * A torn record at the end of the last segment (crash during a write) is truncated on
+ * startup; a corrupt record elsewhere skips the rest of its segment.</p>
+ *
+ * <p>Replay reads records oldest first in batches. Only the latest record per table/key is
+ * applied, older ones are skipped as superseded. After a batch has been applied the replay
+ * position is checkpointed ({@code checkpoint}, written atomically), and only then are the
+ * keys released, so callers keep routing writes for a key through the spool until its
+ * latest record is durably replayed. This keeps per-key ordering across crashes.</p>
+ *
+ * <p>A record that keeps failing while the database is available is moved to
+ * {@code dead-letter.log} after a few attempts so it cannot block the spool, even if it is
+ * the only record left or every record of its batch fails.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class WriteSpool {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String DEAD_LETTER_FILE = "dead-letter.log";
+    // 记录头：payload 长度 + CRC32
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    // 数据库可用时单条记录的最大失败次数，且持续失败超过下面的时长才转入 dead-letter
+    // （例如表尚未由 Repository 创建时，需要给插件留出时间）
+    private static final int MAX_REPLAY_ATTEMPTS = 5;
+    private static final long DEAD_LETTER_AFTER_MILLIS = 10 * 60 * 1000;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final boolean fsync;
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+    // 所有文件操作都在这个单线程上执行，提交顺序即写入顺序
+    private final ExecutorService io;
+
+    // 每个 table/key 最新的一条记录；回放时只应用最新的
+    private final Map<String, SpoolRecord> latest = new ConcurrentHashMap<>();
+    private final Map<Long, Attempts> attempts = new ConcurrentHashMap<>();
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final Object appendLock = new Object();
+    private long nextSeq = 1;
+    private volatile boolean closed;
+
+    // 以下字段只在 io 线程（或 open 期间）访问
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileChannel active;
+    private long activeId;
+    private long replaySegment;
+    private long replayOffset;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder superseded = new LongAdder();
+    private final LongAdder deadLettered = new LongAdder();
+    private volatile long pendingBytes;
+    private volatile int segmentCount;
+    private volatile double replayRate;
+
+    public WriteSpool(Path directory, DatabaseConfig.PersistConfig.SpoolConfig config) {
+        this.directory = directory;
+        this.maxSegmentBytes = Math.max(4096, config.getMaxSegmentBytes());
+        this.fsync = config.isFsync();
+        this.io = Executors.newSingleThreadExecutor(BlockingExecutor.platformThreadFactory("YRDatabase-Spool"));
+    }
+
+    private static final class Entry {
+        static final Entry CORRUPT = new Entry(null, -1);
+
+        final SpoolRecord record;
+        final long next;
+
+        Entry(SpoolRecord record, long next) {
+            this.record = record;
+            this.next = next;
+        }
+    }
+
+    private static final class Attempts {
+        final long firstFailure = System.currentTimeMillis();
+        int count;
+    }
+
+    private static final class Batch {
+        final List<SpoolRecord> records = new ArrayList<>();
+        long endSegment;
+        long endOffset;
+    }
+
+    // ==================== Recovery ====================
+
+    /**
+     * Open the spool: load segments left by a previous run and rebuild the per-key index.
+     * Must be called once before any other method.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                Long id = segmentId(path);
+                if (id != null) {
+                    segments.put(id, path);
+                }
+            }
+        }
+
+        long[] checkpoint = readCheckpoint();
+        if (checkpoint != null) {
+            replaySegment = checkpoint[0];
+            replayOffset = checkpoint[1];
+        } else {
+            replaySegment = segments.isEmpty() ? 0 : segments.firstKey();
+            replayOffset = 0;
+        }
+
+        // 已回放完的旧段
+        Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> segment = it.next();
+            if (segment.getKey() < replaySegment) {
+                Files.deleteIfExists(segment.getValue());
+                it.remove();
+            }
+        }
+        if (!segments.isEmpty() && segments.firstKey() > replaySegment) {
+            replaySegment = segments.firstKey();
+            replayOffset = 0;
+        }
+
+        long maxSeq = 0;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            boolean last = segment.getKey().equals(segments.lastKey());
+            long position = segment.getKey() == replaySegment ? replayOffset : 0;
+            try (FileChannel channel = FileChannel.open(segment.getValue(),
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                while (true) {
+                    Entry entry = readRecord(channel, position);
+                    if (entry == null) {
+                        break;
+                    }
+                    if (entry.record == null) {
+                        if (last) {
+                            log.warn("Truncating incomplete spool record in {} at offset {}", segment.getValue(), position);
+                            channel.truncate(position);
+                            if (fsync) {
+                                channel.force(true);
+                            }
+                        } else {
+                            log.error("Corrupt spool record in {} at offset {}, skipping the rest of the segment",
+                                    segment.getValue(), position);
+                        }
+                        break;
+                    }
+                    latest.put(recordKey(entry.record.getTable(), entry.record.getKey()), entry.record);
+                    maxSeq = Math.max(maxSeq, entry.record.getSeq());
+                    position = entry.next;
+                }
+            }
+        }
+        nextSeq = maxSeq + 1;
+
+        if (segments.isEmpty()) {
+            openSegment(replaySegment);
+        } else {
+            activeId = segments.lastKey();
+            active = FileChannel.open(segments.get(activeId), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        updateDepth();
+
+        if (!latest.isEmpty()) {
+            log.warn("Write spool contains {} unreplayed keys ({} bytes), they will be replayed when the database is available",
+                    latest.size(), pendingBytes);
+        }
+    }
+
+    private static Long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+    private void openSegment(long id) throws IOException {
+        Path path = segmentPath(id);
+        active = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeId = id;
+        segments.put(id, path);
+    }
+
+    // ==================== Append ====================
+
+    /**
+     * Spool a write. The record is the key's latest as soon as this method returns, so
+     * {@link #contains} and {@link #lookup} see it immediately.
+     *
+     * @param table Table name
+     * @param key   Primary key
+     * @param data  Row to upsert, or null to spool a delete
+     * @return Future completing once the record is on disk (fsynced if enabled)
+     */
+    public CompletableFuture<Void> append(String table, String key, Map<String, Object> data) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write spool is closed"));
+        }
+        String id = recordKey(table, key);
+        synchronized (appendLock) {
+            SpoolRecord record = new SpoolRecord(nextSeq++, table, key,
+                    data != null ? new LinkedHashMap<>(data) : null, System.currentTimeMillis());
+            SpoolRecord previous = latest.put(id, record);
+            CompletableFuture<Void> written;
+            try {
+                // 在锁内提交，保证文件中的顺序与 seq 一致
+                written = CompletableFuture.runAsync(() -> write(record), io);
+            } catch (RejectedExecutionException e) {
+                written = CompletableFuture.failedFuture(e);
+            }
+            return written.whenComplete((v, e) -> {
+                if (e != null) {
+                    log.error("Failed to spool write for {}/{}: {}", table, key, e.getMessage());
+                    latest.compute(id, (k, current) -> current == record ? previous : current);
+                }
+            });
+        }
+    }
+
+    private void write(SpoolRecord record) {
+        byte[] payload = gson.toJson(record).getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        long before = -1;
+        try {
+            if (active.size() > 0 && active.size() + buffer.remaining() > maxSegmentBytes) {
+                roll();
+            }
+            before = active.size();
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            if (fsync) {
+                active.force(false);
+            }
+            appended.increment();
+            updateDepth();
+        } catch (IOException e) {
+            // 去掉写了一半的记录，否则后续追加的记录都无法读取
+            if (before >= 0) {
+                try {
+                    active.truncate(before);
+                } catch (IOException ignored) {
+                    // 下次启动时按不完整记录截断
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void roll() throws IOException {
+        active.close();
+        openSegment(activeId + 1);
+    }
+
+    // ==================== Lookup ====================
+
+    /**
+     * Whether the key has a spooled write that has not been replayed yet.
+     * Writes for such keys must be spooled too, to keep them in order.
+     */
+    public boolean contains(String table, String key) {
+        return latest.containsKey(recordKey(table, key));
+    }
+
+    /**
+     * Latest spooled write for the key (its data is newer than the database's).
+     */
+    public Optional<SpoolRecord> lookup(String table, String key) {
+        return Optional.ofNullable(latest.get(recordKey(table, key)));
+    }
+
+    public boolean isEmpty() {
+        return latest.isEmpty();
+    }
+
+    // ==================== Replay ====================
+
+    /**
+     * Replay one batch, oldest first, counting every failure towards dead-lettering.
+     *
+     * @see #replay(Function, int, BooleanSupplier)
+     */
+    public CompletableFuture<Integer> replay(Function<SpoolRecord, CompletableFuture<Boolean>> writer, int batchSize) {
+        return replay(writer, batchSize, () -> true);
+    }
+
+    /**
+     * Replay one batch, oldest first. Does nothing if a replay is already running.
+     *
+     * @param writer    Applies a record to the database; true on success
+     * @param batchSize Maximum records read per batch
+     * @param available Whether the database is currently reachable; a failure only counts as
+     *                  an attempt towards dead-lettering while this returns true
+     * @return Number of records consumed (applied, superseded or dead-lettered);
+     *         0 if nothing was left or the batch has to be retried
+     */
+    public CompletableFuture<Integer> replay(Function<SpoolRecord, CompletableFuture<Boolean>> writer, int batchSize,
+                                             BooleanSupplier available) {
+        if (closed || latest.isEmpty() || !replaying.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Integer> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> readBatch(Math.max(1, batchSize)), io)
+                    .thenCompose(batch -> apply(batch, writer)
+                            .thenApplyAsync(outcomes -> commit(batch, outcomes, available, start), io));
+        } catch (RejectedExecutionException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((consumed, e) -> {
+            replaying.set(false);
+            if (e != null) {
+                log.warn("Spool replay failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    private Batch readBatch(int batchSize) {
+        Batch batch = new Batch();
+        long segment = replaySegment;
+        long position = replayOffset;
+        FileChannel reader = null;
+        long readerSegment = -1;
+        try {
+            while (batch.records.size() < batchSize) {
+                Path path = segments.get(segment);
+                if (path == null) {
+                    Long next = segments.higherKey(segment);
+                    if (next == null) {
+                        break;
+                    }
+                    segment = next;
+                    position = 0;
+                    continue;
+                }
+                if (readerSegment != segment) {
+                    if (reader != null) {
+                        reader.close();
+                    }
+                    reader = FileChannel.open(path, StandardOpenOption.READ);
+                    readerSegment = segment;
+                }
+
+                Entry entry = readRecord(reader, position);
+                if (entry == null || entry.record == null) {
+                    if (entry != null) {
+                        log.error("Corrupt spool record in {} at offset {}, skipping the rest of the segment", path, position);
+                    }
+                    Long next = segments.higherKey(segment);
+                    if (segment == activeId || next == null) {
+                        // 已追上写入位置
+                        break;
+                    }
+                    segment = next;
+                    position = 0;
+                    continue;
+                }
+                batch.records.add(entry.record);
+                position = entry.next;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                    // read-only channel
+                }
+            }
+        }
+        batch.endSegment = segment;
+        batch.endOffset = position;
+        return batch;
+    }
+
+    private CompletableFuture<Map<SpoolRecord, Boolean>> apply(Batch batch,
+                                                               Function<SpoolRecord, CompletableFuture<Boolean>> writer) {
+        Map<SpoolRecord, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (SpoolRecord record : batch.records) {
+            if (!isLatest(record)) {
+                continue;
+            }
+            CompletableFuture<Boolean> future;
+            try {
+                future = writer.apply(record).exceptionally(e -> false);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.completedFuture(false);
+            }
+            futures.put(record, future);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<SpoolRecord, Boolean> outcomes = new LinkedHashMap<>();
+            futures.forEach((record, future) -> outcomes.put(record, Boolean.TRUE.equals(future.join())));
+            return outcomes;
+        });
+    }
+
+    private int commit(Batch batch, Map<SpoolRecord, Boolean> outcomes, BooleanSupplier available, long startNanos) {
+        // 失败后数据库仍可用，说明是记录本身的问题；整批都失败也要计数，否则单条坏记录会永远卡住回放
+        boolean countAttempts = outcomes.containsValue(false) && available.getAsBoolean();
+        List<SpoolRecord> dead = new ArrayList<>();
+        boolean retry = false;
+        for (Map.Entry<SpoolRecord, Boolean> outcome : outcomes.entrySet()) {
+            if (outcome.getValue()) {
+                continue;
+            }
+            SpoolRecord record = outcome.getKey();
+            if (countAttempts && isPoisoned(record)) {
+                dead.add(record);
+            } else {
+                retry = true;
+            }
+        }
+        if (retry) {
+            // 不推进位置：成功的记录仍是最新，下次重放是幂等的
+            return 0;
+        }
+
+        try {
+            for (SpoolRecord record : dead) {
+                deadLetter(record);
+            }
+            writeCheckpoint(batch.endSegment, batch.endOffset);
+            replaySegment = batch.endSegment;
+            replayOffset = batch.endOffset;
+
+            // 检查点写入后才释放 key，之后的写入可以直接落库
+            int applied = 0;
+            for (SpoolRecord record : batch.records) {
+                if (outcomes.containsKey(record)) {
+                    // 从文件读出的记录与内存中的不是同一对象，按 seq 比较
+                    latest.computeIfPresent(recordKey(record.getTable(), record.getKey()),
+                            (k, current) -> current.getSeq() == record.getSeq() ? null : current);
+                    attempts.remove(record.getSeq());
+                    if (!dead.contains(record)) {
+                        applied++;
+                    }
+                } else {
+                    superseded.increment();
+                }
+            }
+            replayed.add(applied);
+            deadLettered.add(dead.size());
+            double seconds = Math.max(1e-9, (System.nanoTime() - startNanos) / 1_000_000_000.0);
+            replayRate = applied / seconds;
+
+            deleteReplayedSegments();
+            updateDepth();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return batch.records.size();
+    }
+
+    private boolean isPoisoned(SpoolRecord record) {
+        Attempts failed = attempts.computeIfAbsent(record.getSeq(), seq -> new Attempts());
+        failed.count++;
+        return failed.count >= MAX_REPLAY_ATTEMPTS
+                && System.currentTimeMillis() - failed.firstFailure >= DEAD_LETTER_AFTER_MILLIS;
+    }
+
+    private boolean isLatest(SpoolRecord record) {
+        SpoolRecord current = latest.get(recordKey(record.getTable(), record.getKey()));
+        return current != null && current.getSeq() == record.getSeq();
+    }
+
+    private void deleteReplayedSegments() throws IOException {
+        Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Path> segment = it.next();
+            if (segment.getKey() >= replaySegment || segment.getKey() == activeId) {
+                break;
+            }
+            Files.deleteIfExists(segment.getValue());
+            it.remove();
+        }
+
+        // 全部回放完：换一个新段，删除旧文件。新追加都排在本任务之后，所以此处是安全的
+        if (latest.isEmpty() && replaySegment == activeId && replayOffset > 0 && replayOffset == active.size()) {
+            Path drained = segments.get(activeId);
+            roll();
+            writeCheckpoint(activeId, 0);
+            replaySegment = activeId;
+            replayOffset = 0;
+            segments.remove(activeId - 1);
+            Files.deleteIfExists(drained);
+        }
+    }
+
+    private void deadLetter(SpoolRecord record) throws IOException {
+        log.error("Spooled write for {}/{} kept failing while the database was available, moved to {}",
+                record.getTable(), record.getKey(), DEAD_LETTER_FILE);
+        byte[] line = (gson.toJson(record) + "\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(directory.resolve(DEAD_LETTER_FILE), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    // ==================== File Format ====================
+
+    /**
+     * Read one record.
+     *
+     * @return null at a clean end of file, {@link Entry#CORRUPT} for a torn or corrupt record
+     */
+    private Entry readRecord(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position >= size) {
+            return null;
+        }
+        if (size - position < HEADER_BYTES) {
+            return Entry.CORRUPT;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (!readFully(channel, header, position)) {
+            return Entry.CORRUPT;
+        }
+        int length = header.getInt(0);
+        int crc = header.getInt(4);
+        if (length <= 0 || length > MAX_RECORD_BYTES || size - position - HEADER_BYTES < length) {
+            return Entry.CORRUPT;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (!readFully(channel, payload, position + HEADER_BYTES)) {
+            return Entry.CORRUPT;
+        }
+        CRC32 check = new CRC32();
+        check.update(payload.array(), 0, length);
+        if ((int) check.getValue() != crc) {
+            return Entry.CORRUPT;
+        }
+        SpoolRecord record;
+        try {
+            record = gson.fromJson(new String(payload.array(), 0, length, StandardCharsets.UTF_8), SpoolRecord.class);
+        } catch (JsonParseException e) {
+            return Entry.CORRUPT;
+        }
+        if (record == null || record.getTable() == null || record.getKey() == null) {
+            return Entry.CORRUPT;
+        }
+        return new Entry(record, position + HEADER_BYTES + length);
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long[] readCheckpoint() {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String[] parts = Files.readString(path, StandardCharsets.UTF_8).trim().split("\\s+");
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IOException | RuntimeException e) {
+            // 检查点损坏时从头回放：重复应用同一最新值是幂等的
+            log.warn("Invalid spool checkpoint, replaying from the first segment: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(long segment, long offset) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap((segment + " " + offset).getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(true);
+            }
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String recordKey(String table, String key) {
+        return table + ":" + key;
+    }
+
+    // ==================== Statistics ====================
+
+    private void updateDepth() throws IOException {
+        long bytes = 0;
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            long size = segment.getKey() == activeId ? active.size() : Files.size(segment.getValue());
+            if (segment.getKey() == replaySegment) {
+                size -= Math.min(size, replayOffset);
+            }
+            bytes += size;
+        }
+        pendingBytes = bytes;
+        segmentCount = segments.size();
+    }
+
+    public SpoolStats getStats() {
+        return SpoolStats.builder()
+                .pendingKeys(latest.size())
+                .pendingBytes(pendingBytes)
+                .segments(segmentCount)
+                .appended(appended.sum())
+                .replayed(replayed.sum())
+                .superseded(superseded.sum())
+                .deadLettered(deadLettered.sum())
+                .replayRate(replayRate)
+                .build();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Finish pending appends and close the active segment. Unreplayed records stay on disk.
+     */
+    public void close() {
+        closed = true;
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Write spool did not finish pending appends in time");
+                io.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (active != null) {
+                active.close();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close spool segment: {}", e.getMessage());
+        }
+    }
+}
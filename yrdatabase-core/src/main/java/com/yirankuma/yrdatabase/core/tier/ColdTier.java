@@ -0,0 +1,611 @@
+package com.yirankuma.yrdatabase.core.tier;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.core.EntityMapper;
+import com.yirankuma.yrdatabase.core.cache.KeyLayout;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import com.yirankuma.yrdatabase.core.provider.sharded.ShardedPersistProvider;
+import com.yirankuma.yrdatabase.core.transfer.RowCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves rows that have not been read or written for {@code inactiveDays} out of hot tables.
+ *
+ * <p>Reads and writes {@link #touch touch} their key; touched keys are written in batches to
+ * {@code <table>_access (id, accessed_at)}, so the access time costs one batch upsert per table
+ * per {@code accessFlushSeconds}, not one write per read. Rows that existed before tiering was
+ * enabled get the time of the first pass as their access time.</p>
+ *
+ * <p>An {@link #archive() archive pass} (one server at a time, on its own thread) selects rows
+ * whose access time is older than the cutoff and skips those still cached in Redis. Each batch is
+ * then moved in one transaction: the rows are re-read with their access time re-checked (locked
+ * with {@code FOR UPDATE} on MySQL, under {@code BEGIN IMMEDIATE} on SQLite), written
+ * gzip-compressed into {@code <table>_archive (id, data, archived_at)} and deleted from the hot
+ * table, so the archive holds exactly the rows that were deleted and a row touched or written
+ * meanwhile stays hot. A key missing from the hot table is {@link #restore restored} from the
+ * archive table: one extra primary-key lookup, paid only on a hot-table miss.</p>
+ *
+ * <p>Access and archive tables share the hot table's {@code id} column, so a sharded persist
+ * layer keeps them on the same shard as the row. Queries other than by key (repository
+ * {@code findAll}, {@code select}) only see hot rows.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class ColdTier {
+
+    public static final String ACCESS_SUFFIX = "_access";
+    public static final String ARCHIVE_SUFFIX = "_archive";
+
+    private static final String KEY_COLUMN = "id";
+    private static final String LOCK_KEY = "yrdatabase:lock:tiering";
+    // 归档可能持续较久，锁的自动过期时间需覆盖整轮扫描
+    private static final long LOCK_TTL_SECONDS = 600;
+
+    private final Supplier<PersistProvider> persistSupplier;
+    private final Supplier<RedisProvider> redisSupplier;
+    private final KeyLayout keyLayout;
+    private final Set<String> tables;
+    private final long inactiveMillis;
+    private final int batchSize;
+    private final ExecutorService worker;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // 已访问、尚未写入访问表的 key：表 → key
+    private final Map<String, Set<String>> touched = new ConcurrentHashMap<>();
+    // 已建好访问表与归档表的热表
+    private final Set<String> prepared = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private volatile long lastPassAt;
+    private volatile long lastPassArchived;
+
+    public ColdTier(Supplier<PersistProvider> persistSupplier, Supplier<RedisProvider> redisSupplier,
+                    KeyLayout keyLayout, DatabaseConfig.PersistConfig.TieringConfig config) {
+        this.persistSupplier = persistSupplier;
+        this.redisSupplier = redisSupplier;
+        this.keyLayout = keyLayout;
+        this.tables = Collections.unmodifiableSet(new LinkedHashSet<>(config.getTables()));
+        this.inactiveMillis = TimeUnit.DAYS.toMillis(Math.max(1, config.getInactiveDays()));
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.worker = Executors.newSingleThreadExecutor(BlockingExecutor.platformThreadFactory("YRDatabase-Tiering"));
+    }
+
+    public static String accessTable(String table) {
+        return table + ACCESS_SUFFIX;
+    }
+
+    public static String archiveTable(String table) {
+        return table + ARCHIVE_SUFFIX;
+    }
+
+    public boolean isTiered(String table) {
+        return tables.contains(table);
+    }
+
+    /**
+     * Archive table holding cold rows of {@code table}, or null if the table is not tiered.
+     */
+    public String archiveTableOf(String table) {
+        return isTiered(table) ? archiveTable(table) : null;
+    }
+
+    // ==================== Access Tracking ====================
+
+    /**
+     * Record a read or write of a key; written to the access table with the next flush.
+     */
+    public void touch(String table, String key) {
+        if (isTiered(table)) {
+            touched.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    /**
+     * Write the access time of every key touched since the last flush, one batch per table.
+     */
+    public CompletableFuture<Void> flushAccess() {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null || !persist.isConnected()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long now = System.currentTimeMillis();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String table : new ArrayList<>(touched.keySet())) {
+            Set<String> keys = touched.remove(table);
+            if (keys == null || keys.isEmpty()) {
+                continue;
+            }
+            futures.add(prepare(persist, table)
+                    .thenCompose(ready -> ready
+                            ? writeAccess(persist, table, keys, now)
+                            : CompletableFuture.completedFuture(false))
+                    .handle((ok, e) -> {
+                        if (e != null || !ok) {
+                            // 失败或热表尚未建立时放回，下次再写
+                            touched.computeIfAbsent(table, t -> ConcurrentHashMap.newKeySet()).addAll(keys);
+                            if (e != null) {
+                                log.warn("Failed to write access times of {}: {}", table, e.getMessage());
+                            }
+                        }
+                        return null;
+                    }));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Boolean> writeAccess(PersistProvider persist, String table, Set<String> keys, long now) {
+        List<CompletableFuture<Boolean>> batches = new ArrayList<>();
+        List<Map<String, Object>> rows = new ArrayList<>(Math.min(keys.size(), batchSize));
+        for (String key : keys) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(KEY_COLUMN, key);
+            row.put("accessed_at", now);
+            rows.add(row);
+            if (rows.size() >= batchSize) {
+                batches.add(persist.batchUpsert(accessTable(table), rows, KEY_COLUMN));
+                rows = new ArrayList<>(batchSize);
+            }
+        }
+        if (!rows.isEmpty()) {
+            batches.add(persist.batchUpsert(accessTable(table), rows, KEY_COLUMN));
+        }
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture[0]))
+                .thenApply(v -> batches.stream().allMatch(CompletableFuture::join));
+    }
+
+    /**
+     * Create the access and archive tables of a hot table, with its {@code id} column type.
+     *
+     * @return False if the hot table does not exist yet
+     */
+    private CompletableFuture<Boolean> prepare(PersistProvider persist, String table) {
+        if (prepared.contains(table)) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return persist.describeTable(table).thenCompose(schema -> {
+            String idType = schema.get(KEY_COLUMN);
+            if (idType == null) {
+                log.debug("Tiered table {} has no '{}' column yet", table, KEY_COLUMN);
+                return CompletableFuture.completedFuture(false);
+            }
+            Map<String, String> accessSchema = new LinkedHashMap<>();
+            accessSchema.put(KEY_COLUMN, idType);
+            accessSchema.put("accessed_at", "BIGINT");
+            Map<String, String> archiveSchema = new LinkedHashMap<>();
+            archiveSchema.put(KEY_COLUMN, idType);
+            archiveSchema.put("data", "LONGBLOB");
+            archiveSchema.put("archived_at", "BIGINT");
+            return persist.createTable(accessTable(table), accessSchema)
+                    .thenCompose(ok -> persist.createIndex(accessTable(table),
+                            EntityMapper.indexName(table, "accessed_at"), List.of("accessed_at"), false))
+                    .thenCompose(ok -> persist.createTable(archiveTable(table), archiveSchema))
+                    .thenApply(ok -> {
+                        if (ok) {
+                            prepared.add(table);
+                        }
+                        return ok;
+                    });
+        });
+    }
+
+    // ==================== Restore ====================
+
+    /**
+     * Move an archived row back into its hot table.
+     *
+     * @return The row, or empty if the key is not archived either
+     */
+    public CompletableFuture<Optional<Map<String, Object>>> restore(String table, String key) {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return persist.query(archiveTable(table), Map.of(KEY_COLUMN, key)).thenCompose(rows -> {
+            if (rows.isEmpty()) {
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+            Map<String, Object> row = decompress(rows.get(0).get("data"));
+            // insert 而不是 upsert：其他子服已恢复并写入新数据时，不能用归档中的旧数据覆盖
+            return persist.insert(table, row)
+                    .exceptionally(e -> false)
+                    .thenCompose(inserted -> inserted
+                            ? finishRestore(persist, table, key, row)
+                            : alreadyRestored(persist, table, key));
+        });
+    }
+
+    private CompletableFuture<Optional<Map<String, Object>>> finishRestore(PersistProvider persist, String table,
+                                                                          String key, Map<String, Object> row) {
+        restored.increment();
+        touch(table, key);
+        return persist.deleteWhere(archiveTable(table), Map.of(KEY_COLUMN, key))
+                .thenApply(count -> Optional.of(row));
+    }
+
+    private CompletableFuture<Optional<Map<String, Object>>> alreadyRestored(PersistProvider persist, String table,
+                                                                            String key) {
+        return persist.query(table, Map.of(KEY_COLUMN, key)).thenApply(hot -> {
+            if (hot.isEmpty()) {
+                // 插入失败且热表中也没有：不能当作不存在处理（否则会写入不存在标记）
+                throw new IllegalStateException("Failed to restore " + table + "/" + key + " from the archive");
+            }
+            return Optional.of(hot.get(0));
+        });
+    }
+
+    /**
+     * Restore whichever of {@code keys} are archived, with one lookup for the whole batch.
+     * Used before partial writes (counter increments) that would otherwise create a new row
+     * next to the archived one.
+     */
+    public CompletableFuture<Void> restoreAll(String table, Collection<String> keys) {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null || keys.isEmpty() || !isTiered(table)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String in = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        return persist.executeQuery("SELECT `id` FROM `" + archiveTable(table) + "` WHERE `id` IN (" + in + ")",
+                keys.toArray()).thenCompose(rows -> {
+            List<CompletableFuture<Optional<Map<String, Object>>>> restores = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                restores.add(restore(table, String.valueOf(row.get(KEY_COLUMN))));
+            }
+            return CompletableFuture.allOf(restores.toArray(new CompletableFuture[0]));
+        });
+    }
+
+    /**
+     * Whether a key is held in the archive table.
+     */
+    public CompletableFuture<Boolean> isArchived(String table, String key) {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return persist.count(archiveTable(table), Map.of(KEY_COLUMN, key)).thenApply(count -> count > 0);
+    }
+
+    /**
+     * Drop the archived copy and access time of a deleted key.
+     */
+    public CompletableFuture<Void> forget(String table, String key) {
+        PersistProvider persist = persistSupplier.get();
+        Set<String> keys = touched.get(table);
+        if (keys != null) {
+            keys.remove(key);
+        }
+        if (persist == null || !prepared.contains(table)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(
+                persist.deleteWhere(archiveTable(table), Map.of(KEY_COLUMN, key)),
+                persist.deleteWhere(accessTable(table), Map.of(KEY_COLUMN, key)));
+    }
+
+    // ==================== Archive ====================
+
+    /**
+     * Start an archive pass on the tiering thread unless one is running.
+     *
+     * @return Rows archived by this pass (0 if another pass or server is already archiving)
+     */
+    public CompletableFuture<Long> archive() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        try {
+            return CompletableFuture.supplyAsync(this::archiveAll, worker)
+                    .whenComplete((count, e) -> {
+                        running.set(false);
+                        if (e != null) {
+                            log.error("Archive pass failed: {}", e.getMessage());
+                        }
+                    });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            return CompletableFuture.completedFuture(0L);
+        }
+    }
+
+    private long archiveAll() {
+        PersistProvider persist = persistSupplier.get();
+        if (persist == null || !persist.isConnected()) {
+            return 0L;
+        }
+        // 多个子服只需一个执行
+        RedisProvider redis = redisSupplier.get();
+        boolean locked = false;
+        if (redis != null && redis.isConnected()) {
+            if (!redis.setNxEx(LOCK_KEY, "1", Duration.ofSeconds(LOCK_TTL_SECONDS)).join()) {
+                return 0L;
+            }
+            locked = true;
+        }
+
+        long start = System.currentTimeMillis();
+        long cutoff = start - inactiveMillis;
+        long total = 0;
+        try {
+            // 先写入本服的访问时间，刚访问过的行不会被归档
+            flushAccess().join();
+            for (String table : tables) {
+                try {
+                    total += archiveTable(persist, redis, table, cutoff);
+                } catch (Exception e) {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.warn("Archiving inactive rows of {} failed: {}", table, cause.getMessage());
+                }
+            }
+        } finally {
+            if (locked) {
+                redis.delete(LOCK_KEY);
+            }
+        }
+
+        lastPassAt = System.currentTimeMillis();
+        lastPassArchived = total;
+        if (total > 0) {
+            log.info("Archived {} inactive rows in {}ms", total, lastPassAt - start);
+        }
+        return total;
+    }
+
+    private long archiveTable(PersistProvider persist, RedisProvider redis, String table, long cutoff) {
+        if (!prepare(persist, table).join()) {
+            return 0;
+        }
+        String hot = "`" + table + "`";
+        String access = "`" + accessTable(table) + "`";
+
+        // 启用分层前已有的行没有访问时间，从本轮开始计时；分批补齐，避免一次插入锁住整张表
+        long now = System.currentTimeMillis();
+        int seeded;
+        do {
+            seeded = persist.executeUpdate("INSERT INTO " + access + " (`id`, `accessed_at`) SELECT t.`id`, ? FROM "
+                    + hot + " t LEFT JOIN " + access + " a ON a.`id` = t.`id` WHERE a.`id` IS NULL LIMIT ?",
+                    now, batchSize).join();
+        } while (seeded > 0);
+
+        long moved = 0;
+        while (true) {
+            // 按 accessed_at 过滤需要扫描访问表，按批量读取执行
+            List<Map<String, Object>> rows = persist.executeBulkQuery("SELECT t.`id` FROM " + hot + " t JOIN " + access
+                    + " a ON a.`id` = t.`id` WHERE a.`accessed_at` < ? LIMIT ?", cutoff, batchSize).join();
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            List<Map<String, Object>> cold = withoutCached(persist, redis, table, rows);
+            if (!cold.isEmpty()) {
+                List<Object> ids = new ArrayList<>(cold.size());
+                for (Map<String, Object> row : cold) {
+                    ids.add(row.get(KEY_COLUMN));
+                }
+                int count = moveBatch(persist, table, ids, cutoff);
+                moved += count;
+                archived.add(count);
+                if (count == 0 && cold.size() == rows.size()) {
+                    // 一行都没有删除，继续只会重复同一批
+                    return moved;
+                }
+            }
+            if (rows.size() < batchSize) {
+                return moved;
+            }
+        }
+    }
+
+    /**
+     * Drop rows that are cached in Redis or touched on this server; their access time is
+     * refreshed so the next page does not select them again.
+     */
+    private List<Map<String, Object>> withoutCached(PersistProvider persist, RedisProvider redis, String table,
+                                                    List<Map<String, Object>> rows) {
+        Set<String> active = new LinkedHashSet<>();
+        Set<String> local = touched.get(table);
+        List<String> cacheKeys = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            String key = String.valueOf(row.get(KEY_COLUMN));
+            if (local != null && local.contains(key)) {
+                active.add(key);
+            }
+            cacheKeys.add(keyLayout.cacheKey(table, key));
+        }
+        if (redis != null && redis.isConnected()) {
+            Map<String, String> cached = redis.mget(cacheKeys).join();
+            for (Map<String, Object> row : rows) {
+                String key = String.valueOf(row.get(KEY_COLUMN));
+                if (cached.containsKey(keyLayout.cacheKey(table, key))) {
+                    active.add(key);
+                }
+            }
+        }
+        if (active.isEmpty()) {
+            return rows;
+        }
+        writeAccess(persist, table, active, System.currentTimeMillis()).join();
+        List<Map<String, Object>> cold = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            if (!active.contains(String.valueOf(row.get(KEY_COLUMN)))) {
+                cold.add(row);
+            }
+        }
+        return cold;
+    }
+
+    /**
+     * Move the still-inactive rows among {@code ids} into the archive table in one transaction.
+     * Transactions cannot span shards, so a sharded persist layer runs one per shard; each shard
+     * only finds the rows it holds.
+     */
+    private int moveBatch(PersistProvider persist, String table, List<Object> ids, long cutoff) {
+        List<PersistProvider> targets = persist instanceof ShardedPersistProvider
+                ? ((ShardedPersistProvider) persist).getShards()
+                : List.of(persist);
+        int moved = 0;
+        for (PersistProvider target : targets) {
+            moved += target.transaction(conn -> {
+                try {
+                    return moveLocked(conn, table, ids, cutoff);
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Failed to archive rows of " + table, e);
+                }
+            }).join();
+        }
+        return moved;
+    }
+
+    private int moveLocked(Connection conn, String table, List<Object> ids, long cutoff) throws SQLException {
+        String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        // SQLite 由 BEGIN IMMEDIATE 取得写锁；MySQL 锁住热表与访问表中的行，期间的读写会等待本事务结束
+        boolean sqlite = "SQLite".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+        List<Object> params = new ArrayList<>(ids);
+        params.add(cutoff);
+        List<Map<String, Object>> rows = readRows(conn, "SELECT t.* FROM `" + table + "` t JOIN `" + accessTable(table)
+                + "` a ON a.`id` = t.`id` WHERE t.`id` IN (" + in + ") AND a.`accessed_at` < ?"
+                + (sqlite ? "" : " FOR UPDATE"), params.toArray());
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // 只归档并删除重新读到的行
+        long now = System.currentTimeMillis();
+        List<Object> locked = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            locked.add(row.get(KEY_COLUMN));
+        }
+        String lockedIn = String.join(", ", Collections.nCopies(locked.size(), "?"));
+        Object[] lockedIds = locked.toArray();
+        update(conn, "DELETE FROM `" + archiveTable(table) + "` WHERE `id` IN (" + lockedIn + ")", lockedIds);
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO `" + archiveTable(table)
+                + "` (`id`, `data`, `archived_at`) VALUES (?, ?, ?)")) {
+            for (Map<String, Object> row : rows) {
+                stmt.setObject(1, row.get(KEY_COLUMN));
+                stmt.setBytes(2, compress(row));
+                stmt.setLong(3, now);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+        int deleted = update(conn, "DELETE FROM `" + table + "` WHERE `id` IN (" + lockedIn + ")", lockedIds);
+        update(conn, "DELETE FROM `" + accessTable(table) + "` WHERE `id` IN (" + lockedIn + ")", lockedIds);
+        return deleted;
+    }
+
+    private static List<Map<String, Object>> readRows(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Map<String, Object>> rows = new ArrayList<>();
+                ResultSetMetaData meta = rs.getMetaData();
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        row.put(meta.getColumnLabel(i), rs.getObject(i));
+                    }
+                    rows.add(row);
+                }
+                return rows;
+            }
+        }
+    }
+
+    private static int update(Connection conn, String sql, Object... params) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            return stmt.executeUpdate();
+        }
+    }
+
+    // ==================== Codec ====================
+
+    static byte[] compress(Map<String, Object> row) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(RowCodec.encode(row).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Map<String, Object> decompress(Object data) {
+        if (!(data instanceof byte[])) {
+            throw new IllegalStateException("Archived row has no data");
+        }
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream((byte[]) data))) {
+            return RowCodec.decode(new String(gzip.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== Lifecycle ====================
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public TieringStats getStats() {
+        long pending = 0;
+        for (Set<String> keys : touched.values()) {
+            pending += keys.size();
+        }
+        return TieringStats.builder()
+                .running(running.get())
+                .tables(tables.size())
+                .archived(archived.sum())
+                .restored(restored.sum())
+                .pendingAccesses(pending)
+                .lastPassAt(lastPassAt)
+                .lastPassArchived(lastPassArchived)
+                .build();
+    }
+
+    /**
+     * Stop the tiering thread; an interrupted pass is completed by the next one.
+     */
+    public void close() {
+        worker.shutdownNow();
+    }
+}
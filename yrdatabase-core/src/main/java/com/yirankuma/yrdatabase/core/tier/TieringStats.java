@@ -0,0 +1,34 @@
+package com.yirankuma.yrdatabase.core.tier;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Counters of a {@link ColdTier}.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class TieringStats {
+    private final boolean running;
+    private final int tables;
+
+    /**
+     * Rows moved from hot tables into archive tables since start.
+     */
+    private final long archived;
+
+    /**
+     * Archived rows moved back on first access since start.
+     */
+    private final long restored;
+
+    /**
+     * Keys waiting for their access time to be written.
+     */
+    private final long pendingAccesses;
+
+    private final long lastPassAt;
+    private final long lastPassArchived;
+}
@@ -0,0 +1,589 @@
+package com.yirankuma.yrdatabase.core.transfer;
+
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.core.concurrent.BlockingExecutor;
+import com.yirankuma.yrdatabase.core.provider.sharded.ShardedPersistProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams whole tables between persist providers or to and from chunk files, for logical
+ * backups and for moving a network from SQLite to MySQL.
+ *
+ * <p>Each table is split into primary-key ranges of about {@code chunkRows} rows: the range
+ * bounds are found with keyset queries ({@code WHERE id > ? ORDER BY id LIMIT 1 OFFSET n}) that
+ * only walk the primary-key index. The ranges are processed by {@code parallelism} workers,
+ * each reading its range in keyset pages of {@code batchSize} rows on its own connection and
+ * writing the page with one batch upsert (or to its chunk file) before reading the next, so
+ * memory stays at {@code parallelism * batchSize} rows. A sharded provider is read shard by shard.
+ * The hash table ({@link PersistProvider#HASH_TABLE}) is keyed by {@code (hkey, field)}, so its
+ * ranges and pages are too, and it is written through {@link PersistProvider#hmset}.</p>
+ *
+ * <p>The plan (tables, schemas, ranges) is written before any data moves and updated after
+ * every finished chunk. Starting the same transfer again resumes it: finished chunks are
+ * skipped, and unfinished ones are copied again from the start of their range, which is safe
+ * because rows are upserted by primary key.</p>
+ *
+ * <p>An import writes into a live persist layer, so it reports every batch to a
+ * {@link BatchListener} that keeps the caches in front of it consistent. A migration writes into
+ * a provider that is not in use yet and refuses target tables that already hold rows (unless it
+ * resumes), so the target ends up with exactly the rows of the source.</p>
+ *
+ * <p>An export is a directory holding {@code manifest.json} and one gzip-compressed JSON-lines
+ * file per chunk (see {@link RowCodec}). Indexes are not copied; repositories recreate theirs
+ * on the next start.</p>
+ *
+ * @author YiranKuma
+ */
+@Slf4j
+public class DataTransfer {
+
+    public static final String MANIFEST_FILE = "manifest.json";
+    static final String IMPORT_PROGRESS_FILE = "import-progress.json";
+    private static final String KEY_COLUMN = "id";
+
+    private final int parallelism;
+    private final int chunkRows;
+    private final int batchSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final LongAdder rows = new LongAdder();
+    private final AtomicInteger chunksFailed = new AtomicInteger();
+    private volatile String operation;
+    private volatile String location;
+    private volatile TransferPlan plan;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    /**
+     * @param parallelism Chunks processed at the same time (and connections used)
+     * @param chunkRows   Rows per primary-key range
+     * @param batchSize   Rows per keyset page and batch upsert
+     */
+    public DataTransfer(int parallelism, int chunkRows, int batchSize) {
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkRows = Math.max(1, chunkRows);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // ==================== Operations ====================
+
+    /**
+     * Export tables to chunk files in {@code directory}, or resume an unfinished export there.
+     *
+     * @param tables Tables to export; empty for all tables
+     */
+    public CompletableFuture<TransferStats> exportTo(PersistProvider source, Path directory, Collection<String> tables) {
+        return start("export", directory, workers -> {
+            List<PersistProvider> sources = sources(source);
+            Files.createDirectories(directory);
+            Path manifest = directory.resolve(MANIFEST_FILE);
+            boolean resumed = Files.exists(manifest);
+            TransferPlan current = resumeOrPlan(manifest, source, sources, tables);
+            if (resumed && current.doneCount() == current.chunkCount()) {
+                throw new IllegalStateException("Export in " + directory + " is already complete");
+            }
+            runChunks(current, manifest, workers,
+                    (table, chunk) -> exportChunk(sources.get(chunk.source), table.name, chunk, directory));
+        });
+    }
+
+    /**
+     * Import a finished export into {@code target}, or resume an unfinished import of it.
+     */
+    public CompletableFuture<TransferStats> importFrom(Path directory, PersistProvider target) {
+        return importFrom(directory, target, BatchListener.NONE);
+    }
+
+    /**
+     * Import a finished export into {@code target}, reporting each written batch to {@code listener}.
+     * A batch whose listener fails fails its chunk, which is retried on resume.
+     */
+    public CompletableFuture<TransferStats> importFrom(Path directory, PersistProvider target, BatchListener listener) {
+        return start("import", directory, workers -> {
+            TransferPlan exported = TransferPlan.read(directory.resolve(MANIFEST_FILE));
+            if (exported.doneCount() < exported.chunkCount()) {
+                throw new IllegalStateException("Export in " + directory + " is incomplete, resume the export first");
+            }
+            Path progress = directory.resolve(IMPORT_PROGRESS_FILE);
+            TransferPlan current;
+            if (Files.exists(progress)) {
+                current = TransferPlan.read(progress);
+            } else {
+                current = exported.restart();
+                current.write(progress);
+            }
+            plan = current;
+            createTables(target, current);
+            runChunks(current, progress, workers,
+                    (table, chunk) -> importChunk(target, table.name, chunk, directory, listener));
+            if (chunksFailed.get() == 0) {
+                Files.deleteIfExists(progress);
+            }
+        });
+    }
+
+    /**
+     * Copy tables from {@code source} to {@code target} directly, checkpointing to {@code checkpoint}.
+     * The checkpoint is removed once every chunk has been copied.
+     *
+     * @param tables Tables to copy; empty for all tables
+     */
+    public CompletableFuture<TransferStats> migrate(PersistProvider source, PersistProvider target, Path checkpoint,
+                                                    Collection<String> tables) {
+        return start("migrate", checkpoint, workers -> {
+            List<PersistProvider> sources = sources(source);
+            if (checkpoint.getParent() != null) {
+                Files.createDirectories(checkpoint.getParent());
+            }
+            boolean resumed = Files.exists(checkpoint);
+            TransferPlan current = resumeOrPlan(checkpoint, source, sources, tables);
+            if (!resumed) {
+                try {
+                    requireEmpty(target, current);
+                } catch (RuntimeException e) {
+                    Files.deleteIfExists(checkpoint);
+                    throw e;
+                }
+            }
+            createTables(target, current);
+            runChunks(current, checkpoint, workers,
+                    (table, chunk) -> migrateChunk(sources.get(chunk.source), target, table.name, chunk));
+            if (chunksFailed.get() == 0) {
+                Files.deleteIfExists(checkpoint);
+            }
+        });
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public TransferStats getStats() {
+        TransferPlan current = plan;
+        return TransferStats.builder()
+                .operation(operation)
+                .running(running.get())
+                .location(location)
+                .tables(current != null ? current.tables.size() : 0)
+                .chunks(current != null ? current.chunkCount() : 0)
+                .chunksDone(current != null ? current.doneCount() : 0)
+                .chunksFailed(chunksFailed.get())
+                .rows(rows.sum())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+    }
+
+    // ==================== Run ====================
+
+    private CompletableFuture<TransferStats> start(String name, Path target, TransferBody body) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                    "A data transfer (" + operation + ") is already running"));
+        }
+        operation = name;
+        location = target.toString();
+        plan = null;
+        rows.reset();
+        chunksFailed.set(0);
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        log.info("Data {} started: {}", name, target);
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                BlockingExecutor.platformThreadFactory("YRDatabase-Transfer"));
+        // 规划与汇总在独立线程上执行，不占用 JDBC 线程或调用方线程
+        Executor coordinator = r -> BlockingExecutor.platformThreadFactory("YRDatabase-Transfer-Plan").newThread(r).start();
+
+        return CompletableFuture.runAsync(() -> {
+            try {
+                body.run(workers);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, coordinator).handle((v, e) -> {
+            workers.shutdownNow();
+            finishedAt = System.currentTimeMillis();
+            running.set(false);
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.error("Data {} failed: {}", name, cause.getMessage());
+                throw new CompletionException(cause);
+            }
+            TransferStats stats = getStats();
+            log.info("Data {} finished in {}ms: {} rows, {}/{} chunks done, {} failed", name,
+                    finishedAt - startedAt, stats.getRows(), stats.getChunksDone(), stats.getChunks(),
+                    stats.getChunksFailed());
+            return stats;
+        });
+    }
+
+    private void runChunks(TransferPlan current, Path checkpoint, ExecutorService workers, ChunkAction action) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (TransferPlan.TablePlan table : current.tables) {
+            for (TransferPlan.Chunk chunk : table.chunks) {
+                if (chunk.done) {
+                    continue;
+                }
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        long copied = action.run(table, chunk);
+                        current.markDone(chunk, copied, checkpoint);
+                    } catch (Exception e) {
+                        chunksFailed.incrementAndGet();
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.warn("Chunk {}/{}-{} failed, it will be retried on resume: {}",
+                                table.name, chunk.source, chunk.index, cause.getMessage());
+                    }
+                }, workers));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    // ==================== Planning ====================
+
+    private TransferPlan resumeOrPlan(Path file, PersistProvider source, List<PersistProvider> sources,
+                                      Collection<String> tables) throws IOException {
+        TransferPlan current;
+        if (Files.exists(file)) {
+            current = TransferPlan.read(file);
+            for (TransferPlan.TablePlan table : current.tables) {
+                for (TransferPlan.Chunk chunk : table.chunks) {
+                    if (chunk.source >= sources.size()) {
+                        throw new IllegalStateException("Checkpoint " + file + " was made with more shards");
+                    }
+                }
+            }
+            log.info("Resuming from {}: {}/{} chunks already done", file, current.doneCount(), current.chunkCount());
+        } else {
+            current = plan(source, sources, tables);
+            current.write(file);
+        }
+        plan = current;
+        return current;
+    }
+
+    private TransferPlan plan(PersistProvider source, List<PersistProvider> sources, Collection<String> only) {
+        Set<String> names = new TreeSet<>(source.listTables().join());
+        if (!only.isEmpty()) {
+            Set<String> missing = new TreeSet<>(only);
+            missing.removeAll(names);
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Unknown table(s): " + String.join(", ", missing));
+            }
+            names.retainAll(only);
+        }
+
+        TransferPlan created = new TransferPlan();
+        created.createdAt = System.currentTimeMillis();
+        for (String name : names) {
+            Map<String, String> schema = source.describeTable(name).join();
+            boolean hash = PersistProvider.HASH_TABLE.equals(name);
+            if (!hash && !schema.containsKey(KEY_COLUMN)) {
+                log.warn("Skipping table {}: it has no '{}' column", name, KEY_COLUMN);
+                continue;
+            }
+            TransferPlan.TablePlan table = new TransferPlan.TablePlan(name, schema);
+            for (int i = 0; i < sources.size(); i++) {
+                if (hash) {
+                    splitHash(sources.get(i), i, table.chunks);
+                } else {
+                    split(sources.get(i), name, i, table.chunks);
+                }
+            }
+            created.tables.add(table);
+        }
+        return created;
+    }
+
+    /**
+     * 沿主键索引每隔 chunkRows 行取一个边界，只读索引、不读整行。
+     * OFFSET 扫描可能较慢，按批量读取执行（不受熔断调用超时限制）。
+     */
+    private void split(PersistProvider source, String table, int sourceIndex, List<TransferPlan.Chunk> chunks) {
+        String after = null;
+        int index = 0;
+        while (true) {
+            List<Map<String, Object>> boundary = after == null
+                    ? source.executeBulkQuery("SELECT `id` FROM `" + table + "` ORDER BY `id` LIMIT 1 OFFSET ?",
+                            chunkRows - 1).join()
+                    : source.executeBulkQuery("SELECT `id` FROM `" + table + "` WHERE `id` > ? ORDER BY `id` LIMIT 1 OFFSET ?",
+                            after, chunkRows - 1).join();
+            if (boundary.isEmpty() || boundary.get(0).get(KEY_COLUMN) == null) {
+                break;
+            }
+            String upTo = String.valueOf(boundary.get(0).get(KEY_COLUMN));
+            chunks.add(new TransferPlan.Chunk(sourceIndex, index++, after, upTo));
+            after = upTo;
+        }
+        chunks.add(new TransferPlan.Chunk(sourceIndex, index, after, null));
+    }
+
+    /**
+     * 哈希表按 {@code (hkey, field)} 取边界。
+     */
+    private void splitHash(PersistProvider source, int sourceIndex, List<TransferPlan.Chunk> chunks) {
+        String table = PersistProvider.HASH_TABLE;
+        String after = null;
+        String afterField = null;
+        int index = 0;
+        while (true) {
+            List<Map<String, Object>> boundary = after == null
+                    ? source.executeBulkQuery("SELECT `hkey`, `field` FROM `" + table
+                            + "` ORDER BY `hkey`, `field` LIMIT 1 OFFSET ?", chunkRows - 1).join()
+                    : source.executeBulkQuery("SELECT `hkey`, `field` FROM `" + table
+                            + "` WHERE `hkey` > ? OR (`hkey` = ? AND `field` > ?) ORDER BY `hkey`, `field` LIMIT 1 OFFSET ?",
+                            after, after, afterField, chunkRows - 1).join();
+            if (boundary.isEmpty() || boundary.get(0).get("hkey") == null || boundary.get(0).get("field") == null) {
+                break;
+            }
+            String upTo = String.valueOf(boundary.get(0).get("hkey"));
+            String upToField = String.valueOf(boundary.get(0).get("field"));
+            chunks.add(new TransferPlan.Chunk(sourceIndex, index++, after, afterField, upTo, upToField));
+            after = upTo;
+            afterField = upToField;
+        }
+        chunks.add(new TransferPlan.Chunk(sourceIndex, index, after, afterField, null, null));
+    }
+
+    private static List<PersistProvider> sources(PersistProvider source) {
+        if (source instanceof ShardedPersistProvider) {
+            return ((ShardedPersistProvider) source).getShards();
+        }
+        return List.of(source);
+    }
+
+    /**
+     * 迁移目标中已有的行不在源库的布隆过滤器与不存在标记中，切换后会被误判为不存在，因此只迁入空表。
+     */
+    private void requireEmpty(PersistProvider target, TransferPlan current) {
+        Set<String> existing = new TreeSet<>(target.listTables().join());
+        for (TransferPlan.TablePlan table : current.tables) {
+            if (existing.contains(table.name)
+                    && !target.executeQuery("SELECT 1 FROM `" + table.name + "` LIMIT 1").join().isEmpty()) {
+                throw new IllegalStateException("Table " + table.name
+                        + " already has rows on the target, migrate into empty tables");
+            }
+        }
+    }
+
+    private void createTables(PersistProvider target, TransferPlan current) {
+        for (TransferPlan.TablePlan table : current.tables) {
+            // 哈希表由 hmset 按 (hkey, field) 主键创建，按列定义建表会丢失联合主键
+            if (PersistProvider.HASH_TABLE.equals(table.name)) {
+                continue;
+            }
+            if (!target.createTable(table.name, table.schema).join()) {
+                throw new IllegalStateException("Failed to create table " + table.name + " on the target");
+            }
+        }
+    }
+
+    // ==================== Chunks ====================
+
+    private long exportChunk(PersistProvider source, String table, TransferPlan.Chunk chunk, Path directory)
+            throws IOException {
+        Path file = directory.resolve(chunk.file(table));
+        Files.createDirectories(file.getParent());
+        // 写完整个分段后再改名，中断时不会留下被当成完成的半个文件
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long count = 0;
+        try (BufferedWriter writer = RowCodec.writer(part)) {
+            Map<String, Object> last = null;
+            while (true) {
+                List<Map<String, Object>> page = page(source, table, chunk, last);
+                for (Map<String, Object> row : page) {
+                    writer.write(RowCodec.encode(row));
+                    writer.newLine();
+                }
+                count += page.size();
+                rows.add(page.size());
+                if (page.size() < batchSize) {
+                    break;
+                }
+                last = page.get(page.size() - 1);
+            }
+        }
+        Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private long importChunk(PersistProvider target, String table, TransferPlan.Chunk chunk, Path directory,
+                             BatchListener listener) throws IOException {
+        long count = 0;
+        try (BufferedReader reader = RowCodec.reader(directory.resolve(chunk.file(table)))) {
+            List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                batch.add(RowCodec.decode(line));
+                if (batch.size() >= batchSize) {
+                    count += upsert(target, table, batch, listener);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            count += upsert(target, table, batch, listener);
+        }
+        return count;
+    }
+
+    private long migrateChunk(PersistProvider source, PersistProvider target, String table, TransferPlan.Chunk chunk) {
+        long count = 0;
+        Map<String, Object> last = null;
+        while (true) {
+            List<Map<String, Object>> page = page(source, table, chunk, last);
+            count += upsert(target, table, page, BatchListener.NONE);
+            if (page.size() < batchSize) {
+                return count;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
+    /**
+     * 读取分段内的下一页：从上一页最后一行之后（首页从分段起点之后）开始。
+     */
+    private List<Map<String, Object>> page(PersistProvider source, String table, TransferPlan.Chunk chunk,
+                                           Map<String, Object> last) {
+        if (PersistProvider.HASH_TABLE.equals(table)) {
+            return last == null
+                    ? hashPage(source, chunk.after, chunk.afterField, chunk)
+                    : hashPage(source, last.get("hkey"), last.get("field"), chunk);
+        }
+        Object after = last == null ? chunk.after : last.get(KEY_COLUMN);
+        String upTo = chunk.upTo;
+        StringBuilder sql = new StringBuilder("SELECT * FROM `").append(table).append('`');
+        List<Object> params = new ArrayList<>();
+        if (after != null) {
+            sql.append(" WHERE `id` > ?");
+            params.add(after);
+        }
+        if (upTo != null) {
+            sql.append(after != null ? " AND" : " WHERE").append(" `id` <= ?");
+            params.add(upTo);
+        }
+        sql.append(" ORDER BY `id` LIMIT ?");
+        params.add(batchSize);
+        return source.executeQuery(sql.toString(), params.toArray()).join();
+    }
+
+    private List<Map<String, Object>> hashPage(PersistProvider source, Object afterKey, Object afterField,
+                                               TransferPlan.Chunk chunk) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM `").append(PersistProvider.HASH_TABLE).append('`');
+        List<Object> params = new ArrayList<>();
+        if (afterKey != null) {
+            sql.append(" WHERE (`hkey` > ? OR (`hkey` = ? AND `field` > ?))");
+            params.add(afterKey);
+            params.add(afterKey);
+            params.add(afterField);
+        }
+        if (chunk.upTo != null) {
+            sql.append(afterKey != null ? " AND" : " WHERE").append(" (`hkey` < ? OR (`hkey` = ? AND `field` <= ?))");
+            params.add(chunk.upTo);
+            params.add(chunk.upTo);
+            params.add(chunk.upToField);
+        }
+        sql.append(" ORDER BY `hkey`, `field` LIMIT ?");
+        params.add(batchSize);
+        return source.executeQuery(sql.toString(), params.toArray()).join();
+    }
+
+    private long upsert(PersistProvider target, String table, List<Map<String, Object>> batch, BatchListener listener) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        if (PersistProvider.HASH_TABLE.equals(table)) {
+            return upsertHash(target, batch);
+        }
+        List<String> keys = new ArrayList<>(batch.size());
+        for (Map<String, Object> row : batch) {
+            keys.add(String.valueOf(row.get(KEY_COLUMN)));
+        }
+        listener.beforeWrite(table, keys).join();
+        if (!target.batchUpsert(table, batch, KEY_COLUMN).join()) {
+            throw new IllegalStateException("Batch upsert into " + table + " failed");
+        }
+        listener.afterWrite(table, keys).join();
+        rows.add(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * 哈希行按 hkey 分组写入，依赖提供者按 (hkey, field) upsert。哈希不经过缓存，不通知监听器。
+     */
+    private long upsertHash(PersistProvider target, List<Map<String, Object>> batch) {
+        Map<String, Map<String, String>> byKey = new LinkedHashMap<>();
+        for (Map<String, Object> row : batch) {
+            Object value = row.get("value");
+            byKey.computeIfAbsent(String.valueOf(row.get("hkey")), k -> new LinkedHashMap<>())
+                    .put(String.valueOf(row.get("field")), value != null ? value.toString() : null);
+        }
+        for (Map.Entry<String, Map<String, String>> hash : byKey.entrySet()) {
+            if (!target.hmset(hash.getKey(), hash.getValue()).join()) {
+                throw new IllegalStateException("Writing hash " + hash.getKey() + " into "
+                        + PersistProvider.HASH_TABLE + " failed");
+            }
+        }
+        rows.add(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Callbacks around each batch an import writes, for keeping caches of the target consistent.
+     */
+    public interface BatchListener {
+
+        BatchListener NONE = new BatchListener() {
+        };
+
+        /**
+         * Called before the rows with these primary keys are written.
+         */
+        default CompletableFuture<Void> beforeWrite(String table, List<String> keys) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        /**
+         * Called after the rows with these primary keys have been written.
+         */
+        default CompletableFuture<Void> afterWrite(String table, List<String> keys) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    @FunctionalInterface
+    private interface TransferBody {
+        void run(ExecutorService workers) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        long run(TransferPlan.TablePlan table, TransferPlan.Chunk chunk) throws IOException;
+    }
+}
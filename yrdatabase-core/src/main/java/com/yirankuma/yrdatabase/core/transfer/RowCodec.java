@@ -0,0 +1,115 @@
+package com.yirankuma.yrdatabase.core.transfer;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Chunk file format: gzip-compressed JSON lines, one row per line.
+ *
+ * <p>Integers are read back as {@code Long}, other numbers as {@code Double}; binary columns are
+ * written as {@code {"$bytes":"<base64>"}}; dates and other JDBC types as their string form,
+ * which both MySQL and SQLite accept on insert.</p>
+ *
+ * <p>Also used for the compressed rows of cold-tier archive tables.</p>
+ *
+ * @author YiranKuma
+ */
+public final class RowCodec {
+
+    private static final String BYTES = "$bytes";
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final Gson GSON = new Gson();
+
+    private RowCodec() {
+    }
+
+    public static String encode(Map<String, Object> row) {
+        JsonObject json = new JsonObject();
+        for (Map.Entry<String, Object> entry : row.entrySet()) {
+            json.add(entry.getKey(), encodeValue(entry.getValue()));
+        }
+        return GSON.toJson(json);
+    }
+
+    private static JsonElement encodeValue(Object value) {
+        if (value == null) {
+            return JsonNull.INSTANCE;
+        }
+        if (value instanceof Number) {
+            return new JsonPrimitive((Number) value);
+        }
+        if (value instanceof Boolean) {
+            return new JsonPrimitive((Boolean) value);
+        }
+        if (value instanceof byte[]) {
+            JsonObject bytes = new JsonObject();
+            bytes.addProperty(BYTES, Base64.getEncoder().encodeToString((byte[]) value));
+            return bytes;
+        }
+        return new JsonPrimitive(value.toString());
+    }
+
+    public static Map<String, Object> decode(String line) {
+        JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+            row.put(entry.getKey(), decodeValue(entry.getValue()));
+        }
+        return row;
+    }
+
+    private static Object decodeValue(JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return null;
+        }
+        if (value.isJsonObject() && value.getAsJsonObject().has(BYTES)) {
+            return Base64.getDecoder().decode(value.getAsJsonObject().get(BYTES).getAsString());
+        }
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        if (primitive.isBoolean()) {
+            return primitive.getAsBoolean();
+        }
+        if (primitive.isNumber()) {
+            String text = primitive.getAsString();
+            if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return Double.parseDouble(text);
+            }
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                // 超出 long 范围（如 BIGINT UNSIGNED）
+                return new BigDecimal(text);
+            }
+        }
+        return primitive.getAsString();
+    }
+
+    static BufferedWriter writer(Path path) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(path), BUFFER_BYTES), StandardCharsets.UTF_8));
+    }
+
+    static BufferedReader reader(Path path) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(path), BUFFER_BYTES), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,143 @@
+package com.yirankuma.yrdatabase.core.transfer;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tables and primary-key ranges of a transfer, with the chunks already finished.
+ *
+ * <p>Written as JSON ({@code manifest.json} of an export, or the checkpoint file of a
+ * migration) after every finished chunk, so an interrupted transfer resumes with exactly
+ * the same ranges and skips the finished ones.</p>
+ *
+ * @author YiranKuma
+ */
+class TransferPlan {
+
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+    int version = 1;
+    long createdAt;
+    List<TablePlan> tables = new ArrayList<>();
+
+    static class TablePlan {
+        String name;
+        Map<String, String> schema = new LinkedHashMap<>();
+        List<Chunk> chunks = new ArrayList<>();
+
+        TablePlan(String name, Map<String, String> schema) {
+            this.name = name;
+            this.schema = schema;
+        }
+    }
+
+    /**
+     * Rows with {@code after < id <= upTo} on one source; a null bound is open. Chunks of the
+     * hash table are bounded by {@code (hkey, field)} pairs: {@code (after, afterField)} and
+     * {@code (upTo, upToField)}.
+     */
+    static class Chunk {
+        int source;
+        int index;
+        String after;
+        String afterField;
+        String upTo;
+        String upToField;
+        long rows;
+        boolean done;
+
+        Chunk(int source, int index, String after, String upTo) {
+            this(source, index, after, null, upTo, null);
+        }
+
+        Chunk(int source, int index, String after, String afterField, String upTo, String upToField) {
+            this.source = source;
+            this.index = index;
+            this.after = after;
+            this.afterField = afterField;
+            this.upTo = upTo;
+            this.upToField = upToField;
+        }
+
+        /**
+         * Chunk file of an export, relative to the export directory.
+         */
+        String file(String table) {
+            return table + "/" + source + "-" + index + ".jsonl.gz";
+        }
+    }
+
+    synchronized int chunkCount() {
+        int count = 0;
+        for (TablePlan table : tables) {
+            count += table.chunks.size();
+        }
+        return count;
+    }
+
+    synchronized int doneCount() {
+        int count = 0;
+        for (TablePlan table : tables) {
+            for (Chunk chunk : table.chunks) {
+                if (chunk.done) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copy with every chunk marked not done, used to track an import of this plan.
+     */
+    synchronized TransferPlan restart() {
+        TransferPlan copy = GSON.fromJson(GSON.toJson(this), TransferPlan.class);
+        for (TablePlan table : copy.tables) {
+            for (Chunk chunk : table.chunks) {
+                chunk.done = false;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Mark a chunk finished and checkpoint the plan.
+     */
+    synchronized void markDone(Chunk chunk, long rows, Path path) throws IOException {
+        chunk.rows = rows;
+        chunk.done = true;
+        write(path);
+    }
+
+    static TransferPlan read(Path path) throws IOException {
+        try {
+            TransferPlan plan = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), TransferPlan.class);
+            if (plan == null || plan.tables == null) {
+                throw new IOException("Empty transfer manifest " + path);
+            }
+            return plan;
+        } catch (JsonParseException e) {
+            throw new IOException("Corrupt transfer manifest " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write atomically: a crash leaves either the previous or the new manifest.
+     */
+    synchronized void write(Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(temp, GSON.toJson(this), StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,41 @@
+package com.yirankuma.yrdatabase.core.transfer;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Progress of a {@link DataTransfer} run.
+ *
+ * @author YiranKuma
+ */
+@Data
+@Builder
+public class TransferStats {
+
+    /**
+     * {@code export}, {@code import} or {@code migrate}.
+     */
+    private final String operation;
+    private final boolean running;
+
+    /**
+     * Export directory or migration checkpoint file.
+     */
+    private final String location;
+    private final int tables;
+    private final int chunks;
+
+    /**
+     * Chunks finished in this run or in an earlier, interrupted run.
+     */
+    private final int chunksDone;
+
+    /**
+     * Chunks that failed; they are retried when the same transfer is started again.
+     */
+    private final int chunksFailed;
+    private final long rows;
+
+    private final long startedAt;
+    private final long finishedAt;
+}
@@ -2,17 +2,34 @@ package com.yirankuma.yrdatabase.core;
 
 import com.yirankuma.yrdatabase.api.CacheStrategy;
 import com.yirankuma.yrdatabase.api.DatabaseStatus;
+import com.yirankuma.yrdatabase.api.Leaderboard;
+import com.yirankuma.yrdatabase.api.LeaderboardEntry;
+import com.yirankuma.yrdatabase.api.OptimisticLockException;
+import com.yirankuma.yrdatabase.api.Repository;
+import com.yirankuma.yrdatabase.api.annotation.Index;
+import com.yirankuma.yrdatabase.api.annotation.Lazy;
+import com.yirankuma.yrdatabase.api.annotation.PrimaryKey;
+import com.yirankuma.yrdatabase.api.annotation.Table;
+import com.yirankuma.yrdatabase.api.annotation.Version;
 import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.api.feed.ChangeEvent;
+import com.yirankuma.yrdatabase.api.feed.ChangeType;
+import com.yirankuma.yrdatabase.api.feed.Subscription;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,11 +61,48 @@ class DatabaseManagerImplTest {
         
         File sqliteFile = tempDir.resolve("test.db").toFile();
         config.getPersist().getSqlite().setFile(sqliteFile.getAbsolutePath());
+        config.getPersist().getSpool().setDirectory(tempDir.resolve("spool").toString());
+        // Change feed is off by default; the watch tests need it
+        config.getCaching().setChangeFeedEnabled(true);
         
         databaseManager = new DatabaseManagerImpl(config);
         databaseManager.initialize().get();
     }
 
+    @Table("indexed_players")
+    public static class IndexedPlayer {
+        @PrimaryKey
+        private String id;
+        @Index
+        private String name;
+        @Index(value = "idx_guild_rank", unique = true)
+        private String guild;
+        @Index("idx_guild_rank")
+        private int rank;
+    }
+
+    @Table("versioned_players")
+    public static class VersionedPlayer {
+        @PrimaryKey
+        private String id;
+        private int coins;
+        @Version
+        private long version;
+    }
+
+    @Table("lazy_players")
+    public static class LazyPlayer {
+        @PrimaryKey
+        private String id;
+        private int level;
+        @Lazy(chunkSize = 8)
+        private String bio;
+        @Lazy
+        private List<String> inventory;
+        @Lazy
+        private byte[] skin;
+    }
+
     @AfterEach
     void tearDown() {
         if (databaseManager != null) {
@@ -88,6 +142,20 @@ class DatabaseManagerImplTest {
             assertNotNull(status.getPersistStatus());
             assertEquals("sqlite", status.getPersistStatus().getType());
         }
+
+        @Test
+        @DisplayName("Should sample status in the background")
+        void shouldSampleStatus() throws ExecutionException, InterruptedException {
+            DatabaseStatus status = databaseManager.refreshStatus().get();
+
+            assertTrue(status.getSampledAt() > 0);
+            assertTrue(status.getPersistStatus().getLatencyMs() >= 0);
+            assertEquals(1, status.getPersistStatus().getPoolTotal());
+            // Redis disabled: cache-side metrics are unknown
+            assertNull(status.getCacheStatus());
+            assertEquals(-1, status.getPendingPersist());
+            assertSame(status, databaseManager.getStatus());
+        }
     }
 
     @Nested
@@ -112,6 +180,22 @@ class DatabaseManagerImplTest {
             assertEquals("TestPlayer", result.get().get("name"));
         }
 
+        @Test
+        @DisplayName("Concurrent gets should return independent copies")
+        void concurrentGetsShouldReturnCopies() throws ExecutionException, InterruptedException {
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", "Shared");
+            databaseManager.set("test_table", "shared_key", data, CacheStrategy.PERSIST_ONLY).get();
+
+            CompletableFuture<Optional<Map<String, Object>>> first = databaseManager.get("test_table", "shared_key");
+            CompletableFuture<Optional<Map<String, Object>>> second = databaseManager.get("test_table", "shared_key");
+
+            Map<String, Object> a = first.get().orElseThrow();
+            Map<String, Object> b = second.get().orElseThrow();
+            a.put("name", "Changed");
+            assertEquals("Shared", b.get("name"));
+        }
+
         @Test
         @DisplayName("Should return empty for non-existent key")
         void shouldReturnEmptyForNonExistentKey() throws ExecutionException, InterruptedException {
@@ -166,6 +250,121 @@ class DatabaseManagerImplTest {
             Boolean result2 = databaseManager.ensureTable("players", schema).get();
             assertTrue(result2);
         }
+
+        @Test
+        @DisplayName("Should create @Index indexes with the table")
+        void shouldCreateDeclaredIndexes() throws ExecutionException, InterruptedException {
+            IndexedPlayer player = new IndexedPlayer();
+            player.id = "p1";
+            player.name = "Steve";
+            player.guild = "red";
+            player.rank = 1;
+            assertTrue(databaseManager.getRepository(IndexedPlayer.class).save(player, CacheStrategy.PERSIST_ONLY).get());
+
+            List<Map<String, Object>> indexes = databaseManager.getPersistProvider().orElseThrow()
+                    .executeQuery("SELECT name, sql FROM sqlite_master WHERE type = 'index' AND tbl_name = ?",
+                            "indexed_players").get();
+
+            Map<String, String> byName = new HashMap<>();
+            for (Map<String, Object> row : indexes) {
+                byName.put(String.valueOf(row.get("name")), String.valueOf(row.get("sql")));
+            }
+            assertTrue(byName.containsKey("idx_indexed_players_name"));
+            assertTrue(byName.get("idx_guild_rank").contains("UNIQUE"));
+            assertTrue(byName.get("idx_guild_rank").contains("`guild`, `rank`"));
+        }
+
+        @Test
+        @DisplayName("Should shorten generated index names to 64 characters")
+        void shouldShortenLongIndexNames() {
+            assertEquals("idx_players_name", EntityMapper.indexName("players", "name"));
+
+            String table = "t".repeat(70);
+            String first = EntityMapper.indexName(table, "first_column");
+            String second = EntityMapper.indexName(table, "second_column");
+            assertEquals(64, first.length());
+            assertEquals(64, second.length());
+            assertNotEquals(first, second);
+        }
+
+        @Test
+        @DisplayName("Should list existing tables in one query")
+        void shouldListTables() throws ExecutionException, InterruptedException {
+            Map<String, String> schema = new HashMap<>();
+            schema.put("id", "VARCHAR(64) PRIMARY KEY");
+            assertTrue(databaseManager.ensureTable("players", schema).get());
+
+            assertTrue(databaseManager.getPersistProvider().orElseThrow().listTables().get().contains("players"));
+        }
+
+        @Test
+        @DisplayName("Should create repository tables during warm-up")
+        void shouldCreateTablesOnWarmUp() throws ExecutionException, InterruptedException {
+            databaseManager.getRepository(IndexedPlayer.class);
+            databaseManager.warmUp().get();
+
+            List<Map<String, Object>> tables = databaseManager.getPersistProvider().orElseThrow()
+                    .executeQuery("SELECT name FROM sqlite_master WHERE type = 'table' AND name = ?",
+                            "indexed_players").get();
+            assertEquals(1, tables.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Fluent Query")
+    class FluentQuery {
+
+        private Repository<IndexedPlayer> repository;
+
+        @BeforeEach
+        void seed() throws ExecutionException, InterruptedException {
+            repository = databaseManager.getRepository(IndexedPlayer.class);
+            for (int i = 1; i <= 5; i++) {
+                IndexedPlayer player = new IndexedPlayer();
+                player.id = "p" + i;
+                player.name = "Player" + i;
+                player.guild = i <= 4 ? "red" : "blue";
+                player.rank = i;
+                assertTrue(repository.save(player, CacheStrategy.PERSIST_ONLY).get());
+            }
+        }
+
+        @Test
+        @DisplayName("Should page through results with a keyset cursor")
+        void shouldPageWithCursor() throws ExecutionException, InterruptedException {
+            List<IndexedPlayer> page1 = repository.query().eq("guild", "red").orderByDesc("rank").limit(2).list().get();
+            assertEquals(List.of(4, 3), page1.stream().map(p -> p.rank).toList());
+
+            List<IndexedPlayer> page2 = repository.query().eq("guild", "red").orderByDesc("rank").limit(2)
+                    .after(page1.get(1)).list().get();
+            assertEquals(List.of(2, 1), page2.stream().map(p -> p.rank).toList());
+
+            List<IndexedPlayer> page3 = repository.query().eq("guild", "red").orderByDesc("rank").limit(2)
+                    .after(page2.get(1)).list().get();
+            assertTrue(page3.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should support comparisons, IN and projection")
+        void shouldFilterAndProject() throws ExecutionException, InterruptedException {
+            List<Map<String, Object>> rows = repository.query()
+                    .where("rank", com.yirankuma.yrdatabase.api.query.Operator.GT, 1)
+                    .in("id", List.of("p2", "p5", "p9"))
+                    .orderBy("rank")
+                    .select("name")
+                    .listRows().get();
+
+            assertEquals(2, rows.size());
+            assertEquals("Player2", rows.get(0).get("name"));
+            assertFalse(rows.get(0).containsKey("guild"));
+            assertTrue(rows.get(0).containsKey("id"));
+        }
+
+        @Test
+        @DisplayName("Should reject unknown fields")
+        void shouldRejectUnknownFields() {
+            assertThrows(IllegalArgumentException.class, () -> repository.query().eq("missing", 1));
+        }
     }
 
     @Nested
@@ -212,6 +411,377 @@ class DatabaseManagerImplTest {
         }
     }
 
+    @Nested
+    @DisplayName("Optimistic Locking")
+    class OptimisticLocking {
+
+        private Repository<VersionedPlayer> repository;
+
+        @BeforeEach
+        void seed() throws ExecutionException, InterruptedException {
+            repository = databaseManager.getRepository(VersionedPlayer.class);
+            VersionedPlayer player = new VersionedPlayer();
+            player.id = "p1";
+            player.coins = 100;
+            assertTrue(repository.save(player).get());
+            assertEquals(1, player.version);
+        }
+
+        @Test
+        @DisplayName("Should reject a save based on a stale version")
+        void shouldRejectStaleSave() throws ExecutionException, InterruptedException {
+            VersionedPlayer first = repository.findById("p1").get().orElseThrow();
+            VersionedPlayer second = repository.findById("p1").get().orElseThrow();
+
+            first.coins = 150;
+            assertTrue(repository.save(first).get());
+            assertEquals(2, first.version);
+
+            second.coins = 50;
+            ExecutionException e = assertThrows(ExecutionException.class, () -> repository.save(second).get());
+            assertInstanceOf(OptimisticLockException.class, e.getCause());
+            assertEquals(150, repository.findById("p1").get().orElseThrow().coins);
+        }
+
+        @Test
+        @DisplayName("Should not insert over an existing row with version 0")
+        void shouldRejectDuplicateInsert() {
+            VersionedPlayer duplicate = new VersionedPlayer();
+            duplicate.id = "p1";
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> repository.save(duplicate).get());
+            assertInstanceOf(OptimisticLockException.class, e.getCause());
+        }
+
+        @Test
+        @DisplayName("Should retry concurrent updates until every one is applied")
+        void shouldRetryConcurrentUpdates() {
+            List<CompletableFuture<Optional<VersionedPlayer>>> updates = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                updates.add(repository.update("p1", player -> {
+                    player.coins += 10;
+                    return player;
+                }, 50));
+            }
+            updates.forEach(CompletableFuture::join);
+
+            VersionedPlayer stored = repository.findById("p1").join().orElseThrow();
+            assertEquals(180, stored.coins);
+            assertEquals(9, stored.version);
+        }
+
+        @Test
+        @DisplayName("Should not let a stale write-back replace a newer version")
+        void shouldKeepNewerVersionOnWriteBack() throws ExecutionException, InterruptedException {
+            VersionedPlayer player = repository.findById("p1").get().orElseThrow();
+            player.coins = 200;
+            assertTrue(repository.save(player).get());
+
+            Map<String, Object> stale = new HashMap<>();
+            stale.put("id", "p1");
+            stale.put("coins", 100);
+            stale.put("version", 1L);
+            assertTrue(databaseManager.getPersistProvider().orElseThrow()
+                    .upsertVersioned("versioned_players", stale, "id", "version").get());
+
+            assertEquals(200, repository.findById("p1").get().orElseThrow().coins);
+        }
+    }
+
+    @Nested
+    @DisplayName("Lazy Fields")
+    class LazyFields {
+
+        private static final String BIO = "A rather long biography, stored in chunks";
+
+        private Repository<LazyPlayer> repository;
+
+        @BeforeEach
+        void seed() throws ExecutionException, InterruptedException {
+            repository = databaseManager.getRepository(LazyPlayer.class);
+            LazyPlayer player = new LazyPlayer();
+            player.id = "p1";
+            player.level = 7;
+            player.bio = BIO;
+            player.inventory = List.of("sword", "shield");
+            player.skin = new byte[]{1, 2, 3};
+            assertTrue(repository.save(player).get());
+        }
+
+        private boolean chunkExists(String key) throws ExecutionException, InterruptedException {
+            return !databaseManager.getPersistProvider().orElseThrow()
+                    .query("lazy_players_lazy", Map.of("id", key)).get().isEmpty();
+        }
+
+        @Test
+        @DisplayName("Should leave lazy fields out of the entity row")
+        void shouldNotLoadLazyFields() throws ExecutionException, InterruptedException {
+            LazyPlayer player = repository.findById("p1").get().orElseThrow();
+
+            assertEquals(7, player.level);
+            assertNull(player.bio);
+            assertNull(player.inventory);
+            Map<String, Object> row = databaseManager.getPersistProvider().orElseThrow()
+                    .query("lazy_players", Map.of("id", "p1")).get().get(0);
+            assertFalse(row.containsKey("bio"));
+        }
+
+        @Test
+        @DisplayName("Should load chunked, JSON and binary fields on demand")
+        void shouldLoadOnDemand() throws ExecutionException, InterruptedException {
+            LazyPlayer player = repository.findById("p1").get().orElseThrow();
+
+            repository.load(player, "bio").get();
+            assertEquals(BIO, player.bio);
+            assertNull(player.inventory);
+            assertTrue(chunkExists("p1:bio:5"));
+
+            repository.loadAll(player).get();
+            assertEquals(List.of("sword", "shield"), player.inventory);
+            assertArrayEquals(new byte[]{1, 2, 3}, player.skin);
+        }
+
+        @Test
+        @DisplayName("Should keep stored values of fields that were not loaded")
+        void shouldKeepUnloadedFields() throws ExecutionException, InterruptedException {
+            LazyPlayer player = repository.findById("p1").get().orElseThrow();
+            player.level = 8;
+            assertTrue(repository.save(player).get());
+
+            LazyPlayer reloaded = repository.loadAll(repository.findById("p1").get().orElseThrow()).get();
+            assertEquals(8, reloaded.level);
+            assertEquals(BIO, reloaded.bio);
+        }
+
+        @Test
+        @DisplayName("Should drop chunks left over by a longer value")
+        void shouldDropStaleChunks() throws ExecutionException, InterruptedException {
+            LazyPlayer player = repository.findById("p1").get().orElseThrow();
+            player.bio = "short";
+            assertTrue(repository.save(player).get());
+
+            assertFalse(chunkExists("p1:bio:1"));
+            assertEquals("short", repository.load(repository.findById("p1").get().orElseThrow(), "bio").get().bio);
+        }
+
+        @Test
+        @DisplayName("Should delete lazy fields with the entity")
+        void shouldDeleteWithEntity() throws ExecutionException, InterruptedException {
+            assertTrue(repository.deleteById("p1").get());
+
+            assertFalse(chunkExists("p1:bio:0"));
+            assertFalse(chunkExists("p1:skin:0"));
+        }
+
+        @Test
+        @DisplayName("Should reject fields that are not lazy")
+        void shouldRejectEagerField() throws ExecutionException, InterruptedException {
+            LazyPlayer player = repository.findById("p1").get().orElseThrow();
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> repository.load(player, "level").get());
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+    }
+
+    @Nested
+    @DisplayName("Counters")
+    class Counters {
+
+        @BeforeEach
+        void createTable() throws ExecutionException, InterruptedException {
+            Map<String, String> schema = new HashMap<>();
+            schema.put("id", "VARCHAR(64) PRIMARY KEY");
+            schema.put("name", "VARCHAR(255)");
+            schema.put("coins", "BIGINT");
+            schema.put("playtime", "DOUBLE");
+            assertTrue(databaseManager.ensureTable("counted_players", schema).get());
+        }
+
+        @Test
+        @DisplayName("Should create the row on the first increment")
+        void shouldCreateRow() throws ExecutionException, InterruptedException {
+            assertTrue(databaseManager.increment("counted_players", "p1", "coins", 5L).get());
+
+            assertEquals(5.0, databaseManager.getCounter("counted_players", "p1", "coins").get());
+            assertEquals(0.0, databaseManager.getCounter("counted_players", "p2", "coins").get());
+        }
+
+        @Test
+        @DisplayName("Should add to an existing row without touching other columns")
+        void shouldAddToRow() throws ExecutionException, InterruptedException {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", "Steve");
+            row.put("coins", 100);
+            assertTrue(databaseManager.set("counted_players", "p1", row, CacheStrategy.PERSIST_ONLY).get());
+
+            List<CompletableFuture<Boolean>> increments = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                increments.add(databaseManager.increment("counted_players", "p1", "coins", 1L));
+                increments.add(databaseManager.increment("counted_players", "p1", "playtime", 0.5));
+            }
+            increments.forEach(CompletableFuture::join);
+
+            Map<String, Object> stored = databaseManager.get("counted_players", "p1").get().orElseThrow();
+            assertEquals("Steve", stored.get("name"));
+            assertEquals(110.0, databaseManager.getCounter("counted_players", "p1", "coins").get());
+            assertEquals(5.0, databaseManager.getCounter("counted_players", "p1", "playtime").get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Leaderboards")
+    class Leaderboards {
+
+        private Leaderboard board;
+
+        @BeforeEach
+        void seed() throws ExecutionException, InterruptedException {
+            board = databaseManager.getLeaderboard("kills");
+            for (int i = 1; i <= 10; i++) {
+                assertTrue(board.submit("p" + i, i * 10).get());
+            }
+        }
+
+        @Test
+        @DisplayName("Should return the best entries first")
+        void shouldRankTop() throws ExecutionException, InterruptedException {
+            List<LeaderboardEntry> top = board.top(3).get();
+
+            assertEquals(List.of("p10", "p9", "p8"), top.stream().map(LeaderboardEntry::getPlayerId).toList());
+            assertEquals(1, top.get(0).getRank());
+            assertEquals(100.0, top.get(0).getScore());
+            assertEquals(10L, board.size().get());
+        }
+
+        @Test
+        @DisplayName("Should replace scores and report ranks")
+        void shouldReplaceScores() throws ExecutionException, InterruptedException {
+            assertEquals(Optional.of(10L), board.rankOf("p1").get());
+
+            assertTrue(board.submit("p1", 95).get());
+            assertEquals(Optional.of(2L), board.rankOf("p1").get());
+            assertEquals(Optional.of(95.0), board.scoreOf("p1").get());
+            assertEquals(Optional.empty(), board.rankOf("nobody").get());
+        }
+
+        @Test
+        @DisplayName("Should return the neighbours of a player")
+        void shouldListNeighbours() throws ExecutionException, InterruptedException {
+            List<LeaderboardEntry> around = board.around("p5", 2).get();
+
+            assertEquals(List.of("p7", "p6", "p5", "p4", "p3"),
+                    around.stream().map(LeaderboardEntry::getPlayerId).toList());
+            assertEquals(4, around.get(0).getRank());
+            assertEquals(8, around.get(4).getRank());
+
+            assertEquals(List.of("p10", "p9"),
+                    board.around("p10", 1).get().stream().map(LeaderboardEntry::getPlayerId).toList());
+            assertTrue(board.around("nobody", 2).get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should order equal scores by player id")
+        void shouldBreakTies() throws ExecutionException, InterruptedException {
+            assertTrue(board.submit("p0", 50).get());
+
+            List<LeaderboardEntry> around = board.around("p5", 1).get();
+            assertEquals(List.of("p6", "p5", "p0"), around.stream().map(LeaderboardEntry::getPlayerId).toList());
+        }
+
+        @Test
+        @DisplayName("Should remove players and reject invalid input")
+        void shouldRemove() throws ExecutionException, InterruptedException {
+            assertTrue(board.remove("p10").get());
+            assertEquals("p9", board.top(1).get().get(0).getPlayerId());
+            assertEquals(9L, board.size().get());
+
+            assertThrows(ExecutionException.class, () -> board.submit("p1", Double.NaN).get());
+            assertThrows(IllegalArgumentException.class, () -> databaseManager.getLeaderboard("bad name"));
+            assertSame(board, databaseManager.getLeaderboard("kills"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Change Feed")
+    class ChangeFeedIntegration {
+
+        @Test
+        @DisplayName("Should notify local watchers without Redis")
+        void shouldNotifyLocally() throws Exception {
+            Map<String, String> schema = new HashMap<>();
+            schema.put("id", "VARCHAR(64) PRIMARY KEY");
+            schema.put("name", "VARCHAR(64)");
+            databaseManager.ensureTable("watched_table", schema).get();
+            BlockingQueue<ChangeEvent> events = new LinkedBlockingQueue<>();
+            Subscription subscription = databaseManager.watch("watched_table", "watched_key", events::add);
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", "Watched");
+            assertTrue(databaseManager.set("watched_table", "watched_key", data).get());
+            assertTrue(databaseManager.set("watched_table", "other_key", data).get());
+
+            ChangeEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertEquals("watched_key", event.getKey());
+            assertEquals(ChangeType.SET, event.getType());
+
+            assertTrue(databaseManager.delete("watched_table", "watched_key").get());
+            assertEquals(ChangeType.DELETE, events.poll(5, TimeUnit.SECONDS).getType());
+
+            subscription.cancel();
+            assertFalse(subscription.isActive());
+        }
+    }
+
+    @Nested
+    @DisplayName("Write Spool")
+    class WriteSpoolIntegration {
+
+        @Test
+        @DisplayName("Should spool writes while persist is down and replay them after restart")
+        void shouldSpoolAndReplay() throws ExecutionException, InterruptedException {
+            Map<String, String> schema = new HashMap<>();
+            schema.put("id", "VARCHAR(64) PRIMARY KEY");
+            schema.put("name", "VARCHAR(64)");
+            databaseManager.ensureTable("spool_table", schema).get();
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", "Spooled");
+            databaseManager.getPersistProvider().orElseThrow().close();
+
+            assertTrue(databaseManager.set("spool_table", "spooled_key", data, CacheStrategy.PERSIST_ONLY).get());
+            assertEquals(1, databaseManager.getSpoolStats().getPendingKeys());
+            // Reads see the spooled write before it reaches the database
+            assertEquals("Spooled", databaseManager.get("spool_table", "spooled_key").get().orElseThrow().get("name"));
+            assertTrue(databaseManager.exists("spool_table", "spooled_key").get());
+            databaseManager.close();
+
+            databaseManager = new DatabaseManagerImpl(config);
+            databaseManager.initialize().get();
+            assertEquals(1, databaseManager.getSpoolStats().getPendingKeys());
+            databaseManager.drainSpool().get();
+
+            assertEquals(0, databaseManager.getSpoolStats().getPendingKeys());
+            assertEquals(1, databaseManager.getSpoolStats().getReplayed());
+            List<Map<String, Object>> rows = databaseManager.getPersistProvider().orElseThrow()
+                    .query("spool_table", Map.of("id", "spooled_key")).get();
+            assertEquals(1, rows.size());
+            assertEquals("Spooled", rows.get(0).get("name"));
+        }
+
+        @Test
+        @DisplayName("Should spool deletes as tombstones")
+        void shouldSpoolDeletes() throws ExecutionException, InterruptedException {
+            Map<String, Object> data = new HashMap<>();
+            data.put("name", "Doomed");
+            databaseManager.set("test_table", "doomed_key", data, CacheStrategy.PERSIST_ONLY).get();
+            databaseManager.getPersistProvider().orElseThrow().close();
+
+            assertTrue(databaseManager.delete("test_table", "doomed_key").get());
+            assertFalse(databaseManager.get("test_table", "doomed_key").get().isPresent());
+            assertFalse(databaseManager.exists("test_table", "doomed_key").get());
+        }
+    }
+
     @Nested
     @DisplayName("Lifecycle")
     class Lifecycle {
@@ -0,0 +1,90 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BloomFilterIndex sizing and hashing.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("BloomFilterIndex Tests")
+class BloomFilterIndexTest {
+
+    @Nested
+    @DisplayName("Sizing")
+    class Sizing {
+
+        @Test
+        @DisplayName("Should size about 9.6 bits per key with 7 hashes for 1% false positives")
+        void shouldComputeOptimalSize() {
+            long bits = BloomFilterIndex.optimalBits(1_000_000, 0.01);
+            assertTrue(bits > 9_500_000 && bits < 9_700_000, "bits=" + bits);
+            assertEquals(7, BloomFilterIndex.optimalHashes(1_000_000, bits));
+        }
+
+        @Test
+        @DisplayName("Should clamp to the Redis bitmap limit")
+        void shouldClampToRedisLimit() {
+            assertEquals(1L << 32, BloomFilterIndex.optimalBits(Long.MAX_VALUE / 2, 1e-9));
+        }
+    }
+
+    @Nested
+    @DisplayName("Hashing")
+    class Hashing {
+
+        @Test
+        @DisplayName("Positions should be stable and within range")
+        void positionsShouldBeStable() {
+            long[] first = BloomFilterIndex.positions("player-1", 1000, 5);
+            long[] second = BloomFilterIndex.positions("player-1", 1000, 5);
+
+            assertArrayEquals(first, second);
+            for (long position : first) {
+                assertTrue(position >= 0 && position < 1000);
+            }
+        }
+
+        @Test
+        @DisplayName("Should have no false negatives and a false positive rate near the target")
+        void shouldMeetFalsePositiveTarget() {
+            int keys = 20_000;
+            long bits = BloomFilterIndex.optimalBits(keys, 0.01);
+            int hashes = BloomFilterIndex.optimalHashes(keys, bits);
+            BitSet bitmap = new BitSet((int) bits);
+
+            for (int i = 0; i < keys; i++) {
+                for (long position : BloomFilterIndex.positions("member-" + i, bits, hashes)) {
+                    bitmap.set((int) position);
+                }
+            }
+
+            for (int i = 0; i < keys; i++) {
+                assertTrue(contains(bitmap, "member-" + i, bits, hashes));
+            }
+
+            int falsePositives = 0;
+            for (int i = 0; i < keys; i++) {
+                if (contains(bitmap, "stranger-" + i, bits, hashes)) {
+                    falsePositives++;
+                }
+            }
+            assertTrue(falsePositives < keys * 0.02, "falsePositives=" + falsePositives);
+        }
+
+        private boolean contains(BitSet bitmap, String key, long bits, int hashes) {
+            for (long position : BloomFilterIndex.positions(key, bits, hashes)) {
+                if (!bitmap.get((int) position)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CounterStore.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("CounterStore Tests")
+class CounterStoreTest {
+
+    private static final String PLAYER_1 = "yrdatabase:players:uuid-1";
+    private static final String PLAYER_2 = "yrdatabase:players:uuid-2";
+
+    private FakeRedis redis;
+    private CounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        store = new CounterStore(() -> redis, KeyLayout.standalone());
+    }
+
+    @Nested
+    @DisplayName("Increments")
+    class Increments {
+
+        @Test
+        @DisplayName("Should accumulate deltas per field")
+        void shouldAccumulate() {
+            store.increment(PLAYER_1, "coins", 10L).join();
+            store.increment(PLAYER_1, "coins", -3L).join();
+            store.increment(PLAYER_1, "kills", 1L).join();
+
+            assertEquals(7.0, store.pending(PLAYER_1, "coins").join());
+            assertEquals(1.0, store.pending(PLAYER_1, "kills").join());
+            assertEquals(0.0, store.pending(PLAYER_2, "coins").join());
+            assertEquals(Set.of(PLAYER_1), redis.sets.get("yrdatabase:counters"));
+        }
+
+        @Test
+        @DisplayName("Should keep fractional deltas")
+        void shouldAccumulateFloats() {
+            store.increment(PLAYER_1, "playtime", 1.5).join();
+            store.increment(PLAYER_1, "playtime", 0.25).join();
+
+            assertEquals(1.75, store.pending(PLAYER_1, "playtime").join());
+        }
+    }
+
+    @Nested
+    @DisplayName("Flushing")
+    class Flushing {
+
+        @Test
+        @DisplayName("Should hand out each delta exactly once")
+        void shouldTakeOnce() {
+            store.increment(PLAYER_1, "coins", 10L).join();
+            store.increment(PLAYER_2, "coins", 5L).join();
+
+            Map<String, Map<String, Number>> taken = store.take(100).join();
+            assertEquals(2, taken.size());
+            assertEquals(10L, taken.get(PLAYER_1).get("coins"));
+            assertEquals(5L, taken.get(PLAYER_2).get("coins"));
+            store.commit(taken.keySet()).join();
+
+            assertTrue(store.take(100).join().isEmpty());
+            assertEquals(0.0, store.pending(PLAYER_1, "coins").join());
+        }
+
+        @Test
+        @DisplayName("Should take at most a batch per dirty set")
+        void shouldTakeBatches() {
+            for (int i = 0; i < 5; i++) {
+                store.increment("yrdatabase:players:uuid-" + i, "coins", 1L).join();
+            }
+
+            assertEquals(2, store.take(2).join().size());
+            assertEquals(2, store.take(2).join().size());
+            assertEquals(1, store.take(2).join().size());
+        }
+
+        @Test
+        @DisplayName("Should keep increments made after a take for the next flush")
+        void shouldKeepLaterIncrements() {
+            store.increment(PLAYER_1, "coins", 10L).join();
+            store.commit(store.take(100).join().keySet()).join();
+            store.increment(PLAYER_1, "coins", 4L).join();
+
+            assertEquals(4L, store.take(100).join().get(PLAYER_1).get("coins"));
+        }
+
+        @Test
+        @DisplayName("Should put failed deltas back on top of newer increments")
+        void shouldRestore() {
+            store.increment(PLAYER_1, "coins", 10L).join();
+            Map<String, Map<String, Number>> taken = store.take(100).join();
+            store.increment(PLAYER_1, "coins", 4L).join();
+
+            store.restore(taken.keySet()).join();
+
+            assertEquals(14L, store.take(100).join().get(PLAYER_1).get("coins"));
+        }
+
+        @Test
+        @DisplayName("Should leave claimed deltas alone until the claim expires")
+        void shouldRecoverUncommitted() {
+            store.increment(PLAYER_1, "coins", 10L).join();
+            store.take(100).join();
+            // 未提交（子服在写库前停止），之后该行又被累加
+            store.increment(PLAYER_1, "coins", 4L).join();
+
+            assertTrue(store.take(100).join().isEmpty());
+            assertEquals(14.0, store.pending(PLAYER_1, "coins").join());
+
+            redis.now += CounterStore.CLAIM_TTL.toMillis() + 1;
+            assertEquals(14L, store.take(100).join().get(PLAYER_1).get("coins"));
+        }
+
+        @Test
+        @DisplayName("Should commit flushed deltas into cached rows only")
+        void shouldCommitAndApply() {
+            redis.strings.put(PLAYER_1, "{\"coins\":100,\"items\":[],\"name\":null}");
+            store.increment(PLAYER_1, "coins", 10L).join();
+            store.increment(PLAYER_2, "coins", 5L).join();
+            Map<String, Map<String, Number>> flushed = store.take(100).join();
+
+            store.commitAndApply(flushed).join();
+
+            assertEquals("{\"coins\":110,\"items\":[],\"name\":null}", redis.strings.get(PLAYER_1));
+            assertFalse(redis.strings.containsKey(PLAYER_2));
+            assertEquals(0.0, store.pending(PLAYER_1, "coins").join());
+            assertTrue(redis.claims.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should record the fields changed through counters per table")
+        void shouldRecordFields() {
+            store.increment(PLAYER_1, "coins", 1L).join();
+            store.increment(PLAYER_2, "playtime", 0.5).join();
+
+            assertEquals(Set.of("coins", "playtime"), redis.sets.get("yrdatabase:counter-fields:players"));
+            assertEquals(Set.of("coins", "playtime"), store.fields("players").join());
+            assertTrue(store.fields("guilds").join().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should add deltas without losing precision or other fields")
+        void shouldAddToJsonExactly() {
+            assertEquals("{\"coins\":9007199254740993,\"ratio\":0.1}",
+                    CounterStore.addToJson("{\"coins\":9007199254740992,\"ratio\":0.1}", Map.of("coins", 1L)));
+            assertEquals("{\"playtime\":1.75,\"note\":\"x\"}",
+                    CounterStore.addToJson("{\"playtime\":1.5,\"note\":\"x\"}", Map.of("playtime", 0.25)));
+            assertEquals("{\"kills\":3}", CounterStore.addToJson("{}", Map.of("kills", 3L)));
+            assertNull(CounterStore.addToJson("[1]", Map.of("kills", 3L)));
+        }
+    }
+
+    /**
+     * In-memory stand-in for the hash, set, claim and script commands used by counters.
+     */
+    private static class FakeRedis extends RedisProvider {
+        final Map<String, Map<String, String>> hashes = new HashMap<>();
+        final Map<String, Set<String>> sets = new HashMap<>();
+        final Map<String, String> strings = new HashMap<>();
+        // 认领：成员 -> 截止时间（毫秒，基于 now）
+        final Map<String, Long> claims = new LinkedHashMap<>();
+        long now = 1_000_000L;
+
+        FakeRedis() {
+            super(new DatabaseConfig.CacheConfig());
+        }
+
+        @Override
+        public CompletableFuture<Long> hincrBy(String key, String field, long amount) {
+            Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+            long value = Long.parseLong(hash.getOrDefault(field, "0")) + amount;
+            hash.put(field, Long.toString(value));
+            return CompletableFuture.completedFuture(value);
+        }
+
+        @Override
+        public CompletableFuture<Double> hincrByFloat(String key, String field, double amount) {
+            Map<String, String> hash = hashes.computeIfAbsent(key, k -> new HashMap<>());
+            double value = Double.parseDouble(hash.getOrDefault(field, "0")) + amount;
+            hash.put(field, Double.toString(value));
+            return CompletableFuture.completedFuture(value);
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> hget(String key, String field) {
+            Map<String, String> hash = hashes.get(key);
+            return CompletableFuture.completedFuture(Optional.ofNullable(hash != null ? hash.get(field) : null));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> sadd(String key, String member) {
+            return CompletableFuture.completedFuture(sets.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(member));
+        }
+
+        @Override
+        public CompletableFuture<Set<String>> spop(String key, long count) {
+            Set<String> popped = new LinkedHashSet<>();
+            Set<String> set = sets.get(key);
+            if (set != null) {
+                Iterator<String> it = set.iterator();
+                while (it.hasNext() && popped.size() < count) {
+                    popped.add(it.next());
+                    it.remove();
+                }
+            }
+            return CompletableFuture.completedFuture(popped);
+        }
+
+        @Override
+        public CompletableFuture<Set<String>> smembers(String key) {
+            return CompletableFuture.completedFuture(new LinkedHashSet<>(sets.getOrDefault(key, Set.of())));
+        }
+
+        @Override
+        public CompletableFuture<List<String>> claimMembers(String setKey, String claimKey, long count, Duration claimTtl) {
+            List<String> out = new ArrayList<>();
+            claims.forEach((member, deadline) -> {
+                if (deadline <= now && out.size() < count) {
+                    out.add(member);
+                }
+            });
+            for (String member : spop(setKey, count - out.size()).join()) {
+                Long deadline = claims.get(member);
+                if (deadline != null && deadline > now) {
+                    sadd(setKey, member);
+                } else if (!out.contains(member)) {
+                    out.add(member);
+                }
+            }
+            out.forEach(member -> claims.put(member, now + claimTtl.toMillis()));
+            return CompletableFuture.completedFuture(out);
+        }
+
+        @Override
+        public CompletableFuture<Long> zrem(String key, String... members) {
+            long removed = 0;
+            for (String member : members) {
+                removed += claims.remove(member) != null ? 1 : 0;
+            }
+            return CompletableFuture.completedFuture(removed);
+        }
+
+        @Override
+        public CompletableFuture<Map<String, String>> stageHash(String key, String processingKey) {
+            merge(key, processingKey);
+            Map<String, String> staged = hashes.get(processingKey);
+            return CompletableFuture.completedFuture(staged != null ? new HashMap<>(staged) : Map.of());
+        }
+
+        @Override
+        public CompletableFuture<Boolean> unstageHash(String key, String processingKey) {
+            merge(processingKey, key);
+            return CompletableFuture.completedFuture(true);
+        }
+
+        private void merge(String from, String to) {
+            Map<String, String> source = hashes.remove(from);
+            if (source != null) {
+                source.forEach((field, value) -> hincrBy(to, field, Long.parseLong(value)));
+            }
+        }
+
+        @Override
+        public CompletableFuture<Boolean> delete(String key) {
+            return CompletableFuture.completedFuture(hashes.remove(key) != null || strings.remove(key) != null);
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> get(String key) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(strings.get(key)));
+        }
+
+        @Override
+        public CompletableFuture<Boolean> replaceAndDelete(String key, String expected, String value, String deleteKey) {
+            if (!Objects.equals(expected, strings.get(key))) {
+                return CompletableFuture.completedFuture(false);
+            }
+            if (expected != null) {
+                strings.put(key, value);
+            }
+            hashes.remove(deleteKey);
+            return CompletableFuture.completedFuture(true);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KeyLayout.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("KeyLayout Tests")
+class KeyLayoutTest {
+
+    @Nested
+    @DisplayName("Standalone")
+    class Standalone {
+
+        private final KeyLayout layout = KeyLayout.standalone();
+
+        @Test
+        @DisplayName("Should keep the existing key format")
+        void shouldKeepLegacyKeys() {
+            assertEquals("yrdatabase:players:uuid-1", layout.cacheKey("players", "uuid-1"));
+            assertEquals("yrdatabase:absent:players:uuid-1", layout.absentKey("players", "uuid-1"));
+            assertEquals("yrdatabase:absent-gen:players:uuid-1", layout.absentGenerationKey("players", "uuid-1"));
+            assertEquals("yrdatabase:lock:yrdatabase:players:uuid-1", layout.lockKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:lease:uuid-1", layout.leaseKey("uuid-1"));
+            assertEquals("yrdatabase:written:yrdatabase:players:uuid-1", layout.writtenKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:stale-marks", layout.staleMarksKey());
+            assertEquals(List.of("yrdatabase:pending"), layout.pendingKeys());
+            assertEquals("yrdatabase:pending", layout.pendingKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:counter:yrdatabase:players:uuid-1", layout.counterKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:counter:yrdatabase:players:uuid-1:processing",
+                    layout.counterProcessingKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:counters", layout.counterSetKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:counters:claimed", layout.counterClaimKey("yrdatabase:players:uuid-1"));
+            assertEquals("yrdatabase:counter-fields:players", layout.counterFieldsKey("players"));
+            assertEquals("yrdatabase:leaderboard:kills", layout.leaderboardKey("kills"));
+            assertEquals("yrdatabase:leaderboard:kills:dirty", layout.leaderboardDirtyKey("kills"));
+        }
+
+        @Test
+        @DisplayName("Should parse cache keys")
+        void shouldParse() {
+            assertArrayEquals(new String[]{"players", "uuid-1"}, layout.parse("yrdatabase:players:uuid-1"));
+            assertNull(layout.parse("other:players:uuid-1"));
+            assertNull(layout.parse("yrdatabase:players"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Cluster")
+    class Cluster {
+
+        private final KeyLayout layout = new KeyLayout(true, 16);
+
+        @Test
+        @DisplayName("Should compute Redis Cluster slots")
+        void shouldComputeSlots() {
+            // Reference values from the Redis Cluster specification / CLUSTER KEYSLOT
+            assertEquals(12739, KeyLayout.slot("123456789"));
+            assertEquals(12182, KeyLayout.slot("foo"));
+            assertEquals(KeyLayout.slot("bar"), KeyLayout.slot("{bar}.baz"));
+        }
+
+        @Test
+        @DisplayName("Should colocate a player's keys with hash tags")
+        void shouldColocatePlayerKeys() {
+            String cacheKey = layout.cacheKey("players", "uuid-1");
+            assertEquals("yrdatabase:players:{uuid-1}", cacheKey);
+
+            int slot = KeyLayout.slot(cacheKey);
+            assertEquals(slot, KeyLayout.slot(layout.cacheKey("guilds", "uuid-1")));
+            assertEquals(slot, KeyLayout.slot(layout.absentKey("players", "uuid-1")));
+            assertEquals(slot, KeyLayout.slot(layout.lockKey(cacheKey)));
+            assertEquals(slot, KeyLayout.slot(layout.writtenKey(cacheKey)));
+            assertEquals(slot, KeyLayout.slot(layout.leaseKey("uuid-1")));
+            assertEquals(slot, KeyLayout.slot(layout.counterKey(cacheKey)));
+            assertEquals(slot, KeyLayout.slot(layout.counterProcessingKey(cacheKey)));
+            assertArrayEquals(new String[]{"players", "uuid-1"}, layout.parse(cacheKey));
+            assertNull(layout.parse("yrdatabase:players:uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should colocate a leaderboard with its bookkeeping keys")
+        void shouldColocateLeaderboardKeys() {
+            String boardKey = layout.leaderboardKey("kills");
+            assertEquals("yrdatabase:leaderboard:{kills}", boardKey);
+
+            int slot = KeyLayout.slot(boardKey);
+            assertEquals(slot, KeyLayout.slot(layout.leaderboardDirtyKey("kills")));
+            assertEquals(slot, KeyLayout.slot(layout.leaderboardLoadedKey("kills")));
+        }
+
+        @Test
+        @DisplayName("Should shard the pending set by slot range")
+        void shouldShardPending() {
+            List<String> shards = layout.pendingKeys();
+            assertEquals(16, shards.size());
+            assertEquals(16, new HashSet<>(shards).size());
+            for (int i = 0; i < shards.size(); i++) {
+                assertEquals(i, KeyLayout.slot(shards.get(i)) * 16 / KeyLayout.SLOTS);
+            }
+
+            Set<String> used = new HashSet<>();
+            for (int i = 0; i < 1000; i++) {
+                String cacheKey = layout.cacheKey("players", "player-" + i);
+                String pendingKey = layout.pendingKey(cacheKey);
+                // The entry's shard covers the slot of the key it tracks
+                assertEquals(KeyLayout.slot(cacheKey) * 16 / KeyLayout.SLOTS, shards.indexOf(pendingKey));
+                used.add(pendingKey);
+                // Dirty counter sets follow the same shard assignment
+                assertEquals(shards.indexOf(pendingKey), layout.counterSetKeys().indexOf(layout.counterSetKey(cacheKey)));
+                assertEquals(KeyLayout.slot(layout.counterSetKey(cacheKey)),
+                        KeyLayout.slot(layout.counterClaimKey(cacheKey)));
+            }
+            assertEquals(16, used.size());
+        }
+
+        @Test
+        @DisplayName("Should derive the same shard keys on every server")
+        void shouldBeDeterministic() {
+            assertEquals(layout.pendingKeys(), new KeyLayout(true, 16).pendingKeys());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LeaseManager.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("LeaseManager Tests")
+class LeaseManagerTest {
+
+    private FakeRedis redis;
+    private LeaseManager server1;
+    private LeaseManager server2;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        KeyLayout layout = KeyLayout.standalone();
+        server1 = new LeaseManager(() -> redis, layout, "server-1", Duration.ofSeconds(30));
+        server2 = new LeaseManager(() -> redis, layout, "server-2", Duration.ofSeconds(30));
+    }
+
+    @Nested
+    @DisplayName("Ownership")
+    class Ownership {
+
+        @Test
+        @DisplayName("Should hold the lease of a joined player")
+        void shouldClaimOnJoin() {
+            server1.join("uuid-1").join();
+
+            assertTrue(server1.holds("uuid-1"));
+            assertEquals("server-1", redis.leases.get("yrdatabase:lease:uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should not take over a lease held by another server")
+        void shouldNotSteal() {
+            server1.join("uuid-1").join();
+            server2.join("uuid-1").join();
+
+            assertTrue(server1.holds("uuid-1"));
+            assertFalse(server2.holds("uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should pick up the lease once the previous owner releases it")
+        void shouldHandOver() {
+            server1.join("uuid-1").join();
+            server2.join("uuid-1").join();
+
+            server1.quit("uuid-1");
+            assertTrue(server1.holds("uuid-1"), "Lease is kept until released");
+            assertTrue(server1.release("uuid-1").join());
+            assertFalse(server1.holds("uuid-1"));
+
+            server2.renew().join();
+            assertTrue(server2.holds("uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should pick up the lease of a crashed server after expiry")
+        void shouldTakeOverExpiredLease() {
+            server1.join("uuid-1").join();
+            server2.join("uuid-1").join();
+
+            // server-1 崩溃，租约在 Redis 中过期
+            redis.leases.remove("yrdatabase:lease:uuid-1");
+            server2.renew().join();
+
+            assertTrue(server2.holds("uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should keep the lease when the player comes back before release")
+        void shouldKeepLeaseOnRejoin() {
+            server1.join("uuid-1").join();
+            server1.quit("uuid-1");
+            server1.join("uuid-1").join();
+
+            assertFalse(server1.release("uuid-1").join());
+            assertTrue(server1.holds("uuid-1"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Renewal")
+    class Renewal {
+
+        @Test
+        @DisplayName("Should renew all leases in one pipelined call")
+        void shouldRenewInBulk() {
+            for (int i = 0; i < 10; i++) {
+                server1.join("uuid-" + i).join();
+            }
+            redis.claimCalls = 0;
+
+            assertEquals(10, server1.renew().join());
+            assertEquals(1, redis.claimCalls);
+        }
+
+        @Test
+        @DisplayName("Should drop a lease taken by another server")
+        void shouldDropLostLease() {
+            server1.join("uuid-1").join();
+            redis.leases.put("yrdatabase:lease:uuid-1", "server-2");
+
+            server1.renew().join();
+
+            assertFalse(server1.holds("uuid-1"));
+        }
+
+        @Test
+        @DisplayName("Should stop owning after the lease could not be renewed in time")
+        void shouldExpireLocally() throws Exception {
+            LeaseManager shortLived = new LeaseManager(() -> redis, KeyLayout.standalone(), "server-1",
+                    Duration.ofSeconds(1));
+            shortLived.join("uuid-1").join();
+            redis.failing = true;
+
+            shortLived.renew().join();
+            assertTrue(shortLived.holds("uuid-1"), "Still within the previous lease");
+            Thread.sleep(1100);
+            assertFalse(shortLived.holds("uuid-1"));
+        }
+    }
+
+    /**
+     * In-memory stand-in for the lease commands of Redis.
+     */
+    private static class FakeRedis extends RedisProvider {
+        final Map<String, String> leases = new ConcurrentHashMap<>();
+        volatile boolean failing = false;
+        int claimCalls = 0;
+
+        FakeRedis() {
+            super(new DatabaseConfig.CacheConfig());
+        }
+
+        @Override
+        public CompletableFuture<List<Boolean>> claimLeases(List<String> keys, String owner, Duration ttl) {
+            claimCalls++;
+            if (failing) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Redis not connected"));
+            }
+            List<Boolean> granted = new ArrayList<>();
+            for (String key : keys) {
+                String current = leases.putIfAbsent(key, owner);
+                granted.add(current == null || current.equals(owner));
+            }
+            return CompletableFuture.completedFuture(granted);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> releaseLease(String key, String owner) {
+            return CompletableFuture.completedFuture(leases.remove(key, owner));
+        }
+    }
+}
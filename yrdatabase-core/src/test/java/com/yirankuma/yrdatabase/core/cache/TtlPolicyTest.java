@@ -0,0 +1,138 @@
+package com.yirankuma.yrdatabase.core.cache;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TtlPolicy.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("TtlPolicy Tests")
+class TtlPolicyTest {
+
+    private DatabaseConfig.CachingConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new DatabaseConfig.CachingConfig();
+        config.setDefaultTTL(3600);
+        config.setPlayerDataTTL(7200);
+        config.setSweepIntervalSeconds(30);
+        config.setTtlJitter(0);
+    }
+
+    @Nested
+    @DisplayName("Base TTL")
+    class BaseTtl {
+
+        @Test
+        @DisplayName("Should use defaultTTL and playerDataTTL for online players")
+        void shouldUsePlayerTtlWhenOnline() {
+            TtlPolicy policy = new TtlPolicy(config);
+            assertEquals(3600, policy.ttlSeconds("players", "yrdatabase:players:a", false));
+            assertEquals(7200, policy.ttlSeconds("players", "yrdatabase:players:a", true));
+        }
+
+        @Test
+        @DisplayName("Should prefer the table TTL")
+        void shouldUseTableTtl() {
+            config.setTableTTLs(List.of("guilds:600", "mail:120:0"));
+            TtlPolicy policy = new TtlPolicy(config);
+            assertEquals(600, policy.ttlSeconds("guilds", "yrdatabase:guilds:g", true));
+            assertEquals(120, policy.ttlSeconds("mail", "yrdatabase:mail:m", false));
+        }
+
+        @Test
+        @DisplayName("Should reject malformed table TTLs")
+        void shouldRejectMalformedEntries() {
+            config.setTableTTLs(List.of("guilds"));
+            assertThrows(IllegalArgumentException.class, () -> new TtlPolicy(config));
+            config.setTableTTLs(List.of("guilds:soon"));
+            assertThrows(IllegalArgumentException.class, () -> new TtlPolicy(config));
+        }
+
+        @Test
+        @DisplayName("Should never go below one sweep interval")
+        void shouldKeepMinimum() {
+            config.setTableTTLs(List.of("short:5"));
+            assertEquals(31, new TtlPolicy(config).ttlSeconds("short", "yrdatabase:short:s", false));
+        }
+    }
+
+    @Nested
+    @DisplayName("Jitter")
+    class Jitter {
+
+        @Test
+        @DisplayName("Should spread TTLs within the jitter range")
+        void shouldSpreadTtls() {
+            config.setTtlJitter(0.2);
+            TtlPolicy policy = new TtlPolicy(config);
+
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            double sum = 0;
+            int samples = 10000;
+            for (int i = 0; i < samples; i++) {
+                long ttl = policy.ttlSeconds("players", "yrdatabase:players:" + i, false);
+                assertTrue(ttl >= 2880 && ttl <= 4320, "Out of range: " + ttl);
+                min = Math.min(min, ttl);
+                max = Math.max(max, ttl);
+                sum += ttl;
+            }
+            assertTrue(max - min > 1000, "Not spread: " + min + ".." + max);
+            assertEquals(3600, sum / samples, 30);
+        }
+    }
+
+    @Nested
+    @DisplayName("Adaptive TTL")
+    class Adaptive {
+
+        @Test
+        @DisplayName("Should shorten cold keys and extend hot keys")
+        void shouldScaleByAccessFrequency() {
+            config.setAdaptiveTTL(true);
+            config.setAdaptiveHotAccesses(8);
+            config.setAdaptiveMinFactor(0.5);
+            config.setAdaptiveMaxFactor(2.0);
+            config.setAdaptiveSketchWidth(1024);
+            TtlPolicy policy = new TtlPolicy(config);
+
+            String hot = "yrdatabase:players:hot";
+            for (int i = 0; i < 20; i++) {
+                policy.recordAccess(hot);
+            }
+            policy.recordAccess("yrdatabase:players:warm");
+
+            assertEquals(1800, policy.ttlSeconds("players", "yrdatabase:players:cold", false));
+            assertEquals(7200, policy.ttlSeconds("players", hot, false));
+            long warm = policy.ttlSeconds("players", "yrdatabase:players:warm", false);
+            assertTrue(warm > 1800 && warm < 3600, "Warm: " + warm);
+        }
+
+        @Test
+        @DisplayName("Should forget old accesses over time")
+        void shouldAgeCounters() {
+            FrequencySketch sketch = new FrequencySketch(64);
+            for (int i = 0; i < 100; i++) {
+                sketch.increment("old");
+            }
+            int before = sketch.frequency("old");
+            // 10 × width 次写入后所有计数减半
+            for (int i = 0; i < 640; i++) {
+                sketch.increment("other-" + i);
+            }
+            int after = sketch.frequency("old");
+            assertTrue(after < before * 3 / 4, "Not aged: " + before + " -> " + after);
+        }
+    }
+}
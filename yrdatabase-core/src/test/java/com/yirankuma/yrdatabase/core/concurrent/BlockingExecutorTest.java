@@ -0,0 +1,169 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BlockingExecutor.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("BlockingExecutor Tests")
+class BlockingExecutorTest {
+
+    private BlockingExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private int runConcurrently(int tasks) {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < tasks; i++) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }, executor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        return peak.get();
+    }
+
+    @Nested
+    @DisplayName("Virtual Mode")
+    class VirtualMode {
+
+        @Test
+        @DisplayName("Should run on virtual threads")
+        void shouldUseVirtualThreads() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_VIRTUAL, 2);
+            assertTrue(executor.isVirtual());
+            assertTrue(CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor).join());
+        }
+
+        @Test
+        @DisplayName("Should limit concurrency to the permit count")
+        void shouldLimitConcurrency() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_VIRTUAL, 3);
+            assertTrue(runConcurrently(50) <= 3);
+        }
+    }
+
+    @Nested
+    @DisplayName("Fixed Mode")
+    class FixedMode {
+
+        @Test
+        @DisplayName("Should fall back to platform threads for unknown modes")
+        void shouldDefaultToFixed() {
+            executor = new BlockingExecutor("test", "unknown", 2);
+            assertFalse(executor.isVirtual());
+            assertEquals(BlockingExecutor.MODE_FIXED, executor.getStats().getMode());
+            assertFalse(CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor).join());
+        }
+
+        @Test
+        @DisplayName("Should limit concurrency to the pool size")
+        void shouldLimitConcurrency() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_FIXED, 2);
+            assertTrue(runConcurrently(20) <= 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("Supply")
+    class Supply {
+
+        @Test
+        @DisplayName("Should complete with the task result")
+        void shouldCompleteWithResult() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_VIRTUAL, 1);
+            assertEquals(42, executor.supply(() -> 42).join());
+        }
+
+        @Test
+        @DisplayName("Should fail the future when interrupted while waiting for a permit")
+        void shouldFailWhenInterrupted() throws InterruptedException {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_VIRTUAL, 1);
+            CountDownLatch holding = new CountDownLatch(1);
+            executor.supply(() -> {
+                holding.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            });
+            holding.await();
+            CompletableFuture<Integer> waiting = executor.supply(() -> 1);
+
+            // shutdown() interrupts both tasks once the grace period is over
+            executor.shutdown();
+
+            CompletionException error = assertThrows(CompletionException.class,
+                    () -> waiting.orTimeout(5, TimeUnit.SECONDS).join());
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+        }
+
+        @Test
+        @DisplayName("Should fail the future instead of throwing after shutdown")
+        void shouldFailWhenShutDown() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_FIXED, 1);
+            executor.shutdown();
+
+            CompletableFuture<Integer> rejected = assertDoesNotThrow(() -> executor.supply(() -> 1));
+            CompletionException error = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        }
+    }
+
+    @Nested
+    @DisplayName("Statistics")
+    class Statistics {
+
+        @Test
+        @DisplayName("Should separate queue wait from execution time")
+        void shouldTrackWaitAndExecution() {
+            executor = new BlockingExecutor("test", BlockingExecutor.MODE_VIRTUAL, 1);
+            runConcurrently(5);
+            // Futures complete inside the task, bookkeeping finishes just after
+            long deadline = System.currentTimeMillis() + 2000;
+            while (executor.getStats().getCompleted() < 5 && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            ExecutorStats stats = executor.getStats();
+            assertEquals(5, stats.getSubmitted());
+            assertEquals(5, stats.getCompleted());
+            assertEquals(0, stats.getActive());
+            assertEquals(0, stats.getWaiting());
+            assertTrue(stats.getMaxExecutionMs() >= 10);
+            // With one permit the last task waited for the four before it
+            assertTrue(stats.getMaxQueueWaitMs() >= 30);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SingleFlight.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("SingleFlight Tests")
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+    @Nested
+    @DisplayName("Coalescing")
+    class Coalescing {
+
+        @Test
+        @DisplayName("Should share one load between concurrent callers")
+        void shouldShareInFlightLoad() {
+            CompletableFuture<String> source = new CompletableFuture<>();
+            AtomicInteger calls = new AtomicInteger();
+
+            CompletableFuture<String> first = flight.execute("k", () -> {
+                calls.incrementAndGet();
+                return source;
+            });
+            CompletableFuture<String> second = flight.execute("k", () -> {
+                calls.incrementAndGet();
+                return CompletableFuture.completedFuture("other");
+            });
+
+            assertEquals(1, flight.getInFlight());
+            source.complete("value");
+
+            assertEquals("value", first.join());
+            assertEquals("value", second.join());
+            assertEquals(1, calls.get());
+            assertEquals(1, flight.getLoads());
+            assertEquals(1, flight.getShared());
+            assertEquals(0, flight.getInFlight());
+        }
+
+        @Test
+        @DisplayName("Should not share between different keys")
+        void shouldIsolateKeys() {
+            CompletableFuture<String> a = flight.execute("a", () -> CompletableFuture.completedFuture("A"));
+            CompletableFuture<String> b = flight.execute("b", () -> CompletableFuture.completedFuture("B"));
+
+            assertEquals("A", a.join());
+            assertEquals("B", b.join());
+            assertEquals(2, flight.getLoads());
+        }
+
+        @Test
+        @DisplayName("Should start a new load after the previous one completed")
+        void shouldNotCacheResults() {
+            flight.execute("k", () -> CompletableFuture.completedFuture("first")).join();
+            String second = flight.execute("k", () -> CompletableFuture.completedFuture("second")).join();
+
+            assertEquals("second", second);
+            assertEquals(2, flight.getLoads());
+        }
+    }
+
+    @Nested
+    @DisplayName("Failures and Invalidation")
+    class FailuresAndInvalidation {
+
+        @Test
+        @DisplayName("Should propagate failures to all callers and clear the entry")
+        void shouldPropagateFailure() {
+            CompletableFuture<String> source = new CompletableFuture<>();
+            CompletableFuture<String> first = flight.execute("k", () -> source);
+            CompletableFuture<String> second = flight.execute("k", () -> source);
+
+            source.completeExceptionally(new IllegalStateException("boom"));
+
+            assertTrue(first.isCompletedExceptionally());
+            assertTrue(second.isCompletedExceptionally());
+            assertEquals(0, flight.getInFlight());
+        }
+
+        @Test
+        @DisplayName("Should turn a throwing loader into a failed future")
+        void shouldHandleThrowingLoader() {
+            CompletableFuture<String> result = flight.execute("k", () -> {
+                throw new IllegalStateException("boom");
+            });
+
+            assertTrue(result.isCompletedExceptionally());
+            assertEquals(0, flight.getInFlight());
+        }
+
+        @Test
+        @DisplayName("Forget should make later callers start a fresh load")
+        void forgetShouldDetachInFlightLoad() {
+            CompletableFuture<String> stale = new CompletableFuture<>();
+            CompletableFuture<String> before = flight.execute("k", () -> stale);
+
+            flight.forget("k");
+            CompletableFuture<String> after = flight.execute("k", () -> CompletableFuture.completedFuture("fresh"));
+
+            assertEquals("fresh", after.join());
+            stale.complete("stale");
+            assertEquals("stale", before.join());
+            assertEquals(0, flight.getInFlight());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for StripedDispatcher.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("StripedDispatcher Tests")
+class StripedDispatcherTest {
+
+    private StripedDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.shutdown(1000);
+        }
+    }
+
+    @Nested
+    @DisplayName("Ordering")
+    class Ordering {
+
+        @Test
+        @DisplayName("Should run tasks with the same key in submission order")
+        void shouldPreserveOrderPerKey() {
+            dispatcher = new StripedDispatcher("test", 4, 1000);
+            List<Integer> seen = Collections.synchronizedList(new ArrayList<>());
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                int n = i;
+                futures.add(dispatcher.dispatch("player-1", () -> seen.add(n)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            for (int i = 0; i < 500; i++) {
+                assertEquals(i, seen.get(i));
+            }
+            assertEquals(500, dispatcher.getDispatched());
+        }
+
+        @Test
+        @DisplayName("Should not block other keys while one lane is busy")
+        void shouldRunOtherKeysInParallel() throws Exception {
+            dispatcher = new StripedDispatcher("test", 2, 10);
+            CountDownLatch release = new CountDownLatch(1);
+
+            // "a" and "b" hash to different lanes
+            String blocked = "a";
+            String other = "b";
+            dispatcher.dispatch(blocked, () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            CompletableFuture<Void> otherFuture = dispatcher.dispatch(other, () -> { });
+            otherFuture.get(2, TimeUnit.SECONDS);
+            assertTrue(otherFuture.isDone());
+            release.countDown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Overflow")
+    class Overflow {
+
+        @Test
+        @DisplayName("Should reject and count tasks when the lane queue is full")
+        void shouldRejectWhenFull() {
+            dispatcher = new StripedDispatcher("test", 1, 2);
+            CountDownLatch release = new CountDownLatch(1);
+
+            dispatcher.dispatch("k", () -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            // Wait for the worker to pick up the blocking task so the queue is empty
+            long deadline = System.currentTimeMillis() + 2000;
+            while (dispatcher.getQueued() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            dispatcher.dispatch("k", () -> { });
+            dispatcher.dispatch("k", () -> { });
+            CompletableFuture<Void> overflow = dispatcher.dispatch("k", () -> { });
+
+            assertTrue(overflow.isCompletedExceptionally());
+            CompletableFuture<Void> handled = overflow.handle((v, e) -> {
+                assertInstanceOf(RejectedExecutionException.class, e);
+                return null;
+            });
+            handled.join();
+            assertEquals(1, dispatcher.getRejected());
+            assertEquals(2, dispatcher.getMaxQueueDepth());
+
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.yirankuma.yrdatabase.core.concurrent;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    @Nested
+    @DisplayName("Scheduling")
+    class Scheduling {
+
+        @Test
+        @DisplayName("Should fire a key at its deadline and not before")
+        void shouldFireAtDeadline() {
+            TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 0);
+            wheel.schedule("a", 55);
+
+            assertTrue(wheel.advance(50).isEmpty());
+            assertEquals(List.of("a"), wheel.advance(60));
+            assertEquals(0, wheel.size());
+            assertTrue(wheel.advance(1000).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should replace the deadline when rescheduled")
+        void shouldReschedule() {
+            TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 0);
+            wheel.schedule("a", 50);
+            wheel.schedule("a", 500);
+
+            assertTrue(wheel.advance(100).isEmpty());
+            assertEquals(1, wheel.size());
+            assertEquals(List.of("a"), wheel.advance(500));
+        }
+
+        @Test
+        @DisplayName("Should not fire a cancelled key")
+        void shouldCancel() {
+            TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 0);
+            wheel.schedule("a", 50);
+
+            assertTrue(wheel.cancel("a"));
+            assertFalse(wheel.cancel("a"));
+            assertFalse(wheel.contains("a"));
+            assertTrue(wheel.advance(100).isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should return past deadlines on the next advance")
+        void shouldFireOverdueKeys() {
+            TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, 1000);
+            wheel.schedule("late", 500);
+
+            assertEquals(List.of("late"), wheel.advance(1000));
+        }
+    }
+
+    @Nested
+    @DisplayName("Levels")
+    class Levels {
+
+        @Test
+        @DisplayName("Should fire deadlines beyond the wheel range exactly")
+        void shouldHandleOverflow() {
+            // 4 × 4 × 4 = 64 个 tick 的范围
+            TimingWheel<String> wheel = new TimingWheel<>(1, 4, 3, 0);
+            wheel.schedule("far", 1000);
+
+            for (long now = 1; now < 1000; now++) {
+                assertTrue(wheel.advance(now).isEmpty(), "Fired early at " + now);
+            }
+            assertEquals(List.of("far"), wheel.advance(1000));
+        }
+
+        @Test
+        @DisplayName("Should fire every key at the first advance past its deadline")
+        void shouldMatchDeadlines() {
+            Random random = new Random(42);
+            TimingWheel<Integer> wheel = new TimingWheel<>(5, 8, 3, 0);
+            Map<Integer, Long> deadlines = new HashMap<>();
+            for (int i = 0; i < 2000; i++) {
+                long deadline = random.nextInt(20000);
+                deadlines.put(i, deadline);
+                wheel.schedule(i, deadline);
+            }
+
+            long now = 0;
+            while (!deadlines.isEmpty()) {
+                long previous = now;
+                now += 1 + random.nextInt(40);
+                for (Integer key : wheel.advance(now)) {
+                    long deadline = deadlines.remove(key);
+                    assertTrue(deadline <= now, "Fired early: " + key);
+                    // 只允许在上一次推进之后到期（tick 向上取整，最多晚一个 tick）
+                    assertTrue(deadline + 5 > previous, "Fired late: " + key);
+                }
+                assertTrue(now < 30000, "Keys never fired: " + deadlines.size());
+            }
+            assertEquals(0, wheel.size());
+        }
+    }
+}
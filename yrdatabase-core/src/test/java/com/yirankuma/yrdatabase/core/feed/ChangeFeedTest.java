@@ -0,0 +1,282 @@
+package com.yirankuma.yrdatabase.core.feed;
+
+import com.google.gson.JsonParser;
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.api.feed.ChangeEvent;
+import com.yirankuma.yrdatabase.api.feed.ChangeType;
+import com.yirankuma.yrdatabase.api.feed.Subscription;
+import com.yirankuma.yrdatabase.core.provider.redis.RedisProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChangeFeed.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("ChangeFeed Tests")
+class ChangeFeedTest {
+
+    private FakeRedis redis;
+    private ChangeFeed feed;
+    private BlockingQueue<ChangeEvent> events;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeRedis();
+        feed = new ChangeFeed(() -> redis, "server-1");
+        events = new LinkedBlockingQueue<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.close();
+    }
+
+    private ChangeEvent next() throws InterruptedException {
+        ChangeEvent event = events.poll(2, TimeUnit.SECONDS);
+        assertNotNull(event, "expected a change event");
+        return event;
+    }
+
+    @Nested
+    @DisplayName("Publishing")
+    class Publishing {
+
+        @Test
+        @DisplayName("Should publish one message per table per window")
+        void shouldCoalescePerTable() throws InterruptedException {
+            feed.watch("players", null, events::add);
+            feed.record("players", "uuid-1", ChangeType.SET);
+            feed.record("players", "uuid-1", ChangeType.SET);
+            feed.record("players", "uuid-2", ChangeType.SET);
+
+            feed.publishPending().join();
+
+            assertEquals(1, redis.published.size());
+            assertEquals(ChangeFeed.channel("players"), redis.published.get(0)[0]);
+            ChangeEvent first = next();
+            ChangeEvent second = next();
+            assertEquals(Set.of("uuid-1", "uuid-2"), Set.of(first.getKey(), second.getKey()));
+            assertEquals("server-1", first.getOrigin());
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("Should keep the last change of a key")
+        void shouldKeepLastChange() throws InterruptedException {
+            feed.watch("players", null, events::add);
+            feed.record("players", "uuid-1", ChangeType.SET);
+            feed.record("players", "uuid-1", ChangeType.DELETE);
+
+            feed.publishPending().join();
+
+            assertEquals(ChangeType.DELETE, next().getType());
+        }
+
+        @Test
+        @DisplayName("Should not let a persist hide a write in the same window")
+        void shouldKeepWriteOverPersist() throws InterruptedException {
+            feed.watch("players", null, events::add);
+            feed.record("players", "uuid-1", ChangeType.SET);
+            feed.record("players", "uuid-1", ChangeType.PERSIST);
+            feed.record("players", "uuid-2", ChangeType.PERSIST);
+
+            feed.publishPending().join();
+
+            Map<String, ChangeType> types = new HashMap<>();
+            for (int i = 0; i < 2; i++) {
+                ChangeEvent event = next();
+                types.put(event.getKey(), event.getType());
+            }
+            assertEquals(Map.of("uuid-1", ChangeType.SET, "uuid-2", ChangeType.PERSIST), types);
+        }
+
+        @Test
+        @DisplayName("Should split large windows into several messages")
+        void shouldSplitLargeWindows() {
+            for (int i = 0; i < ChangeFeed.MAX_KEYS_PER_MESSAGE + 1; i++) {
+                feed.record("players", "uuid-" + i, ChangeType.SET);
+            }
+
+            feed.publishPending().join();
+
+            assertEquals(2, redis.published.size());
+        }
+
+        @Test
+        @DisplayName("Should not lose changes recorded while a window is published")
+        void shouldKeepConcurrentRecords() throws InterruptedException {
+            int total = 20000;
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < total; i++) {
+                    feed.record("players", "uuid-" + i, ChangeType.SET);
+                }
+            });
+            writer.start();
+            while (writer.isAlive()) {
+                feed.publishPending().join();
+            }
+            writer.join();
+            feed.publishPending().join();
+
+            Set<String> keys = new HashSet<>();
+            for (String[] message : redis.published) {
+                keys.addAll(JsonParser.parseString(message[1]).getAsJsonObject().getAsJsonObject("keys").keySet());
+            }
+            assertEquals(total, keys.size());
+        }
+
+        @Test
+        @DisplayName("Should publish nothing for a quiet window")
+        void shouldSkipQuietWindow() {
+            feed.publishPending().join();
+
+            assertTrue(redis.published.isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Watching")
+    class Watching {
+
+        @Test
+        @DisplayName("Should deliver only the watched key")
+        void shouldFilterByKey() throws InterruptedException {
+            feed.watch("players", "uuid-2", events::add);
+            feed.record("players", "uuid-1", ChangeType.SET);
+            feed.record("players", "uuid-2", ChangeType.SET);
+
+            feed.publishPending().join();
+
+            assertEquals("uuid-2", next().getKey());
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("Should subscribe once per table and unsubscribe after the last cancel")
+        void shouldShareSubscription() {
+            Subscription first = feed.watch("players", null, events::add);
+            Subscription second = feed.watch("players", "uuid-1", events::add);
+            assertEquals(1, redis.subscribeCalls);
+
+            first.cancel();
+            assertTrue(redis.handlers.containsKey(ChangeFeed.channel("players")));
+            second.cancel();
+            assertFalse(redis.handlers.containsKey(ChangeFeed.channel("players")));
+            assertFalse(second.isActive());
+        }
+
+        @Test
+        @DisplayName("Should stop delivering after cancel")
+        void shouldStopAfterCancel() throws InterruptedException {
+            Subscription subscription = feed.watch("players", null, events::add);
+            subscription.cancel();
+            feed.record("players", "uuid-1", ChangeType.SET);
+
+            feed.publishPending().join();
+
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("Should ignore malformed messages")
+        void shouldIgnoreMalformed() throws InterruptedException {
+            feed.watch("players", null, events::add);
+
+            redis.handlers.get(ChangeFeed.channel("players")).accept("not json {");
+
+            assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Nested
+    @DisplayName("Without Redis")
+    class WithoutRedis {
+
+        @Test
+        @DisplayName("Should deliver locally when Redis is disabled")
+        void shouldDeliverLocally() throws InterruptedException {
+            feed.close();
+            feed = new ChangeFeed(() -> null, "server-1");
+            feed.watch("players", null, events::add);
+            feed.record("players", "uuid-1", ChangeType.SET);
+
+            feed.publishPending().join();
+
+            assertEquals("uuid-1", next().getKey());
+        }
+
+        @Test
+        @DisplayName("Should deliver locally when publishing fails")
+        void shouldDeliverLocallyOnFailure() throws InterruptedException {
+            feed.watch("players", null, events::add);
+            redis.failPublish = true;
+            feed.record("players", "uuid-1", ChangeType.DELETE);
+
+            feed.publishPending().join();
+
+            assertEquals(ChangeType.DELETE, next().getType());
+        }
+    }
+
+    /**
+     * In-memory pub/sub that delivers published messages to its own subscribers.
+     */
+    private static class FakeRedis extends RedisProvider {
+        final Map<String, Consumer<String>> handlers = new HashMap<>();
+        final List<String[]> published = new ArrayList<>();
+        int subscribeCalls;
+        boolean failPublish;
+
+        FakeRedis() {
+            super(new DatabaseConfig.CacheConfig());
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void subscribe(String channel, Consumer<String> handler) {
+            subscribeCalls++;
+            handlers.put(channel, handler);
+        }
+
+        @Override
+        public void unsubscribe(String channel) {
+            handlers.remove(channel);
+        }
+
+        @Override
+        public CompletableFuture<Long> publish(String channel, String message) {
+            if (failPublish) {
+                return CompletableFuture.failedFuture(new IllegalStateException("circuit open"));
+            }
+            published.add(new String[]{channel, message});
+            Consumer<String> handler = handlers.get(channel);
+            if (handler != null) {
+                handler.accept(message);
+            }
+            return CompletableFuture.completedFuture(handler != null ? 1L : 0L);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.yirankuma.yrdatabase.core.health;
+
+import com.yirankuma.yrdatabase.api.DatabaseStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HealthMonitor.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("HealthMonitor Tests")
+class HealthMonitorTest {
+
+    private static final DatabaseStatus FALLBACK = DatabaseStatus.builder().connected(true).build();
+
+    private static DatabaseStatus sampled(long pending) {
+        return DatabaseStatus.builder()
+                .connected(true)
+                .pendingPersist(pending)
+                .sampledAt(System.currentTimeMillis())
+                .build();
+    }
+
+    @Nested
+    @DisplayName("Snapshots")
+    class Snapshots {
+
+        @Test
+        @DisplayName("Should return the fallback before the first sample")
+        void shouldReturnFallback() {
+            HealthMonitor monitor = new HealthMonitor(() -> new CompletableFuture<>(), () -> FALLBACK, 1000);
+            assertSame(FALLBACK, monitor.getLatest());
+        }
+
+        @Test
+        @DisplayName("Should return the latest sample without probing")
+        void shouldReturnLatestSample() {
+            AtomicInteger calls = new AtomicInteger();
+            HealthMonitor monitor = new HealthMonitor(
+                    () -> CompletableFuture.completedFuture(sampled(calls.incrementAndGet())), () -> FALLBACK, 1000);
+
+            DatabaseStatus refreshed = monitor.refresh().join();
+
+            assertEquals(1, refreshed.getPendingPersist());
+            assertSame(refreshed, monitor.getLatest());
+            assertSame(refreshed, monitor.getLatest());
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        @DisplayName("Should keep the previous snapshot when a sample times out")
+        void shouldKeepPreviousOnTimeout() {
+            AtomicInteger calls = new AtomicInteger();
+            HealthMonitor monitor = new HealthMonitor(() -> calls.incrementAndGet() == 1
+                    ? CompletableFuture.completedFuture(sampled(7))
+                    : new CompletableFuture<>(), () -> FALLBACK, 50);
+
+            DatabaseStatus first = monitor.refresh().join();
+            DatabaseStatus second = monitor.refresh().join();
+
+            assertSame(first, second);
+            assertEquals(1, monitor.getSamples());
+            assertEquals(1, monitor.getFailures());
+        }
+    }
+
+    @Nested
+    @DisplayName("Refresh")
+    class Refresh {
+
+        @Test
+        @DisplayName("Should share one probe between concurrent refreshes")
+        void shouldShareProbe() {
+            AtomicInteger calls = new AtomicInteger();
+            CompletableFuture<DatabaseStatus> probe = new CompletableFuture<>();
+            HealthMonitor monitor = new HealthMonitor(() -> {
+                calls.incrementAndGet();
+                return probe;
+            }, () -> FALLBACK, 1000);
+
+            CompletableFuture<DatabaseStatus> a = monitor.refresh();
+            CompletableFuture<DatabaseStatus> b = monitor.refresh();
+            probe.complete(sampled(3));
+
+            assertSame(a.join(), b.join());
+            assertEquals(1, calls.get());
+        }
+
+        @Test
+        @DisplayName("Should sample periodically once started")
+        void shouldSamplePeriodically() throws InterruptedException {
+            AtomicInteger calls = new AtomicInteger();
+            HealthMonitor monitor = new HealthMonitor(
+                    () -> CompletableFuture.completedFuture(sampled(calls.incrementAndGet())), () -> FALLBACK, 1000);
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            try {
+                monitor.start(scheduler, 1);
+                long deadline = System.currentTimeMillis() + 3000;
+                while (calls.get() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertTrue(calls.get() >= 1);
+                assertTrue(monitor.getLatest().getSampledAt() > 0);
+            } finally {
+                scheduler.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardRouter.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("ShardRouter Tests")
+class ShardRouterTest {
+
+    @Nested
+    @DisplayName("Routing")
+    class Routing {
+
+        @Test
+        @DisplayName("Should route a key to the same shard every time")
+        void shouldBeStable() {
+            ShardRouter router = new ShardRouter(8);
+            int shard = router.shardOf("player-uuid-1");
+            for (int i = 0; i < 10; i++) {
+                assertEquals(shard, new ShardRouter(8).shardOf("player-uuid-1"));
+            }
+        }
+
+        @Test
+        @DisplayName("Should spread keys evenly over the shards")
+        void shouldDistributeEvenly() {
+            ShardRouter router = new ShardRouter(4);
+            int[] counts = new int[4];
+            for (int i = 0; i < 20000; i++) {
+                counts[router.shardOf("player-" + i)]++;
+            }
+            for (int count : counts) {
+                assertTrue(count > 4500 && count < 5500, "Uneven shard: " + count);
+            }
+        }
+
+        @Test
+        @DisplayName("Should reject an empty shard list")
+        void shouldRequireShards() {
+            assertThrows(IllegalArgumentException.class, () -> new ShardRouter(0));
+        }
+    }
+
+    @Nested
+    @DisplayName("Resizing")
+    class Resizing {
+
+        @Test
+        @DisplayName("Should only move keys to the appended shard")
+        void shouldMoveKeysOnlyToNewShard() {
+            ShardRouter before = new ShardRouter(3);
+            ShardRouter after = new ShardRouter(4);
+            int moved = 0;
+            for (int i = 0; i < 20000; i++) {
+                String key = "player-" + i;
+                int from = before.shardOf(key);
+                int to = after.shardOf(key);
+                if (from != to) {
+                    assertEquals(3, to);
+                    moved++;
+                }
+            }
+            // 约 1/4 的 key 迁移到新分片
+            assertTrue(moved > 4500 && moved < 5500, "Moved: " + moved);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.yirankuma.yrdatabase.core.provider.sharded;
+
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import com.yirankuma.yrdatabase.core.provider.sqlite.SQLiteProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ShardedPersistProvider, using one SQLite file per shard.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("ShardedPersistProvider Tests")
+class ShardedPersistProviderTest {
+
+    private static final String TABLE = "players";
+
+    @TempDir
+    Path tempDir;
+
+    private SQLiteProvider first;
+    private SQLiteProvider second;
+    private ShardedPersistProvider provider;
+
+    @BeforeEach
+    void setUp() throws ExecutionException, InterruptedException {
+        first = new SQLiteProvider(tempDir.resolve("shard-0.db").toString());
+        second = new SQLiteProvider(tempDir.resolve("shard-1.db").toString());
+        first.initialize().get();
+        second.initialize().get();
+        provider = new ShardedPersistProvider(List.of(first, second), 0);
+        createTable(provider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    private static void createTable(PersistProvider target) throws ExecutionException, InterruptedException {
+        Map<String, String> schema = new LinkedHashMap<>();
+        schema.put("id", "VARCHAR(64) PRIMARY KEY");
+        schema.put("score", "INT DEFAULT 0");
+        assertTrue(target.createTable(TABLE, schema).get());
+    }
+
+    private static Map<String, Object> row(String id, int score) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", id);
+        row.put("score", score);
+        return row;
+    }
+
+    @Nested
+    @DisplayName("Routing")
+    class Routing {
+
+        @Test
+        @DisplayName("Should store a row only on its owning shard")
+        void shouldWriteToOwner() throws ExecutionException, InterruptedException {
+            assertTrue(provider.upsert(TABLE, row("p1", 10), "id").get());
+
+            int owner = provider.getRouter().shardOf("p1");
+            PersistProvider ownerShard = provider.getShards().get(owner);
+            PersistProvider otherShard = provider.getShards().get(1 - owner);
+            assertEquals(1, ownerShard.query(TABLE, Map.of("id", "p1")).get().size());
+            assertEquals(0, otherShard.query(TABLE, Map.of("id", "p1")).get().size());
+            assertEquals(1, provider.query(TABLE, Map.of("id", "p1")).get().size());
+        }
+
+        @Test
+        @DisplayName("Should split batch upserts by owning shard")
+        void shouldBatchUpsertToOwners() throws ExecutionException, InterruptedException {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                rows.add(row("p" + i, i));
+            }
+            assertTrue(provider.batchUpsert(TABLE, rows, "id").get());
+            rows.set(0, row("p0", 100));
+            assertTrue(provider.batchUpsert(TABLE, rows, "id").get());
+
+            assertEquals(10L, provider.countAll(TABLE).get().longValue());
+            assertEquals(first.countAll(TABLE).get() + second.countAll(TABLE).get(), 10L);
+            PersistProvider owner = provider.getShards().get(provider.getRouter().shardOf("p0"));
+            assertEquals(100, ((Number) owner.query(TABLE, Map.of("id", "p0")).get().get(0).get("score")).intValue());
+        }
+
+        @Test
+        @DisplayName("Should reject transactions")
+        void shouldRejectTransactions() {
+            assertThrows(ExecutionException.class, () -> provider.transaction(conn -> null).get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Scatter-Gather")
+    class ScatterGather {
+
+        @BeforeEach
+        void insertRows() throws ExecutionException, InterruptedException {
+            for (int i = 0; i < 20; i++) {
+                assertTrue(provider.upsert(TABLE, row("p" + i, i), "id").get());
+            }
+        }
+
+        @Test
+        @DisplayName("Should read and count rows from all shards")
+        void shouldGatherAll() throws ExecutionException, InterruptedException {
+            assertEquals(20, provider.queryAll(TABLE).get().size());
+            assertEquals(20L, provider.countAll(TABLE).get().longValue());
+            assertFalse(first.queryAll(TABLE).get().isEmpty());
+            assertFalse(second.queryAll(TABLE).get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should merge query builder results by ordering and limit")
+        void shouldMergeOrderedResults() throws ExecutionException, InterruptedException {
+            QuerySpec spec = QuerySpec.builder()
+                    .table(TABLE)
+                    .order(new QuerySpec.Order("score", true))
+                    .order(new QuerySpec.Order("id", false))
+                    .limit(5)
+                    .build();
+
+            List<Map<String, Object>> rows = provider.select(spec).get();
+            assertEquals(5, rows.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(19 - i, ((Number) rows.get(i).get("score")).intValue());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Merge")
+    class Merge {
+
+        @Test
+        @DisplayName("Should sort mixed number types and place nulls first")
+        void shouldCompareValues() {
+            List<Map<String, Object>> rows = new ArrayList<>();
+            rows.add(Map.of("id", "a", "score", 3L));
+            rows.add(Map.of("id", "b", "score", 1.5));
+            Map<String, Object> empty = new LinkedHashMap<>();
+            empty.put("id", "c");
+            empty.put("score", null);
+            rows.add(empty);
+
+            List<Map<String, Object>> merged = ShardedPersistProvider.merge(rows,
+                    List.of(new QuerySpec.Order("score", false)), 0);
+            assertEquals("c", merged.get(0).get("id"));
+            assertEquals("b", merged.get(1).get("id"));
+            assertEquals("a", merged.get(2).get("id"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Hash Operations")
+    class HashOperations {
+
+        @Test
+        @DisplayName("Should set, read and delete single fields")
+        void shouldUpdateSingleFields() throws ExecutionException, InterruptedException {
+            assertTrue(provider.hset("stats:p1", "kills", "3").get());
+            assertTrue(provider.hmset("stats:p1", Map.of("deaths", "1", "Kills", "9")).get());
+            assertTrue(provider.hset("stats:p1", "kills", "4").get());
+
+            assertEquals("4", provider.hget("stats:p1", "kills").get().orElseThrow());
+            assertEquals(Map.of("kills", "4", "Kills", "9", "deaths", "1"), provider.hgetAll("stats:p1").get());
+
+            assertTrue(provider.hdel("stats:p1", "deaths", "missing").get());
+            assertTrue(provider.hget("stats:p1", "deaths").get().isEmpty());
+            assertEquals(2, provider.hgetAll("stats:p1").get().size());
+        }
+
+        @Test
+        @DisplayName("Should keep every field of a hash on its owning shard")
+        void shouldStoreOnOwner() throws ExecutionException, InterruptedException {
+            assertTrue(provider.hmset("stats:p1", Map.of("a", "1", "b", "2")).get());
+
+            int owner = provider.getRouter().shardOf("p1");
+            assertEquals(2, provider.getShards().get(owner).hgetAll("stats:p1").get().size());
+            assertTrue(provider.getShards().get(1 - owner).hgetAll("stats:p1").get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should not lose fields under concurrent writes")
+        void shouldKeepConcurrentFields() throws ExecutionException, InterruptedException {
+            List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                writes.add(provider.hset("stats:p1", "f" + i, String.valueOf(i)));
+            }
+            for (CompletableFuture<Boolean> write : writes) {
+                assertTrue(write.get());
+            }
+
+            assertEquals(20, provider.hgetAll("stats:p1").get().size());
+        }
+
+        @Test
+        @DisplayName("Should migrate a legacy JSON hash on first use")
+        void shouldMigrateLegacyHash() throws ExecutionException, InterruptedException {
+            PersistProvider owner = provider.getShards().get(provider.getRouter().shardOf("p2"));
+            Map<String, String> schema = new LinkedHashMap<>();
+            schema.put("id", "VARCHAR(64) PRIMARY KEY");
+            schema.put("value", "TEXT");
+            assertTrue(owner.createTable("stats", schema).get());
+            assertTrue(owner.set("stats:p2", "{\"kills\":\"3\",\"deaths\":\"1\"}").get());
+
+            assertEquals("3", provider.hget("stats:p2", "kills").get().orElseThrow());
+            assertTrue(provider.hset("stats:p2", "kills", "5").get());
+
+            assertEquals(Map.of("kills", "5", "deaths", "1"), provider.hgetAll("stats:p2").get());
+            assertTrue(owner.query("stats", Map.of("id", "p2")).get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should cover hashes in exists and delete")
+        void shouldDeleteHash() throws ExecutionException, InterruptedException {
+            assertFalse(provider.exists("stats:p3").get());
+            assertTrue(provider.hmset("stats:p3", Map.of("a", "1", "b", "2")).get());
+            assertTrue(provider.exists("stats:p3").get());
+
+            assertTrue(provider.delete("stats:p3").get());
+
+            assertFalse(provider.exists("stats:p3").get());
+            assertTrue(provider.hgetAll("stats:p3").get().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Resharding")
+    class Resharding {
+
+        @Test
+        @DisplayName("Should find unmoved rows and move them online")
+        void shouldMoveRowsToNewShard() throws ExecutionException, InterruptedException {
+            // 扩容前只有第一个分片
+            ShardedPersistProvider single = new ShardedPersistProvider(List.of(first), 0);
+            for (int i = 0; i < 30; i++) {
+                assertTrue(single.upsert(TABLE, row("p" + i, i), "id").get());
+            }
+
+            ShardedPersistProvider grown = new ShardedPersistProvider(List.of(first, second), 1);
+            assertTrue(grown.isResharding());
+            for (int i = 0; i < 30; i++) {
+                assertEquals(1, grown.query(TABLE, Map.of("id", "p" + i)).get().size());
+            }
+            assertEquals(30, grown.queryAll(TABLE).get().size());
+
+            ReshardStats stats = new Resharder(grown, 7).run().get();
+            assertEquals(30, stats.getScanned());
+            assertEquals(0, stats.getFailed());
+            assertEquals(second.countAll(TABLE).get().longValue(), stats.getMoved());
+            assertTrue(stats.getMoved() > 0);
+
+            for (int i = 0; i < 30; i++) {
+                String id = "p" + i;
+                PersistProvider owner = grown.getShards().get(grown.getRouter().shardOf(id));
+                assertEquals(1, owner.query(TABLE, Map.of("id", id)).get().size());
+            }
+            assertEquals(30L, grown.countAll(TABLE).get().longValue());
+        }
+
+        @Test
+        @DisplayName("Should not overwrite a newer copy on the new owner")
+        void shouldKeepNewerCopy() throws ExecutionException, InterruptedException {
+            ShardedPersistProvider grown = new ShardedPersistProvider(List.of(first, second), 1);
+            String id = null;
+            for (int i = 0; id == null; i++) {
+                if (grown.getRouter().shardOf("p" + i) == 1) {
+                    id = "p" + i;
+                }
+            }
+
+            // 旧位置的过期副本与新位置的新写入
+            assertTrue(first.upsert(TABLE, row(id, 1), "id").get());
+            assertTrue(grown.upsert(TABLE, row(id, 2), "id").get());
+            assertEquals(2, ((Number) grown.query(TABLE, Map.of("id", id)).get().get(0).get("score")).intValue());
+
+            ReshardStats stats = new Resharder(grown, 100).run().get();
+            assertEquals(1, stats.getSuperseded());
+            assertEquals(0L, first.count(TABLE, Map.of("id", id)).get().longValue());
+            assertEquals(2, ((Number) second.query(TABLE, Map.of("id", id)).get().get(0).get("score")).intValue());
+        }
+
+        @Test
+        @DisplayName("Should move hash fields by their hash key")
+        void shouldMoveHashFields() throws ExecutionException, InterruptedException {
+            ShardedPersistProvider single = new ShardedPersistProvider(List.of(first), 0);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(single.hmset("stats:p" + i, Map.of("a", "1", "b", "2", "c", "3")).get());
+            }
+
+            ShardedPersistProvider grown = new ShardedPersistProvider(List.of(first, second), 1);
+            ReshardStats stats = new Resharder(grown, 4).run().get();
+            assertEquals(0, stats.getFailed());
+            assertTrue(stats.getMoved() > 0);
+
+            for (int i = 0; i < 10; i++) {
+                String key = "stats:p" + i;
+                PersistProvider owner = grown.getShards().get(grown.getRouter().shardOf("p" + i));
+                assertEquals(3, owner.hgetAll(key).get().size());
+                assertEquals(3, grown.hgetAll(key).get().size());
+            }
+        }
+
+        @Test
+        @DisplayName("Should refuse to run without a resize in progress")
+        void shouldRequireResize() {
+            assertThrows(ExecutionException.class, () -> new Resharder(provider, 100).run().get());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.yirankuma.yrdatabase.core.query;
+
+import com.yirankuma.yrdatabase.api.query.Condition;
+import com.yirankuma.yrdatabase.api.query.Operator;
+import com.yirankuma.yrdatabase.api.query.QuerySpec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SqlQueryCompiler.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("SqlQueryCompiler Tests")
+class SqlQueryCompilerTest {
+
+    private final SqlQueryCompiler compiler = new SqlQueryCompiler();
+
+    @Nested
+    @DisplayName("SQL Generation")
+    class SqlGeneration {
+
+        @Test
+        @DisplayName("Should compile projection, predicates, ordering and limit")
+        void shouldCompileFullQuery() {
+            QuerySpec spec = QuerySpec.builder()
+                    .table("players")
+                    .column("id")
+                    .column("name")
+                    .condition(new Condition("level", Operator.GTE, 10))
+                    .condition(new Condition("guild", Operator.IN, List.of("red", "blue")))
+                    .order(new QuerySpec.Order("level", true))
+                    .limit(20)
+                    .build();
+
+            CompiledQuery compiled = compiler.compile(spec);
+
+            assertEquals("SELECT `id`, `name` FROM `players` WHERE `level` >= ? AND `guild` IN (?, ?)"
+                    + " ORDER BY `level` DESC LIMIT ?", compiled.getSql());
+            assertEquals(List.of(10, "red", "blue", 20), compiled.getParams());
+        }
+
+        @Test
+        @DisplayName("Should expand the keyset cursor for mixed orderings")
+        void shouldCompileKeysetCursor() {
+            QuerySpec spec = QuerySpec.builder()
+                    .table("players")
+                    .order(new QuerySpec.Order("score", true))
+                    .order(new QuerySpec.Order("id", false))
+                    .cursorValue(50)
+                    .cursorValue("p3")
+                    .limit(2)
+                    .build();
+
+            CompiledQuery compiled = compiler.compile(spec);
+
+            assertEquals("SELECT * FROM `players` WHERE ((`score` < ?) OR (`score` = ? AND `id` > ?))"
+                    + " ORDER BY `score` DESC, `id` ASC LIMIT ?", compiled.getSql());
+            assertEquals(List.of(50, 50, "p3", 2), compiled.getParams());
+        }
+
+        @Test
+        @DisplayName("Should compare with null using IS NULL and IS NOT NULL")
+        void shouldCompileNullComparisons() {
+            QuerySpec spec = QuerySpec.builder()
+                    .table("players")
+                    .condition(new Condition("guild", Operator.EQ, null))
+                    .condition(new Condition("name", Operator.NE, null))
+                    .condition(new Condition("level", Operator.EQ, 5))
+                    .build();
+
+            CompiledQuery compiled = compiler.compile(spec);
+
+            assertEquals("SELECT * FROM `players` WHERE `guild` IS NULL AND `name` IS NOT NULL AND `level` = ?",
+                    compiled.getSql());
+            assertEquals(List.of(5), compiled.getParams());
+        }
+    }
+
+    @Nested
+    @DisplayName("Caching and Validation")
+    class CachingAndValidation {
+
+        @Test
+        @DisplayName("Should reuse the SQL text for queries of the same shape")
+        void shouldCacheByShape() {
+            CompiledQuery first = compiler.compile(QuerySpec.builder().table("players")
+                    .condition(new Condition("level", Operator.EQ, 1)).build());
+            CompiledQuery second = compiler.compile(QuerySpec.builder().table("players")
+                    .condition(new Condition("level", Operator.EQ, 2)).build());
+
+            assertSame(first.getSql(), second.getSql());
+            assertEquals(List.of(2), second.getParams());
+            assertEquals(1, compiler.getCachedShapes());
+        }
+
+        @Test
+        @DisplayName("Should reject invalid identifiers")
+        void shouldRejectInvalidIdentifiers() {
+            QuerySpec spec = QuerySpec.builder()
+                    .table("players")
+                    .condition(new Condition("name`; DROP TABLE players; --", Operator.EQ, "x"))
+                    .build();
+
+            assertThrows(IllegalArgumentException.class, () -> compiler.compile(spec));
+        }
+
+        @Test
+        @DisplayName("Should reject a cursor that doesn't match the ordering")
+        void shouldRejectMismatchedCursor() {
+            QuerySpec spec = QuerySpec.builder()
+                    .table("players")
+                    .order(new QuerySpec.Order("score", false))
+                    .cursorValue(1)
+                    .cursorValue(2)
+                    .build();
+
+            assertThrows(IllegalArgumentException.class, () -> compiler.compile(spec));
+        }
+
+        @Test
+        @DisplayName("Should not share SQL between null and non-null comparisons")
+        void shouldSeparateNullShapes() {
+            CompiledQuery isNull = compiler.compile(QuerySpec.builder().table("players")
+                    .condition(new Condition("guild", Operator.EQ, null)).build());
+            CompiledQuery equals = compiler.compile(QuerySpec.builder().table("players")
+                    .condition(new Condition("guild", Operator.EQ, "red")).build());
+
+            assertNotEquals(isNull.getSql(), equals.getSql());
+        }
+
+        @Test
+        @DisplayName("Should reject null with ordering operators and in the cursor")
+        void shouldRejectNulls() {
+            QuerySpec greater = QuerySpec.builder()
+                    .table("players")
+                    .condition(new Condition("level", Operator.GT, null))
+                    .build();
+            QuerySpec nullCursor = QuerySpec.builder()
+                    .table("players")
+                    .order(new QuerySpec.Order("guild", false))
+                    .order(new QuerySpec.Order("id", false))
+                    .cursorValue(null)
+                    .cursorValue("p3")
+                    .build();
+
+            assertThrows(IllegalArgumentException.class, () -> compiler.compile(greater));
+            assertThrows(IllegalArgumentException.class, () -> compiler.compile(nullCursor));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.yirankuma.yrdatabase.core.resilience;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for CircuitBreaker.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("CircuitBreaker Tests")
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private DatabaseConfig.AdvancedConfig.CircuitBreakerConfig config;
+    private CircuitBreaker breaker;
+    private final List<CircuitBreaker.State> transitions = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new DatabaseConfig.AdvancedConfig.CircuitBreakerConfig();
+        config.setWindowSize(10);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(0.5);
+        config.setSlowCallThresholdMillis(100);
+        config.setSlowCallRateThreshold(0.8);
+        config.setOpenMillis(1000);
+        config.setMaxOpenMillis(3000);
+        config.setHalfOpenCalls(1);
+        breaker = new CircuitBreaker("test", config, now::get);
+        breaker.setListener(transitions::add);
+    }
+
+    private void calls(int count, boolean failed, long elapsedMillis) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onResult(elapsedMillis, failed);
+        }
+    }
+
+    @Nested
+    @DisplayName("Closed State")
+    class ClosedState {
+
+        @Test
+        @DisplayName("Should stay closed below the minimum number of calls")
+        void shouldRequireMinimumCalls() {
+            calls(3, true, 1);
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        }
+
+        @Test
+        @DisplayName("Should open when the failure rate reaches the threshold")
+        void shouldOpenOnFailureRate() {
+            calls(2, false, 1);
+            calls(2, true, 1);
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertEquals(List.of(CircuitBreaker.State.OPEN), transitions);
+        }
+
+        @Test
+        @DisplayName("Should open when most calls are slow")
+        void shouldOpenOnSlowCalls() {
+            calls(1, false, 1);
+            calls(4, false, 150);
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        }
+
+        @Test
+        @DisplayName("Should only consider the most recent calls")
+        void shouldSlideWindow() {
+            calls(10, false, 1);
+            calls(4, true, 1);
+            // 4 failures out of the last 10 calls
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+            calls(1, true, 1);
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        }
+    }
+
+    @Nested
+    @DisplayName("Open and Half-Open States")
+    class OpenState {
+
+        @Test
+        @DisplayName("Should reject calls until the open duration elapses")
+        void shouldFastFailWhileOpen() {
+            calls(4, true, 1);
+
+            CompletableFuture<String> rejected = breaker.execute(() -> CompletableFuture.completedFuture("x"));
+            CompletionException error = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(CircuitOpenException.class, error.getCause());
+            assertEquals(1000, breaker.getRemainingOpenMillis());
+            assertFalse(breaker.isClosed());
+
+            now.addAndGet(1000);
+            assertTrue(breaker.tryAcquire());
+            assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+            // Only one trial call at a time
+            assertFalse(breaker.tryAcquire());
+        }
+
+        @Test
+        @DisplayName("Should close after a successful trial call")
+        void shouldCloseAfterTrial() {
+            calls(4, true, 1);
+            now.addAndGet(1000);
+
+            assertEquals("ok", breaker.execute(() -> CompletableFuture.completedFuture("ok")).join());
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertEquals(List.of(CircuitBreaker.State.OPEN, CircuitBreaker.State.HALF_OPEN,
+                    CircuitBreaker.State.CLOSED), transitions);
+        }
+
+        @Test
+        @DisplayName("Should double the open duration on consecutive failed trials")
+        void shouldBackOffExponentially() {
+            calls(4, true, 1);
+            assertEquals(1000, breaker.getRemainingOpenMillis());
+
+            now.addAndGet(1000);
+            calls(1, true, 1);
+            assertEquals(2000, breaker.getRemainingOpenMillis());
+
+            now.addAndGet(2000);
+            calls(1, true, 1);
+            // Capped at maxOpenMillis
+            assertEquals(3000, breaker.getRemainingOpenMillis());
+            assertEquals(3, breaker.getOpenCount());
+
+            now.addAndGet(3000);
+            calls(1, false, 1);
+            calls(4, true, 1);
+            // Backoff resets after closing
+            assertEquals(1000, breaker.getRemainingOpenMillis());
+        }
+    }
+
+    @Nested
+    @DisplayName("Configuration")
+    class Configuration {
+
+        @Test
+        @DisplayName("Should pass every call through when disabled")
+        void shouldBypassWhenDisabled() {
+            CircuitBreaker disabled = CircuitBreaker.disabled("off");
+            for (int i = 0; i < 100; i++) {
+                disabled.onResult(10000, true);
+            }
+            assertTrue(disabled.tryAcquire());
+            assertTrue(disabled.isClosed());
+        }
+
+        @Test
+        @DisplayName("Should bound call latency with the call timeout")
+        void shouldTimeOutHangingCalls() {
+            config.setCallTimeoutMillis(50);
+            CompletableFuture<String> hanging = breaker.execute(CompletableFuture::new);
+            assertThrows(CompletionException.class, hanging::join);
+        }
+
+        @Test
+        @DisplayName("Should neither bound nor record long-running calls")
+        void shouldExemptLongRunningCalls() throws InterruptedException {
+            config.setCallTimeoutMillis(50);
+            CompletableFuture<String> scan = new CompletableFuture<>();
+            CompletableFuture<String> result = breaker.executeLongRunning(() -> scan);
+            Thread.sleep(100);
+            assertFalse(result.isDone());
+
+            for (int i = 0; i < 10; i++) {
+                breaker.executeLongRunning(() -> CompletableFuture.failedFuture(new IllegalStateException("down")));
+            }
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+            scan.complete("rows");
+            assertEquals("rows", result.join());
+        }
+
+        @Test
+        @DisplayName("Should reject long-running calls unless closed")
+        void shouldRejectLongRunningCallsWhenOpen() {
+            calls(4, true, 1);
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+            CompletableFuture<String> rejected = breaker.executeLongRunning(() -> CompletableFuture.completedFuture("x"));
+            CompletionException error = assertThrows(CompletionException.class, rejected::join);
+            assertInstanceOf(CircuitOpenException.class, error.getCause());
+        }
+    }
+}
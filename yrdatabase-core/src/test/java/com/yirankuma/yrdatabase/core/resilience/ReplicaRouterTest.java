@@ -0,0 +1,98 @@
+package com.yirankuma.yrdatabase.core.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ReplicaRouter.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("ReplicaRouter Tests")
+class ReplicaRouterTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private ReplicaRouter<String> router;
+
+    @BeforeEach
+    void setUp() {
+        router = new ReplicaRouter<>("test", List.of("a", "b", "c"), 5000, now::get);
+    }
+
+    @Nested
+    @DisplayName("Selection")
+    class Selection {
+
+        @Test
+        @DisplayName("Should rotate over all replicas")
+        void shouldRoundRobin() {
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                seen.add(router.select());
+            }
+            assertEquals(Set.of("a", "b", "c"), seen);
+            assertEquals(3, router.getReplicaReads());
+        }
+
+        @Test
+        @DisplayName("Should return null without replicas")
+        void shouldReturnNullWhenEmpty() {
+            ReplicaRouter<String> empty = new ReplicaRouter<>("test", Collections.emptyList(), 5000, now::get);
+            assertTrue(empty.isEmpty());
+            assertNull(empty.select());
+            assertEquals(0, empty.getFallbacks());
+        }
+    }
+
+    @Nested
+    @DisplayName("Cooldown")
+    class Cooldown {
+
+        @Test
+        @DisplayName("Should skip a failed replica until its cooldown expires")
+        void shouldSkipFailedReplica() {
+            router.markFailed("b");
+            assertEquals(2, router.getHealthy());
+            for (int i = 0; i < 10; i++) {
+                assertNotEquals("b", router.select());
+            }
+
+            now.addAndGet(5000);
+            assertEquals(3, router.getHealthy());
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < 3; i++) {
+                seen.add(router.select());
+            }
+            assertTrue(seen.contains("b"));
+        }
+
+        @Test
+        @DisplayName("Should fall back to the primary when every replica is down")
+        void shouldFallBackWhenAllDown() {
+            router.markFailed("a");
+            router.markFailed("b");
+            router.markFailed("c");
+            assertNull(router.select());
+            assertEquals(1, router.getFallbacks());
+            assertEquals(0, router.getHealthy());
+        }
+
+        @Test
+        @DisplayName("Should restore a replica after a successful read")
+        void shouldRestoreOnSuccess() {
+            router.markFailed("a");
+            router.markHealthy("a");
+            assertEquals(3, router.getHealthy());
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.yirankuma.yrdatabase.core.spool;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for WriteSpool.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("WriteSpool Tests")
+class WriteSpoolTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final DatabaseConfig.PersistConfig.SpoolConfig config = new DatabaseConfig.PersistConfig.SpoolConfig();
+    private WriteSpool spool;
+
+    @AfterEach
+    void tearDown() {
+        if (spool != null) {
+            spool.close();
+        }
+    }
+
+    private WriteSpool reopen() throws IOException {
+        if (spool != null) {
+            spool.close();
+        }
+        spool = new WriteSpool(tempDir, config);
+        spool.open();
+        return spool;
+    }
+
+    private static Function<SpoolRecord, CompletableFuture<Boolean>> recordingWriter(List<SpoolRecord> applied) {
+        return record -> {
+            synchronized (applied) {
+                applied.add(record);
+            }
+            return CompletableFuture.completedFuture(true);
+        };
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    @Nested
+    @DisplayName("Durability")
+    class Durability {
+
+        @Test
+        @DisplayName("Should recover spooled writes after reopening")
+        void shouldRecoverAfterReopen() throws IOException {
+            reopen();
+            spool.append("players", "a", Map.of("name", "Alice")).join();
+            spool.append("players", "b", null).join();
+
+            reopen();
+            assertEquals("Alice", spool.lookup("players", "a").orElseThrow().getData().get("name"));
+            assertTrue(spool.lookup("players", "b").orElseThrow().isDelete());
+            assertEquals(2, spool.getStats().getPendingKeys());
+        }
+
+        @Test
+        @DisplayName("Should truncate a torn record at the end of the last segment")
+        void shouldTruncateTornTail() throws IOException {
+            reopen();
+            spool.append("players", "a", Map.of("name", "Alice")).join();
+            spool.close();
+            Path segment;
+            try (Stream<Path> files = Files.list(tempDir)) {
+                segment = files.filter(p -> p.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+            }
+            long intact = Files.size(segment);
+            // Length header promising more bytes than were written
+            Files.write(segment, new byte[]{0, 0, 1, 0, 1, 2}, StandardOpenOption.APPEND);
+
+            reopen();
+            assertEquals(intact, Files.size(segment));
+            assertTrue(spool.contains("players", "a"));
+
+            spool.append("players", "b", Map.of("name", "Bob")).join();
+            reopen();
+            assertTrue(spool.contains("players", "a"));
+            assertTrue(spool.contains("players", "b"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Replay")
+    class Replay {
+
+        @Test
+        @DisplayName("Should apply only the latest write per key")
+        void shouldSkipSuperseded() throws IOException {
+            reopen();
+            spool.append("players", "a", Map.of("name", "Old")).join();
+            spool.append("players", "a", Map.of("name", "New")).join();
+
+            List<SpoolRecord> applied = new ArrayList<>();
+            assertEquals(2, spool.replay(recordingWriter(applied), 10).join());
+
+            assertEquals(1, applied.size());
+            assertEquals("New", applied.get(0).getData().get("name"));
+            assertEquals(1, spool.getStats().getSuperseded());
+            assertTrue(spool.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should replay oldest first and checkpoint each batch")
+        void shouldCheckpointBatches() throws IOException {
+            reopen();
+            spool.append("players", "a", Map.of("n", 1)).join();
+            spool.append("players", "b", Map.of("n", 2)).join();
+            spool.append("players", "c", Map.of("n", 3)).join();
+
+            List<SpoolRecord> applied = new ArrayList<>();
+            assertEquals(2, spool.replay(recordingWriter(applied), 2).join());
+            assertEquals(List.of("a", "b"), applied.stream().map(SpoolRecord::getKey).toList());
+
+            // Replayed records are not replayed again after a restart
+            reopen();
+            assertFalse(spool.contains("players", "a"));
+            assertFalse(spool.contains("players", "b"));
+            assertTrue(spool.contains("players", "c"));
+        }
+
+        @Test
+        @DisplayName("Should keep records when the writer fails and retry later")
+        void shouldRetryFailedBatch() throws IOException {
+            reopen();
+            spool.append("players", "a", Map.of("name", "Alice")).join();
+
+            AtomicBoolean down = new AtomicBoolean(true);
+            Function<SpoolRecord, CompletableFuture<Boolean>> writer = record -> down.get()
+                    ? CompletableFuture.failedFuture(new IllegalStateException("database down"))
+                    : CompletableFuture.completedFuture(true);
+
+            assertEquals(0, spool.replay(writer, 10).join());
+            assertTrue(spool.contains("players", "a"));
+
+            down.set(false);
+            assertEquals(1, spool.replay(writer, 10).join());
+            assertTrue(spool.isEmpty());
+            assertEquals(1, spool.getStats().getReplayed());
+        }
+
+        @Test
+        @DisplayName("Should delete segments once they are fully replayed")
+        void shouldDeleteReplayedSegments() throws IOException {
+            config.setMaxSegmentBytes(4096);
+            reopen();
+            String padding = "x".repeat(200);
+            for (int i = 0; i < 100; i++) {
+                spool.append("players", "p" + i, Map.of("pad", padding)).join();
+            }
+            assertTrue(segmentCount() > 1);
+
+            List<SpoolRecord> applied = new ArrayList<>();
+            while (spool.replay(recordingWriter(applied), 16).join() > 0) {
+                // drain
+            }
+
+            assertEquals(100, applied.size());
+            assertTrue(spool.isEmpty());
+            assertEquals(1, segmentCount());
+            assertEquals(0, spool.getStats().getPendingBytes());
+        }
+    }
+}
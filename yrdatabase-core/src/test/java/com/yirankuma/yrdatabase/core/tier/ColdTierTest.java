@@ -0,0 +1,204 @@
+package com.yirankuma.yrdatabase.core.tier;
+
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
+import com.yirankuma.yrdatabase.core.cache.KeyLayout;
+import com.yirankuma.yrdatabase.core.provider.sqlite.SQLiteProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ColdTier, using a SQLite file as the persist layer.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("ColdTier Tests")
+class ColdTierTest {
+
+    private static final String TABLE = "players";
+
+    @TempDir
+    Path tempDir;
+
+    private SQLiteProvider persist;
+    private ColdTier tier;
+
+    @BeforeEach
+    void setUp() throws ExecutionException, InterruptedException {
+        persist = new SQLiteProvider(tempDir.resolve("tier.db").toString());
+        persist.initialize().get();
+
+        Map<String, String> schema = new LinkedHashMap<>();
+        schema.put("id", "VARCHAR(64) PRIMARY KEY");
+        schema.put("name", "TEXT");
+        schema.put("score", "INT DEFAULT 0");
+        assertTrue(persist.createTable(TABLE, schema).get());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "p" + i);
+            row.put("name", "player-" + i);
+            row.put("score", i * 10);
+            rows.add(row);
+        }
+        assertTrue(persist.batchUpsert(TABLE, rows, "id").get());
+
+        DatabaseConfig.PersistConfig.TieringConfig config = new DatabaseConfig.PersistConfig.TieringConfig();
+        config.setEnabled(true);
+        config.setTables(List.of(TABLE));
+        config.setBatchSize(2);
+        tier = new ColdTier(() -> persist, () -> null, KeyLayout.standalone(), config);
+
+        // 第一轮只补齐访问时间，没有行超过期限
+        assertEquals(0L, tier.archive().join());
+    }
+
+    @AfterEach
+    void tearDown() {
+        tier.close();
+        persist.close();
+    }
+
+    /**
+     * Pretend the given keys were last accessed long ago.
+     */
+    private void age(String... keys) throws ExecutionException, InterruptedException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (String key : keys) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", key);
+            row.put("accessed_at", 0L);
+            rows.add(row);
+        }
+        assertTrue(persist.batchUpsert(ColdTier.accessTable(TABLE), rows, "id").get());
+    }
+
+    private boolean isHot(String key) throws ExecutionException, InterruptedException {
+        return !persist.query(TABLE, Map.of("id", key)).get().isEmpty();
+    }
+
+    @Nested
+    @DisplayName("Archive")
+    class Archive {
+
+        @Test
+        @DisplayName("Should move inactive rows into the archive table")
+        void shouldArchiveInactiveRows() throws ExecutionException, InterruptedException {
+            age("p1", "p2");
+
+            assertEquals(2L, tier.archive().join());
+
+            assertFalse(isHot("p1"));
+            assertFalse(isHot("p2"));
+            assertTrue(isHot("p3"));
+            assertTrue(tier.isArchived(TABLE, "p1").get());
+            assertEquals(2L, tier.getStats().getArchived());
+        }
+
+        @Test
+        @DisplayName("Should keep rows touched since the last flush")
+        void shouldKeepTouchedRows() throws ExecutionException, InterruptedException {
+            age("p1", "p2");
+            tier.touch(TABLE, "p2");
+
+            assertEquals(1L, tier.archive().join());
+
+            assertFalse(isHot("p1"));
+            assertTrue(isHot("p2"));
+        }
+
+        @Test
+        @DisplayName("Should ignore tables that are not tiered")
+        void shouldIgnoreOtherTables() {
+            assertTrue(tier.isTiered(TABLE));
+            assertFalse(tier.isTiered("guilds"));
+            assertEquals("players_archive", tier.archiveTableOf(TABLE));
+            assertNull(tier.archiveTableOf("guilds"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Restore")
+    class Restore {
+
+        @Test
+        @DisplayName("Should move an archived row back into the hot table")
+        void shouldRestore() throws ExecutionException, InterruptedException {
+            age("p1");
+            tier.archive().join();
+
+            Optional<Map<String, Object>> row = tier.restore(TABLE, "p1").get();
+
+            assertTrue(row.isPresent());
+            assertEquals("player-1", row.get().get("name"));
+            assertTrue(isHot("p1"));
+            assertFalse(tier.isArchived(TABLE, "p1").get());
+            assertEquals(1L, tier.getStats().getRestored());
+        }
+
+        @Test
+        @DisplayName("Should return empty for keys that were never archived")
+        void shouldReturnEmptyForUnknownKey() throws ExecutionException, InterruptedException {
+            assertTrue(tier.restore(TABLE, "missing").get().isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should restore only the archived keys of a batch")
+        void shouldRestoreAll() throws ExecutionException, InterruptedException {
+            age("p1", "p2");
+            tier.archive().join();
+
+            tier.restoreAll(TABLE, List.of("p1", "p2", "p3", "missing")).get();
+
+            assertTrue(isHot("p1"));
+            assertTrue(isHot("p2"));
+            assertFalse(isHot("missing"));
+            assertEquals(2L, tier.getStats().getRestored());
+        }
+
+        @Test
+        @DisplayName("Should drop the archived copy of a deleted key")
+        void shouldForget() throws ExecutionException, InterruptedException {
+            age("p1");
+            tier.archive().join();
+
+            tier.forget(TABLE, "p1").get();
+
+            assertFalse(tier.isArchived(TABLE, "p1").get());
+            assertTrue(tier.restore(TABLE, "p1").get().isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Codec")
+    class Codec {
+
+        @Test
+        @DisplayName("Should round-trip a row through gzip")
+        void shouldRoundTrip() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "p1");
+            row.put("level", 42);
+            row.put("note", null);
+
+            Map<String, Object> decoded = ColdTier.decompress(ColdTier.compress(row));
+
+            assertEquals("p1", decoded.get("id"));
+            assertEquals(42L, decoded.get("level"));
+            assertTrue(decoded.containsKey("note"));
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.yirankuma.yrdatabase.core.transfer;
+
+import com.yirankuma.yrdatabase.api.provider.PersistProvider;
+import com.yirankuma.yrdatabase.core.provider.sharded.ShardedPersistProvider;
+import com.yirankuma.yrdatabase.core.provider.sqlite.SQLiteProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DataTransfer, using SQLite files as source and target.
+ *
+ * @author YiranKuma
+ */
+@DisplayName("DataTransfer Tests")
+class DataTransferTest {
+
+    private static final String TABLE = "players";
+    private static final int ROWS = 25;
+
+    @TempDir
+    Path tempDir;
+
+    private final List<PersistProvider> opened = new ArrayList<>();
+    private SQLiteProvider source;
+    private DataTransfer transfer;
+
+    @BeforeEach
+    void setUp() throws ExecutionException, InterruptedException {
+        source = open("source.db");
+        fill(source, 0, ROWS);
+        // 每段 4 行、每页 3 行，覆盖多分段与段内翻页
+        transfer = new DataTransfer(2, 4, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(PersistProvider::close);
+    }
+
+    private SQLiteProvider open(String file) throws ExecutionException, InterruptedException {
+        SQLiteProvider provider = new SQLiteProvider(tempDir.resolve(file).toString());
+        provider.initialize().get();
+        opened.add(provider);
+        return provider;
+    }
+
+    private static void fill(PersistProvider target, int from, int to) throws ExecutionException, InterruptedException {
+        Map<String, String> schema = new LinkedHashMap<>();
+        schema.put("id", "VARCHAR(64) PRIMARY KEY");
+        schema.put("name", "TEXT");
+        schema.put("score", "INT DEFAULT 0");
+        assertTrue(target.createTable(TABLE, schema).get());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", String.format("p%03d", i));
+            row.put("name", i % 5 == 0 ? null : "player-" + i);
+            row.put("score", i * 10);
+            rows.add(row);
+        }
+        assertTrue(target.batchUpsert(TABLE, rows, "id").get());
+    }
+
+    private static void assertCopied(PersistProvider target, int expectedRows) throws ExecutionException, InterruptedException {
+        List<Map<String, Object>> rows = target.query(TABLE, Map.of()).get();
+        assertEquals(expectedRows, rows.size());
+        Map<String, Object> row = target.query(TABLE, Map.of("id", "p007")).get().get(0);
+        assertEquals("player-7", row.get("name"));
+        assertEquals(70L, ((Number) row.get("score")).longValue());
+        assertNull(target.query(TABLE, Map.of("id", "p010")).get().get(0).get("name"));
+    }
+
+    /**
+     * 3 个哈希共 10 个字段，跨越多个分段与分页。
+     */
+    private static void fillHashes(PersistProvider target) throws ExecutionException, InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(target.hset("stats:p" + (i % 3), "f" + i, String.valueOf(i)).get());
+        }
+    }
+
+    private static void assertHashesCopied(PersistProvider target) throws ExecutionException, InterruptedException {
+        assertEquals(Map.of("f0", "0", "f3", "3", "f6", "6", "f9", "9"), target.hgetAll("stats:p0").get());
+        assertEquals(Map.of("f1", "1", "f4", "4", "f7", "7"), target.hgetAll("stats:p1").get());
+        assertEquals(Map.of("f2", "2", "f5", "5", "f8", "8"), target.hgetAll("stats:p2").get());
+        // 目标表保留 (hkey, field) 主键：再次写入覆盖而不是新增一行
+        assertTrue(target.hset("stats:p0", "f0", "updated").get());
+        assertEquals("updated", target.hget("stats:p0", "f0").get().orElse(null));
+        assertEquals(4, target.hgetAll("stats:p0").get().size());
+    }
+
+    private static Throwable rootCause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    @Nested
+    @DisplayName("Export and Import")
+    class ExportImport {
+
+        @Test
+        @DisplayName("Should round-trip every row through chunk files")
+        void shouldRoundTrip() throws ExecutionException, InterruptedException {
+            Path dir = tempDir.resolve("export");
+
+            TransferStats exported = transfer.exportTo(source, dir, List.of()).join();
+            assertEquals(ROWS, exported.getRows());
+            assertEquals(exported.getChunks(), exported.getChunksDone());
+            assertTrue(exported.getChunks() > 1);
+            assertTrue(Files.exists(dir.resolve(DataTransfer.MANIFEST_FILE)));
+
+            SQLiteProvider target = open("target.db");
+            TransferStats imported = transfer.importFrom(dir, target).join();
+
+            assertEquals(ROWS, imported.getRows());
+            assertCopied(target, ROWS);
+            assertFalse(Files.exists(dir.resolve(DataTransfer.IMPORT_PROGRESS_FILE)));
+        }
+
+        @Test
+        @DisplayName("Should round-trip hash fields keyed by (hkey, field)")
+        void shouldRoundTripHashes() throws ExecutionException, InterruptedException {
+            fillHashes(source);
+            Path dir = tempDir.resolve("export");
+
+            TransferStats exported = transfer.exportTo(source, dir, List.of(PersistProvider.HASH_TABLE)).join();
+            assertEquals(10, exported.getRows());
+            assertTrue(exported.getChunks() > 1);
+
+            SQLiteProvider target = open("target.db");
+            TransferStats imported = transfer.importFrom(dir, target).join();
+
+            assertEquals(10, imported.getRows());
+            assertEquals(0, imported.getChunksFailed());
+            assertHashesCopied(target);
+        }
+
+        @Test
+        @DisplayName("Should report every imported key before and after its batch is written")
+        void shouldReportImportedBatches() throws ExecutionException, InterruptedException {
+            Path dir = tempDir.resolve("export");
+            transfer.exportTo(source, dir, List.of()).join();
+            SQLiteProvider target = open("target.db");
+            Set<String> before = ConcurrentHashMap.newKeySet();
+            Set<String> after = ConcurrentHashMap.newKeySet();
+
+            transfer.importFrom(dir, target, new DataTransfer.BatchListener() {
+                @Override
+                public CompletableFuture<Void> beforeWrite(String table, List<String> keys) {
+                    for (String key : keys) {
+                        // 写入前该行尚不存在
+                        assertTrue(target.query(table, Map.of("id", key)).join().isEmpty());
+                        before.add(table + "/" + key);
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }
+
+                @Override
+                public CompletableFuture<Void> afterWrite(String table, List<String> keys) {
+                    keys.forEach(key -> after.add(table + "/" + key));
+                    return CompletableFuture.completedFuture(null);
+                }
+            }).join();
+
+            assertEquals(ROWS, before.size());
+            assertEquals(before, after);
+            assertTrue(after.contains(TABLE + "/p007"));
+        }
+
+        @Test
+        @DisplayName("Should fail the chunk when the listener fails")
+        void shouldFailChunkOnListenerError() throws ExecutionException, InterruptedException {
+            Path dir = tempDir.resolve("export");
+            transfer.exportTo(source, dir, List.of()).join();
+            SQLiteProvider target = open("target.db");
+
+            TransferStats stats = transfer.importFrom(dir, target, new DataTransfer.BatchListener() {
+                @Override
+                public CompletableFuture<Void> afterWrite(String table, List<String> keys) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("cache unavailable"));
+                }
+            }).join();
+
+            assertEquals(stats.getChunks(), stats.getChunksFailed());
+            // 留下进度文件，可续传重试
+            assertTrue(Files.exists(dir.resolve(DataTransfer.IMPORT_PROGRESS_FILE)));
+        }
+
+        @Test
+        @DisplayName("Should redo only the unfinished chunks on resume")
+        void shouldResumeExport() throws Exception {
+            Path dir = tempDir.resolve("export");
+            transfer.exportTo(source, dir, List.of()).join();
+
+            // 模拟中断：最后一段未完成
+            Path manifest = dir.resolve(DataTransfer.MANIFEST_FILE);
+            TransferPlan plan = TransferPlan.read(manifest);
+            List<TransferPlan.Chunk> chunks = plan.tables.get(0).chunks;
+            TransferPlan.Chunk last = chunks.get(chunks.size() - 1);
+            long lastRows = last.rows;
+            last.done = false;
+            plan.write(manifest);
+            Files.delete(dir.resolve(last.file(TABLE)));
+
+            TransferStats resumed = transfer.exportTo(source, dir, List.of()).join();
+
+            assertEquals(lastRows, resumed.getRows());
+            assertEquals(resumed.getChunks(), resumed.getChunksDone());
+            assertTrue(Files.exists(dir.resolve(last.file(TABLE))));
+        }
+
+        @Test
+        @DisplayName("Should refuse to re-run a complete export")
+        void shouldRejectCompleteExport() {
+            Path dir = tempDir.resolve("export");
+            transfer.exportTo(source, dir, List.of()).join();
+
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> transfer.exportTo(source, dir, List.of()).join());
+            assertInstanceOf(IllegalStateException.class, rootCause(e));
+        }
+
+        @Test
+        @DisplayName("Should refuse to import an incomplete export")
+        void shouldRejectIncompleteImport() throws Exception {
+            Path dir = tempDir.resolve("export");
+            transfer.exportTo(source, dir, List.of()).join();
+            Path manifest = dir.resolve(DataTransfer.MANIFEST_FILE);
+            TransferPlan plan = TransferPlan.read(manifest);
+            plan.tables.get(0).chunks.get(0).done = false;
+            plan.write(manifest);
+
+            SQLiteProvider target = open("target.db");
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> transfer.importFrom(dir, target).join());
+            assertInstanceOf(IllegalStateException.class, rootCause(e));
+        }
+
+        @Test
+        @DisplayName("Should reject unknown tables")
+        void shouldRejectUnknownTable() {
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> transfer.exportTo(source, tempDir.resolve("export"), List.of("missing")).join());
+            assertInstanceOf(IllegalArgumentException.class, rootCause(e));
+            assertFalse(transfer.isRunning());
+        }
+    }
+
+    @Nested
+    @DisplayName("Migration")
+    class Migration {
+
+        @Test
+        @DisplayName("Should copy every row and remove the checkpoint")
+        void shouldMigrate() throws ExecutionException, InterruptedException {
+            SQLiteProvider target = open("target.db");
+            Path checkpoint = tempDir.resolve("migrate.json");
+
+            TransferStats stats = transfer.migrate(source, target, checkpoint, List.of(TABLE)).join();
+
+            assertEquals(ROWS, stats.getRows());
+            assertEquals(0, stats.getChunksFailed());
+            assertCopied(target, ROWS);
+            assertFalse(Files.exists(checkpoint));
+        }
+
+        @Test
+        @DisplayName("Should copy hash fields along with the tables")
+        void shouldMigrateHashes() throws ExecutionException, InterruptedException {
+            fillHashes(source);
+            SQLiteProvider target = open("target.db");
+
+            TransferStats stats = transfer.migrate(source, target, tempDir.resolve("migrate.json"), List.of()).join();
+
+            assertEquals(ROWS + 10, stats.getRows());
+            assertCopied(target, ROWS);
+            assertHashesCopied(target);
+        }
+
+        @Test
+        @DisplayName("Should refuse a target table that already has rows")
+        void shouldRejectNonEmptyTarget() throws ExecutionException, InterruptedException {
+            SQLiteProvider target = open("target.db");
+            fill(target, 0, 1);
+            Path checkpoint = tempDir.resolve("migrate.json");
+
+            CompletionException e = assertThrows(CompletionException.class,
+                    () -> transfer.migrate(source, target, checkpoint, List.of()).join());
+
+            assertInstanceOf(IllegalStateException.class, rootCause(e));
+            assertFalse(Files.exists(checkpoint));
+            assertEquals(1, target.query(TABLE, Map.of()).get().size());
+        }
+
+        @Test
+        @DisplayName("Should read a sharded source shard by shard")
+        void shouldMigrateShardedSource() throws ExecutionException, InterruptedException {
+            SQLiteProvider shard = open("shard-1.db");
+            fill(shard, ROWS, ROWS + 10);
+            ShardedPersistProvider sharded = new ShardedPersistProvider(List.of(source, shard), 0);
+            SQLiteProvider target = open("target.db");
+
+            TransferStats stats = transfer.migrate(sharded, target, tempDir.resolve("migrate.json"), List.of()).join();
+
+            assertEquals(ROWS + 10, stats.getRows());
+            assertCopied(target, ROWS + 10);
+        }
+    }
+
+    @Nested
+    @DisplayName("Row Codec")
+    class RowCodecTest {
+
+        @Test
+        @DisplayName("Should round-trip numbers, nulls and binary columns")
+        void shouldRoundTripTypes() {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", "p1");
+            row.put("level", 42);
+            row.put("ratio", 0.5);
+            row.put("note", null);
+            row.put("blob", new byte[]{1, 2, 3});
+
+            Map<String, Object> decoded = RowCodec.decode(RowCodec.encode(row));
+
+            assertEquals("p1", decoded.get("id"));
+            assertEquals(42L, decoded.get("level"));
+            assertEquals(0.5, decoded.get("ratio"));
+            assertTrue(decoded.containsKey("note"));
+            assertNull(decoded.get("note"));
+            assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decoded.get("blob"));
+        }
+    }
+}
@@ -12,6 +12,8 @@ import com.yirankuma.yrdatabase.nukkit.listener.PlayerEventListener;
 import com.yirankuma.yrdatabase.nukkit.session.NukkitSessionBridge;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -144,6 +146,7 @@ public class YRDatabaseNukkit extends PluginBase {
             cacheConfig.setPassword(getString(cacheSection, "password", ""));
             cacheConfig.setDatabase(getInt(cacheSection, "database", 0));
             cacheConfig.setTimeout(getInt(cacheSection, "timeout", 5000));
+            cacheConfig.setReplicas(getStringList(cacheSection, "replicas"));
             
             @SuppressWarnings("unchecked")
             Map<String, Object> poolSection = (Map<String, Object>) cacheSection.get("pool");
@@ -152,6 +155,15 @@ public class YRDatabaseNukkit extends PluginBase {
                 cacheConfig.getPool().setMaxIdle(getInt(poolSection, "maxIdle", 10));
                 cacheConfig.getPool().setMinIdle(getInt(poolSection, "minIdle", 2));
             }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> clusterSection = (Map<String, Object>) cacheSection.get("cluster");
+            if (clusterSection != null) {
+                cacheConfig.getCluster().setEnabled(getBoolean(clusterSection, "enabled", false));
+                cacheConfig.getCluster().setNodes(getStringList(clusterSection, "nodes"));
+                cacheConfig.getCluster().setPendingShards(getInt(clusterSection, "pendingShards", 16));
+                cacheConfig.getCluster().setReplicaReads(getBoolean(clusterSection, "replicaReads", false));
+            }
         }
         
         // Persist (MySQL/SQLite) config
@@ -172,6 +184,18 @@ public class YRDatabaseNukkit extends PluginBase {
                 mysqlConfig.setUsername(getString(mysqlSection, "username", "root"));
                 mysqlConfig.setPassword(getString(mysqlSection, "password", ""));
                 mysqlConfig.setTimezone(getString(mysqlSection, "timezone", "UTC"));
+                mysqlConfig.setReplicas(getStringList(mysqlSection, "replicas"));
+                mysqlConfig.setReplicaPoolSize(getInt(mysqlSection, "replicaPoolSize", 4));
+                mysqlConfig.setReplicaCooldownMillis(getInt(mysqlSection, "replicaCooldownMillis", 30000));
+
+                @SuppressWarnings("unchecked")
+                Map<String, Object> shardingSection = (Map<String, Object>) mysqlSection.get("sharding");
+                if (shardingSection != null) {
+                    mysqlConfig.getSharding().setEnabled(getBoolean(shardingSection, "enabled", false));
+                    mysqlConfig.getSharding().setShards(getStringList(shardingSection, "shards"));
+                    mysqlConfig.getSharding().setPreviousShardCount(getInt(shardingSection, "previousShardCount", 0));
+                    mysqlConfig.getSharding().setMigrationBatchSize(getInt(shardingSection, "migrationBatchSize", 500));
+                }
                 
                 @SuppressWarnings("unchecked")
                 Map<String, Object> poolSection = (Map<String, Object>) mysqlSection.get("pool");
@@ -192,6 +216,37 @@ public class YRDatabaseNukkit extends PluginBase {
                 // Default SQLite path
                 persistConfig.getSqlite().setFile(new File(getDataFolder(), "data.db").getAbsolutePath());
             }
+
+            // Write spool config
+            @SuppressWarnings("unchecked")
+            Map<String, Object> spoolSection = (Map<String, Object>) persistSection.get("spool");
+            DatabaseConfig.PersistConfig.SpoolConfig spoolConfig = persistConfig.getSpool();
+            String spoolPath = "spool";
+            if (spoolSection != null) {
+                spoolConfig.setEnabled(getBoolean(spoolSection, "enabled", true));
+                spoolPath = getString(spoolSection, "directory", "spool");
+                spoolConfig.setMaxSegmentBytes(getInt(spoolSection, "maxSegmentBytes", 16777216));
+                spoolConfig.setFsync(getBoolean(spoolSection, "fsync", true));
+                spoolConfig.setReplayBatchSize(getInt(spoolSection, "replayBatchSize", 200));
+                spoolConfig.setReplayIntervalSeconds(getInt(spoolSection, "replayIntervalSeconds", 5));
+            }
+            if (!new File(spoolPath).isAbsolute()) {
+                spoolPath = new File(getDataFolder(), spoolPath).getAbsolutePath();
+            }
+            spoolConfig.setDirectory(spoolPath);
+
+            // Cold-data tiering config
+            @SuppressWarnings("unchecked")
+            Map<String, Object> tieringSection = (Map<String, Object>) persistSection.get("tiering");
+            if (tieringSection != null) {
+                DatabaseConfig.PersistConfig.TieringConfig tieringConfig = persistConfig.getTiering();
+                tieringConfig.setEnabled(getBoolean(tieringSection, "enabled", false));
+                tieringConfig.setTables(getStringList(tieringSection, "tables"));
+                tieringConfig.setInactiveDays(getInt(tieringSection, "inactiveDays", 90));
+                tieringConfig.setBatchSize(getInt(tieringSection, "batchSize", 500));
+                tieringConfig.setIntervalMinutes(getInt(tieringSection, "intervalMinutes", 60));
+                tieringConfig.setAccessFlushSeconds(getInt(tieringSection, "accessFlushSeconds", 60));
+            }
         }
         
         // Caching config
@@ -199,9 +254,32 @@ public class YRDatabaseNukkit extends PluginBase {
         if (!cachingSection.isEmpty()) {
             config.getCaching().setDefaultTTL(getInt(cachingSection, "defaultTTL", 3600));
             config.getCaching().setPlayerDataTTL(getInt(cachingSection, "playerDataTTL", 7200));
+            config.getCaching().setTtlJitter(getDouble(cachingSection, "ttlJitter", 0.1));
+            config.getCaching().setTableTTLs(getStringList(cachingSection, "tableTTLs"));
+            config.getCaching().setAdaptiveTTL(getBoolean(cachingSection, "adaptiveTTL", false));
+            config.getCaching().setAdaptiveHotAccesses(getInt(cachingSection, "adaptiveHotAccesses", 16));
+            config.getCaching().setAdaptiveMinFactor(getDouble(cachingSection, "adaptiveMinFactor", 0.5));
+            config.getCaching().setAdaptiveMaxFactor(getDouble(cachingSection, "adaptiveMaxFactor", 2.0));
+            config.getCaching().setAdaptiveSketchWidth(getInt(cachingSection, "adaptiveSketchWidth", 16384));
             config.getCaching().setAutoRefresh(getBoolean(cachingSection, "autoRefresh", true));
             config.getCaching().setAutoSyncEnabled(getBoolean(cachingSection, "autoSyncEnabled", true));
             config.getCaching().setAutoSyncIntervalSeconds(getInt(cachingSection, "autoSyncIntervalSeconds", 300));
+            config.getCaching().setLocalSweep(getBoolean(cachingSection, "localSweep", true));
+            config.getCaching().setOrphanScanIntervalSeconds(getInt(cachingSection, "orphanScanIntervalSeconds", 120));
+            config.getCaching().setWheelTickMillis(getInt(cachingSection, "wheelTickMillis", 1000));
+            config.getCaching().setOwnershipLeases(getBoolean(cachingSection, "ownershipLeases", true));
+            config.getCaching().setLeaseTTLSeconds(getInt(cachingSection, "leaseTTLSeconds", 30));
+            config.getCaching().setCounterFlushIntervalSeconds(getInt(cachingSection, "counterFlushIntervalSeconds", 5));
+            config.getCaching().setCounterFlushBatchSize(getInt(cachingSection, "counterFlushBatchSize", 500));
+            config.getCaching().setLeaderboardFlushIntervalSeconds(getInt(cachingSection, "leaderboardFlushIntervalSeconds", 5));
+            config.getCaching().setChangeFeedEnabled(getBoolean(cachingSection, "changeFeedEnabled", false));
+            config.getCaching().setChangeFeedWindowMillis(getInt(cachingSection, "changeFeedWindowMillis", 100));
+            config.getCaching().setNegativeCacheEnabled(getBoolean(cachingSection, "negativeCacheEnabled", false));
+            config.getCaching().setNegativeCacheTTL(getInt(cachingSection, "negativeCacheTTL", 30));
+            config.getCaching().setBloomFilterEnabled(getBoolean(cachingSection, "bloomFilterEnabled", false));
+            config.getCaching().setBloomExpectedKeys(getInt(cachingSection, "bloomExpectedKeys", 1000000));
+            config.getCaching().setBloomFalsePositiveRate(getDouble(cachingSection, "bloomFalsePositiveRate", 0.01));
+            config.getCaching().setBloomRebuildIntervalSeconds(getInt(cachingSection, "bloomRebuildIntervalSeconds", 86400));
         }
         
         // Session config
@@ -209,6 +287,15 @@ public class YRDatabaseNukkit extends PluginBase {
         if (!sessionSection.isEmpty()) {
             config.getSession().setTimeout(getInt(sessionSection, "timeout", 300000));
             config.getSession().setHeartbeatInterval(getInt(sessionSection, "heartbeatInterval", 10000));
+            config.getSession().setMessageExpiry(getInt(sessionSection, "messageExpiry", 30000));
+            config.getSession().setTransport(getString(sessionSection, "transport", "pubsub"));
+            config.getSession().setServerId(getString(sessionSection, "serverId", ""));
+            config.getSession().setStreamBatchSize(getInt(sessionSection, "streamBatchSize", 64));
+            config.getSession().setStreamPollIntervalMillis(getInt(sessionSection, "streamPollIntervalMillis", 200));
+            config.getSession().setStreamCatchUpLimit(getInt(sessionSection, "streamCatchUpLimit", 1000));
+            config.getSession().setStreamCatchUpWindowMillis(getInt(sessionSection, "streamCatchUpWindowMillis", 600000));
+            config.getSession().setDispatchThreads(getInt(sessionSection, "dispatchThreads", 4));
+            config.getSession().setDispatchQueueSize(getInt(sessionSection, "dispatchQueueSize", 1024));
         }
         
         // Advanced config
@@ -217,6 +304,39 @@ public class YRDatabaseNukkit extends PluginBase {
             config.getAdvanced().setAsyncExecutorSize(getInt(advancedSection, "asyncExecutorSize", 4));
             config.getAdvanced().setEnableMetrics(getBoolean(advancedSection, "enableMetrics", false));
             config.getAdvanced().setDebugMode(getBoolean(advancedSection, "debugMode", false));
+            config.getAdvanced().setExecutor(getString(advancedSection, "executor", "fixed"));
+            config.getAdvanced().setHealthCheckIntervalSeconds(getInt(advancedSection, "healthCheckIntervalSeconds", 15));
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> breakerSection = (Map<String, Object>) advancedSection.get("circuitBreaker");
+            if (breakerSection != null) {
+                DatabaseConfig.AdvancedConfig.CircuitBreakerConfig breakerConfig = config.getAdvanced().getCircuitBreaker();
+                breakerConfig.setEnabled(getBoolean(breakerSection, "enabled", true));
+                breakerConfig.setWindowSize(getInt(breakerSection, "windowSize", 50));
+                breakerConfig.setMinimumCalls(getInt(breakerSection, "minimumCalls", 20));
+                breakerConfig.setFailureRateThreshold(getDouble(breakerSection, "failureRateThreshold", 0.5));
+                breakerConfig.setSlowCallThresholdMillis(getInt(breakerSection, "slowCallThresholdMillis", 1000));
+                breakerConfig.setSlowCallRateThreshold(getDouble(breakerSection, "slowCallRateThreshold", 0.8));
+                breakerConfig.setCallTimeoutMillis(getInt(breakerSection, "callTimeoutMillis", 3000));
+                breakerConfig.setOpenMillis(getInt(breakerSection, "openMillis", 2000));
+                breakerConfig.setMaxOpenMillis(getInt(breakerSection, "maxOpenMillis", 60000));
+                breakerConfig.setHalfOpenCalls(getInt(breakerSection, "halfOpenCalls", 1));
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> transferSection = (Map<String, Object>) advancedSection.get("transfer");
+            DatabaseConfig.AdvancedConfig.TransferConfig transferConfig = config.getAdvanced().getTransfer();
+            String transferPath = "backups";
+            if (transferSection != null) {
+                transferPath = getString(transferSection, "directory", "backups");
+                transferConfig.setParallelism(getInt(transferSection, "parallelism", 4));
+                transferConfig.setChunkRows(getInt(transferSection, "chunkRows", 50000));
+                transferConfig.setBatchSize(getInt(transferSection, "batchSize", 1000));
+            }
+            if (!new File(transferPath).isAbsolute()) {
+                transferPath = new File(getDataFolder(), transferPath).getAbsolutePath();
+            }
+            transferConfig.setDirectory(transferPath);
         }
         
         return config;
@@ -237,6 +357,14 @@ public class YRDatabaseNukkit extends PluginBase {
         return defaultValue;
     }
 
+    private double getDouble(Map<String, Object> map, String key, double defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return defaultValue;
+    }
+
     private boolean getBoolean(Map<String, Object> map, String key, boolean defaultValue) {
         Object value = map.get(key);
         if (value instanceof Boolean) {
@@ -245,6 +373,17 @@ public class YRDatabaseNukkit extends PluginBase {
         return defaultValue;
     }
 
+    private List<String> getStringList(Map<String, Object> map, String key) {
+        List<String> result = new ArrayList<>();
+        Object value = map.get(key);
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                result.add(String.valueOf(item));
+            }
+        }
+        return result;
+    }
+
     // ==================== Public API ====================
 
     /**
@@ -9,10 +9,21 @@ import cn.nukkit.command.data.CommandParameter;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.DatabaseStatus;
 import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
+import com.yirankuma.yrdatabase.core.concurrent.ExecutorStats;
+import com.yirankuma.yrdatabase.core.concurrent.StripedDispatcher;
+import com.yirankuma.yrdatabase.core.session.SessionEventManagerImpl;
+import com.yirankuma.yrdatabase.core.provider.sharded.ReshardStats;
+import com.yirankuma.yrdatabase.core.cache.LocalSweepStats;
+import com.yirankuma.yrdatabase.core.spool.SpoolStats;
+import com.yirankuma.yrdatabase.core.tier.TieringStats;
+import com.yirankuma.yrdatabase.core.transfer.TransferStats;
 import com.yirankuma.yrdatabase.nukkit.YRDatabaseNukkit;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * /yrdb command implementation for NukkitMOT.
@@ -24,7 +35,7 @@ public class YRDBCommand extends Command {
     private final YRDatabaseNukkit plugin;
 
     public YRDBCommand(YRDatabaseNukkit plugin) {
-        super("yrdb", "YRDatabase management command", "/yrdb <help|status|reload|info|test|stats>");
+        super("yrdb", "YRDatabase management command", "/yrdb <help|status|reload|info|test|stats|reshard|export|import|migrate>");
         this.plugin = plugin;
         
         this.setAliases(new String[]{"yrdatabase"});
@@ -33,7 +44,7 @@ public class YRDBCommand extends Command {
         // Add command parameters for auto-completion
         this.commandParameters.clear();
         this.commandParameters.put("default", new CommandParameter[]{
-            CommandParameter.newEnum("action", new String[]{"help", "status", "reload", "info", "test", "stats"})
+            CommandParameter.newEnum("action", new String[]{"help", "status", "reload", "info", "test", "stats", "reshard", "export", "import", "migrate"})
         });
     }
 
@@ -67,6 +78,18 @@ public class YRDBCommand extends Command {
             case "stats":
                 showStats(sender);
                 break;
+            case "reshard":
+                reshard(sender);
+                break;
+            case "export":
+                exportData(sender, args);
+                break;
+            case "import":
+                importData(sender, args);
+                break;
+            case "migrate":
+                migrateData(sender, args);
+                break;
             default:
                 sender.sendMessage("§c未知命令: " + args[0]);
                 sender.sendMessage("§7使用 §f/yrdb help §7查看帮助");
@@ -88,6 +111,10 @@ public class YRDBCommand extends Command {
         sender.sendMessage("  §b/yrdb info   §7- §f显示插件信息");
         sender.sendMessage("  §b/yrdb test   §7- §f测试数据库读写操作");
         sender.sendMessage("  §b/yrdb stats  §7- §f查看性能统计数据");
+        sender.sendMessage("  §b/yrdb reshard §7- §f分片扩容后迁移数据 / 查看迁移进度");
+        sender.sendMessage("  §b/yrdb export [目录] [表...] §7- §f导出持久层数据 / 继续未完成的导出");
+        sender.sendMessage("  §b/yrdb import <目录> §7- §f导入导出的数据");
+        sender.sendMessage("  §b/yrdb migrate <mysql|sqlite> [表...] §7- §f将数据迁移到另一种持久层");
         sender.sendMessage("");
         sender.sendMessage("§7别名: §f/yrdatabase");
         sender.sendMessage("§6§l━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
@@ -117,6 +144,9 @@ public class YRDBCommand extends Command {
             sender.sendMessage("§7    状态: " + cacheState);
             sender.sendMessage("§7    地址: §f" + cacheStatus.getHost() + ":" + cacheStatus.getPort());
             sender.sendMessage("§7    延迟: §f" + cacheStatus.getLatencyMs() + "ms");
+            if (!"CLOSED".equals(cacheStatus.getCircuitState())) {
+                sender.sendMessage("§c    熔断: " + cacheStatus.getCircuitState() + "（读写已绕开缓存层）");
+            }
             if (cacheStatus.getErrorMessage() != null) {
                 sender.sendMessage("§c    错误: " + cacheStatus.getErrorMessage());
             }
@@ -138,6 +168,19 @@ public class YRDBCommand extends Command {
                 sender.sendMessage("§7    文件: §f" + persistStatus.getHost());
             }
             sender.sendMessage("§7    延迟: §f" + persistStatus.getLatencyMs() + "ms");
+            if (!"CLOSED".equals(persistStatus.getCircuitState())) {
+                sender.sendMessage("§c    熔断: " + persistStatus.getCircuitState() + "（写入暂存于 Redis）");
+            }
+            if (persistStatus.getPoolTotal() >= 0) {
+                sender.sendMessage("§7    连接池: §f" + persistStatus.getPoolActive() + " 使用中 / "
+                        + persistStatus.getPoolIdle() + " 空闲 / " + persistStatus.getPoolTotal() + " 总计, "
+                        + persistStatus.getPoolWaiting() + " 等待");
+            }
+            if (persistStatus.getReplicas() > 0) {
+                sender.sendMessage("§7    从库: §f" + persistStatus.getReplicasHealthy() + "/" + persistStatus.getReplicas()
+                        + " §7可用, 读取 §f" + persistStatus.getReplicaReads() + "§7, 回退主库 §f"
+                        + persistStatus.getReplicaFallbacks());
+            }
             if (persistStatus.getErrorMessage() != null) {
                 sender.sendMessage("§c    错误: " + persistStatus.getErrorMessage());
             }
@@ -150,6 +193,15 @@ public class YRDBCommand extends Command {
         sender.sendMessage("");
         sender.sendMessage("§7  缓存条目: §f" + status.getCachedEntries());
         sender.sendMessage("§7  待持久化: §f" + status.getPendingPersist());
+        if (status.getOldestPendingScore() > 0) {
+            long remaining = status.getOldestPendingScore() - System.currentTimeMillis() / 1000L;
+            sender.sendMessage("§7  最早到期: §f" + remaining + "s 后");
+        }
+        if (status.getSampledAt() > 0) {
+            sender.sendMessage("§8  采样于 " + (System.currentTimeMillis() - status.getSampledAt()) / 1000 + "s 前");
+        } else {
+            sender.sendMessage("§8  尚未完成健康采样");
+        }
     }
 
     private void reloadConfig(CommandSender sender) {
@@ -280,6 +332,118 @@ public class YRDBCommand extends Command {
             });
     }
 
+    private void reshard(CommandSender sender) {
+        DatabaseManager db = YRDatabaseNukkit.getDatabaseManager();
+        if (!(db instanceof DatabaseManagerImpl)) {
+            sender.sendMessage("§c  数据库未初始化!");
+            return;
+        }
+        DatabaseManagerImpl impl = (DatabaseManagerImpl) db;
+        ReshardStats current = impl.getReshardStats();
+        if (current == null) {
+            sender.sendMessage("§c  持久层未开启分片 (persist.mysql.sharding)");
+            return;
+        }
+        if (current.isRunning()) {
+            sender.sendMessage("§e[YRDatabase] §f分片迁移进行中: 已扫描 §a" + current.getScanned() + " §f行, 迁移 §a"
+                    + current.getMoved() + "§f, 已被覆盖 §a" + current.getSuperseded() + "§f, 失败 §c" + current.getFailed());
+            return;
+        }
+
+        sender.sendMessage("§e[YRDatabase] §f开始分片迁移，完成后会通知...");
+        impl.reshard().whenComplete((stats, error) -> {
+            if (error != null) {
+                sender.sendMessage("§c  分片迁移失败: " + error.getMessage());
+                return;
+            }
+            sender.sendMessage("§a  ✓ 分片迁移完成 §7(" + (stats.getFinishedAt() - stats.getStartedAt()) + "ms)");
+            sender.sendMessage("§7    表: §f" + stats.getTables() + "§7, 扫描: §f" + stats.getScanned()
+                    + "§7, 迁移: §f" + stats.getMoved() + "§7, 已被覆盖: §f" + stats.getSuperseded()
+                    + "§7, 失败: §f" + stats.getFailed());
+            if (stats.getFailed() > 0) {
+                sender.sendMessage("§e    部分行迁移失败，请稍后再次执行 /yrdb reshard");
+            } else {
+                sender.sendMessage("§e    请将 previousShardCount 改回 0 并重启各子服");
+            }
+        });
+    }
+
+    private void exportData(CommandSender sender, String[] args) {
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        String name = args.length > 1 ? args[1] : null;
+        List<String> tables = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+        sender.sendMessage("§e[YRDatabase] §f开始导出数据，完成后会通知...");
+        reportTransfer(sender, "导出", impl.exportData(name, tables));
+    }
+
+    private void importData(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage("§c用法: /yrdb import <目录>");
+            return;
+        }
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        sender.sendMessage("§e[YRDatabase] §f开始导入数据，完成后会通知...");
+        reportTransfer(sender, "导入", impl.importData(args[1]));
+    }
+
+    private void migrateData(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage("§c用法: /yrdb migrate <mysql|sqlite> [表...]");
+            return;
+        }
+        DatabaseManagerImpl impl = transferManager(sender);
+        if (impl == null) {
+            return;
+        }
+        List<String> tables = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of();
+        sender.sendMessage("§e[YRDatabase] §f开始迁移数据到 " + args[1] + "，完成后会通知...");
+        reportTransfer(sender, "迁移", impl.migrateData(args[1], tables));
+    }
+
+    /**
+     * 已有导出/导入/迁移在进行时显示进度并返回 null。
+     */
+    private DatabaseManagerImpl transferManager(CommandSender sender) {
+        DatabaseManager db = YRDatabaseNukkit.getDatabaseManager();
+        if (!(db instanceof DatabaseManagerImpl)) {
+            sender.sendMessage("§c  数据库未初始化!");
+            return null;
+        }
+        DatabaseManagerImpl impl = (DatabaseManagerImpl) db;
+        TransferStats current = impl.getTransferStats();
+        if (current != null && current.isRunning()) {
+            sender.sendMessage("§e[YRDatabase] §f" + current.getOperation() + " 进行中: 分段 §a" + current.getChunksDone()
+                    + "/" + current.getChunks() + "§f, 已处理 §a" + current.getRows() + " §f行, 失败 §c"
+                    + current.getChunksFailed());
+            sender.sendMessage("§7    位置: §f" + current.getLocation());
+            return null;
+        }
+        return impl;
+    }
+
+    private void reportTransfer(CommandSender sender, String label, CompletableFuture<TransferStats> future) {
+        future.whenComplete((stats, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage("§c  数据" + label + "失败: " + cause.getMessage());
+                return;
+            }
+            sender.sendMessage("§a  ✓ 数据" + label + "完成 §7(" + (stats.getFinishedAt() - stats.getStartedAt()) + "ms)");
+            sender.sendMessage("§7    表: §f" + stats.getTables() + "§7, 分段: §f" + stats.getChunksDone() + "/"
+                    + stats.getChunks() + "§7, 行: §f" + stats.getRows() + "§7, 失败: §f" + stats.getChunksFailed());
+            sender.sendMessage("§7    位置: §f" + stats.getLocation());
+            if (stats.getChunksFailed() > 0) {
+                sender.sendMessage("§e    部分分段失败，再次执行相同命令会从断点继续");
+            }
+        });
+    }
+
     private void showStats(CommandSender sender) {
         sender.sendMessage("§e[YRDatabase] §f性能统计:");
 
@@ -312,6 +476,70 @@ public class YRDBCommand extends Command {
             sender.sendMessage("§e  缓存统计:");
             sender.sendMessage("§7    缓存条目: §f" + status.getCachedEntries());
             sender.sendMessage("§7    待写入: §f" + status.getPendingPersist());
+            sender.sendMessage("§7    读取加载: §f" + ((DatabaseManagerImpl) db).getReadFlight().getLoads()
+                    + " §7(合并 " + ((DatabaseManagerImpl) db).getReadFlight().getShared() + ")");
+            sender.sendMessage("§7    不存在缓存命中: §f" + ((DatabaseManagerImpl) db).getNegativeCacheHits());
+            ((DatabaseManagerImpl) db).getBloomFilter().ifPresent(bloom -> sender.sendMessage("§7    布隆过滤器: §f"
+                    + bloom.getChecks() + " §7次检查，§f" + bloom.getNegatives() + " §7次判定不存在"));
+
+            // JDBC executor: queue wait vs execution time
+            ExecutorStats executorStats = ((DatabaseManagerImpl) db).getPersistExecutorStats();
+            if (executorStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  JDBC 执行器 (" + executorStats.getMode() + ", 并发 " + executorStats.getConcurrency() + "):");
+                sender.sendMessage("§7    执行中 / 等待中: §f" + executorStats.getActive() + " / " + executorStats.getWaiting());
+                sender.sendMessage("§7    已完成: §f" + executorStats.getCompleted());
+                sender.sendMessage("§7    排队耗时: §f" + String.format("%.2f", executorStats.getAvgQueueWaitMs())
+                        + "ms §7(峰值 " + String.format("%.2f", executorStats.getMaxQueueWaitMs()) + "ms)");
+                sender.sendMessage("§7    执行耗时: §f" + String.format("%.2f", executorStats.getAvgExecutionMs())
+                        + "ms §7(峰值 " + String.format("%.2f", executorStats.getMaxExecutionMs()) + "ms)");
+            }
+
+            // Local write spool
+            SpoolStats spoolStats = ((DatabaseManagerImpl) db).getSpoolStats();
+            if (spoolStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  本地写入暂存:");
+                sender.sendMessage("§7    待回放: §f" + spoolStats.getPendingKeys() + " §7个 key，§f"
+                        + spoolStats.getPendingBytes() + " §7字节，§f" + spoolStats.getSegments() + " §7个段文件");
+                sender.sendMessage("§7    已暂存 / 已回放: §f" + spoolStats.getAppended() + " / " + spoolStats.getReplayed()
+                        + " §7(被覆盖 " + spoolStats.getSuperseded() + "，转入 dead-letter " + spoolStats.getDeadLettered() + ")");
+                sender.sendMessage("§7    回放速率: §f" + String.format("%.1f", spoolStats.getReplayRate()) + "/s");
+            }
+
+            // Local timing-wheel sweep
+            LocalSweepStats sweepStats = ((DatabaseManagerImpl) db).getLocalSweepStats();
+            if (sweepStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  本地时间轮:");
+                sender.sendMessage("§7    跟踪中的 key: §f" + sweepStats.getOwnedKeys());
+                sender.sendMessage("§7    已触发 / 兜底发现: §f" + sweepStats.getFired() + " / " + sweepStats.getOrphansFound());
+            }
+
+            // Cold-data tiering
+            TieringStats tieringStats = ((DatabaseManagerImpl) db).getTieringStats();
+            if (tieringStats != null) {
+                sender.sendMessage("");
+                sender.sendMessage("§e  冷数据分层:");
+                sender.sendMessage("§7    已归档 / 已恢复: §f" + tieringStats.getArchived() + " / " + tieringStats.getRestored());
+                sender.sendMessage("§7    待写入访问时间: §f" + tieringStats.getPendingAccesses());
+                if (tieringStats.getLastPassAt() > 0) {
+                    sender.sendMessage("§7    上次扫描: §f" + tieringStats.getLastPassArchived() + " §7行，§f"
+                            + (System.currentTimeMillis() - tieringStats.getLastPassAt()) / 1000 + "s §7前");
+                }
+            }
+
+            // Session event dispatch
+            if (YRDatabaseNukkit.getSessionManager() instanceof SessionEventManagerImpl) {
+                StripedDispatcher dispatcher = ((SessionEventManagerImpl) YRDatabaseNukkit.getSessionManager()).getDispatcher();
+                if (dispatcher != null) {
+                    sender.sendMessage("");
+                    sender.sendMessage("§e  会话事件:");
+                    sender.sendMessage("§7    已分发: §f" + dispatcher.getDispatched());
+                    sender.sendMessage("§7    排队中: §f" + dispatcher.getQueued() + " §7(峰值 " + dispatcher.getMaxQueueDepth() + ")");
+                    sender.sendMessage("§7    队列满丢弃: §f" + dispatcher.getRejected());
+                }
+            }
 
             // JVM Metrics
             sender.sendMessage("");
@@ -8,6 +8,7 @@ import cn.nukkit.event.player.PlayerJoinEvent;
 import cn.nukkit.event.player.PlayerQuitEvent;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
 import com.yirankuma.yrdatabase.api.event.SessionReason;
+import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
 import com.yirankuma.yrdatabase.nukkit.YRDatabaseNukkit;
 import com.yirankuma.yrdatabase.nukkit.event.NukkitPlayerDataInitEvent;
 import com.yirankuma.yrdatabase.nukkit.event.NukkitPlayerDataSaveEvent;
@@ -69,6 +70,11 @@ public class PlayerEventListener implements Listener {
             sessionBridge.triggerLocalJoin(uuid.toString(), playerName);
         }
 
+        // Claim the ownership lease so this server persists the player's data without locking
+        if (db instanceof DatabaseManagerImpl) {
+            ((DatabaseManagerImpl) db).playerJoined(uuid.toString());
+        }
+
         db.get("player_sessions", uuid.toString())
             .thenAccept(result -> {
                 if (result.isPresent()) {
@@ -142,6 +148,12 @@ public class PlayerEventListener implements Listener {
             .exceptionally(e -> {
                 plugin.getLogger().error("Error caching session for " + playerName, e);
                 return null;
+            })
+            .thenRun(() -> {
+                // Persist what this server still owns (including the session above) and hand the lease over
+                if (db instanceof DatabaseManagerImpl) {
+                    ((DatabaseManagerImpl) db).playerLeft(uuid.toString());
+                }
             });
 
         recordPlayerEvent(uuid, playerName, "QUIT");
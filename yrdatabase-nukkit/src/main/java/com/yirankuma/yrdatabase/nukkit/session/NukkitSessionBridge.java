@@ -3,10 +3,12 @@ package com.yirankuma.yrdatabase.nukkit.session;
 import cn.nukkit.Player;
 import cn.nukkit.Server;
 import com.yirankuma.yrdatabase.api.DatabaseManager;
+import com.yirankuma.yrdatabase.api.config.DatabaseConfig;
 import com.yirankuma.yrdatabase.api.provider.CacheProvider;
 import com.yirankuma.yrdatabase.api.session.SessionEventData;
 import com.yirankuma.yrdatabase.api.session.SessionEventListener;
 import com.yirankuma.yrdatabase.api.session.SessionManager;
+import com.yirankuma.yrdatabase.core.DatabaseManagerImpl;
 import com.yirankuma.yrdatabase.core.session.SessionEventManagerImpl;
 import com.yirankuma.yrdatabase.nukkit.YRDatabaseNukkit;
 import com.yirankuma.yrdatabase.nukkit.event.NukkitPlayerRealJoinEvent;
@@ -48,7 +50,10 @@ public class NukkitSessionBridge implements SessionEventListener {
         // Create core session manager with lazy cache provider access
         this.sessionManager = new SessionEventManagerImpl(
             () -> dbManager.getCacheProvider().orElse(null),
-            proxyMode
+            proxyMode,
+            dbManager instanceof DatabaseManagerImpl
+                ? ((DatabaseManagerImpl) dbManager).getConfig().getSession()
+                : new DatabaseConfig.SessionConfig()
         );
         
         // Register ourselves as a listener
@@ -127,6 +127,8 @@ public class YRDatabaseWaterdog extends Plugin {
             redis.setPassword(getString(redisData, "password", ""));
             redis.setDatabase(getInt(redisData, "database", 0));
             redis.setTimeout(getInt(redisData, "timeout", 5000));
+            redis.setTransport(getString(redisData, "transport", "pubsub"));
+            redis.setStreamMaxLen(getInt(redisData, "streamMaxLen", 100000));
         }
 
         @SuppressWarnings("unchecked")
@@ -157,6 +159,8 @@ public class YRDatabaseWaterdog extends Plugin {
         redisMap.put("password", config.getRedis().getPassword());
         redisMap.put("database", config.getRedis().getDatabase());
         redisMap.put("timeout", config.getRedis().getTimeout());
+        redisMap.put("transport", config.getRedis().getTransport());
+        redisMap.put("streamMaxLen", config.getRedis().getStreamMaxLen());
         data.put("redis", redisMap);
         
         Map<String, Object> heartbeatMap = new LinkedHashMap<>();
@@ -33,6 +33,15 @@ public class WaterdogConfig {
         private String password = "";
         private int database = 0;
         private int timeout = 5000;
+        /**
+         * Session event transport: "pubsub", "stream" or "both".
+         * "both" is meant for rolling upgrades while sub-servers switch transports.
+         */
+        private String transport = "pubsub";
+        /**
+         * Approximate maximum length of the session stream.
+         */
+        private long streamMaxLen = 100000;
 
         public String getHost() { return host; }
         public int getPort() { return port; }
@@ -5,6 +5,7 @@ import com.google.gson.GsonBuilder;
 import com.yirankuma.yrdatabase.waterdog.config.WaterdogConfig;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisURI;
+import io.lettuce.core.XAddArgs;
 import io.lettuce.core.api.StatefulRedisConnection;
 import io.lettuce.core.api.async.RedisAsyncCommands;
 import org.apache.logging.log4j.Logger;
@@ -20,7 +21,7 @@ import java.util.concurrent.CompletableFuture;
  * <p>Responsibilities (High Cohesion):</p>
  * <ul>
  *   <li>Manage Redis connection lifecycle</li>
- *   <li>Publish session events to Redis channels</li>
+ *   <li>Publish session events to Redis channels and/or the session stream</li>
  *   <li>Handle connection failures gracefully</li>
  * </ul>
  * 
@@ -36,6 +37,9 @@ public class RedisPublisher {
     public static final String CHANNEL_PLAYER_TRANSFER = "yrdatabase:player:transfer";
     public static final String CHANNEL_HEARTBEAT = "yrdatabase:heartbeat";
 
+    // Stream carrying session events for consumer-group delivery (see session.transport on sub-servers)
+    public static final String SESSION_STREAM = "yrdatabase:session:stream";
+
     private final WaterdogConfig.Redis config;
     private final Logger logger;
     private final Gson gson;
@@ -136,7 +140,7 @@ public class RedisPublisher {
         data.put("timestamp", timestamp);
         data.put("type", "REAL_JOIN");
 
-        publish(CHANNEL_PLAYER_JOIN, data);
+        publishSessionEvent(CHANNEL_PLAYER_JOIN, data);
     }
 
     /**
@@ -152,7 +156,7 @@ public class RedisPublisher {
         data.put("timestamp", timestamp);
         data.put("type", "REAL_QUIT");
 
-        publish(CHANNEL_PLAYER_QUIT, data);
+        publishSessionEvent(CHANNEL_PLAYER_QUIT, data);
     }
 
     /**
@@ -169,7 +173,7 @@ public class RedisPublisher {
         data.put("timestamp", timestamp);
         data.put("type", "SERVER_TRANSFER");
 
-        publish(CHANNEL_PLAYER_TRANSFER, data);
+        publishSessionEvent(CHANNEL_PLAYER_TRANSFER, data);
     }
 
     /**
@@ -187,6 +191,41 @@ public class RedisPublisher {
         publish(CHANNEL_HEARTBEAT, data);
     }
 
+    /**
+     * Publish a session event using the configured transport.
+     */
+    private void publishSessionEvent(String channel, Map<String, Object> data) {
+        String transport = config.getTransport();
+        if (!"stream".equalsIgnoreCase(transport)) {
+            publish(channel, data);
+        }
+        if ("stream".equalsIgnoreCase(transport) || "both".equalsIgnoreCase(transport)) {
+            appendToStream(channel, data);
+        }
+    }
+
+    /**
+     * Append a session event to the session stream.
+     * The original channel name is kept so sub-servers can reuse the Pub/Sub message handlers.
+     */
+    private void appendToStream(String channel, Map<String, Object> data) {
+        try {
+            Map<String, String> body = new HashMap<>();
+            body.put("channel", channel);
+            body.put("data", gson.toJson(data));
+
+            // Instantiate XAddArgs directly (inner Builder classes break under shadow relocation)
+            XAddArgs args = new XAddArgs().maxlen(config.getStreamMaxLen()).approximateTrimming();
+            asyncCommands.xadd(SESSION_STREAM, args, body).whenComplete((id, error) -> {
+                if (error != null) {
+                    logger.warn("Failed to append to {}: {}", SESSION_STREAM, error.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Error appending message to {}: {}", SESSION_STREAM, e.getMessage());
+        }
+    }
+
     /**
      * Internal publish method.
      */